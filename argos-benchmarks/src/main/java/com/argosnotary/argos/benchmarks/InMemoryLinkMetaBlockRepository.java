@@ -0,0 +1,70 @@
+/*
+ * Argos Notary - A new way to secure the Software Supply Chain
+ *
+ * Copyright (C) 2019 - 2020 Rabobank Nederland
+ * Copyright (C) 2019 - 2021 Gerard Borst <gerard.borst@argosnotary.com>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package com.argosnotary.argos.benchmarks;
+
+import com.argosnotary.argos.domain.link.Artifact;
+import com.argosnotary.argos.domain.link.LinkMetaBlock;
+import com.argosnotary.argos.service.domain.link.LinkMetaBlockRepository;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Stream;
+
+import static java.util.stream.Collectors.toList;
+
+public class InMemoryLinkMetaBlockRepository implements LinkMetaBlockRepository {
+
+    private final Map<String, List<LinkMetaBlock>> linkMetaBlocks = new ConcurrentHashMap<>();
+
+    @Override
+    public List<LinkMetaBlock> findBySupplyChainId(String supplyChainId) {
+        return new ArrayList<>(linkMetaBlocks.getOrDefault(supplyChainId, List.of()));
+    }
+
+    @Override
+    public List<LinkMetaBlock> findBySupplyChainAndSha(String supplyChainId, String hash) {
+        return findBySupplyChainId(supplyChainId).stream()
+                .filter(linkMetaBlock -> Stream.concat(
+                        linkMetaBlock.getLink().getMaterials().stream(),
+                        linkMetaBlock.getLink().getProducts().stream())
+                        .map(Artifact::getHash)
+                        .anyMatch(hash::equals))
+                .collect(toList());
+    }
+
+    @Override
+    public void save(LinkMetaBlock link) {
+        linkMetaBlocks.computeIfAbsent(link.getSupplyChainId(), supplyChainId -> new ArrayList<>()).add(link);
+    }
+
+    @Override
+    public Set<Integer> saveAll(List<LinkMetaBlock> links) {
+        links.forEach(this::save);
+        return Set.of();
+    }
+
+    @Override
+    public void deleteBySupplyChainId(String supplyChainId) {
+        linkMetaBlocks.remove(supplyChainId);
+    }
+}
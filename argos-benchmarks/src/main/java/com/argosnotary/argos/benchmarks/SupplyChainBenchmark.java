@@ -0,0 +1,70 @@
+/*
+ * Argos Notary - A new way to secure the Software Supply Chain
+ *
+ * Copyright (C) 2019 - 2020 Rabobank Nederland
+ * Copyright (C) 2019 - 2021 Gerard Borst <gerard.borst@argosnotary.com>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package com.argosnotary.argos.benchmarks;
+
+import com.argosnotary.argos.benchmarks.SupplyChainGenerator.GlobComplexity;
+import com.argosnotary.argos.benchmarks.SupplyChainGenerator.RuleMix;
+
+import org.bouncycastle.operator.OperatorCreationException;
+import org.bouncycastle.util.io.pem.PemGenerationException;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+
+import java.security.NoSuchAlgorithmException;
+
+/**
+ * Parameters of the generated supply chain shared by the benchmarks, override them with -p name=values.
+ */
+@State(Scope.Benchmark)
+public abstract class SupplyChainBenchmark {
+
+    @Param({"4"})
+    public int steps;
+
+    @Param({"2"})
+    public int linksPerStep;
+
+    @Param({"100", "1000"})
+    public int artifactsPerLink;
+
+    @Param({"ALLOW", "MATCH", "MIXED"})
+    public RuleMix ruleMix;
+
+    @Param({"SIMPLE", "EXTENSION", "NESTED"})
+    public GlobComplexity globComplexity;
+
+    protected SupplyChain supplyChain;
+
+    protected InMemoryLinkMetaBlockRepository linkMetaBlockRepository;
+
+    protected void generateSupplyChain() throws NoSuchAlgorithmException, OperatorCreationException, PemGenerationException {
+        supplyChain = SupplyChainGenerator.builder()
+                .steps(steps)
+                .linksPerStep(linksPerStep)
+                .artifactsPerLink(artifactsPerLink)
+                .ruleMix(ruleMix)
+                .globComplexity(globComplexity)
+                .build()
+                .generate();
+        linkMetaBlockRepository = new InMemoryLinkMetaBlockRepository();
+        supplyChain.getLinkMetaBlocks().forEach(linkMetaBlockRepository::save);
+    }
+}
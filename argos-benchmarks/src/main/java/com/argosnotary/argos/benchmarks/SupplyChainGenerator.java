@@ -0,0 +1,219 @@
+/*
+ * Argos Notary - A new way to secure the Software Supply Chain
+ *
+ * Copyright (C) 2019 - 2020 Rabobank Nederland
+ * Copyright (C) 2019 - 2021 Gerard Borst <gerard.borst@argosnotary.com>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package com.argosnotary.argos.benchmarks;
+
+import com.argosnotary.argos.domain.crypto.KeyPair;
+import com.argosnotary.argos.domain.crypto.PublicKey;
+import com.argosnotary.argos.domain.crypto.signing.JsonSigningSerializer;
+import com.argosnotary.argos.domain.crypto.signing.Signer;
+import com.argosnotary.argos.domain.layout.ArtifactType;
+import com.argosnotary.argos.domain.layout.Layout;
+import com.argosnotary.argos.domain.layout.LayoutMetaBlock;
+import com.argosnotary.argos.domain.layout.Step;
+import com.argosnotary.argos.domain.layout.rule.MatchRule;
+import com.argosnotary.argos.domain.layout.rule.Rule;
+import com.argosnotary.argos.domain.layout.rule.RuleType;
+import com.argosnotary.argos.domain.link.Artifact;
+import com.argosnotary.argos.domain.link.Link;
+import com.argosnotary.argos.domain.link.LinkMetaBlock;
+
+import lombok.Builder;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import org.apache.commons.codec.digest.DigestUtils;
+import org.bouncycastle.operator.OperatorCreationException;
+import org.bouncycastle.util.io.pem.PemGenerationException;
+
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+
+import static java.util.stream.Collectors.toList;
+
+/**
+ * Generates a signed supply chain of consecutive steps, every step modifies all artifacts of the previous
+ * step. Every link of a step is signed by another functionary, the layout requires all of them. The rules
+ * of the layout are valid for the generated links so a verification run passes all verifications.
+ */
+public class SupplyChainGenerator {
+
+    public static final String SUPPLY_CHAIN_ID = "benchmarkSupplyChain";
+
+    private static final char[] PASSPHRASE = "benchmark".toCharArray();
+
+    public enum RuleMix {
+        /* allow all materials and products */
+        ALLOW,
+        /* match the materials with the products of the previous step, the products are modified */
+        MATCH,
+        /* require, delete, match and disallow materials, create, modify and disallow products */
+        MIXED
+    }
+
+    @RequiredArgsConstructor
+    @Getter
+    public enum GlobComplexity {
+        SIMPLE("**"),
+        EXTENSION("**/*.java"),
+        NESTED("module*/src/main/**/[A-Z]*.{java,kt}");
+
+        private final String pattern;
+    }
+
+    private final int steps;
+    private final int linksPerStep;
+    private final int artifactsPerLink;
+    private final RuleMix ruleMix;
+    private final GlobComplexity globComplexity;
+
+    private final JsonSigningSerializer serializer = new JsonSigningSerializer();
+
+    @Builder
+    public SupplyChainGenerator(int steps, int linksPerStep, int artifactsPerLink, RuleMix ruleMix, GlobComplexity globComplexity) {
+        this.steps = steps;
+        this.linksPerStep = linksPerStep;
+        this.artifactsPerLink = artifactsPerLink;
+        this.ruleMix = ruleMix;
+        this.globComplexity = globComplexity;
+    }
+
+    public SupplyChain generate() throws NoSuchAlgorithmException, OperatorCreationException, PemGenerationException {
+        KeyPair owner = KeyPair.createKeyPair(PASSPHRASE);
+        List<KeyPair> functionaries = new ArrayList<>();
+        for (int i = 0; i < linksPerStep; i++) {
+            functionaries.add(KeyPair.createKeyPair(PASSPHRASE));
+        }
+        List<String> functionaryKeyIds = functionaries.stream().map(KeyPair::getKeyId).collect(toList());
+
+        List<Artifact> artifacts = new ArrayList<>();
+        for (int i = 0; i < artifactsPerLink; i++) {
+            String uri = createUri(i);
+            artifacts.add(new Artifact(uri, DigestUtils.sha256Hex("source" + uri)));
+        }
+
+        List<Step> stepList = new ArrayList<>();
+        List<LinkMetaBlock> linkMetaBlocks = new ArrayList<>();
+        for (int stepNumber = 0; stepNumber < steps; stepNumber++) {
+            String stepName = createStepName(stepNumber);
+            List<Artifact> materials = artifacts;
+            List<Artifact> products = materials.stream()
+                    .map(artifact -> new Artifact(artifact.getUri(), DigestUtils.sha256Hex(stepName + artifact.getUri())))
+                    .collect(toList());
+            if (ruleMix == RuleMix.MIXED) {
+                String uri = createGeneratedUri(stepNumber);
+                products.add(new Artifact(uri, DigestUtils.sha256Hex(stepName + uri)));
+            }
+            for (KeyPair functionary : functionaries) {
+                Link link = Link.builder()
+                        .stepName(stepName)
+                        .materials(new ArrayList<>(materials))
+                        .products(new ArrayList<>(products))
+                        .build();
+                linkMetaBlocks.add(LinkMetaBlock.builder()
+                        .supplyChainId(SUPPLY_CHAIN_ID)
+                        .link(link)
+                        .signature(Signer.sign(functionary, PASSPHRASE, serializer.serialize(link)))
+                        .build());
+            }
+            stepList.add(Step.builder()
+                    .name(stepName)
+                    .authorizedKeyIds(functionaryKeyIds)
+                    .requiredNumberOfLinks(linksPerStep)
+                    .expectedMaterials(createMaterialRules(stepNumber))
+                    .expectedProducts(createProductRules(stepNumber))
+                    .build());
+            artifacts = products;
+        }
+
+        List<PublicKey> keys = new ArrayList<>();
+        keys.add(new PublicKey(owner.getKeyId(), owner.getPublicKey()));
+        functionaries.forEach(functionary -> keys.add(new PublicKey(functionary.getKeyId(), functionary.getPublicKey())));
+        Layout layout = Layout.builder()
+                .keys(keys)
+                .authorizedKeyIds(List.of(owner.getKeyId()))
+                .expectedEndProducts(List.of(createMatchRule(steps - 1)))
+                .steps(stepList)
+                .build();
+
+        return SupplyChain.builder()
+                .layoutMetaBlock(LayoutMetaBlock.builder()
+                        .supplyChainId(SUPPLY_CHAIN_ID)
+                        .layout(layout)
+                        .signatures(List.of(Signer.sign(owner, PASSPHRASE, serializer.serialize(layout))))
+                        .build())
+                .linkMetaBlocks(linkMetaBlocks)
+                .productsToVerify(new HashSet<>(artifacts))
+                .build();
+    }
+
+    private List<Rule> createMaterialRules(int stepNumber) {
+        Rule consumeMaterials = stepNumber == 0
+                ? new Rule(RuleType.ALLOW, globComplexity.getPattern())
+                : createMatchRule(stepNumber - 1);
+        switch (ruleMix) {
+            case ALLOW:
+                return List.of(new Rule(RuleType.ALLOW, globComplexity.getPattern()));
+            case MATCH:
+                return List.of(consumeMaterials);
+            default:
+                return List.of(
+                        new Rule(RuleType.REQUIRE, "module0/**"),
+                        new Rule(RuleType.DELETE, "module1/**"),
+                        consumeMaterials,
+                        new Rule(RuleType.DISALLOW, "**"));
+        }
+    }
+
+    private List<Rule> createProductRules(int stepNumber) {
+        switch (ruleMix) {
+            case ALLOW:
+                return List.of(new Rule(RuleType.ALLOW, globComplexity.getPattern()));
+            case MATCH:
+                return List.of(new Rule(RuleType.MODIFY, globComplexity.getPattern()));
+            default:
+                return List.of(
+                        new Rule(RuleType.CREATE, createGeneratedUri(stepNumber)),
+                        new Rule(RuleType.MODIFY, globComplexity.getPattern()),
+                        new Rule(RuleType.DISALLOW, "**"));
+        }
+    }
+
+    private MatchRule createMatchRule(int destinationStepNumber) {
+        return MatchRule.builder()
+                .pattern(globComplexity.getPattern())
+                .destinationType(ArtifactType.PRODUCTS)
+                .destinationStepName(createStepName(destinationStepNumber))
+                .build();
+    }
+
+    public static String createStepName(int stepNumber) {
+        return "step" + stepNumber;
+    }
+
+    private static String createUri(int artifactNumber) {
+        return "module" + (artifactNumber % 4) + "/src/main/java/com/example/package" + (artifactNumber % 16)
+                + "/File" + artifactNumber + ".java";
+    }
+
+    public static String createGeneratedUri(int stepNumber) {
+        return "module0/src/main/java/com/example/generated/Step" + stepNumber + ".java";
+    }
+}
@@ -0,0 +1,98 @@
+/*
+ * Argos Notary - A new way to secure the Software Supply Chain
+ *
+ * Copyright (C) 2019 - 2020 Rabobank Nederland
+ * Copyright (C) 2019 - 2021 Gerard Borst <gerard.borst@argosnotary.com>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package com.argosnotary.argos.service.domain.verification;
+
+import com.argosnotary.argos.benchmarks.SupplyChainBenchmark;
+import com.argosnotary.argos.domain.layout.Step;
+import com.argosnotary.argos.domain.link.Link;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class RulesVerificationBenchmark extends SupplyChainBenchmark {
+
+    /**
+     * Compare sequential and concurrent step evaluation, e.g. -p steps=8 -p stepParallelism=1,8
+     */
+    @Param({"1", "4"})
+    public int stepParallelism;
+
+    private RulesVerification rulesVerification;
+
+    private VerificationContext verificationContext;
+
+    private Map<String, Link> stepLinkMap;
+
+    private Step lastStep;
+
+    @Setup
+    public void setup() throws Exception {
+        generateSupplyChain();
+        rulesVerification = new RulesVerification(VerificationEngine.createRuleVerifications());
+        rulesVerification.setStepParallelism(stepParallelism);
+        rulesVerification.init();
+        verificationContext = VerificationContext.builder()
+                .layoutMetaBlock(supplyChain.getLayoutMetaBlock())
+                .linkMetaBlocks(supplyChain.getLinkMetaBlocks())
+                .productsToVerify(supplyChain.getProductsToVerify())
+                .build();
+        stepLinkMap = verificationContext.getStepLinkMap();
+        List<Step> steps = supplyChain.getLayoutMetaBlock().getLayout().getSteps();
+        lastStep = steps.get(steps.size() - 1);
+        if (!verify()) {
+            throw new IllegalStateException("generated supply chain is not valid");
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        rulesVerification.shutdown();
+    }
+
+    @Benchmark
+    public boolean verify() {
+        return rulesVerification.verify(verificationContext).isRunIsValid();
+    }
+
+    @Benchmark
+    public boolean verifyStep() {
+        return rulesVerification.verifyStep(stepLinkMap, lastStep);
+    }
+}
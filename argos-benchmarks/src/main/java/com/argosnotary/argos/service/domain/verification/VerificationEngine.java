@@ -0,0 +1,119 @@
+/*
+ * Argos Notary - A new way to secure the Software Supply Chain
+ *
+ * Copyright (C) 2019 - 2020 Rabobank Nederland
+ * Copyright (C) 2019 - 2021 Gerard Borst <gerard.borst@argosnotary.com>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package com.argosnotary.argos.service.domain.verification;
+
+import com.argosnotary.argos.service.domain.link.LinkMetaBlockRepository;
+import com.argosnotary.argos.service.domain.verification.rules.AllowRuleVerification;
+import com.argosnotary.argos.service.domain.verification.rules.CreateOrModifyRuleVerification;
+import com.argosnotary.argos.service.domain.verification.rules.CreateRuleVerification;
+import com.argosnotary.argos.service.domain.verification.rules.DeleteRuleVerification;
+import com.argosnotary.argos.service.domain.verification.rules.DisallowRuleVerification;
+import com.argosnotary.argos.service.domain.verification.rules.MatchRuleVerification;
+import com.argosnotary.argos.service.domain.verification.rules.ModifyRuleVerification;
+import com.argosnotary.argos.service.domain.verification.rules.RequireRuleVerification;
+import com.argosnotary.argos.service.domain.verification.rules.RuleVerification;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import lombok.Getter;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The verification components wired as in the service. Without caching every run verifies all
+ * signatures and rules again.
+ */
+@Getter
+public class VerificationEngine {
+
+    private final RulesVerification rulesVerification;
+
+    private final VerificationContextsProvider verificationContextsProvider;
+
+    private final VerificationProvider verificationProvider;
+
+    public VerificationEngine(LinkMetaBlockRepository linkMetaBlockRepository, boolean caching, int parallelism, int stepParallelism) {
+        MeterRegistry meterRegistry = new SimpleMeterRegistry();
+        List<RuleVerification> ruleVerifications = createRuleVerifications();
+        rulesVerification = new RulesVerification(ruleVerifications);
+        rulesVerification.setStepParallelism(stepParallelism);
+        rulesVerification.init();
+        ExpectedEndProductsVerification expectedEndProductsVerification = new ExpectedEndProductsVerification(ruleVerifications);
+        expectedEndProductsVerification.init();
+
+        LinkSignatureCache linkSignatureCache = new LinkSignatureCache(meterRegistry);
+        // the persistent tier is disabled so no repository is needed
+        VerificationResultCache verificationResultCache = new VerificationResultCache(meterRegistry, null);
+        CompiledLayoutCache compiledLayoutCache = new CompiledLayoutCache(meterRegistry);
+        // the generated supply chains are measured whatever their size
+        VerificationBudget verificationBudget = new VerificationBudget(meterRegistry);
+        verificationBudget.setMaxContexts(Long.MAX_VALUE);
+        verificationBudget.setMaxArtifacts(Long.MAX_VALUE);
+        verificationBudget.setDeadline(0);
+        verificationBudget.init();
+        if (!caching) {
+            linkSignatureCache.setMaxSize(0);
+            verificationResultCache.setMaxSize(0);
+            compiledLayoutCache.setMaxSize(0);
+        }
+
+        StepAuthorizedKeyIdVerification stepAuthorizedKeyIdVerification = new StepAuthorizedKeyIdVerification();
+        LinkMetaBlockSignatureVerification linkMetaBlockSignatureVerification = new LinkMetaBlockSignatureVerification(linkSignatureCache);
+        RequiredNumberOfLinksVerification requiredNumberOfLinksVerification = new RequiredNumberOfLinksVerification();
+        verificationContextsProvider = new VerificationContextsProvider(linkMetaBlockRepository,
+                stepAuthorizedKeyIdVerification,
+                linkMetaBlockSignatureVerification,
+                requiredNumberOfLinksVerification,
+                rulesVerification,
+                verificationBudget);
+
+        List<Verification> verifications = new ArrayList<>(List.of(
+                new LayoutAuthorizedKeyIdVerification(),
+                new LayoutMetaBlockSignatureVerification(),
+                linkMetaBlockSignatureVerification,
+                requiredNumberOfLinksVerification,
+                rulesVerification,
+                stepAuthorizedKeyIdVerification,
+                expectedEndProductsVerification));
+        verificationProvider = new VerificationProvider(verifications, verificationContextsProvider,
+                linkMetaBlockRepository, verificationResultCache, compiledLayoutCache, verificationBudget);
+        verificationProvider.setParallelism(parallelism);
+        verificationProvider.setQueueCapacity(100);
+        verificationProvider.init();
+    }
+
+    public static List<RuleVerification> createRuleVerifications() {
+        return List.of(
+                new AllowRuleVerification(),
+                new CreateOrModifyRuleVerification(),
+                new CreateRuleVerification(),
+                new DeleteRuleVerification(),
+                new DisallowRuleVerification(),
+                new MatchRuleVerification(),
+                new ModifyRuleVerification(),
+                new RequireRuleVerification());
+    }
+
+    public void shutdown() {
+        verificationProvider.shutdown();
+        rulesVerification.shutdown();
+    }
+}
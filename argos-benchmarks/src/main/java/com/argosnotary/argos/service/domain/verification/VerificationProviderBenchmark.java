@@ -0,0 +1,78 @@
+/*
+ * Argos Notary - A new way to secure the Software Supply Chain
+ *
+ * Copyright (C) 2019 - 2020 Rabobank Nederland
+ * Copyright (C) 2019 - 2021 Gerard Borst <gerard.borst@argosnotary.com>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package com.argosnotary.argos.service.domain.verification;
+
+import com.argosnotary.argos.benchmarks.SupplyChainBenchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class VerificationProviderBenchmark extends SupplyChainBenchmark {
+
+    @Param({"false", "true"})
+    public boolean caching;
+
+    @Param({"1"})
+    public int parallelism;
+
+    @Param({"1"})
+    public int stepParallelism;
+
+    private VerificationEngine verificationEngine;
+
+    @Setup
+    public void setup() throws Exception {
+        generateSupplyChain();
+        verificationEngine = new VerificationEngine(linkMetaBlockRepository, caching, parallelism, stepParallelism);
+        if (!verifyRun()) {
+            throw new IllegalStateException("generated supply chain is not valid");
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        verificationEngine.shutdown();
+    }
+
+    @Benchmark
+    public boolean verifyRun() {
+        return verificationEngine.getVerificationProvider()
+                .verifyRun(supplyChain.getLayoutMetaBlock(), supplyChain.getProductsToVerify())
+                .isRunIsValid();
+    }
+}
@@ -0,0 +1,164 @@
+/*
+ * Argos Notary - A new way to secure the Software Supply Chain
+ *
+ * Copyright (C) 2019 - 2020 Rabobank Nederland
+ * Copyright (C) 2019 - 2021 Gerard Borst <gerard.borst@argosnotary.com>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package com.argosnotary.argos.service.domain.verification.rules;
+
+import com.argosnotary.argos.benchmarks.SupplyChain;
+import com.argosnotary.argos.benchmarks.SupplyChainGenerator;
+import com.argosnotary.argos.benchmarks.SupplyChainGenerator.GlobComplexity;
+import com.argosnotary.argos.benchmarks.SupplyChainGenerator.RuleMix;
+import com.argosnotary.argos.domain.layout.ArtifactType;
+import com.argosnotary.argos.domain.layout.rule.MatchRule;
+import com.argosnotary.argos.domain.layout.rule.Rule;
+import com.argosnotary.argos.domain.layout.rule.RuleType;
+import com.argosnotary.argos.domain.link.Artifact;
+import com.argosnotary.argos.domain.link.Link;
+import com.argosnotary.argos.domain.link.LinkMetaBlock;
+import com.argosnotary.argos.service.domain.verification.ArtifactsVerificationContext;
+import com.argosnotary.argos.service.domain.verification.VerificationEngine;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static com.argosnotary.argos.benchmarks.SupplyChainGenerator.createGeneratedUri;
+import static com.argosnotary.argos.benchmarks.SupplyChainGenerator.createStepName;
+import static java.util.function.Function.identity;
+import static java.util.stream.Collectors.toList;
+import static java.util.stream.Collectors.toMap;
+
+/**
+ * Verifies a single rule against the second step of a generated supply chain. A rule consumes artifacts so
+ * every invocation verifies against a new artifacts context, createContext measures the creation of that
+ * context alone.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class RuleVerificationBenchmark {
+
+    @Param({"100", "1000"})
+    public int artifactsPerLink;
+
+    @Param({"SIMPLE", "EXTENSION", "NESTED"})
+    public GlobComplexity globComplexity;
+
+    @Param({"ALLOW", "CREATE", "CREATE_OR_MODIFY", "DELETE", "DISALLOW", "MATCH", "MODIFY", "REQUIRE"})
+    public RuleType ruleType;
+
+    private RuleVerification ruleVerification;
+
+    private Rule rule;
+
+    private Map<String, Link> linksMap;
+
+    private Link link;
+
+    private List<Artifact> artifacts;
+
+    @Setup
+    public void setup() throws Exception {
+        SupplyChain supplyChain = SupplyChainGenerator.builder()
+                .steps(2)
+                .linksPerStep(1)
+                .artifactsPerLink(artifactsPerLink)
+                .ruleMix(RuleMix.MIXED)
+                .globComplexity(globComplexity)
+                .build()
+                .generate();
+        linksMap = supplyChain.getLinkMetaBlocks().stream()
+                .map(LinkMetaBlock::getLink)
+                .collect(toMap(Link::getStepName, identity()));
+        link = linksMap.get(createStepName(1));
+        ruleVerification = VerificationEngine.createRuleVerifications().stream()
+                .filter(verification -> verification.getRuleType() == ruleType)
+                .findFirst()
+                .orElseThrow();
+
+        String pattern = globComplexity.getPattern();
+        String createdUri = createGeneratedUri(1);
+        switch (ruleType) {
+            case CREATE:
+                rule = new Rule(ruleType, createdUri);
+                artifacts = link.getProducts();
+                break;
+            case CREATE_OR_MODIFY:
+                rule = new Rule(ruleType, pattern);
+                artifacts = link.getProducts();
+                break;
+            case MODIFY:
+                rule = new Rule(ruleType, pattern);
+                // the created product is consumed by the create rule of the step
+                artifacts = link.getProducts().stream()
+                        .filter(artifact -> !artifact.getUri().equals(createdUri))
+                        .collect(toList());
+                break;
+            case DISALLOW:
+                rule = new Rule(ruleType, "**/*.class");
+                artifacts = link.getMaterials();
+                break;
+            case MATCH:
+                rule = MatchRule.builder()
+                        .pattern(pattern)
+                        .destinationType(ArtifactType.PRODUCTS)
+                        .destinationStepName(createStepName(0))
+                        .build();
+                artifacts = link.getMaterials();
+                break;
+            default:
+                rule = new Rule(ruleType, pattern);
+                artifacts = link.getMaterials();
+        }
+        if (!verify()) {
+            throw new IllegalStateException("rule " + ruleType + " is not valid for the generated supply chain");
+        }
+    }
+
+    @Benchmark
+    public ArtifactsVerificationContext createContext() {
+        return ArtifactsVerificationContext.builder()
+                .linksMap(linksMap)
+                .link(link)
+                .notConsumedArtifacts(artifacts)
+                .build();
+    }
+
+    @Benchmark
+    public boolean verify() {
+        return ruleVerification.verify(RuleVerificationContext.<Rule>builder()
+                .rule(rule)
+                .artifactsContext(createContext())
+                .build());
+    }
+}
@@ -21,12 +21,8 @@ package com.argosnotary.argos.domain.crypto;
 
 import java.io.IOException;
 import java.security.GeneralSecurityException;
-import java.security.KeyFactory;
 import java.security.Security;
-import java.security.spec.X509EncodedKeySpec;
 
-import org.bouncycastle.asn1.ASN1InputStream;
-import org.bouncycastle.asn1.x509.SubjectPublicKeyInfo;
 import org.bouncycastle.jce.provider.BouncyCastleProvider;
 
 import com.fasterxml.jackson.annotation.JsonIgnore;
@@ -52,16 +48,14 @@ public class PublicKey {
     
     @JsonIgnore
     public java.security.PublicKey getJavaPublicKey() throws GeneralSecurityException, IOException {
-    	return PublicKey.instance(publicKey);
+        return keyId == null ? PublicKey.instance(publicKey) : PublicKey.instance(keyId, publicKey);
     }
 
     public static java.security.PublicKey instance(byte[] encodedKey) throws GeneralSecurityException, IOException {
-        X509EncodedKeySpec x509EncodedKeySpec = new X509EncodedKeySpec(encodedKey);
-        KeyFactory keyFactory = null;
-        try (ASN1InputStream aIn = new ASN1InputStream(encodedKey)) {
-            SubjectPublicKeyInfo info = SubjectPublicKeyInfo.getInstance(aIn.readObject());
-            keyFactory = KeyFactory.getInstance(info.getAlgorithm().getAlgorithm().getId(), "BC");
-        }
-        return keyFactory.generatePublic(x509EncodedKeySpec);
+        return instance(KeyIdProvider.computeKeyId(encodedKey), encodedKey);
+    }
+
+    public static java.security.PublicKey instance(String keyId, byte[] encodedKey) throws GeneralSecurityException, IOException {
+        return PublicKeyCache.getPublicKey(keyId, encodedKey);
     }
 }
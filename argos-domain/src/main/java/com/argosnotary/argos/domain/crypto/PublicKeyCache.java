@@ -0,0 +1,97 @@
+/*
+ * Argos Notary - A new way to secure the Software Supply Chain
+ *
+ * Copyright (C) 2019 - 2020 Rabobank Nederland
+ * Copyright (C) 2019 - 2021 Gerard Borst <gerard.borst@argosnotary.com>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package com.argosnotary.argos.domain.crypto;
+
+import lombok.AccessLevel;
+import lombok.NoArgsConstructor;
+import lombok.RequiredArgsConstructor;
+
+import org.bouncycastle.asn1.ASN1InputStream;
+import org.bouncycastle.asn1.x509.SubjectPublicKeyInfo;
+
+import java.io.IOException;
+import java.security.GeneralSecurityException;
+import java.security.KeyFactory;
+import java.security.spec.X509EncodedKeySpec;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Bounded cache of decoded public keys by key id. An entry is only returned when the encoded key equals the
+ * encoded key it was decoded from. Key factories are pooled per thread and algorithm.
+ */
+@NoArgsConstructor(access = AccessLevel.PRIVATE)
+class PublicKeyCache {
+
+    static final int MAX_CACHED_KEYS = 1024;
+
+    private static final Map<String, CachedKey> CACHED_KEYS = new LinkedHashMap<String, CachedKey>(16, 0.75f, true) {
+        private static final long serialVersionUID = 1L;
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, CachedKey> eldest) {
+            return size() > MAX_CACHED_KEYS;
+        }
+    };
+
+    private static final ThreadLocal<Map<String, KeyFactory>> KEY_FACTORIES = ThreadLocal.withInitial(HashMap::new);
+
+    static java.security.PublicKey getPublicKey(String keyId, byte[] encodedKey) throws GeneralSecurityException, IOException {
+        CachedKey cachedKey;
+        synchronized (CACHED_KEYS) {
+            cachedKey = CACHED_KEYS.get(keyId);
+        }
+        if (cachedKey != null && Arrays.equals(cachedKey.encodedKey, encodedKey)) {
+            return cachedKey.publicKey;
+        }
+        java.security.PublicKey publicKey = decode(encodedKey);
+        synchronized (CACHED_KEYS) {
+            CACHED_KEYS.put(keyId, new CachedKey(encodedKey.clone(), publicKey));
+        }
+        return publicKey;
+    }
+
+    static int size() {
+        synchronized (CACHED_KEYS) {
+            return CACHED_KEYS.size();
+        }
+    }
+
+    private static java.security.PublicKey decode(byte[] encodedKey) throws GeneralSecurityException, IOException {
+        String algorithm;
+        try (ASN1InputStream aIn = new ASN1InputStream(encodedKey)) {
+            algorithm = SubjectPublicKeyInfo.getInstance(aIn.readObject()).getAlgorithm().getAlgorithm().getId();
+        }
+        KeyFactory keyFactory = KEY_FACTORIES.get().get(algorithm);
+        if (keyFactory == null) {
+            keyFactory = KeyFactory.getInstance(algorithm, "BC");
+            KEY_FACTORIES.get().put(algorithm, keyFactory);
+        }
+        return keyFactory.generatePublic(new X509EncodedKeySpec(encodedKey));
+    }
+
+    @RequiredArgsConstructor
+    private static class CachedKey {
+        private final byte[] encodedKey;
+        private final java.security.PublicKey publicKey;
+    }
+}
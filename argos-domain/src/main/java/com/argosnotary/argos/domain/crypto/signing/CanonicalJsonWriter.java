@@ -0,0 +1,223 @@
+/*
+ * Argos Notary - A new way to secure the Software Supply Chain
+ *
+ * Copyright (C) 2019 - 2020 Rabobank Nederland
+ * Copyright (C) 2019 - 2021 Gerard Borst <gerard.borst@argosnotary.com>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package com.argosnotary.argos.domain.crypto.signing;
+
+import com.argosnotary.argos.domain.link.Artifact;
+import com.argosnotary.argos.domain.link.Link;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+
+import static java.util.Comparator.comparing;
+import static java.util.Comparator.naturalOrder;
+import static java.util.Comparator.nullsFirst;
+
+/**
+ * Writes the signable json of a link as UTF-8 bytes directly to an output stream. The output is byte for byte
+ * equal to the json written by an ObjectMapper with alphabetically sorted properties and non null inclusion,
+ * encoded with {@link String#getBytes(java.nio.charset.Charset)}. Artifacts are written in the order of their
+ * uri without cloning the link.
+ */
+class CanonicalJsonWriter {
+
+    private static final Comparator<Artifact> ARTIFACT_ORDER = nullsFirst(comparing(Artifact::getUri, nullsFirst(naturalOrder())));
+
+    private static final byte[] HEX_DIGITS = {'0', '1', '2', '3', '4', '5', '6', '7', '8', '9', 'A', 'B', 'C', 'D', 'E', 'F'};
+
+    private static final int BUFFER_SIZE = 8192;
+
+    /*
+     * leaves room for the longest sequence written for one character, an escaped control character
+     */
+    private static final int MAX_CHAR_BYTES = 6;
+
+    private final OutputStream outputStream;
+
+    private final byte[] buffer = new byte[BUFFER_SIZE];
+
+    private int position;
+
+    CanonicalJsonWriter(OutputStream outputStream) {
+        this.outputStream = outputStream;
+    }
+
+    void writeLink(Link link) throws IOException {
+        writeByte('{');
+        boolean first = true;
+        if (link.getMaterials() != null) {
+            first = writeFieldName("materials", first);
+            writeArtifacts(link.getMaterials());
+        }
+        if (link.getProducts() != null) {
+            first = writeFieldName("products", first);
+            writeArtifacts(link.getProducts());
+        }
+        if (link.getStepName() != null) {
+            writeFieldName("stepName", first);
+            writeString(link.getStepName());
+        }
+        writeByte('}');
+        flush();
+    }
+
+    private void writeArtifacts(List<Artifact> artifacts) throws IOException {
+        Artifact[] sortedArtifacts = sort(artifacts);
+        writeByte('[');
+        for (int i = 0; i < sortedArtifacts.length; i++) {
+            if (i > 0) {
+                writeByte(',');
+            }
+            writeArtifact(sortedArtifacts[i]);
+        }
+        writeByte(']');
+    }
+
+    private static Artifact[] sort(List<Artifact> artifacts) {
+        Artifact[] sortedArtifacts = artifacts.toArray(new Artifact[0]);
+        for (int i = 1; i < sortedArtifacts.length; i++) {
+            if (ARTIFACT_ORDER.compare(sortedArtifacts[i - 1], sortedArtifacts[i]) > 0) {
+                Arrays.sort(sortedArtifacts, ARTIFACT_ORDER);
+                break;
+            }
+        }
+        return sortedArtifacts;
+    }
+
+    private void writeArtifact(Artifact artifact) throws IOException {
+        if (artifact == null) {
+            writeAscii("null");
+            return;
+        }
+        writeByte('{');
+        boolean first = true;
+        if (artifact.getHash() != null) {
+            first = writeFieldName("hash", first);
+            writeString(artifact.getHash());
+        }
+        if (artifact.getUri() != null) {
+            writeFieldName("uri", first);
+            writeString(artifact.getUri());
+        }
+        writeByte('}');
+    }
+
+    private boolean writeFieldName(String name, boolean first) throws IOException {
+        if (!first) {
+            writeByte(',');
+        }
+        writeByte('"');
+        writeAscii(name);
+        writeByte('"');
+        writeByte(':');
+        return false;
+    }
+
+    private void writeString(String value) throws IOException {
+        writeByte('"');
+        int length = value.length();
+        for (int i = 0; i < length; i++) {
+            if (position > BUFFER_SIZE - MAX_CHAR_BYTES) {
+                flushBuffer();
+            }
+            char c = value.charAt(i);
+            if (c < 0x80) {
+                writeAsciiChar(c);
+            } else if (c < 0x800) {
+                buffer[position++] = (byte) (0xC0 | (c >> 6));
+                buffer[position++] = (byte) (0x80 | (c & 0x3F));
+            } else if (Character.isHighSurrogate(c) && i + 1 < length && Character.isLowSurrogate(value.charAt(i + 1))) {
+                int codePoint = Character.toCodePoint(c, value.charAt(++i));
+                buffer[position++] = (byte) (0xF0 | (codePoint >> 18));
+                buffer[position++] = (byte) (0x80 | ((codePoint >> 12) & 0x3F));
+                buffer[position++] = (byte) (0x80 | ((codePoint >> 6) & 0x3F));
+                buffer[position++] = (byte) (0x80 | (codePoint & 0x3F));
+            } else if (Character.isSurrogate(c)) {
+                // unpaired surrogates are replaced the same way as String.getBytes does
+                buffer[position++] = '?';
+            } else {
+                buffer[position++] = (byte) (0xE0 | (c >> 12));
+                buffer[position++] = (byte) (0x80 | ((c >> 6) & 0x3F));
+                buffer[position++] = (byte) (0x80 | (c & 0x3F));
+            }
+        }
+        writeByte('"');
+    }
+
+    private void writeAsciiChar(char c) {
+        if (c >= 0x20 && c != '"' && c != '\\') {
+            buffer[position++] = (byte) c;
+            return;
+        }
+        buffer[position++] = '\\';
+        switch (c) {
+            case '"':
+            case '\\':
+                buffer[position++] = (byte) c;
+                break;
+            case '\b':
+                buffer[position++] = 'b';
+                break;
+            case '\t':
+                buffer[position++] = 't';
+                break;
+            case '\n':
+                buffer[position++] = 'n';
+                break;
+            case '\f':
+                buffer[position++] = 'f';
+                break;
+            case '\r':
+                buffer[position++] = 'r';
+                break;
+            default:
+                buffer[position++] = 'u';
+                buffer[position++] = '0';
+                buffer[position++] = '0';
+                buffer[position++] = HEX_DIGITS[c >> 4];
+                buffer[position++] = HEX_DIGITS[c & 0xF];
+        }
+    }
+
+    private void writeAscii(String value) throws IOException {
+        for (int i = 0; i < value.length(); i++) {
+            writeByte(value.charAt(i));
+        }
+    }
+
+    private void writeByte(int b) throws IOException {
+        if (position == BUFFER_SIZE) {
+            flushBuffer();
+        }
+        buffer[position++] = (byte) b;
+    }
+
+    private void flushBuffer() throws IOException {
+        outputStream.write(buffer, 0, position);
+        position = 0;
+    }
+
+    private void flush() throws IOException {
+        flushBuffer();
+        outputStream.flush();
+    }
+}
@@ -26,20 +26,59 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 import com.argosnotary.argos.domain.ArgosError;
 import com.argosnotary.argos.domain.layout.Layout;
 import com.argosnotary.argos.domain.layout.Step;
-import com.argosnotary.argos.domain.link.Artifact;
 import com.argosnotary.argos.domain.link.Link;
+import org.apache.commons.codec.binary.Hex;
+import org.apache.commons.codec.digest.DigestUtils;
 import org.mapstruct.factory.Mappers;
 
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.security.DigestOutputStream;
+import java.security.MessageDigest;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
 import static java.util.Comparator.comparing;
 
 public class JsonSigningSerializer implements SigningSerializer {
 
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper()
+            .setSerializationInclusion(JsonInclude.Include.NON_NULL)
+            .configure(MapperFeature.SORT_PROPERTIES_ALPHABETICALLY, true);
+
     @Override
     public String serialize(Link link) {
-        Link linkClone = Mappers.getMapper(Cloner.class).clone(link);
-        linkClone.getMaterials().sort(comparing(Artifact::getUri));
-        linkClone.getProducts().sort(comparing(Artifact::getUri));
-        return serializeSignable(linkClone);
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        serialize(link, outputStream);
+        return new String(outputStream.toByteArray(), UTF_8);
+    }
+
+    /**
+     * Writes the UTF-8 encoded signable json of the link to the output stream, the bytes are equal to
+     * serialize(link).getBytes(UTF_8).
+     */
+    public void serialize(Link link, OutputStream outputStream) {
+        try {
+            new CanonicalJsonWriter(outputStream).writeLink(link);
+        } catch (IOException e) {
+            throw new ArgosError(e.getMessage(), e);
+        }
+    }
+
+    /**
+     * @return the hex encoded sha256 of the signable json of the link
+     */
+    public String digest(Link link) {
+        MessageDigest messageDigest = DigestUtils.getSha256Digest();
+        serialize(link, new DigestOutputStream(new NullOutputStream(), messageDigest));
+        return Hex.encodeHexString(messageDigest.digest());
+    }
+
+    /**
+     * @return the hex encoded sha256 of the signable json of the layout
+     */
+    public String digest(Layout layout) {
+        return DigestUtils.sha256Hex(serialize(layout).getBytes(UTF_8));
     }
 
     @Override
@@ -50,14 +89,25 @@ public class JsonSigningSerializer implements SigningSerializer {
     }
 
     private String serializeSignable(Object signable) {
-        ObjectMapper objectMapper = new ObjectMapper();
-        objectMapper.setSerializationInclusion(JsonInclude.Include.NON_NULL);
-        objectMapper.configure(MapperFeature.SORT_PROPERTIES_ALPHABETICALLY, true);
         try {
-            return objectMapper.writeValueAsString(signable);
+            return OBJECT_MAPPER.writeValueAsString(signable);
         } catch (JsonProcessingException e) {
             throw new ArgosError(e.getMessage(), e);
         }
     }
 
+    /**
+     * Discards the bytes, only the digest of what is written is needed.
+     */
+    private static final class NullOutputStream extends OutputStream {
+        @Override
+        public void write(int b) {
+            // discarded
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+            // discarded
+        }
+    }
 }
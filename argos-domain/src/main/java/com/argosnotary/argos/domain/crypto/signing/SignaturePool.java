@@ -0,0 +1,72 @@
+/*
+ * Argos Notary - A new way to secure the Software Supply Chain
+ *
+ * Copyright (C) 2019 - 2020 Rabobank Nederland
+ * Copyright (C) 2019 - 2021 Gerard Borst <gerard.borst@argosnotary.com>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package com.argosnotary.argos.domain.crypto.signing;
+
+import lombok.AccessLevel;
+import lombok.NoArgsConstructor;
+
+import java.security.GeneralSecurityException;
+import java.security.InvalidKeyException;
+import java.security.PrivateKey;
+import java.security.PublicKey;
+import java.security.Signature;
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * Signature instances per thread and algorithm. A signature is reset by initSign or initVerify so an instance
+ * can be reused for every sign or verify operation on the same thread. The provider of a signature is selected
+ * on the first init, when a later key is not supported by that provider a new instance replaces the pooled one.
+ */
+@NoArgsConstructor(access = AccessLevel.PRIVATE)
+class SignaturePool {
+
+    private static final ThreadLocal<Map<SignatureAlgorithm, Signature>> SIGNATURES = ThreadLocal.withInitial(() -> new EnumMap<>(SignatureAlgorithm.class));
+
+    static Signature initSign(SignatureAlgorithm algorithm, PrivateKey privateKey) throws GeneralSecurityException {
+        return init(algorithm, signature -> signature.initSign(privateKey));
+    }
+
+    static Signature initVerify(SignatureAlgorithm algorithm, PublicKey publicKey) throws GeneralSecurityException {
+        return init(algorithm, signature -> signature.initVerify(publicKey));
+    }
+
+    private static Signature init(SignatureAlgorithm algorithm, SignatureInitializer initializer) throws GeneralSecurityException {
+        Map<SignatureAlgorithm, Signature> signatures = SIGNATURES.get();
+        Signature signature = signatures.get(algorithm);
+        if (signature != null) {
+            try {
+                initializer.init(signature);
+                return signature;
+            } catch (InvalidKeyException e) {
+                signatures.remove(algorithm);
+            }
+        }
+        signature = Signature.getInstance(algorithm.getStringValue());
+        initializer.init(signature);
+        signatures.put(algorithm, signature);
+        return signature;
+    }
+
+    @FunctionalInterface
+    private interface SignatureInitializer {
+        void init(Signature signature) throws InvalidKeyException;
+    }
+}
@@ -40,17 +40,22 @@ import static java.nio.charset.StandardCharsets.UTF_8;
 public class SignatureValidator {
 
     public static boolean isValid(Link link, Signature signature, PublicKey publicKey) {
-        return isValid(new JsonSigningSerializer().serialize(link), signature, publicKey);
+        try {
+            java.security.Signature publicSignature = SignaturePool.initVerify(signature.getAlgorithm(), publicKey);
+            new JsonSigningSerializer().serialize(link, new SignatureOutputStream(publicSignature));
+            return publicSignature.verify(Hex.decodeHex(signature.getSignature()));
+        } catch (GeneralSecurityException | DecoderException e) {
+            throw new ArgosError(e.getMessage(), e);
+        }
     }
 
     public static boolean isValid(Layout layout, Signature signature, PublicKey publicKey) {
         return isValid(new JsonSigningSerializer().serialize(layout), signature, publicKey);
     }
 
-    private static boolean isValid(String signableJson, Signature signature, PublicKey publicKey) {
+    public static boolean isValid(String signableJson, Signature signature, PublicKey publicKey) {
         try {
-            java.security.Signature publicSignature = java.security.Signature.getInstance(signature.getAlgorithm().getStringValue());
-            publicSignature.initVerify(publicKey);
+            java.security.Signature publicSignature = SignaturePool.initVerify(signature.getAlgorithm(), publicKey);
             publicSignature.update(signableJson.getBytes(UTF_8));
             byte[] signatureBytes = Hex.decodeHex(signature.getSignature());
             return publicSignature.verify(signatureBytes);
@@ -46,8 +46,7 @@ public class Signer {
     }
 
     private static String createSignature(PrivateKey privateKey, String jsonRepr, SignatureAlgorithm algorithm) throws GeneralSecurityException {
-        java.security.Signature privateSignature = java.security.Signature.getInstance(algorithm.getStringValue());
-        privateSignature.initSign(privateKey);
+        java.security.Signature privateSignature = SignaturePool.initSign(algorithm, privateKey);
         privateSignature.update(jsonRepr.getBytes(StandardCharsets.UTF_8));
         return Hex.encodeHexString(privateSignature.sign());
     }
@@ -19,6 +19,10 @@
  */
 package com.argosnotary.argos.domain.link;
 
+import com.argosnotary.argos.domain.crypto.signing.JsonSigningSerializer;
+import com.fasterxml.jackson.annotation.JsonIgnore;
+
+import lombok.AccessLevel;
 import lombok.Builder;
 import lombok.EqualsAndHashCode;
 import lombok.Getter;
@@ -26,17 +30,69 @@ import lombok.Setter;
 import lombok.ToString;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
 
 @Getter
 @Setter
-@Builder
 @EqualsAndHashCode
 @ToString
 public class Link {
     private String stepName;
-    @Builder.Default
-    private List<Artifact> materials = new ArrayList<>();
-    @Builder.Default
-    private List<Artifact> products = new ArrayList<>();
+    private List<Artifact> materials;
+    private List<Artifact> products;
+
+    @Getter(AccessLevel.NONE)
+    @ToString.Exclude
+    private final transient AtomicReference<String> contentDigest = new AtomicReference<>();
+
+    /**
+     * The artifact lists are copied and can not be changed in place, so the content digest stays valid
+     * until a setter is called.
+     */
+    @Builder
+    private Link(String stepName, List<Artifact> materials, List<Artifact> products) {
+        this.stepName = stepName;
+        this.materials = copyOf(materials);
+        this.products = copyOf(products);
+    }
+
+    public static class LinkBuilder {
+        private List<Artifact> materials = Collections.emptyList();
+        private List<Artifact> products = Collections.emptyList();
+    }
+
+    public void setStepName(String stepName) {
+        this.stepName = stepName;
+        contentDigest.set(null);
+    }
+
+    public void setMaterials(List<Artifact> materials) {
+        this.materials = copyOf(materials);
+        contentDigest.set(null);
+    }
+
+    public void setProducts(List<Artifact> products) {
+        this.products = copyOf(products);
+        contentDigest.set(null);
+    }
+
+    /**
+     * The hex encoded sha256 of the signable json of the link, links with the same content digest are
+     * signed as the same link. The digest is computed on first use and reset by the setters.
+     */
+    @JsonIgnore
+    public String getContentDigest() {
+        String digest = contentDigest.get();
+        if (digest == null) {
+            digest = new JsonSigningSerializer().digest(this);
+            contentDigest.compareAndSet(null, digest);
+        }
+        return digest;
+    }
+
+    private static List<Artifact> copyOf(List<Artifact> artifacts) {
+        return artifacts == null ? null : Collections.unmodifiableList(new ArrayList<>(artifacts));
+    }
 }
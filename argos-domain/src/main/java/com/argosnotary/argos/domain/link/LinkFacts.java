@@ -0,0 +1,54 @@
+/*
+ * Argos Notary - A new way to secure the Software Supply Chain
+ *
+ * Copyright (C) 2019 - 2020 Rabobank Nederland
+ * Copyright (C) 2019 - 2021 Gerard Borst <gerard.borst@argosnotary.com>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package com.argosnotary.argos.domain.link;
+
+import lombok.Builder;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.Setter;
+import lombok.ToString;
+
+/**
+ * Facts about a link established when the link was stored.
+ */
+@Builder
+@Getter
+@Setter
+@EqualsAndHashCode
+@ToString
+public class LinkFacts {
+    /**
+     * sha256 of the signable json of the link
+     */
+    private String linkDigest;
+    /**
+     * key id of the verified signature of the link
+     */
+    private String verifiedKeyId;
+    /**
+     * sha256 of the signable json of the layout of the supply chain when the link was stored
+     */
+    private String layoutDigest;
+    /**
+     * the key id is authorized for the step of the link in that layout
+     */
+    private boolean authorizedForStep;
+    private int artifactCount;
+}
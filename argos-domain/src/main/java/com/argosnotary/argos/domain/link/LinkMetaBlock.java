@@ -30,10 +30,11 @@ import lombok.ToString;
 @Builder
 @Getter
 @Setter
-@EqualsAndHashCode
+@EqualsAndHashCode(exclude = {"facts"})
 @ToString
 public class LinkMetaBlock {
     private String supplyChainId;
     private Signature signature;
     private Link link;
+    private LinkFacts facts;
 }
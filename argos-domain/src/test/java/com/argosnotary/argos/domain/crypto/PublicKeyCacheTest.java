@@ -0,0 +1,92 @@
+/*
+ * Argos Notary - A new way to secure the Software Supply Chain
+ *
+ * Copyright (C) 2019 - 2020 Rabobank Nederland
+ * Copyright (C) 2019 - 2021 Gerard Borst <gerard.borst@argosnotary.com>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package com.argosnotary.argos.domain.crypto;
+
+import org.bouncycastle.operator.OperatorCreationException;
+import org.bouncycastle.util.io.pem.PemGenerationException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.security.GeneralSecurityException;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.not;
+import static org.hamcrest.CoreMatchers.sameInstance;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.lessThanOrEqualTo;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class PublicKeyCacheTest {
+
+    private static final char[] PASSPHRASE = "test".toCharArray();
+
+    private KeyPair keyPair;
+
+    private KeyPair otherKeyPair;
+
+    @BeforeEach
+    void setUp() throws GeneralSecurityException, OperatorCreationException, PemGenerationException {
+        keyPair = KeyPair.createKeyPair(PASSPHRASE);
+        otherKeyPair = KeyPair.createKeyPair(PASSPHRASE);
+    }
+
+    @Test
+    void getJavaPublicKeyIsCached() throws GeneralSecurityException, IOException {
+        java.security.PublicKey publicKey = keyPair.getJavaPublicKey();
+        assertThat(publicKey.getEncoded(), is(keyPair.getPublicKey()));
+        assertThat(new PublicKey(keyPair.getKeyId(), keyPair.getPublicKey().clone()).getJavaPublicKey(), sameInstance(publicKey));
+    }
+
+    @Test
+    void instanceWithoutKeyIdIsCached() throws GeneralSecurityException, IOException {
+        java.security.PublicKey publicKey = PublicKey.instance(keyPair.getPublicKey());
+        assertThat(PublicKey.instance(keyPair.getPublicKey()), sameInstance(publicKey));
+    }
+
+    @Test
+    void otherEncodedKeyWithSameKeyIdIsNotReused() throws GeneralSecurityException, IOException {
+        java.security.PublicKey publicKey = PublicKey.instance(keyPair.getKeyId(), keyPair.getPublicKey());
+        java.security.PublicKey otherPublicKey = PublicKey.instance(keyPair.getKeyId(), otherKeyPair.getPublicKey());
+        assertThat(otherPublicKey, not(sameInstance(publicKey)));
+        assertThat(otherPublicKey.getEncoded(), is(otherKeyPair.getPublicKey()));
+    }
+
+    @Test
+    void cachedEncodedKeyIsNotShared() throws GeneralSecurityException, IOException {
+        byte[] encodedKey = keyPair.getPublicKey().clone();
+        java.security.PublicKey publicKey = PublicKey.instance("keyId", encodedKey);
+        encodedKey[encodedKey.length - 1] ^= 1;
+        assertThat(PublicKey.instance("keyId", keyPair.getPublicKey()), sameInstance(publicKey));
+    }
+
+    @Test
+    void sizeIsBounded() throws GeneralSecurityException, IOException {
+        for (int i = 0; i <= PublicKeyCache.MAX_CACHED_KEYS; i++) {
+            PublicKey.instance("keyId" + i, keyPair.getPublicKey());
+        }
+        assertThat(PublicKeyCache.size(), lessThanOrEqualTo(PublicKeyCache.MAX_CACHED_KEYS));
+    }
+
+    @Test
+    void invalidKey() {
+        assertThrows(Exception.class, () -> PublicKey.instance("invalid", new byte[] {1, 2, 3}));
+    }
+}
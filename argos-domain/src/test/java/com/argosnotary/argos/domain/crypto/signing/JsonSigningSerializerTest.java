@@ -19,9 +19,13 @@
  */
 package com.argosnotary.argos.domain.crypto.signing;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.MapperFeature;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.argosnotary.argos.domain.crypto.PublicKey;
+import com.argosnotary.argos.domain.crypto.Signature;
 import com.argosnotary.argos.domain.layout.ArtifactType;
 import com.argosnotary.argos.domain.layout.Layout;
 import com.argosnotary.argos.domain.layout.Step;
@@ -30,14 +34,20 @@ import com.argosnotary.argos.domain.layout.rule.Rule;
 import com.argosnotary.argos.domain.layout.rule.RuleType;
 import com.argosnotary.argos.domain.link.Artifact;
 import com.argosnotary.argos.domain.link.Link;
+import org.apache.commons.codec.digest.DigestUtils;
 import org.junit.jupiter.api.Test;
 
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.security.GeneralSecurityException;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Base64;
+import java.util.List;
 
+import static java.nio.charset.StandardCharsets.UTF_8;
 import static java.util.Collections.singletonList;
+import static java.util.Comparator.comparing;
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.core.Is.is;
 
@@ -45,6 +55,25 @@ class JsonSigningSerializerTest {
 
     private final static String PUBLIC_KEY = "MFkwEwYHKoZIzj0CAQYIKoZIzj0DAQcDQgAEjdjAZjwvCrYGEv/zKVAhSItOV91OpPGmMPNCR3Dr0oryke0PhRO6HCbb+kS5NOJUEaGHbFeJUujpn/zQQIVlkQ==";
 
+    /*
+     * signable json, public key and signature of GOLDEN_LINK created with the ObjectMapper based serializer
+     */
+    private final static String GOLDEN_JSON = "eyJtYXRlcmlhbHMiOlt7Imhhc2giOiJoYXNoMyIsInVyaSI6ImIvXFxwYXRoIn0seyJoYXNoIjoiaGFzaDIiLCJ1cmkiOiJzcmMvYVx0XCJxXCIuamF2YSJ9LHsiaGFzaCI6Imhhc2gxIiwidXJpIjoic3JjL3rDvC5qYXZhIn1dLCJwcm9kdWN0cyI6W3siaGFzaCI6Imhhc2g2IiwidXJpIjoiUkVBRE1FIn0seyJoYXNoIjoiaGFzaDQiLCJ1cmkiOiJ0YXJnZXQvYXBwLmphciJ9LHsiaGFzaCI6Imhhc2g1IiwidXJpIjoidGFyZ2V0L2FwcC5qYXIifV0sInN0ZXBOYW1lIjoiYnVpbGQgw6nkuK3wn5iAIn0=";
+    private final static String GOLDEN_PUBLIC_KEY = "MFkwEwYHKoZIzj0CAQYIKoZIzj0DAQcDQgAEzRkqqH6Cnfi+TCO7tx+15UsYJ8y52JgJ256YD8epScY5hj0nVjYa8WFQ2rU3Qlcz0l0QLpK+t+uQk5zxG9oMzw==";
+    private final static String GOLDEN_SIGNATURE = "304502201bb100e45dfeb085786a684771fa1dde6972a7bd0a790fb665cb35135538bf61022100d1bbf2f97bf0efb396957151fc013d9eec818e6994b1c791af207fe353bbd051";
+
+    private final static Link GOLDEN_LINK = Link.builder()
+            .stepName("build \u00e9\u4e2d\uD83D\uDE00")
+            .materials(Arrays.asList(
+                    Artifact.builder().uri("src/z\u00fc.java").hash("hash1").build(),
+                    Artifact.builder().uri("src/a\t\"q\".java").hash("hash2").build(),
+                    Artifact.builder().uri("b/\\path").hash("hash3").build()))
+            .products(Arrays.asList(
+                    Artifact.builder().uri("target/app.jar").hash("hash4").build(),
+                    Artifact.builder().uri("target/app.jar").hash("hash5").build(),
+                    Artifact.builder().uri("README").hash("hash6").build()))
+            .build();
+
     @Test
     void serializeLink() throws IOException {
         String serialized = new JsonSigningSerializer().serialize(Link.builder()
@@ -104,6 +133,72 @@ class JsonSigningSerializerTest {
         assertThat(serialized, is(getExpectedJson("/expectedLayoutSigning.json")));
     }
 
+    @Test
+    void serializeLinkGoldenBytes() {
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        new JsonSigningSerializer().serialize(GOLDEN_LINK, outputStream);
+        assertThat(outputStream.toByteArray(), is(Base64.getDecoder().decode(GOLDEN_JSON)));
+        assertThat(new JsonSigningSerializer().serialize(GOLDEN_LINK).getBytes(UTF_8), is(Base64.getDecoder().decode(GOLDEN_JSON)));
+    }
+
+    @Test
+    void goldenSignatureIsValid() throws GeneralSecurityException, IOException {
+        Signature signature = Signature.builder().keyId("keyId").signature(GOLDEN_SIGNATURE).build();
+        java.security.PublicKey publicKey = PublicKey.instance(Base64.getDecoder().decode(GOLDEN_PUBLIC_KEY));
+        assertThat(SignatureValidator.isValid(GOLDEN_LINK, signature, publicKey), is(true));
+        assertThat(SignatureValidator.isValid(new String(Base64.getDecoder().decode(GOLDEN_JSON), UTF_8), signature, publicKey), is(true));
+    }
+
+    @Test
+    void serializeLinkSameAsObjectMapper() throws JsonProcessingException {
+        List<Link> links = Arrays.asList(
+                Link.builder().build(),
+                Link.builder().stepName("step").materials(null).products(null).build(),
+                Link.builder().materials(Arrays.asList(
+                        Artifact.builder().uri("b").build(),
+                        Artifact.builder().hash("hash").uri("a").build(),
+                        Artifact.builder().hash("other hash").uri("a").build())).build(),
+                Link.builder().stepName("\u0000\u0001\u001f\b\f\n\r\t\u007f/\u0080\u07ff\u0800\uffff").build(),
+                Link.builder().stepName("unpaired \uD800 \uDC00 surrogates \uDBFF").build());
+        for (Link link : links) {
+            assertThat(new JsonSigningSerializer().serialize(link).getBytes(UTF_8), is(serializeWithObjectMapper(link).getBytes(UTF_8)));
+        }
+    }
+
+    @Test
+    void digestLink() {
+        assertThat(new JsonSigningSerializer().digest(GOLDEN_LINK), is(DigestUtils.sha256Hex(Base64.getDecoder().decode(GOLDEN_JSON))));
+    }
+
+    @Test
+    void serializeLinkDoesNotSortLink() {
+        List<Artifact> materials = Arrays.asList(
+                Artifact.builder().uri("b").hash("hash").build(),
+                Artifact.builder().uri("a").hash("hash").build());
+        new JsonSigningSerializer().serialize(Link.builder().materials(materials).build());
+        assertThat(materials.get(0).getUri(), is("b"));
+    }
+
+    private static String serializeWithObjectMapper(Link link) throws JsonProcessingException {
+        Link linkClone = Link.builder()
+                .stepName(link.getStepName())
+                .materials(sortedByUri(link.getMaterials()))
+                .products(sortedByUri(link.getProducts())).build();
+        ObjectMapper objectMapper = new ObjectMapper();
+        objectMapper.setSerializationInclusion(JsonInclude.Include.NON_NULL);
+        objectMapper.configure(MapperFeature.SORT_PROPERTIES_ALPHABETICALLY, true);
+        return objectMapper.writeValueAsString(linkClone);
+    }
+
+    private static List<Artifact> sortedByUri(List<Artifact> artifacts) {
+        if (artifacts == null) {
+            return null;
+        }
+        List<Artifact> sorted = new ArrayList<>(artifacts);
+        sorted.sort(comparing(Artifact::getUri));
+        return sorted;
+    }
+
     private String getExpectedJson(String name) throws IOException {
         ObjectMapper objectMapper = new ObjectMapper();
         JsonNode jsonNode = objectMapper.readValue(getClass().getResourceAsStream(name), JsonNode.class);
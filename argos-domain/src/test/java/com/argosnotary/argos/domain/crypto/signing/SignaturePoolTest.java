@@ -0,0 +1,96 @@
+/*
+ * Argos Notary - A new way to secure the Software Supply Chain
+ *
+ * Copyright (C) 2019 - 2020 Rabobank Nederland
+ * Copyright (C) 2019 - 2021 Gerard Borst <gerard.borst@argosnotary.com>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package com.argosnotary.argos.domain.crypto.signing;
+
+import com.argosnotary.argos.domain.crypto.KeyPair;
+
+import org.bouncycastle.operator.OperatorCreationException;
+import org.bouncycastle.util.io.pem.PemGenerationException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.security.GeneralSecurityException;
+import java.security.KeyPairGenerator;
+import java.security.spec.ECGenParameterSpec;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.not;
+import static org.hamcrest.CoreMatchers.sameInstance;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+class SignaturePoolTest {
+
+    private static final char[] PASSPHRASE = "test".toCharArray();
+
+    private KeyPair keyPair;
+
+    @BeforeEach
+    void setUp() throws GeneralSecurityException, OperatorCreationException, PemGenerationException {
+        keyPair = KeyPair.createKeyPair(PASSPHRASE);
+    }
+
+    @Test
+    void signatureIsReusedOnSameThread() throws GeneralSecurityException, IOException {
+        java.security.Signature signature = SignaturePool.initVerify(SignatureAlgorithm.SHA_384_WITH_ECDSA, keyPair.getJavaPublicKey());
+        assertThat(SignaturePool.initVerify(SignatureAlgorithm.SHA_384_WITH_ECDSA, keyPair.getJavaPublicKey()), sameInstance(signature));
+        assertThat(SignaturePool.initSign(SignatureAlgorithm.SHA_384_WITH_ECDSA, keyPair.decryptPrivateKey(PASSPHRASE)), sameInstance(signature));
+    }
+
+    @Test
+    void signatureIsNotSharedBetweenThreads() throws Exception {
+        java.security.Signature signature = SignaturePool.initVerify(SignatureAlgorithm.SHA_384_WITH_ECDSA, keyPair.getJavaPublicKey());
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            Future<java.security.Signature> other = executor.submit(
+                    () -> SignaturePool.initVerify(SignatureAlgorithm.SHA_384_WITH_ECDSA, keyPair.getJavaPublicKey()));
+            assertThat(other.get(), not(sameInstance(signature)));
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void pooledSignatureIsResetBetweenOperations() throws GeneralSecurityException, IOException {
+        java.security.Signature signature = SignaturePool.initSign(SignatureAlgorithm.SHA_384_WITH_ECDSA, keyPair.decryptPrivateKey(PASSPHRASE));
+        signature.update("abandoned".getBytes(UTF_8));
+        com.argosnotary.argos.domain.crypto.Signature signed = Signer.sign(keyPair, PASSPHRASE, "string to sign");
+        assertThat(SignatureValidator.isValid("string to sign", signed, keyPair.getJavaPublicKey()), is(true));
+        assertThat(SignatureValidator.isValid("other string", signed, keyPair.getJavaPublicKey()), is(false));
+    }
+
+    @Test
+    void keyOfOtherProvider() throws GeneralSecurityException, IOException {
+        KeyPairGenerator generator = KeyPairGenerator.getInstance("EC", "SunEC");
+        generator.initialize(new ECGenParameterSpec("secp256r1"));
+        java.security.KeyPair sunKeyPair = generator.generateKeyPair();
+        SignaturePool.initVerify(SignatureAlgorithm.SHA_384_WITH_ECDSA, keyPair.getJavaPublicKey());
+        java.security.Signature signature = SignaturePool.initSign(SignatureAlgorithm.SHA_384_WITH_ECDSA, sunKeyPair.getPrivate());
+        signature.update("string to sign".getBytes(UTF_8));
+        byte[] signatureBytes = signature.sign();
+        java.security.Signature verifier = SignaturePool.initVerify(SignatureAlgorithm.SHA_384_WITH_ECDSA, sunKeyPair.getPublic());
+        verifier.update("string to sign".getBytes(UTF_8));
+        assertThat(verifier.verify(signatureBytes), is(true));
+    }
+}
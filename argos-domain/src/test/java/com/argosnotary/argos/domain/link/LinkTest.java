@@ -0,0 +1,118 @@
+/*
+ * Argos Notary - A new way to secure the Software Supply Chain
+ *
+ * Copyright (C) 2019 - 2020 Rabobank Nederland
+ * Copyright (C) 2019 - 2021 Gerard Borst <gerard.borst@argosnotary.com>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package com.argosnotary.argos.domain.link;
+
+import com.argosnotary.argos.domain.crypto.signing.JsonSigningSerializer;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static java.util.Collections.emptyList;
+import static java.util.Collections.singletonList;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.not;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.hamcrest.CoreMatchers.sameInstance;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.hasSize;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class LinkTest {
+
+    private Link link;
+
+    @BeforeEach
+    void setUp() {
+        link = Link.builder()
+                .stepName("step")
+                .materials(singletonList(new Artifact("material", "hash1")))
+                .products(Arrays.asList(new Artifact("product2", "hash2"), new Artifact("product1", "hash3")))
+                .build();
+    }
+
+    @Test
+    void contentDigestIsDigestOfSignableJson() {
+        assertThat(link.getContentDigest(), is(new JsonSigningSerializer().digest(link)));
+        assertThat(link.getContentDigest(), sameInstance(link.getContentDigest()));
+    }
+
+    @Test
+    void contentDigestDoesNotDependOnArtifactOrder() {
+        Link reordered = Link.builder()
+                .stepName("step")
+                .materials(singletonList(new Artifact("material", "hash1")))
+                .products(Arrays.asList(new Artifact("product1", "hash3"), new Artifact("product2", "hash2")))
+                .build();
+        assertThat(reordered.getContentDigest(), is(link.getContentDigest()));
+    }
+
+    @Test
+    void settersResetContentDigest() {
+        String digest = link.getContentDigest();
+        link.setStepName("otherStep");
+        String stepNameDigest = link.getContentDigest();
+        assertThat(stepNameDigest, not(digest));
+        link.setMaterials(emptyList());
+        String materialsDigest = link.getContentDigest();
+        assertThat(materialsDigest, not(stepNameDigest));
+        link.setProducts(emptyList());
+        assertThat(link.getContentDigest(), not(materialsDigest));
+    }
+
+    @Test
+    void artifactListsAreCopiedAndUnmodifiable() {
+        List<Artifact> materials = new ArrayList<>(link.getMaterials());
+        Link copy = Link.builder().materials(materials).build();
+        String digest = copy.getContentDigest();
+        materials.add(new Artifact("other", "hash4"));
+        assertThat(copy.getMaterials(), hasSize(1));
+        assertThat(copy.getContentDigest(), is(digest));
+        assertThrows(UnsupportedOperationException.class, () -> copy.getMaterials().clear());
+        copy.setProducts(materials);
+        assertThrows(UnsupportedOperationException.class, () -> copy.getProducts().clear());
+    }
+
+    @Test
+    void builderDefaultsToEmptyListsAndKeepsNull() {
+        Link defaults = Link.builder().build();
+        assertThat(defaults.getMaterials(), is(emptyList()));
+        assertThat(defaults.getProducts(), is(emptyList()));
+        Link nulls = Link.builder().materials(null).products(null).build();
+        assertThat(nulls.getMaterials(), nullValue());
+        assertThat(nulls.getProducts(), nullValue());
+    }
+
+    @Test
+    void contentDigestIsNotPartOfEqualsOrToString() {
+        Link copy = Link.builder()
+                .stepName("step")
+                .materials(link.getMaterials())
+                .products(link.getProducts())
+                .build();
+        link.getContentDigest();
+        assertThat(copy, is(link));
+        assertThat(copy.hashCode(), is(link.hashCode()));
+        assertThat(link.toString(), not(containsString("contentDigest")));
+    }
+}
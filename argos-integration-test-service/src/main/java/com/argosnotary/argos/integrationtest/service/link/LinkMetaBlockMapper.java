@@ -29,6 +29,7 @@ import org.mapstruct.Mapping;
 public interface LinkMetaBlockMapper {
 
     @Mapping(target = "supplyChainId", ignore = true)
+    @Mapping(target = "facts", ignore = true)
     LinkMetaBlock convertFromRestLinkMetaBlock(RestLinkMetaBlock metaBlock);
 
     RestLinkMetaBlock convertToRestLinkMetaBlock(LinkMetaBlock metaBlock);
@@ -26,9 +26,11 @@ import com.argosnotary.argos.service.adapter.in.rest.api.model.RestValidationErr
 import com.argosnotary.argos.service.adapter.in.rest.api.model.RestValidationMessage;
 import com.argosnotary.argos.service.adapter.in.rest.layout.LayoutValidationException;
 import com.argosnotary.argos.service.domain.NotFoundException;
+import com.argosnotary.argos.service.domain.verification.VerificationRejectedException;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.core.Ordered;
 import org.springframework.core.annotation.Order;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.AccessDeniedException;
 import org.springframework.validation.FieldError;
@@ -49,6 +51,8 @@ import static org.springframework.http.HttpStatus.BAD_REQUEST;
 import static org.springframework.http.HttpStatus.FORBIDDEN;
 import static org.springframework.http.HttpStatus.INTERNAL_SERVER_ERROR;
 import static org.springframework.http.HttpStatus.NOT_FOUND;
+import static org.springframework.http.HttpStatus.SERVICE_UNAVAILABLE;
+import static org.springframework.http.HttpStatus.UNPROCESSABLE_ENTITY;
 import static org.springframework.http.MediaType.APPLICATION_JSON;
 
 @ControllerAdvice
@@ -133,6 +137,12 @@ public class RestServiceExceptionHandler {
         return ResponseEntity.status(NOT_FOUND).contentType(APPLICATION_JSON).body(createRestErrorMessage(ex.getMessage()));
     }
 
+    @ExceptionHandler(value = {VerificationRejectedException.class})
+    public ResponseEntity<RestError> handleVerificationRejectedException(VerificationRejectedException ex) {
+        HttpStatus status = ex.getReason() == VerificationRejectedException.Reason.BUSY ? SERVICE_UNAVAILABLE : UNPROCESSABLE_ENTITY;
+        return ResponseEntity.status(status).contentType(APPLICATION_JSON).body(createRestErrorMessage(ex.getMessage()));
+    }
+
     private RestValidationError createValidationError(LayoutValidationException ex) {
         RestValidationError restValidationError = new RestValidationError();
         List<RestValidationMessage> validationMessages = new ArrayList<>(ex.getValidationMessages());
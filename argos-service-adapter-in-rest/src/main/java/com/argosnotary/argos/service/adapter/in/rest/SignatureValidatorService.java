@@ -19,28 +19,83 @@
  */
 package com.argosnotary.argos.service.adapter.in.rest;
 
+import com.argosnotary.argos.domain.ArgosError;
 import com.argosnotary.argos.domain.crypto.KeyPair;
 import com.argosnotary.argos.domain.crypto.Signature;
 import com.argosnotary.argos.domain.crypto.signing.SignatureValidator;
 import com.argosnotary.argos.domain.layout.Layout;
 import com.argosnotary.argos.domain.link.Link;
+import com.argosnotary.argos.domain.link.LinkMetaBlock;
 import com.argosnotary.argos.service.domain.account.AccountService;
+import lombok.AccessLevel;
 import lombok.RequiredArgsConstructor;
+import lombok.Setter;
+import lombok.extern.slf4j.Slf4j;
 
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
 import java.io.IOException;
 import java.security.GeneralSecurityException;
 import java.security.PublicKey;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
 
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Component;
 import org.springframework.web.server.ResponseStatusException;
 
+@Slf4j
 @Component
 @RequiredArgsConstructor
 public class SignatureValidatorService {
 
+    private static final String INVALID_SIGNATURE = "invalid signature";
+
     private final AccountService accountService;
 
+    /**
+     * number of link signatures of a bulk upload validated concurrently, 1 is sequential
+     */
+    @Setter(AccessLevel.PACKAGE)
+    @Value("${link.signatureParallelism:1}")
+    private int signatureParallelism;
+
+    private ThreadPoolExecutor executor;
+
+    @PostConstruct
+    public void init() {
+        if (signatureParallelism > 1) {
+            // a signature without a free thread is validated on the calling thread instead of waiting in a queue
+            AtomicInteger threadNumber = new AtomicInteger();
+            executor = new ThreadPoolExecutor(signatureParallelism, signatureParallelism, 60L, TimeUnit.SECONDS,
+                    new SynchronousQueue<>(),
+                    runnable -> {
+                        Thread thread = new Thread(runnable, "signature-validation-" + threadNumber.incrementAndGet());
+                        thread.setDaemon(true);
+                        return thread;
+                    },
+                    new ThreadPoolExecutor.CallerRunsPolicy());
+            executor.allowCoreThreadTimeOut(true);
+            log.info("parallel link signature validation with [{}] threads", signatureParallelism);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (executor != null) {
+            executor.shutdownNow();
+        }
+    }
+
     public void validateSignature(Layout layout, Signature signature) {
     	try {
 			if (!SignatureValidator.isValid(layout, signature, getPublicKey(signature))) {
@@ -61,14 +116,65 @@ public class SignatureValidatorService {
 		}
     }
 
+    /**
+     * Validates the signatures of a list of links, the public key of every distinct key id is looked up once.
+     *
+     * @return for every link in the same order an empty optional when the signature is valid, the reason otherwise
+     */
+    public List<Optional<String>> validateSignatures(List<LinkMetaBlock> linkMetaBlocks) {
+        Map<String, Optional<PublicKey>> publicKeys = new HashMap<>();
+        linkMetaBlocks.forEach(linkMetaBlock -> publicKeys.computeIfAbsent(linkMetaBlock.getSignature().getKeyId(), this::findPublicKey));
+        if (executor == null || linkMetaBlocks.size() < 2) {
+            return linkMetaBlocks.stream()
+                    .map(linkMetaBlock -> validateSignature(linkMetaBlock, publicKeys))
+                    .collect(Collectors.toList());
+        }
+        List<CompletableFuture<Optional<String>>> futures = linkMetaBlocks.stream()
+                .map(linkMetaBlock -> CompletableFuture.supplyAsync(() -> validateSignature(linkMetaBlock, publicKeys), executor))
+                .collect(Collectors.toList());
+        return futures.stream().map(CompletableFuture::join).collect(Collectors.toList());
+    }
+
+    private static Optional<String> validateSignature(LinkMetaBlock linkMetaBlock, Map<String, Optional<PublicKey>> publicKeys) {
+        Signature signature = linkMetaBlock.getSignature();
+        Optional<PublicKey> publicKey = publicKeys.get(signature.getKeyId());
+        if (publicKey.isEmpty()) {
+            return Optional.of(keyNotFoundReason(signature));
+        }
+        try {
+            if (SignatureValidator.isValid(linkMetaBlock.getLink(), signature, publicKey.get())) {
+                return Optional.empty();
+            }
+        } catch (ArgosError e) {
+            // a malformed signature only rejects its own link
+            log.debug("malformed signature", e);
+        }
+        return Optional.of(INVALID_SIGNATURE);
+    }
+
+    private Optional<PublicKey> findPublicKey(String keyId) {
+        return accountService.findKeyPairByKeyId(keyId).flatMap(keyPair -> {
+            try {
+                return Optional.of(keyPair.getJavaPublicKey());
+            } catch (GeneralSecurityException | IOException e) {
+                log.debug("invalid public key", e);
+                return Optional.empty();
+            }
+        });
+    }
+
+    private static String keyNotFoundReason(Signature signature) {
+        return "signature with keyId [" + signature.getKeyId() + "] not found";
+    }
+
     private void throwInValidSignatureException() {
-        throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "invalid signature");
+        throw new ResponseStatusException(HttpStatus.BAD_REQUEST, INVALID_SIGNATURE);
     }
 
     private PublicKey getPublicKey(Signature signature) throws GeneralSecurityException, IOException {
     	KeyPair keyPair = accountService.findKeyPairByKeyId(signature.getKeyId())
-    	        .orElseThrow(() -> new ResponseStatusException(HttpStatus.BAD_REQUEST, "signature with keyId [" + signature.getKeyId() + "] not found"));
-    	return com.argosnotary.argos.domain.crypto.PublicKey.instance(keyPair.getPublicKey());
+    	        .orElseThrow(() -> new ResponseStatusException(HttpStatus.BAD_REQUEST, keyNotFoundReason(signature)));
+    	return keyPair.getJavaPublicKey();
     }
 
 }
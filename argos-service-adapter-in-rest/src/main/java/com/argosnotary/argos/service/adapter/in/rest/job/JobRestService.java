@@ -0,0 +1,99 @@
+/*
+ * Argos Notary - A new way to secure the Software Supply Chain
+ *
+ * Copyright (C) 2019 - 2020 Rabobank Nederland
+ * Copyright (C) 2019 - 2021 Gerard Borst <gerard.borst@argosnotary.com>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package com.argosnotary.argos.service.adapter.in.rest.job;
+
+import com.argosnotary.argos.domain.layout.LayoutMetaBlock;
+import com.argosnotary.argos.domain.link.Artifact;
+import com.argosnotary.argos.domain.permission.Permission;
+import com.argosnotary.argos.service.adapter.in.rest.api.handler.JobApi;
+import com.argosnotary.argos.service.adapter.in.rest.api.model.RestJob;
+import com.argosnotary.argos.service.adapter.in.rest.api.model.RestReleaseArtifacts;
+import com.argosnotary.argos.service.adapter.in.rest.api.model.RestVerifyCommand;
+import com.argosnotary.argos.service.adapter.in.rest.release.ReleaseArtifactMapper;
+import com.argosnotary.argos.service.adapter.in.rest.verification.ArtifactMapper;
+import com.argosnotary.argos.service.domain.NotFoundException;
+import com.argosnotary.argos.service.domain.auditlog.AuditLog;
+import com.argosnotary.argos.service.domain.auditlog.AuditParam;
+import com.argosnotary.argos.service.domain.job.Job;
+import com.argosnotary.argos.service.domain.job.JobService;
+import com.argosnotary.argos.service.domain.layout.LayoutMetaBlockRepository;
+import com.argosnotary.argos.service.domain.security.LabelIdCheckParam;
+import com.argosnotary.argos.service.domain.security.PermissionCheck;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.List;
+import java.util.Set;
+
+import static com.argosnotary.argos.service.adapter.in.rest.supplychain.SupplyChainLabelIdExtractor.SUPPLY_CHAIN_LABEL_ID_EXTRACTOR;
+
+@RestController
+@RequiredArgsConstructor
+@RequestMapping("/api")
+public class JobRestService implements JobApi {
+
+    private final JobService jobService;
+
+    private final LayoutMetaBlockRepository repository;
+
+    private final ArtifactMapper artifactMapper;
+
+    private final ReleaseArtifactMapper releaseArtifactMapper;
+
+    private final JobMapper jobMapper;
+
+    @Override
+    @PermissionCheck(permissions = Permission.READ)
+    @AuditLog
+    public ResponseEntity<RestJob> submitVerificationJob(@LabelIdCheckParam(dataExtractor = SUPPLY_CHAIN_LABEL_ID_EXTRACTOR)
+                                                         @AuditParam("supplyChainId") String supplyChainId,
+                                                         @AuditParam("verifyCommand") RestVerifyCommand restVerifyCommand) {
+        LayoutMetaBlock layoutMetaBlock = repository.findBySupplyChainId(supplyChainId)
+                .orElseThrow(() -> new ResponseStatusException(HttpStatus.BAD_REQUEST, "no active layout could be found for supplychain:" + supplyChainId));
+
+        Set<Artifact> expectedProducts = artifactMapper.mapToArtifacts(restVerifyCommand.getExpectedProducts());
+        Job job = jobService.submitVerification(layoutMetaBlock, expectedProducts);
+        return ResponseEntity.accepted().body(jobMapper.mapToRestJob(job));
+    }
+
+    @Override
+    @PermissionCheck(permissions = Permission.RELEASE)
+    @AuditLog
+    public ResponseEntity<RestJob> submitReleaseJob(@LabelIdCheckParam(dataExtractor = SUPPLY_CHAIN_LABEL_ID_EXTRACTOR)
+                                                    @AuditParam("supplyChainId") String supplyChainId,
+                                                    @AuditParam("releaseArtifacts") RestReleaseArtifacts restReleaseArtifacts) {
+        List<Set<Artifact>> artifacts = releaseArtifactMapper.mapToArtifacts(restReleaseArtifacts.getReleaseArtifacts());
+        Job job = jobService.submitRelease(supplyChainId, artifacts);
+        return ResponseEntity.accepted().body(jobMapper.mapToRestJob(job));
+    }
+
+    @Override
+    @PermissionCheck(permissions = Permission.READ)
+    public ResponseEntity<RestJob> getJob(@LabelIdCheckParam(dataExtractor = SUPPLY_CHAIN_LABEL_ID_EXTRACTOR) String supplyChainId,
+                                          String jobId) {
+        return jobService.getJob(supplyChainId, jobId)
+                .map(job -> ResponseEntity.ok(jobMapper.mapToRestJob(job)))
+                .orElseThrow(() -> new NotFoundException("job not found : " + jobId));
+    }
+}
@@ -42,6 +42,9 @@ import com.argosnotary.argos.service.domain.layout.ReleaseConfigurationRepositor
 import com.argosnotary.argos.service.domain.security.AccountSecurityContext;
 import com.argosnotary.argos.service.domain.security.LabelIdCheckParam;
 import com.argosnotary.argos.service.domain.security.PermissionCheck;
+import com.argosnotary.argos.service.domain.verification.CompiledLayout;
+import com.argosnotary.argos.service.domain.verification.CompiledLayoutCache;
+import com.argosnotary.argos.service.domain.verification.VerificationResultCache;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.http.HttpStatus;
@@ -79,6 +82,9 @@ public class LayoutRestService implements LayoutApi {
     private final ReleaseConfigurationRepository releaseConfigurationRepository;
     private final ConfigurationMapper configurationConverter;
     private final AccountSecurityContext accountSecurityContext;
+    private final VerificationResultCache verificationResultCache;
+
+    private final CompiledLayoutCache compiledLayoutCache;
 
 
     @Override
@@ -99,6 +105,8 @@ public class LayoutRestService implements LayoutApi {
         layoutMetaBlock.setSupplyChainId(supplyChainId);
         validator.validate(layoutMetaBlock);
         layoutMetaBlockRepository.createOrUpdate(layoutMetaBlock);
+        verificationResultCache.evict(supplyChainId);
+        compiledLayoutCache.evict(supplyChainId);
         URI location = ServletUriComponentsBuilder.fromCurrentRequest().build().toUri();
         return ResponseEntity.created(location).body(layoutMetaBlockConverter.convertToRestLayoutMetaBlock(layoutMetaBlock));
     }
@@ -147,8 +155,9 @@ public class LayoutRestService implements LayoutApi {
 
         if (optionalKeyPair.isPresent() && optionalLayoutMetaBlock.isPresent()) {
             String activeAccountKeyId = optionalKeyPair.get().getKeyId();
-            Layout layout = optionalLayoutMetaBlock.get().getLayout();
-            return ok(approvalConfigurationRepository.findBySupplyChainId(supplyChainId).stream().filter(approvalConf -> canApprove(approvalConf, activeAccountKeyId, layout)
+            CompiledLayout compiledLayout = compiledLayoutCache.get(optionalLayoutMetaBlock.get());
+            return ok(approvalConfigurationRepository.findBySupplyChainId(supplyChainId).stream()
+                    .filter(approvalConf -> compiledLayout.isAuthorizedForStep(approvalConf.getStepName(), activeAccountKeyId)
             ).map(configurationConverter::convertToRestApprovalConfiguration).collect(Collectors.toList()));
         } else {
             return ok(emptyList());
@@ -175,13 +184,6 @@ public class LayoutRestService implements LayoutApi {
                 .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "release configuration not found")));
     }
     
-    private boolean canApprove(ApprovalConfiguration approvalConf, String activeAccountKeyId, Layout layout) {
-        Optional<Boolean> canApprove = layout.getSteps().stream()
-                .filter(step -> step.getName().equals(approvalConf.getStepName()))
-                .map(step -> step.getAuthorizedKeyIds().contains(activeAccountKeyId)).findFirst();
-        return canApprove.isPresent() && canApprove.get();
-    }
-
     private void validateContextFieldsForCollectorSpecification(RestApprovalConfiguration approvalConfiguration) {
         approvalConfiguration.getArtifactCollectorSpecifications()
                 .forEach(this::validateContextFieldsForCollectorSpecification);
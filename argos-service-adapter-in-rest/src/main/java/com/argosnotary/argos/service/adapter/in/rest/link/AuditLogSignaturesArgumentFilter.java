@@ -0,0 +1,43 @@
+/*
+ * Argos Notary - A new way to secure the Software Supply Chain
+ *
+ * Copyright (C) 2019 - 2020 Rabobank Nederland
+ * Copyright (C) 2019 - 2021 Gerard Borst <gerard.borst@argosnotary.com>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package com.argosnotary.argos.service.adapter.in.rest.link;
+
+import com.argosnotary.argos.service.adapter.in.rest.api.model.RestLinkMetaBlock;
+import com.argosnotary.argos.service.adapter.in.rest.api.model.RestLinkMetaBlockBatch;
+import com.argosnotary.argos.service.domain.auditlog.ObjectArgumentFilter;
+import org.springframework.stereotype.Component;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import static java.util.stream.Collectors.toList;
+
+@Component("auditLogSignaturesArgumentFilter")
+public class AuditLogSignaturesArgumentFilter implements ObjectArgumentFilter<RestLinkMetaBlockBatch> {
+
+    @Override
+    public Map<String, Object> filterObjectArguments(RestLinkMetaBlockBatch argumentValue) {
+        Map<String, Object> argumentValues = new HashMap<>();
+        argumentValues.put("signatures", argumentValue.getLinkMetaBlocks().stream()
+                .map(RestLinkMetaBlock::getSignature)
+                .collect(toList()));
+        return argumentValues;
+    }
+}
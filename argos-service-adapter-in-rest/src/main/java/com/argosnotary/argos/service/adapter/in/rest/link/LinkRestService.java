@@ -25,12 +25,16 @@ import com.argosnotary.argos.domain.permission.Permission;
 import com.argosnotary.argos.service.adapter.in.rest.SignatureValidatorService;
 import com.argosnotary.argos.service.adapter.in.rest.api.handler.LinkApi;
 import com.argosnotary.argos.service.adapter.in.rest.api.model.RestLinkMetaBlock;
+import com.argosnotary.argos.service.adapter.in.rest.api.model.RestLinkMetaBlockBatch;
+import com.argosnotary.argos.service.adapter.in.rest.api.model.RestLinkResult;
 import com.argosnotary.argos.service.domain.auditlog.AuditLog;
 import com.argosnotary.argos.service.domain.auditlog.AuditParam;
+import com.argosnotary.argos.service.domain.link.LinkIngestService;
 import com.argosnotary.argos.service.domain.link.LinkMetaBlockRepository;
 import com.argosnotary.argos.service.domain.security.LabelIdCheckParam;
 import com.argosnotary.argos.service.domain.security.PermissionCheck;
 import com.argosnotary.argos.service.domain.supplychain.SupplyChainRepository;
+import com.argosnotary.argos.service.domain.verification.VerificationResultCache;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.http.HttpStatus;
@@ -40,8 +44,11 @@ import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
 import org.springframework.web.server.ResponseStatusException;
 
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
+import java.util.stream.IntStream;
 
 import static com.argosnotary.argos.service.adapter.in.rest.supplychain.SupplyChainLabelIdExtractor.SUPPLY_CHAIN_LABEL_ID_EXTRACTOR;
 import static java.util.stream.Collectors.toList;
@@ -60,6 +67,10 @@ public class LinkRestService implements LinkApi {
 
     private final SignatureValidatorService signatureValidatorService;
 
+    private final LinkIngestService linkIngestService;
+
+    private final VerificationResultCache verificationResultCache;
+
     @Override
     @PermissionCheck(permissions = Permission.LINK_ADD)
     @AuditLog
@@ -78,10 +89,59 @@ public class LinkRestService implements LinkApi {
         LinkMetaBlock linkMetaBlock = converter.convertFromRestLinkMetaBlock(restLinkMetaBlock);
         signatureValidatorService.validateSignature(linkMetaBlock.getLink(), linkMetaBlock.getSignature());
         linkMetaBlock.setSupplyChainId(supplyChainId);
+        linkIngestService.ingest(linkMetaBlock);
         linkMetaBlockRepository.save(linkMetaBlock);
+        verificationResultCache.evict(supplyChainId);
         return new ResponseEntity<>(HttpStatus.NO_CONTENT);
     }
 
+    /**
+     * Stores every link with a valid signature in one unordered bulk write, so one invalid link does not reject
+     * the others. The result of every link is returned in the order of the request.
+     */
+    @Override
+    @PermissionCheck(permissions = Permission.LINK_ADD)
+    @AuditLog
+    public ResponseEntity<List<RestLinkResult>> createLinks(@LabelIdCheckParam(dataExtractor = SUPPLY_CHAIN_LABEL_ID_EXTRACTOR)
+                                                            @AuditParam("supplyChainId") String supplyChainId,
+                                                            @AuditParam(
+                                                                    value = "signatures",
+                                                                    objectArgumentFilterBeanName = "auditLogSignaturesArgumentFilter")
+                                                                    RestLinkMetaBlockBatch restLinkMetaBlockBatch) {
+        log.info("createLinks supplyChainId : {} number of links : {}", supplyChainId, restLinkMetaBlockBatch.getLinkMetaBlocks().size());
+        if (supplyChainRepository.findBySupplyChainId(supplyChainId).isEmpty()) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "supply chain not found : " + supplyChainId);
+        }
+
+        List<LinkMetaBlock> linkMetaBlocks = restLinkMetaBlockBatch.getLinkMetaBlocks().stream()
+                .map(converter::convertFromRestLinkMetaBlock)
+                .collect(toList());
+        linkMetaBlocks.forEach(linkMetaBlock -> linkMetaBlock.setSupplyChainId(supplyChainId));
+        List<Optional<String>> signatureErrors = signatureValidatorService.validateSignatures(linkMetaBlocks);
+
+        List<Integer> validPositions = IntStream.range(0, linkMetaBlocks.size())
+                .filter(position -> signatureErrors.get(position).isEmpty())
+                .boxed().collect(toList());
+        List<LinkMetaBlock> validLinkMetaBlocks = validPositions.stream().map(linkMetaBlocks::get).collect(toList());
+        Set<Integer> failedPositions = Set.of();
+        if (!validLinkMetaBlocks.isEmpty()) {
+            linkIngestService.ingest(supplyChainId, validLinkMetaBlocks);
+            failedPositions = linkMetaBlockRepository.saveAll(validLinkMetaBlocks);
+            if (failedPositions.size() < validLinkMetaBlocks.size()) {
+                verificationResultCache.evict(supplyChainId);
+            }
+        }
+
+        List<RestLinkResult> results = new ArrayList<>();
+        signatureErrors.forEach(error -> results.add(error
+                .map(message -> new RestLinkResult().created(false).error(message))
+                .orElseGet(() -> new RestLinkResult().created(true))));
+        for (Integer failedPosition : failedPositions) {
+            results.set(validPositions.get(failedPosition), new RestLinkResult().created(false).error("link not stored"));
+        }
+        return ResponseEntity.ok(results);
+    }
+
     @Override
     @PermissionCheck(permissions = Permission.READ)
     public ResponseEntity<List<RestLinkMetaBlock>> findLink(@LabelIdCheckParam(dataExtractor = SUPPLY_CHAIN_LABEL_ID_EXTRACTOR) String supplyChainId, String optionalHash) {
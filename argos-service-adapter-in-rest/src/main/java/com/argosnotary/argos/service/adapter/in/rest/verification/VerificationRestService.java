@@ -23,12 +23,14 @@ import com.argosnotary.argos.domain.layout.LayoutMetaBlock;
 import com.argosnotary.argos.domain.link.Artifact;
 import com.argosnotary.argos.domain.permission.Permission;
 import com.argosnotary.argos.service.adapter.in.rest.api.handler.VerificationApi;
+import com.argosnotary.argos.service.adapter.in.rest.api.model.RestVerificationBatch;
 import com.argosnotary.argos.service.adapter.in.rest.api.model.RestVerificationResult;
 import com.argosnotary.argos.service.adapter.in.rest.api.model.RestVerifyCommand;
 import com.argosnotary.argos.service.domain.auditlog.AuditLog;
 import com.argosnotary.argos.service.domain.auditlog.AuditParam;
 import com.argosnotary.argos.service.domain.layout.LayoutMetaBlockRepository;
-import com.argosnotary.argos.service.domain.release.ReleaseRepository;
+import com.argosnotary.argos.service.domain.release.ReleaseIndex;
+import com.argosnotary.argos.service.domain.release.ReleaseQuery;
 import com.argosnotary.argos.service.domain.security.LabelIdCheckParam;
 import com.argosnotary.argos.service.domain.security.PermissionCheck;
 import com.argosnotary.argos.service.domain.verification.VerificationProvider;
@@ -43,6 +45,7 @@ import org.springframework.web.server.ResponseStatusException;
 
 import java.util.List;
 import java.util.Set;
+import java.util.stream.Collectors;
 
 import static com.argosnotary.argos.service.adapter.in.rest.supplychain.SupplyChainLabelIdExtractor.SUPPLY_CHAIN_LABEL_ID_EXTRACTOR;
 
@@ -56,7 +59,7 @@ public class VerificationRestService implements VerificationApi {
 
     private final LayoutMetaBlockRepository repository;
 
-    private final ReleaseRepository releaseRepository;
+    private final ReleaseIndex releaseIndex;
 
     private final ArtifactMapper artifactMapper;
 
@@ -65,11 +68,26 @@ public class VerificationRestService implements VerificationApi {
     @Override
     public ResponseEntity<RestVerificationResult> getVerification(List<String> artifactHashes, List<String> paths) {
         log.info("Verification request for paths [{}] and hashes [{}].", paths, artifactHashes);
-        boolean isvalid = releaseRepository.artifactsAreReleased(artifactHashes, paths);
+        boolean isvalid = releaseIndex.artifactsAreReleased(artifactHashes, paths);
         log.info("Verify result [{}] for paths [{}] and hashes [{}].", isvalid, paths, artifactHashes);
         return ResponseEntity.ok(new RestVerificationResult().runIsValid(isvalid));
     }
 
+    @Override
+    public ResponseEntity<List<RestVerificationResult>> getVerificationBatch(RestVerificationBatch restVerificationBatch) {
+        List<ReleaseQuery> queries = restVerificationBatch.getQueries().stream()
+                .map(query -> ReleaseQuery.builder()
+                        .artifactHashes(query.getArtifactHashes())
+                        .paths(query.getPaths())
+                        .build())
+                .collect(Collectors.toList());
+        log.info("Verification batch request for [{}] artifact sets.", queries.size());
+        List<RestVerificationResult> results = releaseIndex.artifactsAreReleased(queries).stream()
+                .map(isValid -> new RestVerificationResult().runIsValid(isValid))
+                .collect(Collectors.toList());
+        return ResponseEntity.ok(results);
+    }
+
     @Override
     @PermissionCheck(permissions = Permission.READ)
     @AuditLog
@@ -26,6 +26,7 @@ import com.argosnotary.argos.service.adapter.in.rest.api.model.RestValidationErr
 import com.argosnotary.argos.service.adapter.in.rest.api.model.RestValidationMessage;
 import com.argosnotary.argos.service.adapter.in.rest.layout.LayoutValidationException;
 import com.argosnotary.argos.service.domain.NotFoundException;
+import com.argosnotary.argos.service.domain.verification.VerificationRejectedException;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -175,4 +176,19 @@ class RestServiceExceptionHandlerTest {
         assertThat(exception.getStatusCodeValue(), is(HttpStatus.NOT_FOUND.value()));
         assertThat(exception.getBody().getMessage(), is("message"));
     }
+
+    @Test
+    void handleVerificationRejectedException() {
+        ResponseEntity<RestError> response = handler.handleVerificationRejectedException(
+                new VerificationRejectedException(VerificationRejectedException.Reason.CONTEXTS, "message"));
+        assertThat(response.getStatusCodeValue(), is(HttpStatus.UNPROCESSABLE_ENTITY.value()));
+        assertThat(response.getBody().getMessage(), is("message"));
+    }
+
+    @Test
+    void handleVerificationRejectedExceptionBusy() {
+        ResponseEntity<RestError> response = handler.handleVerificationRejectedException(
+                new VerificationRejectedException(VerificationRejectedException.Reason.BUSY, "message"));
+        assertThat(response.getStatusCodeValue(), is(HttpStatus.SERVICE_UNAVAILABLE.value()));
+    }
 }
@@ -29,6 +29,7 @@ import com.argosnotary.argos.domain.layout.Layout;
 import com.argosnotary.argos.domain.layout.Step;
 import com.argosnotary.argos.domain.link.Artifact;
 import com.argosnotary.argos.domain.link.Link;
+import com.argosnotary.argos.domain.link.LinkMetaBlock;
 import com.argosnotary.argos.service.domain.account.AccountService;
 
 import org.bouncycastle.operator.OperatorCreationException;
@@ -47,8 +48,11 @@ import java.util.Optional;
 
 import static java.util.Collections.singletonList;
 import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
 import static org.hamcrest.core.Is.is;
 import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 
@@ -167,6 +171,50 @@ class SignatureValidatorServiceTest {
         assertThat(exception.getStatus().value(), is(400));
         assertThat(exception.getReason(), is(String.format("signature with keyId [%s] not found", keyId)));
     }
-    
 
+    @Test
+    void validateSignatures() {
+        when(accountService.findKeyPairByKeyId(keyId)).thenReturn(Optional.of(pair));
+        List<Optional<String>> results = service.validateSignatures(linkMetaBlocks());
+        assertThat(results, contains(Optional.empty(), Optional.of("invalid signature"), Optional.empty()));
+        verify(accountService, times(1)).findKeyPairByKeyId(keyId);
+    }
+
+    @Test
+    void validateSignaturesInParallel() {
+        service.setSignatureParallelism(2);
+        service.init();
+        try {
+            when(accountService.findKeyPairByKeyId(keyId)).thenReturn(Optional.of(pair));
+            List<Optional<String>> results = service.validateSignatures(linkMetaBlocks());
+            assertThat(results, contains(Optional.empty(), Optional.of("invalid signature"), Optional.empty()));
+        } finally {
+            service.shutdown();
+        }
+    }
+
+    @Test
+    void validateSignaturesWithMalformedSignature() {
+        when(accountService.findKeyPairByKeyId(keyId)).thenReturn(Optional.of(pair));
+        Signature malformedSignature = Signature.builder().keyId(keyId).signature("not hex").build();
+        List<Optional<String>> results = service.validateSignatures(List.of(
+                LinkMetaBlock.builder().link(link).signature(linkSignature).build(),
+                LinkMetaBlock.builder().link(link).signature(malformedSignature).build(),
+                LinkMetaBlock.builder().link(link).signature(linkSignature).build()));
+        assertThat(results, contains(Optional.empty(), Optional.of("invalid signature"), Optional.empty()));
+    }
+
+    @Test
+    void validateSignaturesKeyNotFound() {
+        when(accountService.findKeyPairByKeyId(keyId)).thenReturn(Optional.empty());
+        List<Optional<String>> results = service.validateSignatures(List.of(LinkMetaBlock.builder().link(link).signature(linkSignature).build()));
+        assertThat(results, contains(Optional.of(String.format("signature with keyId [%s] not found", keyId))));
+    }
+
+    private List<LinkMetaBlock> linkMetaBlocks() {
+        return List.of(
+                LinkMetaBlock.builder().link(link).signature(linkSignature).build(),
+                LinkMetaBlock.builder().link(link).signature(linkSignature2).build(),
+                LinkMetaBlock.builder().link(link).signature(linkSignature).build());
+    }
 }
@@ -0,0 +1,104 @@
+/*
+ * Argos Notary - A new way to secure the Software Supply Chain
+ *
+ * Copyright (C) 2019 - 2020 Rabobank Nederland
+ * Copyright (C) 2019 - 2021 Gerard Borst <gerard.borst@argosnotary.com>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package com.argosnotary.argos.service.adapter.in.rest.job;
+
+import com.argosnotary.argos.domain.release.ReleaseDossierMetaData;
+import com.argosnotary.argos.domain.release.ReleaseResult;
+import com.argosnotary.argos.service.adapter.in.rest.api.model.RestJob;
+import com.argosnotary.argos.service.adapter.in.rest.api.model.RestJobStatus;
+import com.argosnotary.argos.service.adapter.in.rest.api.model.RestJobType;
+import com.argosnotary.argos.service.domain.job.Job;
+import com.argosnotary.argos.service.domain.job.JobStatus;
+import com.argosnotary.argos.service.domain.job.JobType;
+import com.argosnotary.argos.service.domain.verification.VerificationRunResult;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mapstruct.factory.Mappers;
+
+import java.time.OffsetDateTime;
+import java.util.Collections;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
+
+class JobMapperTest {
+    private static final String JOB_ID = "jobId";
+    private static final String DOCUMENT_ID = "documentId";
+    private static final String HASH = "hash";
+
+    private JobMapper jobMapper;
+
+    @BeforeEach
+    void setUp() {
+        jobMapper = Mappers.getMapper(JobMapper.class);
+    }
+
+    @Test
+    void mapToRestJobVerification() {
+        Job job = Job.builder()
+                .jobId(JOB_ID)
+                .type(JobType.VERIFICATION)
+                .status(JobStatus.DONE)
+                .verificationRunResult(VerificationRunResult.okay())
+                .build();
+        RestJob restJob = jobMapper.mapToRestJob(job);
+        assertThat(restJob.getId(), is(JOB_ID));
+        assertThat(restJob.getType(), is(RestJobType.VERIFICATION));
+        assertThat(restJob.getStatus(), is(RestJobStatus.DONE));
+        assertThat(restJob.getVerificationResult().getRunIsValid(), is(true));
+        assertThat(restJob.getReleaseResult(), nullValue());
+    }
+
+    @Test
+    void mapToRestJobRelease() {
+        Job job = Job.builder()
+                .jobId(JOB_ID)
+                .type(JobType.RELEASE)
+                .status(JobStatus.DONE)
+                .releaseResult(ReleaseResult.builder()
+                        .releaseIsValid(true)
+                        .releaseDossierMetaData(ReleaseDossierMetaData.builder()
+                                .documentId(DOCUMENT_ID)
+                                .releaseDate(OffsetDateTime.parse("2020-07-30T18:35:24.00Z"))
+                                .releaseArtifacts(Collections.singletonList(Collections.singletonList(HASH)))
+                                .build())
+                        .build())
+                .build();
+        RestJob restJob = jobMapper.mapToRestJob(job);
+        assertThat(restJob.getType(), is(RestJobType.RELEASE));
+        assertThat(restJob.getReleaseResult().getReleaseIsValid(), is(true));
+        assertThat(restJob.getReleaseResult().getReleaseDossierMetaData().getDocumentId(), is(DOCUMENT_ID));
+        assertThat(restJob.getVerificationResult(), nullValue());
+    }
+
+    @Test
+    void mapToRestJobFailed() {
+        Job job = Job.builder()
+                .jobId(JOB_ID)
+                .type(JobType.RELEASE)
+                .status(JobStatus.FAILED)
+                .error("error")
+                .build();
+        RestJob restJob = jobMapper.mapToRestJob(job);
+        assertThat(restJob.getStatus(), is(RestJobStatus.FAILED));
+        assertThat(restJob.getError(), is("error"));
+    }
+}
@@ -0,0 +1,148 @@
+/*
+ * Argos Notary - A new way to secure the Software Supply Chain
+ *
+ * Copyright (C) 2019 - 2020 Rabobank Nederland
+ * Copyright (C) 2019 - 2021 Gerard Borst <gerard.borst@argosnotary.com>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package com.argosnotary.argos.service.adapter.in.rest.job;
+
+import com.argosnotary.argos.domain.layout.LayoutMetaBlock;
+import com.argosnotary.argos.domain.link.Artifact;
+import com.argosnotary.argos.service.adapter.in.rest.api.model.RestArtifact;
+import com.argosnotary.argos.service.adapter.in.rest.api.model.RestJob;
+import com.argosnotary.argos.service.adapter.in.rest.api.model.RestReleaseArtifacts;
+import com.argosnotary.argos.service.adapter.in.rest.api.model.RestVerifyCommand;
+import com.argosnotary.argos.service.adapter.in.rest.release.ReleaseArtifactMapper;
+import com.argosnotary.argos.service.adapter.in.rest.verification.ArtifactMapper;
+import com.argosnotary.argos.service.domain.NotFoundException;
+import com.argosnotary.argos.service.domain.job.Job;
+import com.argosnotary.argos.service.domain.job.JobService;
+import com.argosnotary.argos.service.domain.layout.LayoutMetaBlockRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.Optional;
+import java.util.Set;
+
+import static java.util.Collections.singletonList;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.core.Is.is;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class JobRestServiceTest {
+
+    private static final String SUPPLY_CHAIN_ID = "supplyChainId";
+    private static final String JOB_ID = "jobId";
+
+    @Mock
+    private JobService jobService;
+
+    @Mock
+    private LayoutMetaBlockRepository layoutMetaBlockRepository;
+
+    @Mock
+    private ArtifactMapper artifactMapper;
+
+    @Mock
+    private ReleaseArtifactMapper releaseArtifactMapper;
+
+    @Mock
+    private JobMapper jobMapper;
+
+    @Mock
+    private RestVerifyCommand restVerifyCommand;
+
+    @Mock
+    private RestReleaseArtifacts restReleaseArtifacts;
+
+    @Mock
+    private RestArtifact restArtifact;
+
+    @Mock
+    private Artifact artifact;
+
+    @Mock
+    private LayoutMetaBlock layoutMetaBlock;
+
+    @Mock
+    private Job job;
+
+    @Mock
+    private RestJob restJob;
+
+    private JobRestService jobRestService;
+
+    @BeforeEach
+    void setup() {
+        jobRestService = new JobRestService(jobService, layoutMetaBlockRepository, artifactMapper, releaseArtifactMapper, jobMapper);
+    }
+
+    @Test
+    void submitVerificationJobShouldReturnAccepted() {
+        when(layoutMetaBlockRepository.findBySupplyChainId(SUPPLY_CHAIN_ID)).thenReturn(Optional.of(layoutMetaBlock));
+        when(restVerifyCommand.getExpectedProducts()).thenReturn(singletonList(restArtifact));
+        when(artifactMapper.mapToArtifacts(any())).thenReturn(Set.of(artifact));
+        when(jobService.submitVerification(layoutMetaBlock, Set.of(artifact))).thenReturn(job);
+        when(jobMapper.mapToRestJob(job)).thenReturn(restJob);
+        ResponseEntity<RestJob> result = jobRestService.submitVerificationJob(SUPPLY_CHAIN_ID, restVerifyCommand);
+        assertThat(result.getStatusCode(), is(HttpStatus.ACCEPTED));
+        assertThat(result.getBody(), is(restJob));
+    }
+
+    @Test
+    void submitVerificationJobWithNoLayoutShouldReturnError() {
+        when(layoutMetaBlockRepository.findBySupplyChainId(SUPPLY_CHAIN_ID)).thenReturn(Optional.empty());
+        ResponseStatusException error = assertThrows(ResponseStatusException.class, () -> jobRestService.submitVerificationJob(SUPPLY_CHAIN_ID, restVerifyCommand));
+        assertThat(error.getStatus().value(), is(400));
+    }
+
+    @Test
+    void submitReleaseJobShouldReturnAccepted() {
+        when(restReleaseArtifacts.getReleaseArtifacts()).thenReturn(singletonList(singletonList(restArtifact)));
+        when(releaseArtifactMapper.mapToArtifacts(singletonList(singletonList(restArtifact))))
+                .thenReturn(singletonList(Set.of(artifact)));
+        when(jobService.submitRelease(SUPPLY_CHAIN_ID, singletonList(Set.of(artifact)))).thenReturn(job);
+        when(jobMapper.mapToRestJob(job)).thenReturn(restJob);
+        ResponseEntity<RestJob> result = jobRestService.submitReleaseJob(SUPPLY_CHAIN_ID, restReleaseArtifacts);
+        assertThat(result.getStatusCode(), is(HttpStatus.ACCEPTED));
+        assertThat(result.getBody(), is(restJob));
+    }
+
+    @Test
+    void getJobShouldReturnOk() {
+        when(jobService.getJob(SUPPLY_CHAIN_ID, JOB_ID)).thenReturn(Optional.of(job));
+        when(jobMapper.mapToRestJob(job)).thenReturn(restJob);
+        ResponseEntity<RestJob> result = jobRestService.getJob(SUPPLY_CHAIN_ID, JOB_ID);
+        assertThat(result.getStatusCode(), is(HttpStatus.OK));
+        assertThat(result.getBody(), is(restJob));
+    }
+
+    @Test
+    void getUnknownJobShouldReturnNotFound() {
+        when(jobService.getJob(SUPPLY_CHAIN_ID, JOB_ID)).thenReturn(Optional.empty());
+        NotFoundException error = assertThrows(NotFoundException.class, () -> jobRestService.getJob(SUPPLY_CHAIN_ID, JOB_ID));
+        assertThat(error.getMessage(), is("job not found : " + JOB_ID));
+    }
+}
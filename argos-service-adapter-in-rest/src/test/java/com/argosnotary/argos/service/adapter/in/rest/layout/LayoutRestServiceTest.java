@@ -36,6 +36,9 @@ import com.argosnotary.argos.service.domain.layout.ApprovalConfigurationReposito
 import com.argosnotary.argos.service.domain.layout.LayoutMetaBlockRepository;
 import com.argosnotary.argos.service.domain.layout.ReleaseConfigurationRepository;
 import com.argosnotary.argos.service.domain.security.AccountSecurityContext;
+import com.argosnotary.argos.service.domain.verification.CompiledLayout;
+import com.argosnotary.argos.service.domain.verification.CompiledLayoutCache;
+import com.argosnotary.argos.service.domain.verification.VerificationResultCache;
 import org.hamcrest.core.Is;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -132,11 +135,17 @@ class LayoutRestServiceTest {
     private RestReleaseConfiguration restReleaseConfiguration;
 
     @Mock
-    private Step step;
+    private VerificationResultCache verificationResultCache;
+
+    @Mock
+    private CompiledLayoutCache compiledLayoutCache;
+
+    @Mock
+    private CompiledLayout compiledLayout;
 
     @BeforeEach
     void setUp() {
-        service = new LayoutRestService(converter, layoutMetaBlockRepository, validator, approvalConfigurationRepository, releaseConfigurationRepository, configurationMapper, accountSecurityContext);
+        service = new LayoutRestService(converter, layoutMetaBlockRepository, validator, approvalConfigurationRepository, releaseConfigurationRepository, configurationMapper, accountSecurityContext, verificationResultCache, compiledLayoutCache);
     }
 
     @Test
@@ -151,6 +160,8 @@ class LayoutRestServiceTest {
         assertThat(Objects.requireNonNull(responseEntity.getHeaders().getLocation()).getPath(), is(""));
         verify(layoutMetaBlockRepository).createOrUpdate(layoutMetaBlock);
         verify(validator).validate(layoutMetaBlock);
+        verify(verificationResultCache).evict(SUPPLY_CHAIN_ID);
+        verify(compiledLayoutCache).evict(SUPPLY_CHAIN_ID);
 
     }
 
@@ -279,8 +290,7 @@ class LayoutRestServiceTest {
     @Test
     void getApprovalsForAccount() {
         when(layoutMetaBlockRepository.findBySupplyChainId(SUPPLY_CHAIN_ID)).thenReturn(Optional.of(layoutMetaBlock));
-        when(layoutMetaBlock.getLayout()).thenReturn(layout);
-        when(layout.getSteps()).thenReturn(List.of(step));
+        when(compiledLayoutCache.get(layoutMetaBlock)).thenReturn(compiledLayout);
 
 
         when(accountSecurityContext.getAuthenticatedAccount()).thenReturn(Optional.of(account));
@@ -294,21 +304,13 @@ class LayoutRestServiceTest {
         when(approvalConfiguration.getStepName()).thenReturn("step1");
         when(keyPair.getKeyId()).thenReturn("accountKeyId");
 
-        when(step.getName()).thenReturn("step1");
-        when(step.getAuthorizedKeyIds()).thenReturn(List.of("accountKeyId"));
+        when(compiledLayout.isAuthorizedForStep("step1", "accountKeyId")).thenReturn(true);
 
         ResponseEntity<List<RestApprovalConfiguration>> responseEntity = service.getApprovalsForAccount(SUPPLY_CHAIN_ID);
         assertThat(responseEntity.getStatusCodeValue(), is(200));
         assertThat(responseEntity.getBody(), contains(restApprovalConfiguration));
 
-        when(step.getName()).thenReturn("step1");
-        when(step.getAuthorizedKeyIds()).thenReturn(List.of("otherAccountKeyId"));
-        assertThat(service.getApprovalsForAccount(SUPPLY_CHAIN_ID).getBody(), empty());
-
-        when(step.getName()).thenReturn("step2");
-        assertThat(service.getApprovalsForAccount(SUPPLY_CHAIN_ID).getBody(), empty());
-
-
+        when(compiledLayout.isAuthorizedForStep("step1", "accountKeyId")).thenReturn(false);
         assertThat(service.getApprovalsForAccount(SUPPLY_CHAIN_ID).getBody(), empty());
     }
 
@@ -0,0 +1,71 @@
+/*
+ * Argos Notary - A new way to secure the Software Supply Chain
+ *
+ * Copyright (C) 2019 - 2020 Rabobank Nederland
+ * Copyright (C) 2019 - 2021 Gerard Borst <gerard.borst@argosnotary.com>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package com.argosnotary.argos.service.adapter.in.rest.link;
+
+import com.argosnotary.argos.service.adapter.in.rest.api.model.RestLinkMetaBlock;
+import com.argosnotary.argos.service.adapter.in.rest.api.model.RestLinkMetaBlockBatch;
+import com.argosnotary.argos.service.adapter.in.rest.api.model.RestSignature;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class AuditLogSignaturesArgumentFilterTest {
+
+    @Mock
+    private RestLinkMetaBlockBatch restLinkMetaBlockBatch;
+
+    @Mock
+    private RestLinkMetaBlock restLinkMetaBlock;
+
+    @Mock
+    private RestLinkMetaBlock otherRestLinkMetaBlock;
+
+    @Mock
+    private RestSignature restSignature;
+
+    @Mock
+    private RestSignature otherRestSignature;
+
+    private AuditLogSignaturesArgumentFilter auditLogSignaturesArgumentFilter;
+
+    @BeforeEach
+    void setup() {
+        auditLogSignaturesArgumentFilter = new AuditLogSignaturesArgumentFilter();
+    }
+
+    @Test
+    void filterObjectArguments() {
+        when(restLinkMetaBlockBatch.getLinkMetaBlocks()).thenReturn(List.of(restLinkMetaBlock, otherRestLinkMetaBlock));
+        when(restLinkMetaBlock.getSignature()).thenReturn(restSignature);
+        when(otherRestLinkMetaBlock.getSignature()).thenReturn(otherRestSignature);
+        Map<String, Object> objectArguments = auditLogSignaturesArgumentFilter.filterObjectArguments(restLinkMetaBlockBatch);
+        assertThat(objectArguments.get("signatures"), is(List.of(restSignature, otherRestSignature)));
+    }
+}
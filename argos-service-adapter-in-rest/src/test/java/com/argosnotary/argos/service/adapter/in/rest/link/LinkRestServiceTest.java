@@ -25,11 +25,16 @@ import com.argosnotary.argos.domain.link.LinkMetaBlock;
 import com.argosnotary.argos.domain.supplychain.SupplyChain;
 import com.argosnotary.argos.service.adapter.in.rest.SignatureValidatorService;
 import com.argosnotary.argos.service.adapter.in.rest.api.model.RestLinkMetaBlock;
+import com.argosnotary.argos.service.adapter.in.rest.api.model.RestLinkMetaBlockBatch;
+import com.argosnotary.argos.service.adapter.in.rest.api.model.RestLinkResult;
+import com.argosnotary.argos.service.domain.link.LinkIngestService;
 import com.argosnotary.argos.service.domain.link.LinkMetaBlockRepository;
 import com.argosnotary.argos.service.domain.supplychain.SupplyChainRepository;
+import com.argosnotary.argos.service.domain.verification.VerificationResultCache;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InOrder;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.http.ResponseEntity;
@@ -38,12 +43,18 @@ import org.springframework.web.server.ResponseStatusException;
 import java.util.Collections;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
 
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.hasSize;
 import static org.hamcrest.Matchers.sameInstance;
 import static org.hamcrest.core.Is.is;
 import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
@@ -66,6 +77,12 @@ class LinkRestServiceTest {
     @Mock
     private SignatureValidatorService signatureValidatorService;
 
+    @Mock
+    private LinkIngestService linkIngestService;
+
+    @Mock
+    private VerificationResultCache verificationResultCache;
+
     @Mock
     private RestLinkMetaBlock restLinkMetaBlock;
 
@@ -83,9 +100,21 @@ class LinkRestServiceTest {
     @Mock
     private Link link;
 
+    @Mock
+    private RestLinkMetaBlock restLinkMetaBlock2;
+
+    @Mock
+    private RestLinkMetaBlock restLinkMetaBlock3;
+
+    @Mock
+    private LinkMetaBlock linkMetaBlock2;
+
+    @Mock
+    private LinkMetaBlock linkMetaBlock3;
+
     @BeforeEach
     void setUp() {
-        restService = new LinkRestService(linkMetaBlockRepository, supplyChainRepository, converter, signatureValidatorService);
+        restService = new LinkRestService(linkMetaBlockRepository, supplyChainRepository, converter, signatureValidatorService, linkIngestService, verificationResultCache);
 
     }
 
@@ -97,9 +126,63 @@ class LinkRestServiceTest {
         when(converter.convertFromRestLinkMetaBlock(restLinkMetaBlock)).thenReturn(linkMetaBlock);
         when(supplyChainRepository.findBySupplyChainId(SUPPLY_CHAIN_ID)).thenReturn(Optional.of(supplyChain));
         assertThat(restService.createLink(SUPPLY_CHAIN_ID, restLinkMetaBlock).getStatusCodeValue(), is(204));
-        verify(linkMetaBlock).setSupplyChainId(SUPPLY_CHAIN_ID);
-        verify(linkMetaBlockRepository).save(linkMetaBlock);
-        verify(signatureValidatorService).validateSignature(link, signature);
+        InOrder inOrder = inOrder(signatureValidatorService, linkMetaBlock, linkIngestService, linkMetaBlockRepository, verificationResultCache);
+        inOrder.verify(signatureValidatorService).validateSignature(link, signature);
+        inOrder.verify(linkMetaBlock).setSupplyChainId(SUPPLY_CHAIN_ID);
+        inOrder.verify(linkIngestService).ingest(linkMetaBlock);
+        inOrder.verify(linkMetaBlockRepository).save(linkMetaBlock);
+        inOrder.verify(verificationResultCache).evict(SUPPLY_CHAIN_ID);
+    }
+
+    @Test
+    void createLinks() {
+        when(supplyChainRepository.findBySupplyChainId(SUPPLY_CHAIN_ID)).thenReturn(Optional.of(supplyChain));
+        when(converter.convertFromRestLinkMetaBlock(restLinkMetaBlock)).thenReturn(linkMetaBlock);
+        when(converter.convertFromRestLinkMetaBlock(restLinkMetaBlock2)).thenReturn(linkMetaBlock2);
+        when(converter.convertFromRestLinkMetaBlock(restLinkMetaBlock3)).thenReturn(linkMetaBlock3);
+        List<LinkMetaBlock> linkMetaBlocks = List.of(linkMetaBlock, linkMetaBlock2, linkMetaBlock3);
+        when(signatureValidatorService.validateSignatures(linkMetaBlocks))
+                .thenReturn(List.of(Optional.empty(), Optional.of("invalid signature"), Optional.empty()));
+        when(linkMetaBlockRepository.saveAll(List.of(linkMetaBlock, linkMetaBlock3))).thenReturn(Set.of(1));
+
+        ResponseEntity<List<RestLinkResult>> response = restService.createLinks(SUPPLY_CHAIN_ID,
+                new RestLinkMetaBlockBatch().linkMetaBlocks(List.of(restLinkMetaBlock, restLinkMetaBlock2, restLinkMetaBlock3)));
+
+        assertThat(response.getStatusCodeValue(), is(200));
+        assertThat(response.getBody(), is(List.of(
+                new RestLinkResult().created(true),
+                new RestLinkResult().created(false).error("invalid signature"),
+                new RestLinkResult().created(false).error("link not stored"))));
+        InOrder inOrder = inOrder(linkMetaBlock, signatureValidatorService, linkIngestService, linkMetaBlockRepository, verificationResultCache);
+        inOrder.verify(linkMetaBlock).setSupplyChainId(SUPPLY_CHAIN_ID);
+        inOrder.verify(signatureValidatorService).validateSignatures(linkMetaBlocks);
+        inOrder.verify(linkIngestService).ingest(SUPPLY_CHAIN_ID, List.of(linkMetaBlock, linkMetaBlock3));
+        inOrder.verify(linkMetaBlockRepository).saveAll(List.of(linkMetaBlock, linkMetaBlock3));
+        inOrder.verify(verificationResultCache).evict(SUPPLY_CHAIN_ID);
+    }
+
+    @Test
+    void createLinksAllInvalid() {
+        when(supplyChainRepository.findBySupplyChainId(SUPPLY_CHAIN_ID)).thenReturn(Optional.of(supplyChain));
+        when(converter.convertFromRestLinkMetaBlock(restLinkMetaBlock)).thenReturn(linkMetaBlock);
+        when(signatureValidatorService.validateSignatures(List.of(linkMetaBlock)))
+                .thenReturn(List.of(Optional.of("invalid signature")));
+
+        ResponseEntity<List<RestLinkResult>> response = restService.createLinks(SUPPLY_CHAIN_ID,
+                new RestLinkMetaBlockBatch().linkMetaBlocks(List.of(restLinkMetaBlock)));
+
+        assertThat(response.getBody(), is(List.of(new RestLinkResult().created(false).error("invalid signature"))));
+        verify(linkIngestService, never()).ingest(anyString(), anyList());
+        verify(linkMetaBlockRepository, never()).saveAll(anyList());
+        verify(verificationResultCache, never()).evict(any());
+    }
+
+    @Test
+    void createLinksUnknownSupplyChain() {
+        when(supplyChainRepository.findBySupplyChainId(SUPPLY_CHAIN_ID)).thenReturn(Optional.empty());
+        RestLinkMetaBlockBatch batch = new RestLinkMetaBlockBatch().linkMetaBlocks(List.of(restLinkMetaBlock));
+        ResponseStatusException error = assertThrows(ResponseStatusException.class, () -> restService.createLinks(SUPPLY_CHAIN_ID, batch));
+        assertThat(error.getStatus().value(), is(404));
     }
 
     @Test
@@ -22,15 +22,20 @@ package com.argosnotary.argos.service.adapter.in.rest.verification;
 import com.argosnotary.argos.domain.layout.LayoutMetaBlock;
 import com.argosnotary.argos.domain.link.Artifact;
 import com.argosnotary.argos.service.adapter.in.rest.api.model.RestArtifact;
+import com.argosnotary.argos.service.adapter.in.rest.api.model.RestVerificationBatch;
+import com.argosnotary.argos.service.adapter.in.rest.api.model.RestVerificationQuery;
 import com.argosnotary.argos.service.adapter.in.rest.api.model.RestVerificationResult;
 import com.argosnotary.argos.service.adapter.in.rest.api.model.RestVerifyCommand;
 import com.argosnotary.argos.service.domain.layout.LayoutMetaBlockRepository;
-import com.argosnotary.argos.service.domain.release.ReleaseRepository;
+import com.argosnotary.argos.service.domain.release.ReleaseIndex;
+import com.argosnotary.argos.service.domain.release.ReleaseQuery;
 import com.argosnotary.argos.service.domain.verification.VerificationProvider;
 import com.argosnotary.argos.service.domain.verification.VerificationRunResult;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Captor;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.http.HttpStatus;
@@ -68,7 +73,7 @@ class VerificationRestServiceTest {
     private RestVerifyCommand restVerifyCommand;
 
     @Mock
-    private ReleaseRepository releaseRepository;
+    private ReleaseIndex releaseIndex;
 
     @Mock
     private Artifact artifact;
@@ -79,6 +84,9 @@ class VerificationRestServiceTest {
     @Mock
     private LayoutMetaBlock layoutMetaBlockMetaBlock;
 
+    @Captor
+    private ArgumentCaptor<List<ReleaseQuery>> releaseQueriesCaptor;
+
     private VerificationRestService verificationRestService;
 
 
@@ -87,7 +95,7 @@ class VerificationRestServiceTest {
         verificationRestService = new VerificationRestService(
                 verificationProvider,
                 layoutMetaBlockRepository,
-                releaseRepository,
+                releaseIndex,
                 artifactMapper,
                 verificationResultMapper);
 
@@ -120,9 +128,26 @@ class VerificationRestServiceTest {
 
     @Test
     void getVerification() {
-        when(releaseRepository.artifactsAreReleased(any(), any())).thenReturn(true);
+        when(releaseIndex.artifactsAreReleased(any(), any())).thenReturn(true);
         ResponseEntity<RestVerificationResult> result = verificationRestService.getVerification(List.of("hash"), List.of("path"));
         assertThat(result.getStatusCode(), is(HttpStatus.OK));
         assertThat(result.getBody().getRunIsValid(), is(true));
     }
+
+    @Test
+    void getVerificationBatch() {
+        when(releaseIndex.artifactsAreReleased(releaseQueriesCaptor.capture())).thenReturn(List.of(true, false));
+        RestVerificationBatch batch = new RestVerificationBatch().queries(List.of(
+                new RestVerificationQuery().artifactHashes(List.of("hash1")).paths(List.of("path")),
+                new RestVerificationQuery().artifactHashes(List.of("hash2", "hash3"))));
+        ResponseEntity<List<RestVerificationResult>> result = verificationRestService.getVerificationBatch(batch);
+        assertThat(result.getStatusCode(), is(HttpStatus.OK));
+        assertThat(result.getBody().size(), is(2));
+        assertThat(result.getBody().get(0).getRunIsValid(), is(true));
+        assertThat(result.getBody().get(1).getRunIsValid(), is(false));
+        List<ReleaseQuery> queries = releaseQueriesCaptor.getValue();
+        assertThat(queries.get(0).getArtifactHashes(), is(List.of("hash1")));
+        assertThat(queries.get(0).getPaths(), is(List.of("path")));
+        assertThat(queries.get(1).getArtifactHashes(), is(List.of("hash2", "hash3")));
+    }
 }
\ No newline at end of file
@@ -26,6 +26,8 @@ import com.mongodb.ConnectionString;
 import com.mongodb.MongoClientSettings;
 import com.mongodb.client.MongoClient;
 import com.mongodb.client.MongoClients;
+import com.mongodb.client.gridfs.GridFSBucket;
+import com.mongodb.client.gridfs.GridFSBuckets;
 import com.argosnotary.argos.service.adapter.out.mongodb.release.DateToOffsetTimeConverter;
 import com.argosnotary.argos.service.adapter.out.mongodb.release.DocumentToReleaseDossierMetaDataConverter;
 import com.argosnotary.argos.service.adapter.out.mongodb.release.OffsetTimeToDateConverter;
@@ -86,6 +88,11 @@ public class MongoConfig extends AbstractMongoClientConfiguration {
                 customConversions(), null));
     }
 
+    @Bean
+    public GridFSBucket gridFSBucket() {
+        return GridFSBuckets.create(mongoDbFactory().getMongoDatabase());
+    }
+
     @Bean
     public MongoTransactionManager transactionManager(MongoDatabaseFactory dbFactory) {
         return new MongoTransactionManager(dbFactory);
@@ -21,31 +21,81 @@ package com.argosnotary.argos.service.adapter.out.mongodb.auditlog;
 
 import ch.qos.logback.classic.Logger;
 import ch.qos.logback.classic.LoggerContext;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.AccessLevel;
+import lombok.RequiredArgsConstructor;
+import lombok.Setter;
 import lombok.extern.slf4j.Slf4j;
 import org.slf4j.LoggerFactory;
-import org.springframework.context.annotation.Profile;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.event.ContextRefreshedEvent;
 import org.springframework.context.event.EventListener;
 import org.springframework.data.mongodb.core.MongoTemplate;
 import org.springframework.stereotype.Component;
 
+import javax.annotation.PreDestroy;
+
 import static com.argosnotary.argos.service.domain.auditlog.AuditLogAdvisor.ARGOS_AUDIT_LOG;
 
+/**
+ * Stores the audit log in the auditlogs collection when audit.appender.enabled is set, by default the audit log is
+ * only logged. The appender is stopped before the mongo client is closed so the buffered events are still stored.
+ */
 @Component
 @Slf4j
-@Profile("integration-test")
+@RequiredArgsConstructor
 public class LogConfigurator {
 
+    private final MongoTemplate mongoTemplate;
+
+    private final MeterRegistry meterRegistry;
+
+    @Setter(AccessLevel.PACKAGE)
+    @Value("${audit.appender.enabled:false}")
+    private boolean enabled;
+
+    /**
+     * number of audit log events buffered for the writer thread, 0 inserts every event on the logging thread
+     */
+    @Setter(AccessLevel.PACKAGE)
+    @Value("${audit.appender.bufferSize:8192}")
+    private int bufferSize = 8192;
+
+    @Setter(AccessLevel.PACKAGE)
+    @Value("${audit.appender.batchSize:500}")
+    private int batchSize = 500;
+
+    @Setter(AccessLevel.PACKAGE)
+    @Value("${audit.appender.flushInterval:200}")
+    private long flushInterval = 200;
+
+    @Setter(AccessLevel.PACKAGE)
+    @Value("${audit.appender.overflowPolicy:BLOCK}")
+    private MongoDBAppender.OverflowPolicy overflowPolicy = MongoDBAppender.OverflowPolicy.BLOCK;
+
+    private MongoDBAppender mongoDBAppender;
+
     @EventListener
-    public void configureMongoDBLogger(ContextRefreshedEvent contextRefreshedEvent) {
-        MongoTemplate mongoTemplate = contextRefreshedEvent.getApplicationContext().getBean("mongoTemplate", MongoTemplate.class);
+    public synchronized void configureMongoDBLogger(ContextRefreshedEvent contextRefreshedEvent) {
+        if (!enabled || mongoDBAppender != null) {
+            return;
+        }
         LoggerContext logContext = (LoggerContext) LoggerFactory.getILoggerFactory();
         Logger logger = (Logger) LoggerFactory.getLogger(ARGOS_AUDIT_LOG);
-        MongoDBAppender mongoDBAppender = new MongoDBAppender(mongoTemplate);
+        mongoDBAppender = new MongoDBAppender(mongoTemplate, meterRegistry, bufferSize, batchSize, flushInterval, overflowPolicy);
         mongoDBAppender.setContext(logContext);
         mongoDBAppender.start();
         logger.addAppender(mongoDBAppender);
-        log.info("mongoDB Log Appender added ");
+        log.info("mongoDB Log Appender added with buffer size [{}] and overflow policy [{}]", bufferSize, overflowPolicy);
+    }
+
+    @PreDestroy
+    public synchronized void stopMongoDBLogger() {
+        if (mongoDBAppender != null) {
+            ((Logger) LoggerFactory.getLogger(ARGOS_AUDIT_LOG)).detachAppender(mongoDBAppender);
+            mongoDBAppender.stop();
+            mongoDBAppender = null;
+        }
     }
 
 }
@@ -21,21 +21,180 @@ package com.argosnotary.argos.service.adapter.out.mongodb.auditlog;
 
 import ch.qos.logback.classic.spi.ILoggingEvent;
 import ch.qos.logback.core.UnsynchronizedAppenderBase;
-import lombok.RequiredArgsConstructor;
+import com.mongodb.MongoBulkWriteException;
+import com.mongodb.client.model.InsertManyOptions;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import org.bson.Document;
 import org.springframework.data.mongodb.core.MongoTemplate;
 
+import java.util.ArrayList;
 import java.util.Date;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
 import java.util.stream.Collectors;
 
-@RequiredArgsConstructor
+/**
+ * Stores audit log events in mongo. With a buffer size above 0 an event is only offered to a ring buffer on
+ * the logging thread, a writer thread stores the buffered events with an unordered insertMany when a batch is
+ * full or the flush interval has passed. With a buffer size of 0 every event is inserted on the logging thread.
+ */
 public class MongoDBAppender extends UnsynchronizedAppenderBase<ILoggingEvent> {
 
-    private final MongoTemplate mongoTemplate;
+    public enum OverflowPolicy {
+        /**
+         * the logging thread waits until the writer has made room in the buffer
+         */
+        BLOCK,
+        /**
+         * the event is dropped and counted
+         */
+        DROP
+    }
+
     static final String COLLECTION = "auditlogs";
+    private static final String METRIC_NAME = "argos.auditlog";
+    private static final long BLOCK_WAIT_NANOS = TimeUnit.MICROSECONDS.toNanos(100);
+    private static final long STOP_TIMEOUT_MILLIS = 10000;
+
+    private final MongoTemplate mongoTemplate;
+    private final RingBuffer<Document> buffer;
+    private final int batchSize;
+    private final long flushIntervalNanos;
+    private final OverflowPolicy overflowPolicy;
+
+    private final Counter written;
+    private final Counter failed;
+    private final Counter dropped;
+    private final Timer flushLatency;
+
+    private volatile boolean running;
+    private Thread writer;
+
+    public MongoDBAppender(MongoTemplate mongoTemplate, MeterRegistry meterRegistry,
+                           int bufferSize, int batchSize, long flushInterval, OverflowPolicy overflowPolicy) {
+        this.mongoTemplate = mongoTemplate;
+        this.buffer = bufferSize > 0 ? new RingBuffer<>(bufferSize) : null;
+        this.batchSize = Math.max(1, batchSize);
+        this.flushIntervalNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(1, flushInterval));
+        this.overflowPolicy = overflowPolicy;
+        written = Counter.builder(METRIC_NAME).tag("result", "written").register(meterRegistry);
+        failed = Counter.builder(METRIC_NAME).tag("result", "failed").register(meterRegistry);
+        dropped = Counter.builder(METRIC_NAME).tag("result", "dropped").register(meterRegistry);
+        flushLatency = Timer.builder(METRIC_NAME + ".flush").register(meterRegistry);
+        Gauge.builder(METRIC_NAME + ".queue.depth", this, MongoDBAppender::queueDepth).register(meterRegistry);
+    }
+
+    @Override
+    public void start() {
+        if (buffer != null) {
+            running = true;
+            writer = new Thread(this::write, "audit-log-writer");
+            writer.setDaemon(true);
+            writer.start();
+        }
+        super.start();
+    }
+
+    @Override
+    public void stop() {
+        super.stop();
+        if (writer != null) {
+            running = false;
+            LockSupport.unpark(writer);
+            try {
+                writer.join(STOP_TIMEOUT_MILLIS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            writer = null;
+        }
+    }
+
     @Override
     protected void append(ILoggingEvent eventObject) {
+        Document logEntry = toDocument(eventObject);
+        if (buffer == null) {
+            insert(logEntry);
+        } else {
+            offer(logEntry);
+        }
+    }
+
+    private void offer(Document logEntry) {
+        while (!buffer.offer(logEntry)) {
+            if (overflowPolicy == OverflowPolicy.DROP || !running) {
+                dropped.increment();
+                return;
+            }
+            LockSupport.unpark(writer);
+            LockSupport.parkNanos(BLOCK_WAIT_NANOS);
+        }
+        if (buffer.size() >= batchSize && writer != null) {
+            LockSupport.unpark(writer);
+        }
+    }
+
+    private void write() {
+        List<Document> batch = new ArrayList<>(batchSize);
+        long flushAt = 0;
+        while (running || !buffer.isEmpty()) {
+            Document logEntry = buffer.poll();
+            if (logEntry != null) {
+                if (batch.isEmpty()) {
+                    flushAt = System.nanoTime() + flushIntervalNanos;
+                }
+                batch.add(logEntry);
+                if (batch.size() >= batchSize) {
+                    flush(batch);
+                }
+            } else if (batch.isEmpty()) {
+                LockSupport.parkNanos(this, flushIntervalNanos);
+            } else if (System.nanoTime() - flushAt >= 0) {
+                flush(batch);
+            } else {
+                LockSupport.parkNanos(this, flushAt - System.nanoTime());
+            }
+        }
+        if (!batch.isEmpty()) {
+            flush(batch);
+        }
+    }
+
+    private void flush(List<Document> batch) {
+        flushLatency.record(() -> insertMany(batch));
+        batch.clear();
+    }
+
+    private void insertMany(List<Document> batch) {
+        try {
+            mongoTemplate.getCollection(COLLECTION).insertMany(batch, new InsertManyOptions().ordered(false));
+            written.increment(batch.size());
+        } catch (MongoBulkWriteException e) {
+            int notStored = e.getWriteErrors().size();
+            written.increment(batch.size() - (double) notStored);
+            failed.increment(notStored);
+            addError("[" + notStored + "] audit log entries not stored", e);
+        } catch (RuntimeException e) {
+            failed.increment(batch.size());
+            addError("[" + batch.size() + "] audit log entries not stored", e);
+        }
+    }
+
+    private void insert(Document logEntry) {
+        mongoTemplate.insert(logEntry, COLLECTION);
+        written.increment();
+    }
+
+    private double queueDepth() {
+        return buffer == null ? 0 : buffer.size();
+    }
+
+    private static Document toDocument(ILoggingEvent eventObject) {
         Document logEntry = new Document();
         logEntry.append("timestamp", new Date(eventObject.getTimeStamp()));
         logEntry.append("message", eventObject.getFormattedMessage());
@@ -44,8 +203,6 @@ public class MongoDBAppender extends UnsynchronizedAppenderBase<ILoggingEvent> {
                 .stream()
                 .collect(Collectors.toMap(Map.Entry::getKey, Map.Entry::getValue))
                 .forEach(logEntry::append);
-        mongoTemplate.insert(logEntry, COLLECTION);
+        return logEntry;
     }
-
-
 }
@@ -25,33 +25,46 @@ import com.github.cloudyrock.mongock.driver.mongodb.springdata.v3.decorator.impl
 
 import org.apache.commons.io.IOUtils;
 import org.bson.Document;
+import org.springframework.data.mongodb.core.query.Query;
 import org.springframework.data.mongodb.core.index.CompoundIndexDefinition;
 import org.springframework.data.mongodb.core.index.HashedIndex;
 import org.springframework.data.mongodb.core.index.Index;
 import org.springframework.data.mongodb.core.index.IndexDefinition;
 import org.springframework.data.mongodb.core.index.PartialIndexFilter;
 import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.util.CloseableIterator;
 
 import static java.nio.charset.StandardCharsets.UTF_8;
 import static org.springframework.data.domain.Sort.Direction.ASC;
 
 import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
 
 import com.argosnotary.argos.service.adapter.out.mongodb.layout.ApprovalConfigurationRepositoryImpl;
 import com.argosnotary.argos.service.adapter.out.mongodb.account.FinishedSessionRepositoryImpl;
 import com.argosnotary.argos.service.adapter.out.mongodb.hierarchy.LabelRepositoryImpl;
+import com.argosnotary.argos.service.adapter.out.mongodb.job.JobRepositoryImpl;
 import com.argosnotary.argos.service.adapter.out.mongodb.layout.LayoutMetaBlockRepositoryImpl;
 import com.argosnotary.argos.service.adapter.out.mongodb.link.LinkMetaBlockRepositoryImpl;
+import com.argosnotary.argos.service.adapter.out.mongodb.release.ReleaseLeaseRepositoryImpl;
 import com.argosnotary.argos.service.adapter.out.mongodb.release.ReleaseRepositoryImpl;
 import com.argosnotary.argos.service.adapter.out.mongodb.account.PersonalAccountRepositoryImpl;
 import com.argosnotary.argos.service.adapter.out.mongodb.layout.ReleaseConfigurationRepositoryImpl;
 import com.argosnotary.argos.service.adapter.out.mongodb.account.ServiceAccountRepositoryImpl;
 import com.argosnotary.argos.service.adapter.out.mongodb.supplychain.SupplyChainRepositoryImpl;
+import com.argosnotary.argos.service.adapter.out.mongodb.verification.VerificationResultRepositoryImpl;
+import com.argosnotary.argos.domain.release.ReleaseDossierMetaData;
+import com.argosnotary.argos.service.adapter.out.mongodb.release.DocumentToReleaseDossierMetaDataConverter;
+import com.argosnotary.argos.service.adapter.out.mongodb.release.ReleaseDossierMetaDataToReleaseIndexConverter;
 
 @ChangeLog
 public class DatabaseChangelog {
 
+    private static final int RELEASE_INDEX_BATCH_SIZE = 1000;
+
     @ChangeSet(order = "001", id = "ApprovalConfigurationChangelog-1-1", author = "michel")
     public void addApprovalConfigurationIndexes(MongockTemplate template) {
         template.indexOps(ApprovalConfigurationRepositoryImpl.COLLECTION)
@@ -92,6 +105,12 @@ public class DatabaseChangelog {
 
     }
     
+    @ChangeSet(order = "001", id = "JobDatabaseChangelog-1", author = "agent")
+    public void addJobDatabaseIndexes(MongockTemplate template) {
+        template.indexOps(JobRepositoryImpl.COLLECTION)
+            .ensureIndex(new Index(JobRepositoryImpl.UPDATED_AT_FIELD, ASC).expire(Duration.ofDays(1)));
+    }
+
     @ChangeSet(order = "001", id = "LabelDatabaseChangelog-1", author = "bart")
     public void addLabelDatabaseIndexes(MongockTemplate template) {
         template.indexOps(LabelRepositoryImpl.COLLECTION)
@@ -219,6 +238,62 @@ public class DatabaseChangelog {
                 .unique());
     }
 
+    @ChangeSet(order = "001", id = "VerificationResultDatabaseChangelog-1", author = "agent")
+    public void addVerificationResultDatabaseIndexes(MongockTemplate template) {
+        template.indexOps(VerificationResultRepositoryImpl.COLLECTION)
+            .ensureIndex(HashedIndex.hashed(VerificationResultRepositoryImpl.SUPPLY_CHAIN_ID_FIELD));
+
+        template.indexOps(VerificationResultRepositoryImpl.COLLECTION)
+            .ensureIndex(new Index(VerificationResultRepositoryImpl.CREATED_AT_FIELD, ASC).expire(Duration.ofDays(7)));
+    }
+
+    @ChangeSet(order = "001", id = "ReleaseLeaseDatabaseChangelog-1", author = "agent")
+    public void addReleaseLeaseDatabaseIndexes(MongockTemplate template) {
+        template.indexOps(ReleaseLeaseRepositoryImpl.COLLECTION)
+            .ensureIndex(new Index(ReleaseLeaseRepositoryImpl.EXPIRES_AT_FIELD, ASC).expire(Duration.ZERO));
+    }
+
+    @ChangeSet(order = "001", id = "ReleaseChangeDatabaseChangelog-1", author = "agent")
+    public void addReleaseChangeDatabaseIndexes(MongockTemplate template) {
+        template.indexOps(ReleaseRepositoryImpl.RELEASE_CHANGES_COLLECTION)
+            .ensureIndex(new Index(ReleaseRepositoryImpl.RELEASE_DATE_FIELD, ASC).expire(Duration.ofDays(1)));
+    }
+
+    @ChangeSet(order = "001", id = "ReleaseIndexDatabaseChangelog-1", author = "agent")
+    public void addReleaseIndexCollection(MongockTemplate template) {
+        template.indexOps(ReleaseRepositoryImpl.RELEASE_INDEX_COLLECTION)
+            .ensureIndex(new CompoundIndexDefinition(
+                    new Document(ReleaseRepositoryImpl.ARTIFACTS_HASH, 1)
+                        .append(ReleaseRepositoryImpl.PATH_PREFIXES_FIELD, 1))
+                .named(ReleaseRepositoryImpl.ARTIFACTS_HASH + "_" + ReleaseRepositoryImpl.PATH_PREFIXES_FIELD));
+
+        template.indexOps(ReleaseRepositoryImpl.RELEASE_INDEX_COLLECTION)
+            .ensureIndex(new Index(ReleaseRepositoryImpl.DOSSIER_ID_FIELD, ASC));
+
+        // backfill the release index with the existing releases, entries of an earlier failed run are removed first
+        template.remove(new Query(), ReleaseRepositoryImpl.RELEASE_INDEX_COLLECTION);
+        Query query = new Query();
+        query.fields().include(ReleaseRepositoryImpl.METADATA_FIELD);
+        DocumentToReleaseDossierMetaDataConverter metaDataConverter = new DocumentToReleaseDossierMetaDataConverter();
+        ReleaseDossierMetaDataToReleaseIndexConverter releaseIndexConverter = new ReleaseDossierMetaDataToReleaseIndexConverter();
+        List<Document> entries = new ArrayList<>();
+        try (CloseableIterator<Document> files = template.stream(query, Document.class, ReleaseRepositoryImpl.COLLECTION_NAME)) {
+            files.forEachRemaining(file -> {
+                ReleaseDossierMetaData releaseDossierMetaData = metaDataConverter
+                        .convert(file.get(ReleaseRepositoryImpl.METADATA_FIELD, Document.class));
+                releaseDossierMetaData.setDocumentId(file.getObjectId(ReleaseRepositoryImpl.ID_FIELD).toHexString());
+                entries.addAll(releaseIndexConverter.convert(releaseDossierMetaData));
+                if (entries.size() >= RELEASE_INDEX_BATCH_SIZE) {
+                    template.insert(new ArrayList<>(entries), ReleaseRepositoryImpl.RELEASE_INDEX_COLLECTION);
+                    entries.clear();
+                }
+            });
+        }
+        if (!entries.isEmpty()) {
+            template.insert(entries, ReleaseRepositoryImpl.RELEASE_INDEX_COLLECTION);
+        }
+    }
+
     @ChangeSet(order = "110", id = "DropRoleCollectionDatabaseChangelog-1", author = "gerard")
     public void removeVerifyFromRole(MongockTemplate template) {
         template.dropCollection("roles");
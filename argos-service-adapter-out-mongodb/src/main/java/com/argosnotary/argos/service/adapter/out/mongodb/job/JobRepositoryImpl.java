@@ -0,0 +1,130 @@
+/*
+ * Argos Notary - A new way to secure the Software Supply Chain
+ *
+ * Copyright (C) 2019 - 2020 Rabobank Nederland
+ * Copyright (C) 2019 - 2021 Gerard Borst <gerard.borst@argosnotary.com>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package com.argosnotary.argos.service.adapter.out.mongodb.job;
+
+import com.argosnotary.argos.domain.release.ReleaseDossierMetaData;
+import com.argosnotary.argos.domain.release.ReleaseResult;
+import com.argosnotary.argos.service.domain.job.Job;
+import com.argosnotary.argos.service.domain.job.JobRepository;
+import com.argosnotary.argos.service.domain.job.JobStatus;
+import com.argosnotary.argos.service.domain.job.JobType;
+import com.argosnotary.argos.service.domain.verification.VerificationRunResult;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Date;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+
+@Component
+@RequiredArgsConstructor
+public class JobRepositoryImpl implements JobRepository {
+
+    public static final String COLLECTION = "jobs";
+    public static final String ID_FIELD = "_id";
+    public static final String STATUS_FIELD = "status";
+    public static final String ERROR_FIELD = "error";
+    public static final String UPDATED_AT_FIELD = "updatedAt";
+
+    private static final List<String> UNFINISHED = List.of(JobStatus.QUEUED.name(), JobStatus.RUNNING.name());
+
+    private final MongoTemplate template;
+
+    @Override
+    public void save(Job job) {
+        JobDocument.JobDocumentBuilder document = JobDocument.builder()
+                .jobId(job.getJobId())
+                .type(job.getType())
+                .supplyChainId(job.getSupplyChainId())
+                .status(job.getStatus())
+                .error(job.getError())
+                .updatedAt(new Date());
+        if (job.getVerificationRunResult() != null) {
+            // the valid links are only needed for a release dossier
+            document.runIsValid(job.getVerificationRunResult().isRunIsValid());
+        }
+        if (job.getReleaseResult() != null) {
+            document.releaseIsValid(job.getReleaseResult().isReleaseIsValid())
+                    .releaseDossierMetaData(job.getReleaseResult().getReleaseDossierMetaData());
+        }
+        template.save(document.build(), COLLECTION);
+    }
+
+    @Override
+    public Optional<Job> findById(String jobId) {
+        return Optional.ofNullable(template.findById(jobId, JobDocument.class, COLLECTION))
+                .map(document -> Job.builder()
+                        .jobId(document.getJobId())
+                        .type(document.getType())
+                        .supplyChainId(document.getSupplyChainId())
+                        .status(document.getStatus())
+                        .error(document.getError())
+                        .verificationRunResult(document.getRunIsValid() == null ? null
+                                : VerificationRunResult.valid(document.getRunIsValid()))
+                        .releaseResult(document.getReleaseIsValid() == null ? null
+                                : ReleaseResult.builder()
+                                        .releaseIsValid(document.getReleaseIsValid())
+                                        .releaseDossierMetaData(document.getReleaseDossierMetaData())
+                                        .build())
+                        .build());
+    }
+
+    @Override
+    public void heartbeat(Set<String> jobIds) {
+        Query query = new Query(Criteria.where(ID_FIELD).in(jobIds).and(STATUS_FIELD).in(UNFINISHED));
+        template.updateMulti(query, new Update().set(UPDATED_AT_FIELD, new Date()), COLLECTION);
+    }
+
+    @Override
+    public long failExpired(Duration expiry, String error) {
+        Date now = new Date();
+        Query query = new Query(Criteria.where(STATUS_FIELD).in(UNFINISHED)
+                .and(UPDATED_AT_FIELD).lt(new Date(now.getTime() - expiry.toMillis())));
+        Update update = new Update()
+                .set(STATUS_FIELD, JobStatus.FAILED.name())
+                .set(ERROR_FIELD, error)
+                .set(UPDATED_AT_FIELD, now);
+        return template.updateMulti(query, update, COLLECTION).getModifiedCount();
+    }
+
+    @Builder
+    @Getter
+    static class JobDocument {
+        @Id
+        private final String jobId;
+        private final JobType type;
+        private final String supplyChainId;
+        private final JobStatus status;
+        private final Boolean runIsValid;
+        private final Boolean releaseIsValid;
+        private final ReleaseDossierMetaData releaseDossierMetaData;
+        private final String error;
+        private final Date updatedAt;
+    }
+}
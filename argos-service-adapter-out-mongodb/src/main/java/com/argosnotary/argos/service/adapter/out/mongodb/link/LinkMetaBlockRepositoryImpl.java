@@ -21,16 +21,23 @@ package com.argosnotary.argos.service.adapter.out.mongodb.link;
 
 import com.argosnotary.argos.domain.link.LinkMetaBlock;
 import com.argosnotary.argos.service.domain.link.LinkMetaBlockRepository;
+import com.mongodb.bulk.BulkWriteError;
 import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.mongodb.BulkOperationException;
+import org.springframework.data.mongodb.core.BulkOperations;
 import org.springframework.data.mongodb.core.MongoTemplate;
 import org.springframework.data.mongodb.core.query.Criteria;
 import org.springframework.data.mongodb.core.query.Query;
 import org.springframework.stereotype.Component;
 
 import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
 
 import static org.springframework.data.mongodb.core.query.Criteria.where;
 
+@Slf4j
 @Component
 @RequiredArgsConstructor
 public class LinkMetaBlockRepositoryImpl implements LinkMetaBlockRepository {
@@ -71,6 +78,17 @@ public class LinkMetaBlockRepositoryImpl implements LinkMetaBlockRepository {
         template.save(link, COLLECTION);
     }
     
+    @Override
+    public Set<Integer> saveAll(List<LinkMetaBlock> links) {
+        try {
+            template.bulkOps(BulkOperations.BulkMode.UNORDERED, LinkMetaBlock.class, COLLECTION).insert(links).execute();
+            return Set.of();
+        } catch (BulkOperationException e) {
+            log.warn("[{}] of [{}] links not stored", e.getErrors().size(), links.size());
+            return e.getErrors().stream().map(BulkWriteError::getIndex).collect(Collectors.toSet());
+        }
+    }
+
     @Override
     public void deleteBySupplyChainId(String supplyChainId) {
         template.remove(new Query(new Criteria(SUPPLY_CHAIN_ID_FIELD).is(supplyChainId)), COLLECTION);
@@ -0,0 +1,205 @@
+/*
+ * Argos Notary - A new way to secure the Software Supply Chain
+ *
+ * Copyright (C) 2019 - 2020 Rabobank Nederland
+ * Copyright (C) 2019 - 2021 Gerard Borst <gerard.borst@argosnotary.com>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package com.argosnotary.argos.service.adapter.out.mongodb.release;
+
+import com.argosnotary.argos.domain.ArgosError;
+import com.argosnotary.argos.domain.link.LinkMetaBlock;
+import com.argosnotary.argos.domain.release.ReleaseDossier;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.mongodb.client.gridfs.GridFSBucket;
+import com.mongodb.client.gridfs.GridFSBuckets;
+import org.apache.commons.io.IOUtils;
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Component;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.SequenceInputStream;
+import java.util.ArrayList;
+import java.util.Enumeration;
+import java.util.Iterator;
+import java.util.List;
+import java.util.function.Supplier;
+
+import static org.apache.commons.codec.digest.DigestUtils.sha256Hex;
+
+/**
+ * Layout and link blocks of referenced release dossiers, stored once per sha256 digest of their json. A block is
+ * stored as a file in its own GridFS bucket so it is not bound by the maximum document size, the block collection
+ * holds the file id of every digest.
+ */
+@Component
+public class ReleaseBlockStore {
+
+    public static final String COLLECTION = "releaseBlocks";
+    public static final String BUCKET = "releaseBlockFiles";
+    public static final String ID_FIELD = "_id";
+    public static final String FILE_ID_FIELD = "fileId";
+    public static final String REFERENCE_FIELD = "$ref";
+    public static final String LAYOUT_META_BLOCK_FIELD = "layoutMetaBlock";
+    public static final String LINK_META_BLOCKS_FIELD = "linkMetaBlocks";
+
+    private final MongoTemplate template;
+
+    private final ObjectMapper releaseFileJsonMapper;
+
+    private final GridFSBucket blockBucket;
+
+    @Autowired
+    public ReleaseBlockStore(MongoTemplate template, ObjectMapper releaseFileJsonMapper) {
+        this(template, releaseFileJsonMapper, GridFSBuckets.create(template.getDb(), BUCKET));
+    }
+
+    ReleaseBlockStore(MongoTemplate template, ObjectMapper releaseFileJsonMapper, GridFSBucket blockBucket) {
+        this.template = template;
+        this.releaseFileJsonMapper = releaseFileJsonMapper;
+        this.blockBucket = blockBucket;
+    }
+
+    /**
+     * Stores the blocks of the dossier that are not stored yet and writes the dossier with references to them.
+     */
+    public void writeReferenced(OutputStream outputStream, ReleaseDossier releaseDossier) throws IOException {
+        ObjectNode dossier = releaseFileJsonMapper.valueToTree(ReleaseDossier.builder()
+                .accounts(releaseDossier.getAccounts())
+                .build());
+        // missing blocks are left as the mapper wrote them so the reassembled dossier equals the original
+        if (releaseDossier.getLayoutMetaBlock() != null) {
+            dossier.set(LAYOUT_META_BLOCK_FIELD, reference(store(releaseDossier.getLayoutMetaBlock())));
+        }
+        if (releaseDossier.getLinkMetaBlocks() != null) {
+            ArrayNode linkMetaBlocks = dossier.putArray(LINK_META_BLOCKS_FIELD);
+            for (LinkMetaBlock linkMetaBlock : releaseDossier.getLinkMetaBlocks()) {
+                linkMetaBlocks.add(reference(store(linkMetaBlock)));
+            }
+        }
+        releaseFileJsonMapper.writeValue(outputStream, dossier);
+    }
+
+    /**
+     * The json of the original dossier, the blocks are read from mongodb while the stream is consumed. The
+     * referenced dossier only holds the accounts and the references, every reference object is replaced by the
+     * json of its block.
+     */
+    public InputStream reassemble(InputStream referencedDossier) throws IOException {
+        byte[] dossier;
+        try (referencedDossier) {
+            dossier = IOUtils.toByteArray(referencedDossier);
+        }
+        List<Supplier<InputStream>> parts = new ArrayList<>();
+        int start = 0;
+        try (JsonParser parser = releaseFileJsonMapper.getFactory().createParser(dossier)) {
+            JsonToken token = parser.nextToken();
+            while (token != null) {
+                if (token != JsonToken.START_OBJECT) {
+                    token = parser.nextToken();
+                    continue;
+                }
+                int objectStart = (int) parser.getTokenLocation().getByteOffset();
+                token = parser.nextToken();
+                if (token != JsonToken.FIELD_NAME || !REFERENCE_FIELD.equals(parser.getCurrentName())) {
+                    continue;
+                }
+                token = parser.nextToken();
+                if (token != JsonToken.VALUE_STRING) {
+                    continue;
+                }
+                String digest = parser.getText();
+                token = parser.nextToken();
+                if (token != JsonToken.END_OBJECT) {
+                    continue;
+                }
+                parts.add(part(dossier, start, objectStart));
+                parts.add(() -> load(digest));
+                start = (int) parser.getCurrentLocation().getByteOffset();
+                token = parser.nextToken();
+            }
+        }
+        parts.add(part(dossier, start, dossier.length));
+        // a block is opened when it is reached so only the block being read is streamed from mongodb
+        Iterator<Supplier<InputStream>> iterator = parts.iterator();
+        return new SequenceInputStream(new Enumeration<>() {
+            @Override
+            public boolean hasMoreElements() {
+                return iterator.hasNext();
+            }
+
+            @Override
+            public InputStream nextElement() {
+                return iterator.next().get();
+            }
+        });
+    }
+
+    String store(Object block) throws IOException {
+        byte[] json = releaseFileJsonMapper.writeValueAsBytes(block);
+        String digest = sha256Hex(json);
+        Query query = new Query(Criteria.where(ID_FIELD).is(digest));
+        // a block that is already stored is not written again
+        if (template.exists(query, COLLECTION)) {
+            return digest;
+        }
+        ObjectId fileId = blockBucket.uploadFromStream(digest, new ByteArrayInputStream(json));
+        try {
+            if (template.upsert(query, new Update().setOnInsert(FILE_ID_FIELD, fileId), COLLECTION)
+                    .getUpsertedId() != null) {
+                return digest;
+            }
+        } catch (DuplicateKeyException e) {
+            // stored by a concurrent release
+        } catch (RuntimeException e) {
+            blockBucket.delete(fileId);
+            throw e;
+        }
+        // the file of the concurrent release is used
+        blockBucket.delete(fileId);
+        return digest;
+    }
+
+    private InputStream load(String digest) {
+        Document block = template.findById(digest, Document.class, COLLECTION);
+        if (block == null) {
+            throw new ArgosError("release block not found: " + digest);
+        }
+        return blockBucket.openDownloadStream(block.getObjectId(FILE_ID_FIELD));
+    }
+
+    private JsonNode reference(String digest) {
+        return releaseFileJsonMapper.createObjectNode().put(REFERENCE_FIELD, digest);
+    }
+
+    private static Supplier<InputStream> part(byte[] dossier, int start, int end) {
+        return () -> new ByteArrayInputStream(dossier, start, end - start);
+    }
+}
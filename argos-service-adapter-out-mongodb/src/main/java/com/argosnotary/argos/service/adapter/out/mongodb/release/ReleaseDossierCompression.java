@@ -0,0 +1,81 @@
+/*
+ * Argos Notary - A new way to secure the Software Supply Chain
+ *
+ * Copyright (C) 2019 - 2020 Rabobank Nederland
+ * Copyright (C) 2019 - 2021 Gerard Borst <gerard.borst@argosnotary.com>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package com.argosnotary.argos.service.adapter.out.mongodb.release;
+
+import org.bson.Document;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Locale;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Compression of a stored release dossier, the compression is recorded in the metadata of the file so files
+ * stored with different settings can be read side by side.
+ */
+public enum ReleaseDossierCompression {
+    NONE {
+        @Override
+        OutputStream encode(OutputStream outputStream) {
+            return outputStream;
+        }
+
+        @Override
+        InputStream decode(InputStream inputStream) {
+            return inputStream;
+        }
+    },
+    GZIP {
+        @Override
+        OutputStream encode(OutputStream outputStream) throws IOException {
+            return new GZIPOutputStream(outputStream, BUFFER_SIZE);
+        }
+
+        @Override
+        InputStream decode(InputStream inputStream) throws IOException {
+            return new GZIPInputStream(inputStream, BUFFER_SIZE);
+        }
+    };
+
+    public static final String CONTENT_ENCODING_FIELD = "contentEncoding";
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    abstract OutputStream encode(OutputStream outputStream) throws IOException;
+
+    abstract InputStream decode(InputStream inputStream) throws IOException;
+
+    void addTo(Document metadata) {
+        if (this != NONE) {
+            metadata.put(CONTENT_ENCODING_FIELD, name().toLowerCase(Locale.ROOT));
+        }
+    }
+
+    static ReleaseDossierCompression of(String name) {
+        return valueOf(name.toUpperCase(Locale.ROOT));
+    }
+
+    static ReleaseDossierCompression fromMetadata(Document metadata) {
+        String contentEncoding = metadata == null ? null : metadata.getString(CONTENT_ENCODING_FIELD);
+        return contentEncoding == null ? NONE : of(contentEncoding);
+    }
+}
@@ -0,0 +1,49 @@
+/*
+ * Argos Notary - A new way to secure the Software Supply Chain
+ *
+ * Copyright (C) 2019 - 2020 Rabobank Nederland
+ * Copyright (C) 2019 - 2021 Gerard Borst <gerard.borst@argosnotary.com>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package com.argosnotary.argos.service.adapter.out.mongodb.release;
+
+import org.bson.Document;
+
+import java.util.Locale;
+
+/**
+ * Layout of a stored release dossier. An embedded dossier contains the layout and links, a referenced dossier
+ * contains references to layout and link blocks that are stored once in the release blocks collection.
+ */
+public enum ReleaseDossierFormat {
+    EMBEDDED, REFERENCED;
+
+    public static final String DOSSIER_FORMAT_FIELD = "dossierFormat";
+
+    void addTo(Document metadata) {
+        if (this != EMBEDDED) {
+            metadata.put(DOSSIER_FORMAT_FIELD, name().toLowerCase(Locale.ROOT));
+        }
+    }
+
+    static ReleaseDossierFormat of(String name) {
+        return valueOf(name.toUpperCase(Locale.ROOT));
+    }
+
+    static ReleaseDossierFormat fromMetadata(Document metadata) {
+        String dossierFormat = metadata == null ? null : metadata.getString(DOSSIER_FORMAT_FIELD);
+        return dossierFormat == null ? EMBEDDED : of(dossierFormat);
+    }
+}
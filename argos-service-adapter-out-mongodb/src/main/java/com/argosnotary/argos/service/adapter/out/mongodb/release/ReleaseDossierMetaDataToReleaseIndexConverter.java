@@ -0,0 +1,67 @@
+/*
+ * Argos Notary - A new way to secure the Software Supply Chain
+ *
+ * Copyright (C) 2019 - 2020 Rabobank Nederland
+ * Copyright (C) 2019 - 2021 Gerard Borst <gerard.borst@argosnotary.com>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package com.argosnotary.argos.service.adapter.out.mongodb.release;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.springframework.core.convert.converter.Converter;
+
+import com.argosnotary.argos.domain.release.ReleaseDossierMetaData;
+
+import static com.argosnotary.argos.service.adapter.out.mongodb.release.ReleaseRepositoryImpl.*;
+
+/**
+ * Converts a stored release to its release index entries, one for every released artifacts hash. The path
+ * prefixes are the supply chain path cut off after every segment, so a release is found with an index seek on
+ * any of its parent paths.
+ */
+public class ReleaseDossierMetaDataToReleaseIndexConverter implements Converter<ReleaseDossierMetaData, List<Document>> {
+
+    @Override
+    public List<Document> convert(ReleaseDossierMetaData releaseDossierMetaData) {
+        ObjectId dossierId = new ObjectId(releaseDossierMetaData.getDocumentId());
+        String supplyChainPath = releaseDossierMetaData.getSupplyChainPath();
+        List<String> pathPrefixes = createPathPrefixes(supplyChainPath);
+        return releaseDossierMetaData.getReleaseArtifacts().stream()
+                .map(ReleaseDossierMetaData::createHashFromArtifactList)
+                .distinct()
+                .map(artifactsHash -> new Document(ARTIFACTS_HASH, artifactsHash)
+                        .append(PATH_PREFIXES_FIELD, pathPrefixes)
+                        .append(SUPPLY_CHAIN_PATH_FIELD, supplyChainPath)
+                        .append(DOSSIER_ID_FIELD, dossierId))
+                .collect(Collectors.toList());
+    }
+
+    static List<String> createPathPrefixes(String supplyChainPath) {
+        List<String> pathPrefixes = new ArrayList<>();
+        int end = supplyChainPath.indexOf('.');
+        while (end != -1) {
+            pathPrefixes.add(supplyChainPath.substring(0, end));
+            end = supplyChainPath.indexOf('.', end + 1);
+        }
+        pathPrefixes.add(supplyChainPath);
+        return pathPrefixes;
+    }
+
+}
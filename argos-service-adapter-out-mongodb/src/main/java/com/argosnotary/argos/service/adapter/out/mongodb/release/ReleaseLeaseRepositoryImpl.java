@@ -0,0 +1,74 @@
+/*
+ * Argos Notary - A new way to secure the Software Supply Chain
+ *
+ * Copyright (C) 2019 - 2020 Rabobank Nederland
+ * Copyright (C) 2019 - 2021 Gerard Borst <gerard.borst@argosnotary.com>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package com.argosnotary.argos.service.adapter.out.mongodb.release;
+
+import com.argosnotary.argos.service.domain.release.ReleaseLeaseRepository;
+import com.mongodb.client.result.UpdateResult;
+import lombok.RequiredArgsConstructor;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Date;
+
+@Component
+@RequiredArgsConstructor
+public class ReleaseLeaseRepositoryImpl implements ReleaseLeaseRepository {
+
+    public static final String COLLECTION = "releaseLeases";
+    public static final String ID_FIELD = "_id";
+    public static final String OWNER_FIELD = "owner";
+    public static final String EXPIRES_AT_FIELD = "expiresAt";
+
+    private final MongoTemplate template;
+
+    @Override
+    public boolean acquire(String key, String owner, Duration duration) {
+        Date now = new Date();
+        // only matches an expired lease, a lease that is still held makes the upsert insert a duplicate key
+        Query query = new Query(Criteria.where(ID_FIELD).is(key).and(EXPIRES_AT_FIELD).lt(now));
+        Update update = new Update()
+                .set(OWNER_FIELD, owner)
+                .set(EXPIRES_AT_FIELD, new Date(now.getTime() + duration.toMillis()));
+        try {
+            template.upsert(query, update, COLLECTION);
+            return true;
+        } catch (DuplicateKeyException e) {
+            return false;
+        }
+    }
+
+    @Override
+    public boolean renew(String key, String owner, Duration duration) {
+        Query query = new Query(Criteria.where(ID_FIELD).is(key).and(OWNER_FIELD).is(owner));
+        Update update = new Update().set(EXPIRES_AT_FIELD, new Date(System.currentTimeMillis() + duration.toMillis()));
+        UpdateResult result = template.updateFirst(query, update, COLLECTION);
+        return result.getMatchedCount() > 0;
+    }
+
+    @Override
+    public void release(String key, String owner) {
+        template.remove(new Query(Criteria.where(ID_FIELD).is(key).and(OWNER_FIELD).is(owner)), COLLECTION);
+    }
+}
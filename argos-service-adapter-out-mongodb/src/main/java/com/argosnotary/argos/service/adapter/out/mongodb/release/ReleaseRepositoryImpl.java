@@ -20,35 +20,49 @@
 package com.argosnotary.argos.service.adapter.out.mongodb.release;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.mongodb.client.gridfs.GridFSBucket;
+import com.mongodb.client.gridfs.GridFSUploadStream;
 import com.mongodb.client.gridfs.model.GridFSFile;
+import com.mongodb.client.gridfs.model.GridFSUploadOptions;
 import com.argosnotary.argos.domain.ArgosError;
 import com.argosnotary.argos.domain.release.ReleaseDossier;
 import com.argosnotary.argos.domain.release.ReleaseDossierMetaData;
 import com.argosnotary.argos.service.domain.NotFoundException;
 import com.argosnotary.argos.service.domain.release.ReleaseRepository;
+import lombok.AccessLevel;
 import lombok.RequiredArgsConstructor;
+import lombok.Setter;
 import lombok.SneakyThrows;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.io.IOUtils;
-import org.apache.commons.io.output.ByteArrayOutputStream;
+import org.apache.commons.io.output.CloseShieldOutputStream;
+import org.bson.Document;
 import org.bson.types.ObjectId;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
 import org.springframework.data.mongodb.core.query.Criteria;
-import org.springframework.data.mongodb.core.query.MongoRegexCreator;
 import org.springframework.data.mongodb.core.query.Query;
 import org.springframework.data.mongodb.gridfs.GridFsTemplate;
+import org.springframework.data.util.CloseableIterator;
 import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import java.io.IOException;
 import java.io.InputStream;
+import java.io.OutputStream;
 import java.nio.charset.StandardCharsets;
 import java.time.OffsetDateTime;
 import java.time.ZoneOffset;
-import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
 import java.util.List;
-import java.util.Objects;
+import java.util.Map;
 import java.util.Optional;
-
-import static org.springframework.data.mongodb.core.query.MongoRegexCreator.MatchMode.STARTING_WITH;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
 
 @Component
 @RequiredArgsConstructor
@@ -66,6 +80,13 @@ public class ReleaseRepositoryImpl implements ReleaseRepository {
     public static final String SUPPLY_CHAIN_PATH_FIELD = "supplyChainPath";
     public static final String RELEASE_DATE_FIELD = "releaseDate";
     public static final String METADATA_FIELD = "metadata";
+    public static final String CONTENT_TYPE_FIELD = "_contentType";
+    public static final String CONTENT_TYPE = "application/json";
+    public static final String RELEASE_CHANGES_COLLECTION = "releaseChanges";
+    public static final String RELEASE_INDEX_COLLECTION = "releaseIndex";
+    public static final String PATH_PREFIXES_FIELD = "pathPrefixes";
+    public static final String DOSSIER_ID_FIELD = "dossierId";
+    public static final String RELEASES_FIELD = "releases";
     
     private final GridFsTemplate gridFsTemplate;
 
@@ -73,40 +94,102 @@ public class ReleaseRepositoryImpl implements ReleaseRepository {
 
     private final ObjectMapper releaseFileJsonMapper;
 
+    private final GridFSBucket gridFSBucket;
+
+    private final ReleaseBlockStore releaseBlockStore;
+
+    private final PlatformTransactionManager transactionManager;
+
+    /**
+     * Compression of newly stored release dossiers, none or gzip.
+     */
+    @Setter(AccessLevel.PACKAGE)
+    @Value("${release.dossier.compression:none}")
+    private String dossierCompression = "none";
+
+    /**
+     * Format of newly stored release dossiers, embedded or referenced.
+     */
+    @Setter(AccessLevel.PACKAGE)
+    @Value("${release.dossier.format:embedded}")
+    private String dossierFormat = "embedded";
+
     @SneakyThrows
     @Override
     public ReleaseDossierMetaData storeRelease(ReleaseDossierMetaData releaseDossierMetaData, ReleaseDossier releaseDossier) {
         OffsetDateTime releaseDate = OffsetDateTime.now(ZoneOffset.UTC);
         releaseDossierMetaData.setReleaseDate(releaseDate);
-        try (ByteArrayOutputStream outputStream = new ByteArrayOutputStream()) {
-            releaseFileJsonMapper.writeValue(outputStream, releaseDossier);
-            try (InputStream inputStream = outputStream.toInputStream()) {
-                String fileName = "release-" + releaseDossierMetaData.getSupplyChainPath() + "-" + releaseDate.toInstant().getEpochSecond() + ".json";
-                ObjectId objectId = gridFsTemplate.store(inputStream, fileName, "application/json", releaseDossierMetaData);
-                releaseDossierMetaData.setDocumentId(objectId.toHexString());
-                return releaseDossierMetaData;
+        String fileName = "release-" + releaseDossierMetaData.getSupplyChainPath() + "-" + releaseDate.toInstant().getEpochSecond() + ".json";
+        Document metadata = new ReleaseDossierMetaDataToDocumentConverter().convert(releaseDossierMetaData);
+        metadata.put(CONTENT_TYPE_FIELD, CONTENT_TYPE);
+        ReleaseDossierCompression compression = ReleaseDossierCompression.of(dossierCompression);
+        compression.addTo(metadata);
+        ReleaseDossierFormat format = ReleaseDossierFormat.of(dossierFormat);
+        format.addTo(metadata);
+
+        // the dossier is written to mongodb chunk by chunk instead of being serialized in memory first
+        GridFSUploadStream uploadStream = gridFSBucket.openUploadStream(fileName, new GridFSUploadOptions().metadata(metadata));
+        try {
+            try (OutputStream outputStream = compression.encode(new CloseShieldOutputStream(uploadStream))) {
+                if (format == ReleaseDossierFormat.REFERENCED) {
+                    releaseBlockStore.writeReferenced(outputStream, releaseDossier);
+                } else {
+                    releaseFileJsonMapper.writeValue(outputStream, releaseDossier);
+                }
             }
+        } catch (IOException | RuntimeException e) {
+            uploadStream.abort();
+            throw e;
+        }
+        uploadStream.close();
+        ObjectId dossierId = uploadStream.getObjectId();
+        releaseDossierMetaData.setDocumentId(dossierId.toHexString());
+        try {
+            new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+                mongoTemplate.insert(new ReleaseDossierMetaDataToReleaseIndexConverter().convert(releaseDossierMetaData), RELEASE_INDEX_COLLECTION);
+                // other instances add the release to their release index from the change log
+                mongoTemplate.insert(new ReleaseDossierMetaDataToDocumentConverter().convert(releaseDossierMetaData), RELEASE_CHANGES_COLLECTION);
+            });
+        } catch (RuntimeException e) {
+            // a release file without release index entries is never found
+            gridFSBucket.delete(dossierId);
+            throw e;
         }
+        return releaseDossierMetaData;
     }
 
     @Override
     public Optional<ReleaseDossierMetaData> findReleaseByReleasedArtifactsAndPath(List<List<String>> releasedArtifacts, String path) {
         checkForEmptyArtifacts(releasedArtifacts);
 
-        Criteria criteria = createArtifactCriteria(releasedArtifacts);
-
-        addOptionalPathCriteria(path, criteria);
-
+        Set<String> artifactsHashes = releasedArtifacts.stream()
+                .map(ReleaseDossierMetaData::createHashFromArtifactList)
+                .collect(Collectors.toSet());
+        Criteria criteria = Criteria.where(ARTIFACTS_HASH).in(artifactsHashes);
+        if (path != null) {
+            criteria.and(PATH_PREFIXES_FIELD).is(path);
+        }
         Query query = new Query(criteria);
+        query.fields().include(DOSSIER_ID_FIELD).include(ARTIFACTS_HASH);
         log.info("findReleaseByReleasedArtifactsAndPath: {}", query);
-        List<ReleaseDossierMetaData> releaseDossierMetaData = mongoTemplate.find(query, ReleaseDossierMetaData.class, COLLECTION_NAME);
 
-        if (releaseDossierMetaData.size() > 1) {
+        // a release contains all artifacts when it has an index entry for every artifacts hash
+        Map<ObjectId, Long> noOfHashesByDossierId = mongoTemplate.find(query, Document.class, RELEASE_INDEX_COLLECTION).stream()
+                .collect(Collectors.groupingBy(entry -> entry.getObjectId(DOSSIER_ID_FIELD), Collectors.counting()));
+        List<ObjectId> dossierIds = noOfHashesByDossierId.entrySet().stream()
+                .filter(entry -> entry.getValue() == artifactsHashes.size())
+                .map(Map.Entry::getKey)
+                .collect(Collectors.toList());
+
+        if (dossierIds.size() > 1) {
             throw new NotFoundException("no unique release was found please specify a supply chain path parameter");
-        } else if (releaseDossierMetaData.isEmpty()) {
+        } else if (dossierIds.isEmpty()) {
             return Optional.empty();
         } else {
-            return Optional.of(releaseDossierMetaData.iterator().next());
+            Query fileQuery = new Query(Criteria.where(ID_FIELD).is(dossierIds.get(0)));
+            fileQuery.fields().include(METADATA_FIELD);
+            return Optional.ofNullable(mongoTemplate.findOne(fileQuery, Document.class, COLLECTION_NAME))
+                    .map(ReleaseRepositoryImpl::toReleaseDossierMetaData);
         }
 
     }
@@ -116,60 +199,102 @@ public class ReleaseRepositoryImpl implements ReleaseRepository {
             throw new ArgosError("releasedArtifacts cannot be empty", ArgosError.Level.WARNING);
         }
     }
-    
-    private void addOptionalPathCriteria(String path, Criteria criteria) {
-        if (path != null) {
-            criteria.and(METADATA_SUPPLY_CHAIN_PATH_FIELD)
-                    .regex(Objects.requireNonNull(MongoRegexCreator.INSTANCE
-                            .toRegularExpression(path, STARTING_WITH)));
+
+    @SneakyThrows
+    @Override
+    public Optional<String> getRawReleaseFileById(String id) {
+        Optional<InputStream> releaseFile = getReleaseFileById(id);
+        if (releaseFile.isEmpty()) {
+            return Optional.empty();
+        }
+        try (InputStream inputStream = releaseFile.get()) {
+            return Optional.of(IOUtils.toString(inputStream, StandardCharsets.UTF_8));
         }
     }
+
+    @SneakyThrows
+    @Override
+    public Optional<InputStream> getReleaseFileById(String id) {
+        GridFSFile file = gridFsTemplate.findOne(new Query(Criteria.where(ID_FIELD).is(id)));
+        if (file == null) {
+            return Optional.empty();
+        }
+        InputStream inputStream = ReleaseDossierCompression.fromMetadata(file.getMetadata())
+                .decode(gridFsTemplate.getResource(file).getInputStream());
+        if (ReleaseDossierFormat.fromMetadata(file.getMetadata()) == ReleaseDossierFormat.REFERENCED) {
+            return Optional.of(releaseBlockStore.reassemble(inputStream));
+        }
+        return Optional.of(inputStream);
+    }
     
-    private void addOptionalPathListCriteria(List<String> paths, Criteria criteria) {
-        if (paths != null && !paths.isEmpty()) {
-            List<Criteria> pathListCriteria = new ArrayList<>();
-            paths.forEach(p -> pathListCriteria.add(Criteria.where(METADATA_SUPPLY_CHAIN_PATH_FIELD)
-            .regex(Objects.requireNonNull(MongoRegexCreator.INSTANCE
-                    .toRegularExpression(p, STARTING_WITH)))));
-            
-            Criteria pathCriteria = new Criteria();
-            pathCriteria.orOperator(pathListCriteria.toArray(new Criteria[0]));
-            
-            criteria.andOperator(pathCriteria);
+    @Override
+    public boolean artifactsAreReleased(List<String> releasedArtifacts, List<String> paths) {
+        boolean hasPaths = paths != null && !paths.isEmpty();
+        Criteria criteria = Criteria.where(ARTIFACTS_HASH).is(ReleaseDossierMetaData.createHashFromArtifactList(releasedArtifacts));
+        if (hasPaths) {
+            criteria.and(PATH_PREFIXES_FIELD).in(paths);
         }
+        Query query = new Query(criteria);
+        log.info("artifactsAreReleased: {}", query);
+        long noOfReleases = mongoTemplate.count(query, RELEASE_INDEX_COLLECTION);
+        return (noOfReleases == 1) || (noOfReleases > 1 && hasPaths);
     }
 
-    private Criteria createArtifactCriteria(List<List<String>> releasedArtifacts) {
-        Criteria criteria = new Criteria();
-        List<Criteria> hashCriteria = new ArrayList<>();
-        releasedArtifacts.forEach(l -> hashCriteria.add(createListHashCriteria(l)));
-        criteria.andOperator(hashCriteria.toArray(new Criteria[0]));
-        return criteria;
+    @Override
+    public void forEachRelease(Consumer<ReleaseDossierMetaData> consumer) {
+        Query query = new Query();
+        query.fields().include(METADATA_FIELD);
+        try (CloseableIterator<Document> files = mongoTemplate.stream(query, Document.class, COLLECTION_NAME)) {
+            files.forEachRemaining(file -> consumer.accept(toReleaseDossierMetaData(file)));
+        }
+    }
 
+    private static ReleaseDossierMetaData toReleaseDossierMetaData(Document file) {
+        ReleaseDossierMetaData releaseDossierMetaData = new DocumentToReleaseDossierMetaDataConverter()
+                .convert(file.get(METADATA_FIELD, Document.class));
+        releaseDossierMetaData.setDocumentId(file.getObjectId(ID_FIELD).toHexString());
+        return releaseDossierMetaData;
     }
 
-    @SneakyThrows
     @Override
-    public Optional<String> getRawReleaseFileById(String id) {
-        GridFSFile file = gridFsTemplate.findOne(new Query(Criteria.where(ID_FIELD).is(id)));
-        assert file != null;
-        String releaseFileJson = IOUtils.toString(gridFsTemplate.getResource(file).getInputStream(), StandardCharsets.UTF_8.name());
-        return Optional.ofNullable(releaseFileJson);
+    public List<ReleaseDossierMetaData> findReleasesStoredSince(OffsetDateTime since) {
+        Query query = new Query(Criteria.where(RELEASE_DATE_FIELD).gte(new OffsetTimeToDateConverter().convert(since)));
+        DocumentToReleaseDossierMetaDataConverter converter = new DocumentToReleaseDossierMetaDataConverter();
+        return mongoTemplate.find(query, Document.class, RELEASE_CHANGES_COLLECTION).stream()
+                .map(converter::convert)
+                .collect(Collectors.toList());
     }
-    
-    private Criteria createListHashCriteria(List<String> releasedArtifacts) {
-        String artifactsHash = ReleaseDossierMetaData.createHashFromArtifactList(releasedArtifacts);
-        return Criteria.where(METADATA_RELEASE_ARTIFACTS_ARTIFACTS_HASH_FIELD).is(artifactsHash);
+
+    @Override
+    public Map<String, String> findSupplyChainPathsByArtifactsHash(String artifactsHash) {
+        Query query = new Query(Criteria.where(ARTIFACTS_HASH).is(artifactsHash));
+        query.fields().include(DOSSIER_ID_FIELD).include(SUPPLY_CHAIN_PATH_FIELD);
+        Map<String, String> supplyChainPaths = new HashMap<>();
+        mongoTemplate.find(query, Document.class, RELEASE_INDEX_COLLECTION)
+                .forEach(entry -> supplyChainPaths.put(entry.getObjectId(DOSSIER_ID_FIELD).toHexString(),
+                        entry.getString(SUPPLY_CHAIN_PATH_FIELD)));
+        return supplyChainPaths;
     }
 
     @Override
-    public boolean artifactsAreReleased(List<String> releasedArtifacts, List<String> paths) {
-        Criteria criteria = createListHashCriteria(releasedArtifacts);
-        addOptionalPathListCriteria(paths, criteria);
-        Query query = new Query(criteria);
-        log.info("artifactsAreReleased: {}", query);
-        long noOfReleases = mongoTemplate.count(query, ReleaseDossierMetaData.class, COLLECTION_NAME);
-        return (noOfReleases == 1) || (noOfReleases > 1 && (paths != null && !paths.isEmpty()));
+    public Map<String, Map<String, String>> findSupplyChainPathsByArtifactsHashes(Collection<String> artifactsHashes) {
+        Aggregation aggregation = Aggregation.newAggregation(
+                Aggregation.match(Criteria.where(ARTIFACTS_HASH).in(artifactsHashes)),
+                Aggregation.group(ARTIFACTS_HASH)
+                        .push(new Document(DOSSIER_ID_FIELD, "$" + DOSSIER_ID_FIELD)
+                                .append(SUPPLY_CHAIN_PATH_FIELD, "$" + SUPPLY_CHAIN_PATH_FIELD))
+                        .as(RELEASES_FIELD));
+        log.info("findSupplyChainPathsByArtifactsHashes: {}", aggregation);
+        Map<String, Map<String, String>> supplyChainPathsByHash = new HashMap<>();
+        mongoTemplate.aggregate(aggregation, RELEASE_INDEX_COLLECTION, Document.class).getMappedResults()
+                .forEach(group -> {
+                    Map<String, String> supplyChainPaths = new HashMap<>();
+                    group.getList(RELEASES_FIELD, Document.class)
+                            .forEach(release -> supplyChainPaths.put(release.getObjectId(DOSSIER_ID_FIELD).toHexString(),
+                                    release.getString(SUPPLY_CHAIN_PATH_FIELD)));
+                    supplyChainPathsByHash.put(group.getString(ID_FIELD), supplyChainPaths);
+                });
+        return supplyChainPathsByHash;
     }
 
 }
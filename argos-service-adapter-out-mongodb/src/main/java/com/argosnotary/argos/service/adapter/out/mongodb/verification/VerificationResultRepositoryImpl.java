@@ -0,0 +1,84 @@
+/*
+ * Argos Notary - A new way to secure the Software Supply Chain
+ *
+ * Copyright (C) 2019 - 2020 Rabobank Nederland
+ * Copyright (C) 2019 - 2021 Gerard Borst <gerard.borst@argosnotary.com>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package com.argosnotary.argos.service.adapter.out.mongodb.verification;
+
+import com.argosnotary.argos.domain.link.LinkMetaBlock;
+import com.argosnotary.argos.service.domain.verification.VerificationResultRepository;
+import com.argosnotary.argos.service.domain.verification.VerificationRunResult;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.stereotype.Component;
+
+import java.util.Date;
+import java.util.List;
+import java.util.Optional;
+
+import static org.springframework.data.mongodb.core.query.Criteria.where;
+
+@Component
+@RequiredArgsConstructor
+public class VerificationResultRepositoryImpl implements VerificationResultRepository {
+
+    public static final String COLLECTION = "verificationResults";
+    public static final String SUPPLY_CHAIN_ID_FIELD = "supplyChainId";
+    public static final String CREATED_AT_FIELD = "createdAt";
+
+    private final MongoTemplate template;
+
+    @Override
+    public Optional<VerificationRunResult> findByKey(String key) {
+        return Optional.ofNullable(template.findById(key, VerificationResult.class, COLLECTION))
+                .map(verificationResult -> VerificationRunResult.builder()
+                        .runIsValid(verificationResult.isRunIsValid())
+                        .validLinkMetaBlocks(verificationResult.getValidLinkMetaBlocks())
+                        .build());
+    }
+
+    @Override
+    public void save(String supplyChainId, String key, VerificationRunResult verificationRunResult) {
+        template.save(VerificationResult.builder()
+                .key(key)
+                .supplyChainId(supplyChainId)
+                .runIsValid(verificationRunResult.isRunIsValid())
+                .validLinkMetaBlocks(verificationRunResult.getValidLinkMetaBlocks())
+                .createdAt(new Date())
+                .build(), COLLECTION);
+    }
+
+    @Override
+    public void deleteBySupplyChainId(String supplyChainId) {
+        template.remove(new Query(where(SUPPLY_CHAIN_ID_FIELD).is(supplyChainId)), COLLECTION);
+    }
+
+    @Builder
+    @Getter
+    static class VerificationResult {
+        @Id
+        private final String key;
+        private final String supplyChainId;
+        private final boolean runIsValid;
+        private final List<LinkMetaBlock> validLinkMetaBlocks;
+        private final Date createdAt;
+    }
+}
@@ -21,6 +21,7 @@ package com.argosnotary.argos.service.adapter.out.mongodb;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.mongodb.client.MongoClients;
+import com.mongodb.client.gridfs.GridFSBuckets;
 import com.argosnotary.argos.domain.account.PersonalAccount;
 import com.argosnotary.argos.domain.account.ServiceAccount;
 import com.argosnotary.argos.domain.crypto.KeyPair;
@@ -48,6 +49,7 @@ import com.argosnotary.argos.service.adapter.out.mongodb.release.DateToOffsetTim
 import com.argosnotary.argos.service.adapter.out.mongodb.release.DocumentToReleaseDossierMetaDataConverter;
 import com.argosnotary.argos.service.adapter.out.mongodb.release.OffsetTimeToDateConverter;
 import com.argosnotary.argos.service.adapter.out.mongodb.release.ReleaseDossierMetaDataToDocumentConverter;
+import com.argosnotary.argos.service.adapter.out.mongodb.release.ReleaseBlockStore;
 import com.argosnotary.argos.service.adapter.out.mongodb.release.ReleaseRepositoryImpl;
 import com.argosnotary.argos.service.adapter.out.mongodb.supplychain.SupplyChainRepositoryImpl;
 import com.argosnotary.argos.service.domain.account.AccountSearchParams;
@@ -66,6 +68,7 @@ import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeAll;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.TestInstance;
+import org.mockito.Mockito;
 import org.springframework.data.mongodb.MongoDatabaseFactory;
 import org.springframework.data.mongodb.core.MongoTemplate;
 import org.springframework.data.mongodb.core.SimpleMongoClientDatabaseFactory;
@@ -77,6 +80,7 @@ import org.springframework.data.mongodb.core.convert.MongoCustomConversions;
 import org.springframework.data.mongodb.core.mapping.MongoMappingContext;
 import org.springframework.data.mongodb.core.query.Query;
 import org.springframework.data.mongodb.gridfs.GridFsTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
 
 import java.io.IOException;
 import java.util.EnumMap;
@@ -155,12 +159,14 @@ class AllRepositoriesImplIT {
     
     private GridFsTemplate gridFsTemplate;
 
+    private MongoTemplate mongoTemplate;
+
     private MongoTestBase mongoTestBase;
 
     @BeforeAll
     void setup() throws IOException {
         mongoTestBase = new MongoTestBase();
-        MongoTemplate mongoTemplate = mongoTestBase.startDb(MongoConfig.CHANGELOG_SCAN_PACKAGE);
+        mongoTemplate = mongoTestBase.startDb(MongoConfig.CHANGELOG_SCAN_PACKAGE);
         hierarchyRepository = new HierarchyRepositoryImpl(mongoTemplate);
         labelRepository = new LabelRepositoryImpl(mongoTemplate);
         supplyChainRepository = new SupplyChainRepositoryImpl(mongoTemplate);
@@ -171,7 +177,10 @@ class AllRepositoriesImplIT {
         MongoDatabaseFactory factory = new SimpleMongoClientDatabaseFactory(MongoClients.create(mongoTestBase.getConnectionString()), "test");
         gridFsTemplate = new GridFsTemplate(factory, getDefaultMongoConverter(factory)); 
         ObjectMapper mapper = new ObjectMapper();
-        releaseRepository = new ReleaseRepositoryImpl(gridFsTemplate, mongoTemplate, mapper);
+        releaseRepository = new ReleaseRepositoryImpl(gridFsTemplate, mongoTemplate, mapper,
+                GridFSBuckets.create(factory.getMongoDatabase()), new ReleaseBlockStore(mongoTemplate, mapper),
+                // the embedded mongodb is no replica set and has no transactions
+                Mockito.mock(PlatformTransactionManager.class));
         createDataSet();
     }
 
@@ -256,6 +265,17 @@ class AllRepositoriesImplIT {
         List<LinkMetaBlock> blocks = linkMetaBlockRepository.findBySupplyChainId(SUPPLYCHAIN);
         assertThat(blocks, hasSize(1));
     }
+
+    @Test
+    void saveAllLinks() {
+        String supplyChainId = "bulkSupplyChain";
+        List<LinkMetaBlock> links = List.of(
+                LinkMetaBlock.builder().supplyChainId(supplyChainId).signature(createSignature()).link(createLink()).build(),
+                LinkMetaBlock.builder().supplyChainId(supplyChainId).signature(createSignature()).link(createLink()).build());
+        assertThat(linkMetaBlockRepository.saveAll(links), is(empty()));
+        assertThat(linkMetaBlockRepository.findBySupplyChainId(supplyChainId), hasSize(2));
+        linkMetaBlockRepository.deleteBySupplyChainId(supplyChainId);
+    }
     
     @Test
     void searchByName() {
@@ -300,7 +320,16 @@ class AllRepositoriesImplIT {
         assertThat(stored.getReleaseDate(), is(IsNull.notNullValue()));
         Optional<String> storedFile = releaseRepository.getRawReleaseFileById(stored.getDocumentId());
         assertThat(storedFile.isEmpty(), is(false));
+        Optional<ReleaseDossierMetaData> found = releaseRepository.findReleaseByReleasedArtifactsAndPath(RELEASE_ARTIFACTS, "path.to");
+        assertThat(found.map(ReleaseDossierMetaData::getDocumentId), is(Optional.of(stored.getDocumentId())));
+        assertThat(releaseRepository.findReleaseByReleasedArtifactsAndPath(RELEASE_ARTIFACTS, "path.t").isEmpty(), is(true));
+        assertThat(releaseRepository.artifactsAreReleased(RELEASE_ARTIFACTS.get(0), List.of("path")), is(true));
+        deleteReleases();
+    }
+
+    private void deleteReleases() {
         gridFsTemplate.delete(new Query());
+        mongoTemplate.remove(new Query(), ReleaseRepositoryImpl.RELEASE_INDEX_COLLECTION);
     }
 
     private ReleaseDossierMetaData storeReleaseDossier() {
@@ -325,7 +354,7 @@ class AllRepositoriesImplIT {
                 .findReleaseByReleasedArtifactsAndPath(List.of(List.of("hash1-incorrect", "hash1-2"), List.of("hash2-1", "hash2-2")), null);
 
         assertThat(emptyDossier.isPresent(), is(false));
-        gridFsTemplate.delete(new Query());
+        deleteReleases();
     }
 
     @Test
@@ -334,7 +363,7 @@ class AllRepositoriesImplIT {
         boolean artifactsAreReleased = releaseRepository
                 .artifactsAreReleased(RELEASE_ARTIFACTS.get(0), List.of("path.to"));
         assertThat(artifactsAreReleased, is(true));
-        gridFsTemplate.delete(new Query());
+        deleteReleases();
     }
 
     void createDataSet() {
@@ -0,0 +1,110 @@
+/*
+ * Argos Notary - A new way to secure the Software Supply Chain
+ *
+ * Copyright (C) 2019 - 2020 Rabobank Nederland
+ * Copyright (C) 2019 - 2021 Gerard Borst <gerard.borst@argosnotary.com>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package com.argosnotary.argos.service.adapter.out.mongodb.auditlog;
+
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.Appender;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.event.ContextRefreshedEvent;
+import org.springframework.data.mongodb.core.MongoTemplate;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+import static com.argosnotary.argos.service.domain.auditlog.AuditLogAdvisor.ARGOS_AUDIT_LOG;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.hasSize;
+import static org.hamcrest.core.Is.is;
+
+@ExtendWith(MockitoExtension.class)
+class LogConfiguratorTest {
+
+    @Mock
+    private MongoTemplate mongoTemplate;
+
+    @Mock
+    private ContextRefreshedEvent contextRefreshedEvent;
+
+    private LogConfigurator logConfigurator;
+
+    @BeforeEach
+    void setUp() {
+        logConfigurator = new LogConfigurator(mongoTemplate, new SimpleMeterRegistry());
+        logConfigurator.setEnabled(true);
+        logConfigurator.setBufferSize(0);
+    }
+
+    @AfterEach
+    void tearDown() {
+        logConfigurator.stopMongoDBLogger();
+    }
+
+    @Test
+    void configureMongoDBLoggerAddsAppenderOnce() {
+        logConfigurator.configureMongoDBLogger(contextRefreshedEvent);
+        logConfigurator.configureMongoDBLogger(contextRefreshedEvent);
+        List<MongoDBAppender> appenders = mongoDBAppenders();
+        assertThat(appenders, hasSize(1));
+        assertThat(appenders.get(0).isStarted(), is(true));
+    }
+
+    @Test
+    void stopMongoDBLoggerStopsAppender() {
+        logConfigurator.configureMongoDBLogger(contextRefreshedEvent);
+        MongoDBAppender appender = mongoDBAppenders().get(0);
+        logConfigurator.stopMongoDBLogger();
+        assertThat(mongoDBAppenders(), hasSize(0));
+        assertThat(appender.isStarted(), is(false));
+    }
+
+    @Test
+    void disabledMongoDBLoggerAddsNoAppender() {
+        logConfigurator.setEnabled(false);
+        logConfigurator.configureMongoDBLogger(contextRefreshedEvent);
+        assertThat(mongoDBAppenders(), hasSize(0));
+    }
+
+    @Test
+    void mongoDBLoggerIsDisabledByDefault() {
+        LogConfigurator defaultLogConfigurator = new LogConfigurator(mongoTemplate, new SimpleMeterRegistry());
+        defaultLogConfigurator.configureMongoDBLogger(contextRefreshedEvent);
+        assertThat(mongoDBAppenders(), hasSize(0));
+    }
+
+    private static List<MongoDBAppender> mongoDBAppenders() {
+        List<MongoDBAppender> appenders = new ArrayList<>();
+        Iterator<Appender<ILoggingEvent>> iterator = ((Logger) LoggerFactory.getLogger(ARGOS_AUDIT_LOG)).iteratorForAppenders();
+        iterator.forEachRemaining(appender -> {
+            if (appender instanceof MongoDBAppender) {
+                appenders.add((MongoDBAppender) appender);
+            }
+        });
+        return appenders;
+    }
+}
@@ -0,0 +1,186 @@
+/*
+ * Argos Notary - A new way to secure the Software Supply Chain
+ *
+ * Copyright (C) 2019 - 2020 Rabobank Nederland
+ * Copyright (C) 2019 - 2021 Gerard Borst <gerard.borst@argosnotary.com>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package com.argosnotary.argos.service.adapter.out.mongodb.auditlog;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.LoggerContext;
+import ch.qos.logback.classic.spi.LoggingEvent;
+import com.mongodb.MongoException;
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.model.InsertManyOptions;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.bson.Document;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Captor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.mongodb.core.MongoTemplate;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+
+import static com.argosnotary.argos.service.adapter.out.mongodb.auditlog.MongoDBAppender.COLLECTION;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.hasSize;
+import static org.hamcrest.core.Is.is;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.atLeastOnce;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class MongoDBAppenderTest {
+
+    private static final String METRIC_NAME = "argos.auditlog";
+
+    @Mock
+    private MongoTemplate mongoTemplate;
+
+    @Mock
+    private MongoCollection<Document> collection;
+
+    @Captor
+    private ArgumentCaptor<Document> documentCaptor;
+
+    @Captor
+    private ArgumentCaptor<InsertManyOptions> optionsCaptor;
+
+    private MeterRegistry meterRegistry;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+    }
+
+    @Test
+    void appendSynchronous() {
+        MongoDBAppender appender = createAppender(0, 10, MongoDBAppender.OverflowPolicy.BLOCK);
+        appender.start();
+        appender.doAppend(createEvent("message"));
+        verify(mongoTemplate).insert(documentCaptor.capture(), eq(COLLECTION));
+        Document logEntry = documentCaptor.getValue();
+        assertThat(logEntry.get("timestamp"), is(new Date(1000L)));
+        assertThat(logEntry.get("message"), is("message"));
+        assertThat(logEntry.get("accountId"), is("accountId"));
+        assertThat(count("written"), is(1.0));
+        appender.stop();
+    }
+
+    @Test
+    void appendAsynchronousFlushedOnStop() {
+        List<Document> stored = storeInsertedDocuments();
+        MongoDBAppender appender = createAppender(16, 100, MongoDBAppender.OverflowPolicy.BLOCK);
+        appender.start();
+        appender.doAppend(createEvent("message1"));
+        appender.doAppend(createEvent("message2"));
+        appender.stop();
+
+        assertThat(stored, hasSize(2));
+        assertThat(stored.get(0).get("message"), is("message1"));
+        assertThat(stored.get(1).get("message"), is("message2"));
+        verify(collection, atLeastOnce()).insertMany(anyList(), optionsCaptor.capture());
+        assertThat(optionsCaptor.getValue().isOrdered(), is(false));
+        assertThat(count("written"), is(2.0));
+        assertThat(meterRegistry.get(METRIC_NAME + ".flush").timer().count() > 0, is(true));
+    }
+
+    @Test
+    void appendDropWhenBufferIsFull() {
+        List<Document> stored = storeInsertedDocuments();
+        MongoDBAppender appender = createAppender(2, 100, MongoDBAppender.OverflowPolicy.DROP);
+        appender.append(createEvent("message1"));
+        appender.append(createEvent("message2"));
+        appender.append(createEvent("message3"));
+        assertThat(count("dropped"), is(1.0));
+        assertThat(meterRegistry.get(METRIC_NAME + ".queue.depth").gauge().value(), is(2.0));
+
+        appender.start();
+        appender.stop();
+        assertThat(stored, hasSize(2));
+        assertThat(meterRegistry.get(METRIC_NAME + ".queue.depth").gauge().value(), is(0.0));
+    }
+
+    @Test
+    void appendBlockWhenBufferIsFull() {
+        List<Document> stored = storeInsertedDocuments();
+        MongoDBAppender appender = createAppender(1, 1, MongoDBAppender.OverflowPolicy.BLOCK);
+        appender.start();
+        for (int i = 0; i < 50; i++) {
+            appender.doAppend(createEvent("message" + i));
+        }
+        appender.stop();
+        assertThat(stored, hasSize(50));
+        assertThat(count("dropped"), is(0.0));
+    }
+
+    @Test
+    void insertManyFailure() {
+        when(mongoTemplate.getCollection(COLLECTION)).thenReturn(collection);
+        doThrow(new MongoException("failed")).when(collection).insertMany(anyList(), any(InsertManyOptions.class));
+        MongoDBAppender appender = createAppender(16, 100, MongoDBAppender.OverflowPolicy.BLOCK);
+        appender.start();
+        appender.doAppend(createEvent("message"));
+        appender.stop();
+        assertThat(count("failed"), is(1.0));
+        assertThat(count("written"), is(0.0));
+    }
+
+    private List<Document> storeInsertedDocuments() {
+        List<Document> stored = new ArrayList<>();
+        when(mongoTemplate.getCollection(COLLECTION)).thenReturn(collection);
+        doAnswer(invocation -> {
+            List<Document> batch = invocation.getArgument(0);
+            synchronized (stored) {
+                stored.addAll(batch);
+            }
+            return null;
+        }).when(collection).insertMany(anyList(), any(InsertManyOptions.class));
+        return stored;
+    }
+
+    private MongoDBAppender createAppender(int bufferSize, int batchSize, MongoDBAppender.OverflowPolicy overflowPolicy) {
+        MongoDBAppender appender = new MongoDBAppender(mongoTemplate, meterRegistry, bufferSize, batchSize, 10, overflowPolicy);
+        appender.setContext(new LoggerContext());
+        return appender;
+    }
+
+    private double count(String result) {
+        return meterRegistry.get(METRIC_NAME).tag("result", result).counter().count();
+    }
+
+    private static LoggingEvent createEvent(String message) {
+        LoggingEvent event = new LoggingEvent();
+        event.setLevel(Level.INFO);
+        event.setMessage(message);
+        event.setTimeStamp(1000L);
+        event.setMDCPropertyMap(Map.of("accountId", "accountId"));
+        return event;
+    }
+}
@@ -0,0 +1,104 @@
+/*
+ * Argos Notary - A new way to secure the Software Supply Chain
+ *
+ * Copyright (C) 2019 - 2020 Rabobank Nederland
+ * Copyright (C) 2019 - 2021 Gerard Borst <gerard.borst@argosnotary.com>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package com.argosnotary.argos.service.adapter.out.mongodb.auditlog;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.nullValue;
+import static org.hamcrest.core.Is.is;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class RingBufferTest {
+
+    @Test
+    void capacityIsRoundedToPowerOfTwo() {
+        assertThat(new RingBuffer<String>(1).capacity(), is(1));
+        assertThat(new RingBuffer<String>(5).capacity(), is(8));
+        assertThat(new RingBuffer<String>(8).capacity(), is(8));
+        assertThrows(IllegalArgumentException.class, () -> new RingBuffer<String>(0));
+    }
+
+    @Test
+    void offerAndPollInOrder() {
+        RingBuffer<String> buffer = new RingBuffer<>(2);
+        assertThat(buffer.offer("a"), is(true));
+        assertThat(buffer.offer("b"), is(true));
+        assertThat(buffer.offer("c"), is(false));
+        assertThat(buffer.size(), is(2));
+        assertThat(buffer.poll(), is("a"));
+        assertThat(buffer.offer("c"), is(true));
+        assertThat(buffer.poll(), is("b"));
+        assertThat(buffer.poll(), is("c"));
+        assertThat(buffer.poll(), nullValue());
+        assertThat(buffer.isEmpty(), is(true));
+    }
+
+    @Test
+    void wrapsAround() {
+        RingBuffer<Integer> buffer = new RingBuffer<>(4);
+        List<Integer> polled = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            buffer.offer(i);
+            polled.add(buffer.poll());
+        }
+        assertThat(polled, contains(0, 1, 2, 3, 4, 5, 6, 7, 8, 9));
+    }
+
+    @Test
+    void concurrentProducers() throws InterruptedException {
+        int producers = 4;
+        int perProducer = 10000;
+        RingBuffer<Integer> buffer = new RingBuffer<>(64);
+        ExecutorService executor = Executors.newFixedThreadPool(producers);
+        CountDownLatch done = new CountDownLatch(producers);
+        for (int p = 0; p < producers; p++) {
+            int offset = p * perProducer;
+            executor.execute(() -> {
+                for (int i = 0; i < perProducer; i++) {
+                    while (!buffer.offer(offset + i)) {
+                        Thread.yield();
+                    }
+                }
+                done.countDown();
+            });
+        }
+        Set<Integer> received = new HashSet<>();
+        while (received.size() < producers * perProducer) {
+            Integer element = buffer.poll();
+            if (element != null) {
+                received.add(element);
+            }
+        }
+        assertThat(done.await(10, TimeUnit.SECONDS), is(true));
+        executor.shutdown();
+        assertThat(buffer.isEmpty(), is(true));
+    }
+}
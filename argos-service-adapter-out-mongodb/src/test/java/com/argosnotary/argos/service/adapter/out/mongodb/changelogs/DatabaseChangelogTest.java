@@ -20,6 +20,7 @@
 package com.argosnotary.argos.service.adapter.out.mongodb.changelogs;
 
 import org.bson.Document;
+import org.bson.types.ObjectId;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.ArgumentCaptor;
@@ -27,6 +28,8 @@ import org.mockito.Captor;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.data.mongodb.core.index.IndexOperations;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.util.CloseableIterator;
 
 import com.github.cloudyrock.mongock.driver.mongodb.springdata.v3.decorator.impl.MongockTemplate;
 
@@ -35,25 +38,31 @@ import com.argosnotary.argos.domain.permission.Permission;
 import com.argosnotary.argos.domain.permission.Role;
 import com.argosnotary.argos.service.adapter.out.mongodb.account.FinishedSessionRepositoryImpl;
 import com.argosnotary.argos.service.adapter.out.mongodb.hierarchy.LabelRepositoryImpl;
+import com.argosnotary.argos.service.adapter.out.mongodb.job.JobRepositoryImpl;
 import com.argosnotary.argos.service.adapter.out.mongodb.layout.LayoutMetaBlockRepositoryImpl;
 import com.argosnotary.argos.service.adapter.out.mongodb.link.LinkMetaBlockRepositoryImpl;
+import com.argosnotary.argos.service.adapter.out.mongodb.release.ReleaseLeaseRepositoryImpl;
 import com.argosnotary.argos.service.adapter.out.mongodb.release.ReleaseRepositoryImpl;
 import com.argosnotary.argos.service.adapter.out.mongodb.account.PersonalAccountRepositoryImpl;
 import com.argosnotary.argos.service.adapter.out.mongodb.layout.ReleaseConfigurationRepositoryImpl;
 import com.argosnotary.argos.service.adapter.out.mongodb.account.ServiceAccountRepositoryImpl;
 import com.argosnotary.argos.service.adapter.out.mongodb.supplychain.SupplyChainRepositoryImpl;
+import com.argosnotary.argos.service.adapter.out.mongodb.verification.VerificationResultRepositoryImpl;
 
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.contains;
 import static org.hamcrest.Matchers.is;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 import java.io.IOException;
+import java.util.Date;
 import java.util.List;
+import java.util.function.Consumer;
 
 @ExtendWith(MockitoExtension.class)
 class DatabaseChangelogTest {
@@ -70,6 +79,12 @@ class DatabaseChangelogTest {
     @Captor
     private ArgumentCaptor<Role> roleArgumentCaptor;
 
+    @Captor
+    private ArgumentCaptor<List<Document>> releaseIndexCaptor;
+
+    @Mock
+    private CloseableIterator<Document> files;
+
 
     @Test
     void addApprovalConfigurationIndexes() {
@@ -92,6 +107,48 @@ class DatabaseChangelogTest {
         verify(template, times(2)).executeCommand(any(String.class));
     }
 
+    @Test
+    void addJobDatabaseIndexes() {
+        when(template.indexOps(JobRepositoryImpl.COLLECTION)).thenReturn(indexOperations);
+        new DatabaseChangelog().addJobDatabaseIndexes(template);
+        verify(indexOperations).ensureIndex(any());
+    }
+
+    @Test
+    void addReleaseLeaseDatabaseIndexes() {
+        when(template.indexOps(ReleaseLeaseRepositoryImpl.COLLECTION)).thenReturn(indexOperations);
+        new DatabaseChangelog().addReleaseLeaseDatabaseIndexes(template);
+        verify(indexOperations).ensureIndex(any());
+    }
+
+    @Test
+    void addReleaseChangeDatabaseIndexes() {
+        when(template.indexOps(ReleaseRepositoryImpl.RELEASE_CHANGES_COLLECTION)).thenReturn(indexOperations);
+        new DatabaseChangelog().addReleaseChangeDatabaseIndexes(template);
+        verify(indexOperations).ensureIndex(any());
+    }
+
+    @Test
+    void addReleaseIndexCollection() {
+        Document file = new Document("_id", new ObjectId("54651022bffebc03098b4567"))
+                .append("metadata", new Document("releaseArtifacts", List.of(new Document("hashes", List.of("hash1"))))
+                        .append("supplyChainPath", "path.to.supplychain")
+                        .append("releaseDate", new Date()));
+        when(template.indexOps(ReleaseRepositoryImpl.RELEASE_INDEX_COLLECTION)).thenReturn(indexOperations);
+        when(template.stream(any(Query.class), eq(Document.class), eq(ReleaseRepositoryImpl.COLLECTION_NAME))).thenReturn(files);
+        doAnswer(invocation -> {
+            invocation.<Consumer<Document>>getArgument(0).accept(file);
+            return null;
+        }).when(files).forEachRemaining(any());
+        new DatabaseChangelog().addReleaseIndexCollection(template);
+        verify(indexOperations, times(2)).ensureIndex(any());
+        verify(template).remove(any(Query.class), eq(ReleaseRepositoryImpl.RELEASE_INDEX_COLLECTION));
+        verify(template).insert(releaseIndexCaptor.capture(), eq(ReleaseRepositoryImpl.RELEASE_INDEX_COLLECTION));
+        Document entry = releaseIndexCaptor.getValue().iterator().next();
+        assertThat(entry.getList("pathPrefixes", String.class), is(List.of("path", "path.to", "path.to.supplychain")));
+        verify(files).close();
+    }
+
     @Test
     void addLabelDatabaseIndexes() {
         when(template.indexOps(LabelRepositoryImpl.COLLECTION)).thenReturn(indexOperations);
@@ -147,4 +204,11 @@ class DatabaseChangelogTest {
         new DatabaseChangelog().addSupplyChainDatabaseIndexes(template);
         verify(indexOperations, times(2)).ensureIndex(any());
     }
+
+    @Test
+    void addVerificationResultDatabaseIndexes() {
+        when(template.indexOps(VerificationResultRepositoryImpl.COLLECTION)).thenReturn(indexOperations);
+        new DatabaseChangelog().addVerificationResultDatabaseIndexes(template);
+        verify(indexOperations, times(2)).ensureIndex(any());
+    }
 }
\ No newline at end of file
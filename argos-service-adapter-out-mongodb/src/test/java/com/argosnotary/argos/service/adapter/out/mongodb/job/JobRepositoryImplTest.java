@@ -0,0 +1,156 @@
+/*
+ * Argos Notary - A new way to secure the Software Supply Chain
+ *
+ * Copyright (C) 2019 - 2020 Rabobank Nederland
+ * Copyright (C) 2019 - 2021 Gerard Borst <gerard.borst@argosnotary.com>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package com.argosnotary.argos.service.adapter.out.mongodb.job;
+
+import com.argosnotary.argos.domain.release.ReleaseDossierMetaData;
+import com.argosnotary.argos.domain.release.ReleaseResult;
+import com.argosnotary.argos.service.adapter.out.mongodb.job.JobRepositoryImpl.JobDocument;
+import com.argosnotary.argos.service.domain.job.Job;
+import com.argosnotary.argos.service.domain.job.JobStatus;
+import com.argosnotary.argos.service.domain.job.JobType;
+import com.argosnotary.argos.service.domain.verification.VerificationRunResult;
+import com.mongodb.client.result.UpdateResult;
+import org.bson.Document;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Captor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+import java.time.Duration;
+import java.util.Date;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+
+import static com.argosnotary.argos.service.adapter.out.mongodb.job.JobRepositoryImpl.COLLECTION;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.notNullValue;
+import static org.hamcrest.Matchers.nullValue;
+import static org.hamcrest.Matchers.sameInstance;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class JobRepositoryImplTest {
+
+    private static final String SUPPLY_CHAIN_ID = "supplyChainId";
+    private static final String JOB_ID = "jobId";
+
+    @Mock
+    private MongoTemplate template;
+
+    @Mock
+    private ReleaseDossierMetaData releaseDossierMetaData;
+
+    @Captor
+    private ArgumentCaptor<JobDocument> jobDocumentArgumentCaptor;
+
+    @Captor
+    private ArgumentCaptor<Query> queryArgumentCaptor;
+
+    @Captor
+    private ArgumentCaptor<Update> updateArgumentCaptor;
+
+    private JobRepositoryImpl repository;
+
+    @BeforeEach
+    void setUp() {
+        repository = new JobRepositoryImpl(template);
+    }
+
+    @Test
+    void saveVerificationJob() {
+        repository.save(Job.builder().jobId(JOB_ID).type(JobType.VERIFICATION).supplyChainId(SUPPLY_CHAIN_ID)
+                .status(JobStatus.DONE).verificationRunResult(VerificationRunResult.okay()).build());
+        verify(template).save(jobDocumentArgumentCaptor.capture(), eq(COLLECTION));
+        JobDocument document = jobDocumentArgumentCaptor.getValue();
+        assertThat(document.getJobId(), is(JOB_ID));
+        assertThat(document.getType(), is(JobType.VERIFICATION));
+        assertThat(document.getSupplyChainId(), is(SUPPLY_CHAIN_ID));
+        assertThat(document.getStatus(), is(JobStatus.DONE));
+        assertThat(document.getRunIsValid(), is(true));
+        assertThat(document.getReleaseIsValid(), nullValue());
+        assertThat(document.getUpdatedAt(), notNullValue());
+    }
+
+    @Test
+    void saveReleaseJob() {
+        repository.save(Job.builder().jobId(JOB_ID).type(JobType.RELEASE).supplyChainId(SUPPLY_CHAIN_ID)
+                .status(JobStatus.DONE).releaseResult(ReleaseResult.builder()
+                        .releaseIsValid(true).releaseDossierMetaData(releaseDossierMetaData).build()).build());
+        verify(template).save(jobDocumentArgumentCaptor.capture(), eq(COLLECTION));
+        JobDocument document = jobDocumentArgumentCaptor.getValue();
+        assertThat(document.getRunIsValid(), nullValue());
+        assertThat(document.getReleaseIsValid(), is(true));
+        assertThat(document.getReleaseDossierMetaData(), sameInstance(releaseDossierMetaData));
+    }
+
+    @Test
+    void findById() {
+        when(template.findById(JOB_ID, JobDocument.class, COLLECTION)).thenReturn(JobDocument.builder()
+                .jobId(JOB_ID).type(JobType.RELEASE).supplyChainId(SUPPLY_CHAIN_ID).status(JobStatus.DONE)
+                .releaseIsValid(true).releaseDossierMetaData(releaseDossierMetaData).build());
+        Job job = repository.findById(JOB_ID).get();
+        assertThat(job.getJobId(), is(JOB_ID));
+        assertThat(job.getType(), is(JobType.RELEASE));
+        assertThat(job.getSupplyChainId(), is(SUPPLY_CHAIN_ID));
+        assertThat(job.getStatus(), is(JobStatus.DONE));
+        assertThat(job.getVerificationRunResult(), nullValue());
+        assertThat(job.getReleaseResult().isReleaseIsValid(), is(true));
+        assertThat(job.getReleaseResult().getReleaseDossierMetaData(), sameInstance(releaseDossierMetaData));
+    }
+
+    @Test
+    void findByIdNotFound() {
+        assertThat(repository.findById(JOB_ID), is(Optional.empty()));
+    }
+
+    @Test
+    void heartbeat() {
+        repository.heartbeat(Set.of(JOB_ID));
+        verify(template).updateMulti(queryArgumentCaptor.capture(), updateArgumentCaptor.capture(), eq(COLLECTION));
+        Document query = queryArgumentCaptor.getValue().getQueryObject();
+        assertThat(query.get("_id", Document.class).get("$in"), is(List.of(JOB_ID)));
+        assertThat(query.get("status", Document.class).get("$in"), is(List.of("QUEUED", "RUNNING")));
+        assertThat(updateArgumentCaptor.getValue().getUpdateObject().get("$set", Document.class).get("updatedAt"), notNullValue());
+    }
+
+    @Test
+    void failExpired() {
+        when(template.updateMulti(any(Query.class), any(Update.class), eq(COLLECTION))).thenReturn(UpdateResult.acknowledged(2, 2L, null));
+        assertThat(repository.failExpired(Duration.ofMinutes(3), "abandoned"), is(2L));
+        verify(template).updateMulti(queryArgumentCaptor.capture(), updateArgumentCaptor.capture(), eq(COLLECTION));
+        Document query = queryArgumentCaptor.getValue().getQueryObject();
+        assertThat(query.get("status", Document.class).get("$in"), is(List.of("QUEUED", "RUNNING")));
+        assertThat(query.get("updatedAt", Document.class).get("$lt") instanceof Date, is(true));
+        Document set = updateArgumentCaptor.getValue().getUpdateObject().get("$set", Document.class);
+        assertThat(set.get("status"), is("FAILED"));
+        assertThat(set.get("error"), is("abandoned"));
+    }
+}
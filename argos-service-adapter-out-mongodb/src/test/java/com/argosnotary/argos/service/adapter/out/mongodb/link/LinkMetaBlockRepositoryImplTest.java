@@ -22,6 +22,11 @@ package com.argosnotary.argos.service.adapter.out.mongodb.link;
 import com.argosnotary.argos.domain.layout.ArtifactType;
 import com.argosnotary.argos.domain.link.Artifact;
 import com.argosnotary.argos.domain.link.LinkMetaBlock;
+import com.mongodb.MongoBulkWriteException;
+import com.mongodb.ServerAddress;
+import com.mongodb.bulk.BulkWriteError;
+import com.mongodb.bulk.BulkWriteResult;
+import org.bson.BsonDocument;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -29,6 +34,8 @@ import org.mockito.ArgumentCaptor;
 import org.mockito.Captor;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.mongodb.BulkOperationException;
+import org.springframework.data.mongodb.core.BulkOperations;
 import org.springframework.data.mongodb.core.MongoTemplate;
 import org.springframework.data.mongodb.core.query.Query;
 
@@ -43,6 +50,8 @@ import static com.argosnotary.argos.service.adapter.out.mongodb.link.LinkMetaBlo
 import static java.util.Collections.singleton;
 import static java.util.Collections.singletonList;
 import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.empty;
 import static org.hamcrest.Matchers.hasSize;
 import static org.hamcrest.Matchers.sameInstance;
 import static org.hamcrest.core.Is.is;
@@ -67,6 +76,9 @@ class LinkMetaBlockRepositoryImplTest {
     @Mock
     private LinkMetaBlock linkMetaBlock;
 
+    @Mock
+    private BulkOperations bulkOperations;
+
     @Captor
     private ArgumentCaptor<Query> queryArgumentCaptor;
 
@@ -109,4 +121,24 @@ class LinkMetaBlockRepositoryImplTest {
         repository.save(link);
         verify(template).save(link, COLLECTION);
     }
+
+    @Test
+    void saveAll() {
+        List<LinkMetaBlock> links = List.of(link, linkMetaBlock);
+        when(template.bulkOps(BulkOperations.BulkMode.UNORDERED, LinkMetaBlock.class, COLLECTION)).thenReturn(bulkOperations);
+        when(bulkOperations.insert(links)).thenReturn(bulkOperations);
+        assertThat(repository.saveAll(links), is(empty()));
+        verify(bulkOperations).execute();
+    }
+
+    @Test
+    void saveAllWithFailure() {
+        List<LinkMetaBlock> links = List.of(link, linkMetaBlock);
+        when(template.bulkOps(BulkOperations.BulkMode.UNORDERED, LinkMetaBlock.class, COLLECTION)).thenReturn(bulkOperations);
+        when(bulkOperations.insert(links)).thenReturn(bulkOperations);
+        MongoBulkWriteException bulkWriteException = new MongoBulkWriteException(BulkWriteResult.unacknowledged(),
+                List.of(new BulkWriteError(11000, "duplicate key", new BsonDocument(), 1)), null, new ServerAddress());
+        when(bulkOperations.execute()).thenThrow(new BulkOperationException("failed", bulkWriteException));
+        assertThat(repository.saveAll(links), contains(1));
+    }
 }
@@ -0,0 +1,213 @@
+/*
+ * Argos Notary - A new way to secure the Software Supply Chain
+ *
+ * Copyright (C) 2019 - 2020 Rabobank Nederland
+ * Copyright (C) 2019 - 2021 Gerard Borst <gerard.borst@argosnotary.com>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package com.argosnotary.argos.service.adapter.out.mongodb.release;
+
+import com.argosnotary.argos.domain.ArgosError;
+import com.argosnotary.argos.domain.account.AccountType;
+import com.argosnotary.argos.domain.layout.LayoutMetaBlock;
+import com.argosnotary.argos.domain.link.Artifact;
+import com.argosnotary.argos.domain.link.Link;
+import com.argosnotary.argos.domain.link.LinkMetaBlock;
+import com.argosnotary.argos.domain.release.ReleaseDossier;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.mongodb.client.gridfs.GridFSBucket;
+import com.mongodb.client.gridfs.GridFSDownloadStream;
+import com.mongodb.client.result.UpdateResult;
+import org.apache.commons.io.IOUtils;
+import org.bson.BsonObjectId;
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static com.argosnotary.argos.service.adapter.out.mongodb.release.ReleaseBlockStore.COLLECTION;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.not;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class ReleaseBlockStoreTest {
+
+    @Mock
+    private MongoTemplate template;
+
+    @Mock
+    private GridFSBucket blockBucket;
+
+    private final ObjectMapper mapper = new ObjectMapper();
+
+    private final Map<String, ObjectId> blocks = new HashMap<>();
+
+    private final Map<ObjectId, byte[]> files = new HashMap<>();
+
+    private ReleaseBlockStore releaseBlockStore;
+
+    @BeforeEach
+    void setUp() {
+        releaseBlockStore = new ReleaseBlockStore(template, mapper, blockBucket);
+    }
+
+    @Test
+    void writeReferencedAndReassemble() throws IOException {
+        mockBlockCollection();
+        ReleaseDossier releaseDossier = createReleaseDossier();
+
+        ByteArrayOutputStream referenced = new ByteArrayOutputStream();
+        releaseBlockStore.writeReferenced(referenced, releaseDossier);
+        String referencedJson = referenced.toString(StandardCharsets.UTF_8);
+        assertThat(referencedJson, containsString("\"$ref\""));
+        assertThat(referencedJson, not(containsString("stepName")));
+        // the two identical links are stored once
+        assertThat(blocks.size(), is(2));
+        assertThat(files.size(), is(2));
+
+        InputStream reassembled = releaseBlockStore.reassemble(new ByteArrayInputStream(referenced.toByteArray()));
+        assertThat(IOUtils.toString(reassembled, StandardCharsets.UTF_8), is(mapper.writeValueAsString(releaseDossier)));
+    }
+
+    @Test
+    void writeReferencedWithoutBlocks() throws IOException {
+        ReleaseDossier releaseDossier = ReleaseDossier.builder().build();
+        ByteArrayOutputStream referenced = new ByteArrayOutputStream();
+        releaseBlockStore.writeReferenced(referenced, releaseDossier);
+        InputStream reassembled = releaseBlockStore.reassemble(new ByteArrayInputStream(referenced.toByteArray()));
+        assertThat(IOUtils.toString(reassembled, StandardCharsets.UTF_8), is(mapper.writeValueAsString(releaseDossier)));
+    }
+
+    @Test
+    void storeExistingBlock() throws IOException {
+        when(template.exists(any(Query.class), eq(COLLECTION))).thenReturn(true);
+        String digest = releaseBlockStore.store(createLinkMetaBlock());
+        assertThat(digest.length(), is(64));
+        verifyNoInteractions(blockBucket);
+    }
+
+    @Test
+    void storeBlockOfConcurrentRelease() throws IOException {
+        ObjectId fileId = new ObjectId();
+        when(blockBucket.uploadFromStream(anyString(), any(InputStream.class))).thenReturn(fileId);
+        when(template.upsert(any(Query.class), any(Update.class), eq(COLLECTION))).thenReturn(UpdateResult.acknowledged(1, 0L, null));
+        releaseBlockStore.store(createLinkMetaBlock());
+        verify(blockBucket).delete(fileId);
+    }
+
+    @Test
+    void storeDuplicateBlock() throws IOException {
+        ObjectId fileId = new ObjectId();
+        when(blockBucket.uploadFromStream(anyString(), any(InputStream.class))).thenReturn(fileId);
+        when(template.upsert(any(Query.class), any(Update.class), eq(COLLECTION))).thenThrow(new DuplicateKeyException("duplicate"));
+        releaseBlockStore.store(createLinkMetaBlock());
+        verify(template, times(1)).upsert(any(Query.class), any(Update.class), eq(COLLECTION));
+        verify(blockBucket).delete(fileId);
+    }
+
+    @Test
+    void reassembleWithoutReferences() throws IOException {
+        String dossier = "{\"accounts\":[{\"$ref\":\"name\",\"id\":\"id\"}],\"layoutMetaBlock\":{\"$ref\":{}}}";
+        InputStream reassembled = releaseBlockStore.reassemble(new ByteArrayInputStream(dossier.getBytes(StandardCharsets.UTF_8)));
+        assertThat(IOUtils.toString(reassembled, StandardCharsets.UTF_8), is(dossier));
+        verifyNoInteractions(template, blockBucket);
+    }
+
+    @Test
+    void reassembleMissingBlock() throws IOException {
+        String digest = "a".repeat(64);
+        InputStream reassembled = releaseBlockStore.reassemble(new ByteArrayInputStream(
+                ("{\"layoutMetaBlock\":{\"$ref\":\"" + digest + "\"}}").getBytes(StandardCharsets.UTF_8)));
+        ArgosError error = assertThrows(ArgosError.class, () -> IOUtils.toString(reassembled, StandardCharsets.UTF_8));
+        assertThat(error.getMessage(), is("release block not found: " + digest));
+    }
+
+    private void mockBlockCollection() {
+        when(template.exists(any(Query.class), eq(COLLECTION)))
+                .thenAnswer(invocation -> blocks.containsKey(invocation.<Query>getArgument(0).getQueryObject().getString("_id")));
+        when(blockBucket.uploadFromStream(anyString(), any(InputStream.class))).thenAnswer(invocation -> {
+            ObjectId fileId = new ObjectId();
+            files.put(fileId, IOUtils.toByteArray(invocation.<InputStream>getArgument(1)));
+            return fileId;
+        });
+        when(template.upsert(any(Query.class), any(Update.class), eq(COLLECTION))).thenAnswer(invocation -> {
+            Query query = invocation.getArgument(0);
+            Update update = invocation.getArgument(1);
+            String digest = query.getQueryObject().getString("_id");
+            ObjectId fileId = update.getUpdateObject().get("$setOnInsert", Document.class).getObjectId("fileId");
+            blocks.putIfAbsent(digest, fileId);
+            return UpdateResult.acknowledged(0, 0L, new BsonObjectId(fileId));
+        });
+        when(template.findById(anyString(), eq(Document.class), eq(COLLECTION)))
+                .thenAnswer(invocation -> new Document("fileId", blocks.get(invocation.<String>getArgument(0))));
+        when(blockBucket.openDownloadStream(any(ObjectId.class)))
+                .thenAnswer(invocation -> downloadStream(files.get(invocation.<ObjectId>getArgument(0))));
+    }
+
+    private static GridFSDownloadStream downloadStream(byte[] file) throws IOException {
+        InputStream content = new ByteArrayInputStream(file);
+        GridFSDownloadStream downloadStream = mock(GridFSDownloadStream.class);
+        when(downloadStream.read(any(byte[].class), anyInt(), anyInt())).thenAnswer(invocation ->
+                content.read(invocation.getArgument(0), invocation.getArgument(1), invocation.getArgument(2)));
+        return downloadStream;
+    }
+
+    private static ReleaseDossier createReleaseDossier() {
+        return ReleaseDossier.builder()
+                .accounts(List.of(ReleaseDossier.Account.builder()
+                        .id("id").name("name").keyId("keyId").path("path").type(AccountType.SERVICE_ACCOUNT).build()))
+                .layoutMetaBlock(LayoutMetaBlock.builder().supplyChainId("supplyChainId").build())
+                .linkMetaBlocks(List.of(createLinkMetaBlock(), createLinkMetaBlock()))
+                .build();
+    }
+
+    private static LinkMetaBlock createLinkMetaBlock() {
+        return LinkMetaBlock.builder()
+                .supplyChainId("supplyChainId")
+                .link(Link.builder()
+                        .stepName("build")
+                        .products(List.of(Artifact.builder().uri("target/app.jar").hash("hash").build()))
+                        .build())
+                .build();
+    }
+}
@@ -0,0 +1,90 @@
+/*
+ * Argos Notary - A new way to secure the Software Supply Chain
+ *
+ * Copyright (C) 2019 - 2020 Rabobank Nederland
+ * Copyright (C) 2019 - 2021 Gerard Borst <gerard.borst@argosnotary.com>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package com.argosnotary.argos.service.adapter.out.mongodb.release;
+
+import org.bson.Document;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.not;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class ReleaseDossierCompressionTest {
+
+    private static final String DOSSIER = "{\"layoutMetaBlock\":{}}";
+
+    @Test
+    void gzipRoundTrip() throws IOException {
+        byte[] compressed = encode(ReleaseDossierCompression.GZIP);
+        assertThat(new String(compressed, StandardCharsets.UTF_8), not(DOSSIER));
+        assertThat(decode(ReleaseDossierCompression.GZIP, compressed), is(DOSSIER));
+    }
+
+    @Test
+    void noneRoundTrip() throws IOException {
+        byte[] stored = encode(ReleaseDossierCompression.NONE);
+        assertThat(new String(stored, StandardCharsets.UTF_8), is(DOSSIER));
+        assertThat(decode(ReleaseDossierCompression.NONE, stored), is(DOSSIER));
+    }
+
+    @Test
+    void addTo() {
+        Document metadata = new Document();
+        ReleaseDossierCompression.NONE.addTo(metadata);
+        assertThat(metadata.containsKey(ReleaseDossierCompression.CONTENT_ENCODING_FIELD), is(false));
+        ReleaseDossierCompression.GZIP.addTo(metadata);
+        assertThat(metadata.getString(ReleaseDossierCompression.CONTENT_ENCODING_FIELD), is("gzip"));
+    }
+
+    @Test
+    void fromMetadata() {
+        assertThat(ReleaseDossierCompression.fromMetadata(null), is(ReleaseDossierCompression.NONE));
+        assertThat(ReleaseDossierCompression.fromMetadata(new Document()), is(ReleaseDossierCompression.NONE));
+        assertThat(ReleaseDossierCompression.fromMetadata(new Document(ReleaseDossierCompression.CONTENT_ENCODING_FIELD, "gzip")),
+                is(ReleaseDossierCompression.GZIP));
+    }
+
+    @Test
+    void unknownCompression() {
+        assertThrows(IllegalArgumentException.class, () -> ReleaseDossierCompression.of("zip"));
+    }
+
+    private static byte[] encode(ReleaseDossierCompression compression) throws IOException {
+        ByteArrayOutputStream stored = new ByteArrayOutputStream();
+        try (OutputStream outputStream = compression.encode(stored)) {
+            outputStream.write(DOSSIER.getBytes(StandardCharsets.UTF_8));
+        }
+        return stored.toByteArray();
+    }
+
+    private static String decode(ReleaseDossierCompression compression, byte[] stored) throws IOException {
+        try (InputStream inputStream = compression.decode(new ByteArrayInputStream(stored))) {
+            return new String(inputStream.readAllBytes(), StandardCharsets.UTF_8);
+        }
+    }
+}
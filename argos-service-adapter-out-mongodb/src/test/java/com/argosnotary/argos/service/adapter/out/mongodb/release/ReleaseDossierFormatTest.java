@@ -0,0 +1,46 @@
+/*
+ * Argos Notary - A new way to secure the Software Supply Chain
+ *
+ * Copyright (C) 2019 - 2020 Rabobank Nederland
+ * Copyright (C) 2019 - 2021 Gerard Borst <gerard.borst@argosnotary.com>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package com.argosnotary.argos.service.adapter.out.mongodb.release;
+
+import org.bson.Document;
+import org.junit.jupiter.api.Test;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+
+class ReleaseDossierFormatTest {
+
+    @Test
+    void addTo() {
+        Document metadata = new Document();
+        ReleaseDossierFormat.EMBEDDED.addTo(metadata);
+        assertThat(metadata.containsKey(ReleaseDossierFormat.DOSSIER_FORMAT_FIELD), is(false));
+        ReleaseDossierFormat.REFERENCED.addTo(metadata);
+        assertThat(metadata.getString(ReleaseDossierFormat.DOSSIER_FORMAT_FIELD), is("referenced"));
+    }
+
+    @Test
+    void fromMetadata() {
+        assertThat(ReleaseDossierFormat.fromMetadata(null), is(ReleaseDossierFormat.EMBEDDED));
+        assertThat(ReleaseDossierFormat.fromMetadata(new Document()), is(ReleaseDossierFormat.EMBEDDED));
+        assertThat(ReleaseDossierFormat.fromMetadata(new Document(ReleaseDossierFormat.DOSSIER_FORMAT_FIELD, "referenced")),
+                is(ReleaseDossierFormat.REFERENCED));
+    }
+}
@@ -0,0 +1,59 @@
+/*
+ * Argos Notary - A new way to secure the Software Supply Chain
+ *
+ * Copyright (C) 2019 - 2020 Rabobank Nederland
+ * Copyright (C) 2019 - 2021 Gerard Borst <gerard.borst@argosnotary.com>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package com.argosnotary.argos.service.adapter.out.mongodb.release;
+
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.junit.jupiter.api.Test;
+
+import com.argosnotary.argos.domain.release.ReleaseDossierMetaData;
+
+import java.util.List;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+
+class ReleaseDossierMetaDataToReleaseIndexConverterTest {
+
+    private static final String DOCUMENT_ID = "54651022bffebc03098b4567";
+    private static final List<String> ARTIFACT_LIST = List.of("string", "string2");
+
+    @Test
+    void convert() {
+        ReleaseDossierMetaData releaseDossierMetaData = ReleaseDossierMetaData.builder()
+                .releaseArtifacts(List.of(ARTIFACT_LIST, List.of("string3"), List.of("string2", "string")))
+                .documentId(DOCUMENT_ID)
+                .supplyChainPath("root.child.supplychain")
+                .build();
+        List<Document> entries = new ReleaseDossierMetaDataToReleaseIndexConverter().convert(releaseDossierMetaData);
+        assertThat(entries.size(), is(2));
+        Document entry = entries.get(0);
+        assertThat(entry.getString("artifactsHash"), is(ReleaseDossierMetaData.createHashFromArtifactList(ARTIFACT_LIST)));
+        assertThat(entry.getList("pathPrefixes", String.class), is(List.of("root", "root.child", "root.child.supplychain")));
+        assertThat(entry.getString("supplyChainPath"), is("root.child.supplychain"));
+        assertThat(entry.getObjectId("dossierId"), is(new ObjectId(DOCUMENT_ID)));
+        assertThat(entries.get(1).getString("artifactsHash"), is(ReleaseDossierMetaData.createHashFromArtifactList(List.of("string3"))));
+    }
+
+    @Test
+    void createPathPrefixesOfSingleSegment() {
+        assertThat(ReleaseDossierMetaDataToReleaseIndexConverter.createPathPrefixes("root"), is(List.of("root")));
+    }
+}
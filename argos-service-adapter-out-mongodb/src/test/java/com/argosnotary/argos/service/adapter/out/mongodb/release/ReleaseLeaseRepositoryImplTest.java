@@ -0,0 +1,103 @@
+/*
+ * Argos Notary - A new way to secure the Software Supply Chain
+ *
+ * Copyright (C) 2019 - 2020 Rabobank Nederland
+ * Copyright (C) 2019 - 2021 Gerard Borst <gerard.borst@argosnotary.com>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package com.argosnotary.argos.service.adapter.out.mongodb.release;
+
+import com.mongodb.client.result.UpdateResult;
+import org.bson.Document;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Captor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+import java.time.Duration;
+
+import static com.argosnotary.argos.service.adapter.out.mongodb.release.ReleaseLeaseRepositoryImpl.COLLECTION;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class ReleaseLeaseRepositoryImplTest {
+
+    private static final String KEY = "key";
+    private static final String OWNER = "owner";
+
+    @Mock
+    private MongoTemplate template;
+
+    @Captor
+    private ArgumentCaptor<Query> queryArgumentCaptor;
+
+    @Captor
+    private ArgumentCaptor<Update> updateArgumentCaptor;
+
+    private ReleaseLeaseRepositoryImpl repository;
+
+    @BeforeEach
+    void setUp() {
+        repository = new ReleaseLeaseRepositoryImpl(template);
+    }
+
+    @Test
+    void acquire() {
+        assertThat(repository.acquire(KEY, OWNER, Duration.ofMinutes(5)), is(true));
+        verify(template).upsert(queryArgumentCaptor.capture(), updateArgumentCaptor.capture(), eq(COLLECTION));
+        assertThat(queryArgumentCaptor.getValue().getQueryObject().get("_id"), is(KEY));
+        assertThat(updateArgumentCaptor.getValue().getUpdateObject().get("$set", Document.class).get("owner"), is(OWNER));
+    }
+
+    @Test
+    void acquireHeldLease() {
+        when(template.upsert(any(Query.class), any(Update.class), eq(COLLECTION))).thenThrow(new DuplicateKeyException("duplicate"));
+        assertThat(repository.acquire(KEY, OWNER, Duration.ofMinutes(5)), is(false));
+    }
+
+    @Test
+    void renew() {
+        when(template.updateFirst(any(Query.class), any(Update.class), eq(COLLECTION))).thenReturn(UpdateResult.acknowledged(1, 1L, null));
+        assertThat(repository.renew(KEY, OWNER, Duration.ofMinutes(5)), is(true));
+        verify(template).updateFirst(queryArgumentCaptor.capture(), updateArgumentCaptor.capture(), eq(COLLECTION));
+        assertThat(queryArgumentCaptor.getValue().toString(), is("Query: { \"_id\" : \"key\", \"owner\" : \"owner\"}, Fields: {}, Sort: {}"));
+        assertThat(updateArgumentCaptor.getValue().getUpdateObject().get("$set", Document.class).containsKey("expiresAt"), is(true));
+    }
+
+    @Test
+    void renewLostLease() {
+        when(template.updateFirst(any(Query.class), any(Update.class), eq(COLLECTION))).thenReturn(UpdateResult.acknowledged(0, 0L, null));
+        assertThat(repository.renew(KEY, OWNER, Duration.ofMinutes(5)), is(false));
+    }
+
+    @Test
+    void release() {
+        repository.release(KEY, OWNER);
+        verify(template).remove(queryArgumentCaptor.capture(), eq(COLLECTION));
+        assertThat(queryArgumentCaptor.getValue().toString(), is("Query: { \"_id\" : \"key\", \"owner\" : \"owner\"}, Fields: {}, Sort: {}"));
+    }
+}
@@ -20,6 +20,10 @@
 package com.argosnotary.argos.service.adapter.out.mongodb.release;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.mongodb.client.gridfs.GridFSBucket;
+import com.mongodb.client.gridfs.GridFSUploadStream;
+import com.mongodb.client.gridfs.model.GridFSFile;
+import com.mongodb.client.gridfs.model.GridFSUploadOptions;
 import com.argosnotary.argos.domain.release.ReleaseDossier;
 import com.argosnotary.argos.domain.release.ReleaseDossierMetaData;
 import com.argosnotary.argos.service.domain.NotFoundException;
@@ -32,21 +36,44 @@ import org.mockito.ArgumentCaptor;
 import org.mockito.Captor;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DuplicateKeyException;
 import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.aggregation.AggregationResults;
 import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.gridfs.GridFsResource;
 import org.springframework.data.mongodb.gridfs.GridFsTemplate;
+import org.springframework.data.util.CloseableIterator;
+import org.springframework.transaction.PlatformTransactionManager;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
 import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
 import java.time.OffsetDateTime;
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.zip.GZIPOutputStream;
 
 import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.notNullValue;
 import static org.hamcrest.core.Is.is;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
 import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.startsWith;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verifyNoInteractions;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
@@ -54,8 +81,13 @@ import static org.mockito.Mockito.when;
 class ReleaseRepositoryImplTest {
     protected static final String RELEASE_DATE_TIME = "2020-07-30T18:35:24.00Z";
     protected static final String ID = "id";
+    protected static final String DOCUMENT_ID = "5f2322ac9a3c4d1e8c0b7a11";
     protected static final String PATH = "path";
     protected static final String LONG_PATH = "path.to";
+    protected static final String HASH_1 = "af316ecb91a8ee7ae99210702b2d4758f30cdde3bf61e3d8e787d74681f90a6e";
+    protected static final String HASH_2 = ReleaseDossierMetaData.createHashFromArtifactList(List.of("hash2"));
+    protected static final String HASH_1_2 = "d8eab8000c5826fbf21e6340c96a911c7cf362c054695b73cb1a80ad0dac1cb0";
+    protected static final String HASH_3_4 = "d10886a0c2d5b4d18134239f1225f1ff014f6ec61dcdd8a4bd3c269b2e2f7c8b";
     @Mock
     private GridFsTemplate gridFsTemplate;
     @Mock
@@ -63,12 +95,45 @@ class ReleaseRepositoryImplTest {
     @Mock
     private ObjectMapper releaseFileJsonMapper;
 
+    @Mock
+    private GridFSBucket gridFSBucket;
+
+    @Mock
+    private ReleaseBlockStore releaseBlockStore;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    @Mock
+    private GridFSUploadStream uploadStream;
+
+    @Mock
+    private GridFSFile gridFSFile;
+
+    @Mock
+    private GridFsResource gridFsResource;
+
+    @Captor
+    private ArgumentCaptor<GridFSUploadOptions> uploadOptionsArgumentCaptor;
+
+    @Captor
+    private ArgumentCaptor<Document> releaseChangeArgumentCaptor;
+
+    @Captor
+    private ArgumentCaptor<List<Document>> releaseIndexArgumentCaptor;
+
+    @Mock
+    private CloseableIterator<Document> files;
+
     @Mock
     private ReleaseDossier releaseDossier;
 
     @Captor
     private ArgumentCaptor<Query> queryArgumentCaptor;
 
+    @Captor
+    private ArgumentCaptor<Aggregation> aggregationArgumentCaptor;
+
     @Mock
     private ObjectId objectId;
 
@@ -86,123 +151,306 @@ class ReleaseRepositoryImplTest {
 
     @BeforeEach
     void setup() {
-        releaseRepository = new ReleaseRepositoryImpl(gridFsTemplate, mongoTemplate, releaseFileJsonMapper);
+        releaseRepository = new ReleaseRepositoryImpl(gridFsTemplate, mongoTemplate, releaseFileJsonMapper, gridFSBucket, releaseBlockStore, transactionManager);
+    }
+
+    @Test
+    void storeRelease() throws IOException {
+        ReleaseDossierMetaData metaData = ReleaseDossierMetaData.builder()
+                .releaseArtifacts(List.of(List.of("hash1"))).supplyChainPath(PATH).build();
+        when(gridFSBucket.openUploadStream(startsWith("release-path-"), any(GridFSUploadOptions.class))).thenReturn(uploadStream);
+        when(uploadStream.getObjectId()).thenReturn(objectId);
+        when(objectId.toHexString()).thenReturn(DOCUMENT_ID);
+        ReleaseDossierMetaData stored = releaseRepository.storeRelease(metaData, releaseDossier);
+        assertThat(stored.getDocumentId(), is(DOCUMENT_ID));
+        assertThat(stored.getReleaseDate(), is(notNullValue()));
+        verify(releaseFileJsonMapper).writeValue(any(OutputStream.class), eq(releaseDossier));
+        verify(gridFSBucket).openUploadStream(any(String.class), uploadOptionsArgumentCaptor.capture());
+        Document metadata = uploadOptionsArgumentCaptor.getValue().getMetadata();
+        assertThat(metadata.getString("supplyChainPath"), is(PATH));
+        assertThat(metadata.getString("_contentType"), is("application/json"));
+        assertThat(metadata.containsKey("contentEncoding"), is(false));
+        verify(uploadStream).close();
+        verify(transactionManager).getTransaction(any());
+        verify(mongoTemplate).insert(releaseIndexArgumentCaptor.capture(), eq("releaseIndex"));
+        Document releaseIndexEntry = releaseIndexArgumentCaptor.getValue().iterator().next();
+        assertThat(releaseIndexEntry.getString("artifactsHash"), is(HASH_1));
+        assertThat(releaseIndexEntry.getObjectId("dossierId").toHexString(), is(DOCUMENT_ID));
+        assertThat(releaseIndexEntry.getList("pathPrefixes", String.class), is(List.of(PATH)));
+        verify(mongoTemplate).insert(releaseChangeArgumentCaptor.capture(), eq("releaseChanges"));
+        assertThat(releaseChangeArgumentCaptor.getValue().getObjectId("_id").toHexString(), is(DOCUMENT_ID));
+        assertThat(releaseChangeArgumentCaptor.getValue().getString("supplyChainPath"), is(PATH));
+        verify(transactionManager).commit(any());
     }
 
     @Test
-    void storeRelease() {
-        when(releaseDossierMetaData.getSupplyChainPath()).thenReturn(PATH);
-        when(gridFsTemplate.store(any(InputStream.class), any(String.class), any(String.class), any(ReleaseDossierMetaData.class)))
-                .thenReturn(objectId);
-        when(objectId.toHexString()).thenReturn(ID);
-        releaseDossierMetaData = releaseRepository.storeRelease(releaseDossierMetaData, releaseDossier);
-        verify(releaseDossierMetaData).setDocumentId(ID);
-        verify(releaseDossierMetaData).setReleaseDate(any());
+    void storeReleaseIndexFailureShouldDeleteReleaseFile() {
+        ReleaseDossierMetaData metaData = ReleaseDossierMetaData.builder()
+                .releaseArtifacts(List.of(List.of("hash1"))).supplyChainPath(PATH).build();
+        ObjectId dossierId = new ObjectId(DOCUMENT_ID);
+        when(gridFSBucket.openUploadStream(any(String.class), any(GridFSUploadOptions.class))).thenReturn(uploadStream);
+        when(uploadStream.getObjectId()).thenReturn(dossierId);
+        when(mongoTemplate.insert(anyCollection(), eq("releaseIndex"))).thenThrow(new DuplicateKeyException("failed"));
+        assertThrows(DuplicateKeyException.class, () -> releaseRepository.storeRelease(metaData, releaseDossier));
+        verify(gridFSBucket).delete(dossierId);
     }
 
+    @Test
+    void storeCompressedRelease() {
+        releaseRepository.setDossierCompression("gzip");
+        ReleaseDossierMetaData metaData = ReleaseDossierMetaData.builder()
+                .releaseArtifacts(List.of(List.of("hash1"))).supplyChainPath(PATH).build();
+        when(gridFSBucket.openUploadStream(any(String.class), any(GridFSUploadOptions.class))).thenReturn(uploadStream);
+        when(uploadStream.getObjectId()).thenReturn(objectId);
+        when(objectId.toHexString()).thenReturn(DOCUMENT_ID);
+        releaseRepository.storeRelease(metaData, releaseDossier);
+        verify(gridFSBucket).openUploadStream(any(String.class), uploadOptionsArgumentCaptor.capture());
+        assertThat(uploadOptionsArgumentCaptor.getValue().getMetadata().getString("contentEncoding"), is("gzip"));
+        verify(uploadStream).close();
+    }
+
+    @Test
+    void storeReferencedRelease() throws IOException {
+        releaseRepository.setDossierFormat("referenced");
+        ReleaseDossierMetaData metaData = ReleaseDossierMetaData.builder()
+                .releaseArtifacts(List.of(List.of("hash1"))).supplyChainPath(PATH).build();
+        when(gridFSBucket.openUploadStream(any(String.class), any(GridFSUploadOptions.class))).thenReturn(uploadStream);
+        when(uploadStream.getObjectId()).thenReturn(objectId);
+        when(objectId.toHexString()).thenReturn(DOCUMENT_ID);
+        releaseRepository.storeRelease(metaData, releaseDossier);
+        verify(releaseBlockStore).writeReferenced(any(OutputStream.class), eq(releaseDossier));
+        verifyNoInteractions(releaseFileJsonMapper);
+        verify(gridFSBucket).openUploadStream(any(String.class), uploadOptionsArgumentCaptor.capture());
+        assertThat(uploadOptionsArgumentCaptor.getValue().getMetadata().getString("dossierFormat"), is("referenced"));
+    }
+
+    @Test
+    void storeReleaseFailureShouldAbortUpload() throws IOException {
+        ReleaseDossierMetaData metaData = ReleaseDossierMetaData.builder()
+                .releaseArtifacts(List.of(List.of("hash1"))).supplyChainPath(PATH).build();
+        when(gridFSBucket.openUploadStream(any(String.class), any(GridFSUploadOptions.class))).thenReturn(uploadStream);
+        doThrow(new IOException("failed")).when(releaseFileJsonMapper).writeValue(any(OutputStream.class), eq(releaseDossier));
+        IOException exception = assertThrows(IOException.class, () -> releaseRepository.storeRelease(metaData, releaseDossier));
+        assertThat(exception.getMessage(), is("failed"));
+        verify(uploadStream).abort();
+        verify(uploadStream, never()).close();
+    }
+
+    @Test
+    void getRawReleaseFileById() throws IOException {
+        when(gridFsTemplate.findOne(any(Query.class))).thenReturn(gridFSFile);
+        when(gridFsTemplate.getResource(gridFSFile)).thenReturn(gridFsResource);
+        when(gridFsResource.getInputStream()).thenReturn(new ByteArrayInputStream("{}".getBytes(StandardCharsets.UTF_8)));
+        assertThat(releaseRepository.getRawReleaseFileById(ID), is(Optional.of("{}")));
+    }
+
+    @Test
+    void getCompressedReleaseFileById() throws IOException {
+        ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+        try (GZIPOutputStream outputStream = new GZIPOutputStream(compressed)) {
+            outputStream.write("{}".getBytes(StandardCharsets.UTF_8));
+        }
+        when(gridFsTemplate.findOne(any(Query.class))).thenReturn(gridFSFile);
+        when(gridFSFile.getMetadata()).thenReturn(new Document("contentEncoding", "gzip"));
+        when(gridFsTemplate.getResource(gridFSFile)).thenReturn(gridFsResource);
+        when(gridFsResource.getInputStream()).thenReturn(new ByteArrayInputStream(compressed.toByteArray()));
+        assertThat(releaseRepository.getRawReleaseFileById(ID), is(Optional.of("{}")));
+    }
+
+    @Test
+    void getReferencedReleaseFileById() throws IOException {
+        InputStream referenced = new ByteArrayInputStream("{}".getBytes(StandardCharsets.UTF_8));
+        InputStream reassembled = new ByteArrayInputStream("{\"layoutMetaBlock\":{}}".getBytes(StandardCharsets.UTF_8));
+        when(gridFsTemplate.findOne(any(Query.class))).thenReturn(gridFSFile);
+        when(gridFSFile.getMetadata()).thenReturn(new Document("dossierFormat", "referenced"));
+        when(gridFsTemplate.getResource(gridFSFile)).thenReturn(gridFsResource);
+        when(gridFsResource.getInputStream()).thenReturn(referenced);
+        when(releaseBlockStore.reassemble(referenced)).thenReturn(reassembled);
+        assertThat(releaseRepository.getReleaseFileById(ID), is(Optional.of(reassembled)));
+    }
+
+    @Test
+    void getReleaseFileByIdNotFound() {
+        assertThat(releaseRepository.getReleaseFileById(ID), is(Optional.empty()));
+        assertThat(releaseRepository.getRawReleaseFileById(ID), is(Optional.empty()));
+    }
     
     @Test
     void findReleaseByReleasedArtifactsAndPath() {
         ReleaseDossierMetaData metadata = ReleaseDossierMetaData.builder()
                 .releaseArtifacts(List.of(List.of("hash1", "hash2"), List.of("hash4", "hash3")))
-                .documentId(ID)
                 .supplyChainPath(LONG_PATH)
                 .releaseDate(OffsetDateTime.parse(RELEASE_DATE_TIME)).build();
-        when(mongoTemplate.find(any(), any(), any())).thenReturn(Collections.singletonList(metadata));
+        ObjectId dossierId = new ObjectId(DOCUMENT_ID);
+        ObjectId otherDossierId = new ObjectId();
+        when(mongoTemplate.find(any(Query.class), eq(Document.class), eq("releaseIndex"))).thenReturn(List.of(
+                releaseIndexEntry(HASH_1_2, dossierId),
+                releaseIndexEntry(HASH_3_4, dossierId),
+                releaseIndexEntry(HASH_1_2, otherDossierId)));
+        when(mongoTemplate.findOne(any(Query.class), eq(Document.class), eq("fs.files"))).thenReturn(
+                new Document("_id", dossierId).append("metadata", new ReleaseDossierMetaDataToDocumentConverter().convert(metadata)));
         Optional<ReleaseDossierMetaData> retrievedReleaseDossierMetaData = releaseRepository
                 .findReleaseByReleasedArtifactsAndPath(metadata.getReleaseArtifacts(), PATH);
         assertThat(retrievedReleaseDossierMetaData.isEmpty(), is(false));
-        assertThat(retrievedReleaseDossierMetaData.get().getDocumentId(), is(ID));
+        assertThat(retrievedReleaseDossierMetaData.get().getDocumentId(), is(DOCUMENT_ID));
         assertThat(retrievedReleaseDossierMetaData.get().getSupplyChainPath(), is(LONG_PATH));
         assertThat(retrievedReleaseDossierMetaData.get().getReleaseArtifacts(), is(metadata.getReleaseArtifacts()));
         assertThat(retrievedReleaseDossierMetaData.get().getReleaseDate(), is(OffsetDateTime.parse(RELEASE_DATE_TIME)));
-        verify(mongoTemplate).find(queryArgumentCaptor.capture(), any(), any());
-        assertThat(queryArgumentCaptor.getValue().toString(), is(
-                "Query: { \"$and\" : [{ \"metadata.releaseArtifacts.artifactsHash\" : \"d8eab8000c5826fbf21e6340c96a911c7cf362c054695b73cb1a80ad0dac1cb0\"}, { \"metadata.releaseArtifacts.artifactsHash\" : \"d10886a0c2d5b4d18134239f1225f1ff014f6ec61dcdd8a4bd3c269b2e2f7c8b\"}], \"metadata.supplyChainPath\" : { \"$regularExpression\" : { \"pattern\" : \"^path\", \"options\" : \"\"}}}, Fields: {}, Sort: {}"));
+        verify(mongoTemplate).find(queryArgumentCaptor.capture(), eq(Document.class), eq("releaseIndex"));
+        Document queryObject = queryArgumentCaptor.getValue().getQueryObject();
+        assertThat(queryObject.get("artifactsHash", Document.class).get("$in"), is(Set.of(HASH_1_2, HASH_3_4)));
+        assertThat(queryObject.getString("pathPrefixes"), is(PATH));
+        verify(mongoTemplate).findOne(queryArgumentCaptor.capture(), eq(Document.class), eq("fs.files"));
+        assertThat(queryArgumentCaptor.getValue().getQueryObject().get("_id"), is(dossierId));
     }
 
-
     @Test
     void findReleaseByReleasedArtifactsAndPathWithMultipleResultsShouldThrowException() {
-        ReleaseDossierMetaData metadata = ReleaseDossierMetaData.builder()
-                .releaseArtifacts(List.of(List.of("hash1", "hash2"))).documentId(ID).supplyChainPath(PATH)
-                .releaseDate(OffsetDateTime.parse(RELEASE_DATE_TIME)).build();
         List<List<String>> releasedArtifacts = List.of(List.of("hash1"), List.of("hash2"));
-        when(mongoTemplate.find(any(), any(), any())).thenReturn(List.of(metadata, metadata));
+        when(mongoTemplate.find(any(Query.class), eq(Document.class), eq("releaseIndex"))).thenReturn(List.of(
+                releaseIndexEntry(HASH_1, new ObjectId(DOCUMENT_ID)),
+                releaseIndexEntry(HASH_2, new ObjectId(DOCUMENT_ID)),
+                releaseIndexEntry(HASH_1, new ObjectId()),
+                releaseIndexEntry(HASH_2, new ObjectId())));
         NotFoundException notFoundException = assertThrows(NotFoundException.class,
                 () -> releaseRepository.findReleaseByReleasedArtifactsAndPath(releasedArtifacts, PATH));
         assertThat(notFoundException.getMessage(),
                 is("no unique release was found please specify a supply chain path parameter"));
     }
-     
 
     @Test
     void findReleaseByReleasedArtifactsAndPathWithNoResultShouldReturnEmpty() {
         List<List<String>> releasedArtifacts = List.of(List.of("hash1"), List.of("hash2"));
-        when(mongoTemplate.find(any(), any(), any())).thenReturn(Collections.emptyList());
+        when(mongoTemplate.find(any(Query.class), eq(Document.class), eq("releaseIndex"))).thenReturn(Collections.emptyList());
+        assertThat(releaseRepository.findReleaseByReleasedArtifactsAndPath(releasedArtifacts, PATH).isEmpty(), is(true));
+        verify(mongoTemplate, never()).findOne(any(Query.class), any(), any());
+    }
+
+    @Test
+    void findReleaseByReleasedArtifactsWithoutPath() {
+        when(mongoTemplate.find(any(Query.class), eq(Document.class), eq("releaseIndex"))).thenReturn(Collections.emptyList());
+        assertThat(releaseRepository.findReleaseByReleasedArtifactsAndPath(List.of(List.of("hash1")), null).isEmpty(), is(true));
+        verify(mongoTemplate).find(queryArgumentCaptor.capture(), eq(Document.class), eq("releaseIndex"));
+        assertThat(queryArgumentCaptor.getValue().getQueryObject().containsKey("pathPrefixes"), is(false));
+    }
+
+    @Test
+    void findReleaseByPartlyReleasedArtifactsShouldReturnEmpty() {
+        List<List<String>> releasedArtifacts = List.of(List.of("hash1"), List.of("hash2"));
+        when(mongoTemplate.find(any(Query.class), eq(Document.class), eq("releaseIndex"))).thenReturn(List.of(
+                releaseIndexEntry(HASH_1, new ObjectId(DOCUMENT_ID))));
         assertThat(releaseRepository.findReleaseByReleasedArtifactsAndPath(releasedArtifacts, PATH).isEmpty(), is(true));
     }
 
     @Test
     void artifactsAreReleasedShouldReturnTrue() {
-        when(mongoTemplate.count(any(Query.class), eq(ReleaseDossierMetaData.class), any(String.class))).thenReturn(2L);
+        when(mongoTemplate.count(any(Query.class), eq("releaseIndex"))).thenReturn(2L);
         assertThat(releaseRepository.artifactsAreReleased(List.of("hash1"), List.of(PATH)), is(true));
-        verify(mongoTemplate).count(queryArgumentCaptor.capture(), eq(ReleaseDossierMetaData.class), any(String.class));
-        assertThat(queryArgumentCaptor.getValue().toString(), is("Query: { \"metadata.releaseArtifacts.artifactsHash\" : \"af316ecb91a8ee7ae99210702b2d4758f30cdde3bf61e3d8e787d74681f90a6e\", \"$and\" : [{ \"$or\" : [{ \"metadata.supplyChainPath\" : { \"$regularExpression\" : { \"pattern\" : \"^path\", \"options\" : \"\"}}}]}]}, Fields: {}, Sort: {}"));
-                                                                 
+        verify(mongoTemplate).count(queryArgumentCaptor.capture(), eq("releaseIndex"));
+        assertThat(queryArgumentCaptor.getValue().toString(), is("Query: { \"artifactsHash\" : \"HASH_1\", \"pathPrefixes\" : { \"$in\" : [\"path\"]}}, Fields: {}, Sort: {}"));
     }
-    
+
     @Test
     void artifactsMorePathsShouldReturnTrue() {
-        when(mongoTemplate.count(any(Query.class), eq(ReleaseDossierMetaData.class), any(String.class))).thenReturn(2L);
+        when(mongoTemplate.count(any(Query.class), eq("releaseIndex"))).thenReturn(2L);
         assertThat(releaseRepository.artifactsAreReleased(List.of("hash1"), List.of(PATH, LONG_PATH)), is(true));
-        verify(mongoTemplate).count(queryArgumentCaptor.capture(), eq(ReleaseDossierMetaData.class), any(String.class));
-        assertThat(queryArgumentCaptor.getValue().toString(), is("Query: { \"metadata.releaseArtifacts.artifactsHash\" : \"af316ecb91a8ee7ae99210702b2d4758f30cdde3bf61e3d8e787d74681f90a6e\", \"$and\" : [{ \"$or\" : [{ \"metadata.supplyChainPath\" : { \"$regularExpression\" : { \"pattern\" : \"^path\", \"options\" : \"\"}}}, { \"metadata.supplyChainPath\" : { \"$regularExpression\" : { \"pattern\" : \"^\\\\Qpath.to\\\\E\", \"options\" : \"\"}}}]}]}, Fields: {}, Sort: {}"));
-                                                                 
+        verify(mongoTemplate).count(queryArgumentCaptor.capture(), eq("releaseIndex"));
+        assertThat(queryArgumentCaptor.getValue().toString(), is("Query: { \"artifactsHash\" : \"HASH_1\", \"pathPrefixes\" : { \"$in\" : [\"path\", \"path.to\"]}}, Fields: {}, Sort: {}"));
     }
-    
+
     @Test
     void artifactsAreReleased1ResultShouldReturnTrue() {
-        when(mongoTemplate.count(any(Query.class), eq(ReleaseDossierMetaData.class), any(String.class))).thenReturn(1L);
+        when(mongoTemplate.count(any(Query.class), eq("releaseIndex"))).thenReturn(1L);
         assertThat(releaseRepository.artifactsAreReleased(List.of("hash1"), List.of(PATH)), is(true));
-        verify(mongoTemplate).count(queryArgumentCaptor.capture(), eq(ReleaseDossierMetaData.class), any(String.class));
-        assertThat(queryArgumentCaptor.getValue().toString(), is("Query: { \"metadata.releaseArtifacts.artifactsHash\" : \"af316ecb91a8ee7ae99210702b2d4758f30cdde3bf61e3d8e787d74681f90a6e\", \"$and\" : [{ \"$or\" : [{ \"metadata.supplyChainPath\" : { \"$regularExpression\" : { \"pattern\" : \"^path\", \"options\" : \"\"}}}]}]}, Fields: {}, Sort: {}"));
-                                                                 
     }
-    
+
     @Test
     void artifactsEmptyPathsReturnTrue() {
-        when(mongoTemplate.count(any(Query.class), eq(ReleaseDossierMetaData.class), any(String.class))).thenReturn(1L);
+        when(mongoTemplate.count(any(Query.class), eq("releaseIndex"))).thenReturn(1L);
         assertThat(releaseRepository.artifactsAreReleased(List.of("hash1"), List.of()), is(true));
-        verify(mongoTemplate).count(queryArgumentCaptor.capture(), eq(ReleaseDossierMetaData.class), any(String.class));
-        assertThat(queryArgumentCaptor.getValue().toString(), is("Query: { \"metadata.releaseArtifacts.artifactsHash\" : \"af316ecb91a8ee7ae99210702b2d4758f30cdde3bf61e3d8e787d74681f90a6e\"}, Fields: {}, Sort: {}"));
-                                                                 
+        verify(mongoTemplate).count(queryArgumentCaptor.capture(), eq("releaseIndex"));
+        assertThat(queryArgumentCaptor.getValue().toString(), is("Query: { \"artifactsHash\" : \"HASH_1\"}, Fields: {}, Sort: {}"));
     }
-    
+
     @Test
     void artifactsAreReleasedShouldReturnFalse() {
-        when(mongoTemplate.count(any(Query.class), eq(ReleaseDossierMetaData.class), any(String.class))).thenReturn(2L);
+        when(mongoTemplate.count(any(Query.class), eq("releaseIndex"))).thenReturn(2L);
         assertThat(releaseRepository.artifactsAreReleased(List.of("hash1"), null), is(false));
-        verify(mongoTemplate).count(queryArgumentCaptor.capture(), eq(ReleaseDossierMetaData.class), any(String.class));
-        assertThat(queryArgumentCaptor.getValue().toString(), is("Query: { \"metadata.releaseArtifacts.artifactsHash\" : \"af316ecb91a8ee7ae99210702b2d4758f30cdde3bf61e3d8e787d74681f90a6e\"}, Fields: {}, Sort: {}"));
+        verify(mongoTemplate).count(queryArgumentCaptor.capture(), eq("releaseIndex"));
+        assertThat(queryArgumentCaptor.getValue().toString(), is("Query: { \"artifactsHash\" : \"HASH_1\"}, Fields: {}, Sort: {}"));
     }
-    
+
     @Test
     void artifactsAreReleasedEmptyPathsShouldReturnFalse() {
-        when(mongoTemplate.count(any(Query.class), eq(ReleaseDossierMetaData.class), any(String.class))).thenReturn(2L);
+        when(mongoTemplate.count(any(Query.class), eq("releaseIndex"))).thenReturn(2L);
         assertThat(releaseRepository.artifactsAreReleased(List.of("hash1"), List.of()), is(false));
-        verify(mongoTemplate).count(queryArgumentCaptor.capture(), eq(ReleaseDossierMetaData.class), any(String.class));
-        assertThat(queryArgumentCaptor.getValue().toString(), is("Query: { \"metadata.releaseArtifacts.artifactsHash\" : \"af316ecb91a8ee7ae99210702b2d4758f30cdde3bf61e3d8e787d74681f90a6e\"}, Fields: {}, Sort: {}"));
     }
-    
+
     @Test
-    void artifactsNoResultShouldReturnFalse() {    
-        when(mongoTemplate.count(any(Query.class), eq(ReleaseDossierMetaData.class), any(String.class))).thenReturn(0L);
+    void artifactsNoResultShouldReturnFalse() {
+        when(mongoTemplate.count(any(Query.class), eq("releaseIndex"))).thenReturn(0L);
         assertThat(releaseRepository.artifactsAreReleased(List.of("hash1"), List.of(PATH)), is(false));
-        verify(mongoTemplate).count(queryArgumentCaptor.capture(), eq(ReleaseDossierMetaData.class), any(String.class));
-        assertThat(queryArgumentCaptor.getValue().toString(), is("Query: { \"metadata.releaseArtifacts.artifactsHash\" : \"af316ecb91a8ee7ae99210702b2d4758f30cdde3bf61e3d8e787d74681f90a6e\", \"$and\" : [{ \"$or\" : [{ \"metadata.supplyChainPath\" : { \"$regularExpression\" : { \"pattern\" : \"^path\", \"options\" : \"\"}}}]}]}, Fields: {}, Sort: {}"));
-        
-                                                                 
     }
-    
-}
\ No newline at end of file
+
+    @Test
+    void forEachRelease() {
+        Document file = new Document("_id", new ObjectId(DOCUMENT_ID))
+                .append("metadata", new ReleaseDossierMetaDataToDocumentConverter().convert(ReleaseDossierMetaData.builder()
+                        .releaseArtifacts(List.of(List.of("hash1")))
+                        .supplyChainPath(PATH)
+                        .releaseDate(OffsetDateTime.parse(RELEASE_DATE_TIME))
+                        .build()));
+        when(mongoTemplate.stream(any(Query.class), eq(Document.class), eq("fs.files"))).thenReturn(files);
+        doAnswer(invocation -> {
+            invocation.<Consumer<Document>>getArgument(0).accept(file);
+            return null;
+        }).when(files).forEachRemaining(any());
+        List<ReleaseDossierMetaData> releases = new ArrayList<>();
+        releaseRepository.forEachRelease(releases::add);
+        assertThat(releases.size(), is(1));
+        assertThat(releases.get(0).getDocumentId(), is(DOCUMENT_ID));
+        assertThat(releases.get(0).getSupplyChainPath(), is(PATH));
+        assertThat(releases.get(0).getReleaseArtifacts(), is(List.of(List.of("hash1"))));
+        verify(files).close();
+    }
+
+    @Test
+    void findReleasesStoredSince() {
+        Document releaseChange = new ReleaseDossierMetaDataToDocumentConverter().convert(ReleaseDossierMetaData.builder()
+                .documentId(DOCUMENT_ID)
+                .releaseArtifacts(List.of(List.of("hash1")))
+                .supplyChainPath(PATH)
+                .releaseDate(OffsetDateTime.parse(RELEASE_DATE_TIME))
+                .build());
+        when(mongoTemplate.find(any(Query.class), eq(Document.class), eq("releaseChanges"))).thenReturn(List.of(releaseChange));
+        List<ReleaseDossierMetaData> releases = releaseRepository.findReleasesStoredSince(OffsetDateTime.parse(RELEASE_DATE_TIME));
+        assertThat(releases.size(), is(1));
+        assertThat(releases.get(0).getDocumentId(), is(DOCUMENT_ID));
+        verify(mongoTemplate).find(queryArgumentCaptor.capture(), eq(Document.class), eq("releaseChanges"));
+        assertThat(queryArgumentCaptor.getValue().getQueryObject().containsKey("releaseDate"), is(true));
+    }
+
+    @Test
+    void findSupplyChainPathsByArtifactsHash() {
+        when(mongoTemplate.find(any(Query.class), eq(Document.class), eq("releaseIndex")))
+                .thenReturn(List.of(releaseIndexEntry(HASH_1, new ObjectId(DOCUMENT_ID)).append("supplyChainPath", PATH)));
+        assertThat(releaseRepository.findSupplyChainPathsByArtifactsHash(HASH_1), is(Map.of(DOCUMENT_ID, PATH)));
+        verify(mongoTemplate).find(queryArgumentCaptor.capture(), eq(Document.class), eq("releaseIndex"));
+        assertThat(queryArgumentCaptor.getValue().toString(), is("Query: { \"artifactsHash\" : \"af316ecb91a8ee7ae99210702b2d4758f30cdde3bf61e3d8e787d74681f90a6e\"}, Fields: { \"dossierId\" : 1, \"supplyChainPath\" : 1}, Sort: {}"));
+    }
+
+    @Test
+    void findSupplyChainPathsByArtifactsHashes() {
+        Document group = new Document("_id", HASH_1)
+                .append("releases", List.of(new Document("dossierId", new ObjectId(DOCUMENT_ID)).append("supplyChainPath", PATH)));
+        when(mongoTemplate.aggregate(aggregationArgumentCaptor.capture(), eq("releaseIndex"), eq(Document.class)))
+                .thenReturn(new AggregationResults<>(List.of(group), new Document()));
+        assertThat(releaseRepository.findSupplyChainPathsByArtifactsHashes(List.of(HASH_1, HASH_2)),
+                is(Map.of(HASH_1, Map.of(DOCUMENT_ID, PATH))));
+        assertThat(aggregationArgumentCaptor.getValue().toString(), is("{ \"aggregate\" : \"__collection__\", \"pipeline\" : [{ \"$match\" : { \"artifactsHash\" : { \"$in\" : [\"" + HASH_1 + "\", \"" + HASH_2 + "\"]}}}, { \"$group\" : { \"_id\" : \"$artifactsHash\", \"releases\" : { \"$push\" : { \"dossierId\" : \"$dossierId\", \"supplyChainPath\" : \"$supplyChainPath\"}}}}]}"));
+    }
+
+    private static Document releaseIndexEntry(String artifactsHash, ObjectId dossierId) {
+        return new Document("artifactsHash", artifactsHash).append("dossierId", dossierId);
+    }
+}
@@ -0,0 +1,104 @@
+/*
+ * Argos Notary - A new way to secure the Software Supply Chain
+ *
+ * Copyright (C) 2019 - 2020 Rabobank Nederland
+ * Copyright (C) 2019 - 2021 Gerard Borst <gerard.borst@argosnotary.com>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package com.argosnotary.argos.service.adapter.out.mongodb.verification;
+
+import com.argosnotary.argos.domain.link.LinkMetaBlock;
+import com.argosnotary.argos.service.adapter.out.mongodb.verification.VerificationResultRepositoryImpl.VerificationResult;
+import com.argosnotary.argos.service.domain.verification.VerificationRunResult;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Captor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+
+import java.util.List;
+import java.util.Optional;
+
+import static com.argosnotary.argos.service.adapter.out.mongodb.verification.VerificationResultRepositoryImpl.COLLECTION;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.notNullValue;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class VerificationResultRepositoryImplTest {
+
+    private static final String SUPPLY_CHAIN_ID = "supplyChainId";
+    private static final String KEY = "key";
+
+    @Mock
+    private MongoTemplate template;
+
+    @Mock
+    private LinkMetaBlock linkMetaBlock;
+
+    @Captor
+    private ArgumentCaptor<VerificationResult> verificationResultArgumentCaptor;
+
+    @Captor
+    private ArgumentCaptor<Query> queryArgumentCaptor;
+
+    private VerificationResultRepositoryImpl repository;
+
+    @BeforeEach
+    void setUp() {
+        repository = new VerificationResultRepositoryImpl(template);
+    }
+
+    @Test
+    void findByKey() {
+        when(template.findById(KEY, VerificationResult.class, COLLECTION)).thenReturn(VerificationResult.builder()
+                .key(KEY).supplyChainId(SUPPLY_CHAIN_ID).runIsValid(true).validLinkMetaBlocks(List.of(linkMetaBlock)).build());
+        Optional<VerificationRunResult> result = repository.findByKey(KEY);
+        assertThat(result.isPresent(), is(true));
+        assertThat(result.get().isRunIsValid(), is(true));
+        assertThat(result.get().getValidLinkMetaBlocks(), is(List.of(linkMetaBlock)));
+    }
+
+    @Test
+    void findByKeyNotFound() {
+        assertThat(repository.findByKey(KEY), is(Optional.empty()));
+    }
+
+    @Test
+    void save() {
+        repository.save(SUPPLY_CHAIN_ID, KEY, VerificationRunResult.builder().runIsValid(true).validLinkMetaBlocks(List.of(linkMetaBlock)).build());
+        verify(template).save(verificationResultArgumentCaptor.capture(), eq(COLLECTION));
+        VerificationResult verificationResult = verificationResultArgumentCaptor.getValue();
+        assertThat(verificationResult.getKey(), is(KEY));
+        assertThat(verificationResult.getSupplyChainId(), is(SUPPLY_CHAIN_ID));
+        assertThat(verificationResult.isRunIsValid(), is(true));
+        assertThat(verificationResult.getValidLinkMetaBlocks(), is(List.of(linkMetaBlock)));
+        assertThat(verificationResult.getCreatedAt(), notNullValue());
+    }
+
+    @Test
+    void deleteBySupplyChainId() {
+        repository.deleteBySupplyChainId(SUPPLY_CHAIN_ID);
+        verify(template).remove(queryArgumentCaptor.capture(), eq(COLLECTION));
+        assertThat(queryArgumentCaptor.getValue().toString(), is("Query: { \"supplyChainId\" : \"supplyChainId\"}, Fields: {}, Sort: {}"));
+    }
+}
@@ -30,6 +30,8 @@ import com.argosnotary.argos.service.domain.layout.LayoutMetaBlockRepository;
 import com.argosnotary.argos.service.domain.layout.ReleaseConfigurationRepository;
 import com.argosnotary.argos.service.domain.link.LinkMetaBlockRepository;
 import com.argosnotary.argos.service.domain.supplychain.SupplyChainRepository;
+import com.argosnotary.argos.service.domain.verification.CompiledLayoutCache;
+import com.argosnotary.argos.service.domain.verification.VerificationResultCache;
 import lombok.RequiredArgsConstructor;
 
 import java.util.Optional;
@@ -48,6 +50,9 @@ public class DeleteService implements TreeNodeVisitor<Optional<TreeNode>>{
     private final HierarchyService hierarchyService;
     private final AccountService accountService;
     private final ReleaseConfigurationRepository releaseConfigurationRepository;
+    private final VerificationResultCache verificationResultCache;
+
+    private final CompiledLayoutCache compiledLayoutCache;
 
     public void deleteLabel(String labelId) {
         hierarchyService.getSubTree(labelId, HierarchyMode.ALL, -1).ifPresent(
@@ -61,6 +66,8 @@ public class DeleteService implements TreeNodeVisitor<Optional<TreeNode>>{
         approvalConfigurationRepository.deleteBySupplyChainId(supplyChainId);
         releaseConfigurationRepository.deleteBySupplyChainId(supplyChainId);
         supplyChainRepository.delete(supplyChainId);
+        verificationResultCache.evict(supplyChainId);
+        compiledLayoutCache.evict(supplyChainId);
     }
 
     public void deleteServiceAccount(String serviceAccountId) {
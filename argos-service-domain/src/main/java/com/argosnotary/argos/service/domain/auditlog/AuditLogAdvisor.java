@@ -26,25 +26,43 @@ import com.argosnotary.argos.service.domain.security.LocalPermissionCheckData;
 import com.argosnotary.argos.service.domain.security.LocalPermissionCheckDataExtractor;
 import com.argosnotary.argos.service.domain.security.PermissionCheck;
 import com.argosnotary.argos.service.domain.util.reflection.ReflectionHelper;
+import com.argosnotary.argos.service.domain.verification.LogContexts;
+import lombok.AccessLevel;
 import lombok.RequiredArgsConstructor;
+import lombok.Setter;
 import lombok.extern.slf4j.Slf4j;
 import org.aspectj.lang.JoinPoint;
 import org.aspectj.lang.annotation.AfterReturning;
 import org.aspectj.lang.annotation.Aspect;
 import org.aspectj.lang.annotation.Pointcut;
 import org.aspectj.lang.reflect.MethodSignature;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.ApplicationContext;
 import org.springframework.core.annotation.Order;
 import org.springframework.lang.Nullable;
 import org.springframework.stereotype.Component;
 
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
 import java.lang.reflect.Method;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
-import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 
+/**
+ * Writes an audit log entry after every {@link AuditLog} method. On the request thread only the argument
+ * references and the log context are captured, the serialization of the arguments and the resolution of the
+ * label paths run on the audit log threads. The beans and annotations of a method are looked up once.
+ */
 @Aspect
 @Component
 @Slf4j(topic = "argos.AuditLog")
@@ -52,12 +70,58 @@ import java.util.stream.Collectors;
 @Order(value = 2)
 public class AuditLogAdvisor {
     public static final String ARGOS_AUDIT_LOG = "argos.AuditLog";
+    private static final Logger advisorLog = LoggerFactory.getLogger(AuditLogAdvisor.class);
+    private static final long SHUTDOWN_TIMEOUT_SECONDS = 10;
+
     private final ApplicationContext applicationContext;
 
     private final ReflectionHelper reflectionHelper;
 
     private final HierarchyRepository hierarchyRepository;
 
+    private final Map<Method, AuditedMethod> auditedMethods = new ConcurrentHashMap<>();
+
+    /**
+     * number of threads writing audit log entries, 0 writes them on the request thread
+     */
+    @Setter(AccessLevel.PACKAGE)
+    @Value("${audit.pipeline.threads:1}")
+    private int pipelineThreads;
+
+    @Setter(AccessLevel.PACKAGE)
+    @Value("${audit.pipeline.queueCapacity:1000}")
+    private int pipelineQueueCapacity = 1000;
+
+    private ThreadPoolExecutor executor;
+
+    @PostConstruct
+    public void init() {
+        if (pipelineThreads > 0) {
+            // with a full queue or after shutdown the entry is written on the request thread, an audit log entry is never dropped
+            AtomicInteger threadNumber = new AtomicInteger();
+            executor = new ThreadPoolExecutor(pipelineThreads, pipelineThreads, 60L, TimeUnit.SECONDS,
+                    new LinkedBlockingQueue<>(pipelineQueueCapacity),
+                    runnable -> {
+                        Thread thread = new Thread(runnable, "audit-log-" + threadNumber.incrementAndGet());
+                        thread.setDaemon(true);
+                        return thread;
+                    },
+                    (runnable, rejectingExecutor) -> runnable.run());
+            executor.allowCoreThreadTimeOut(true);
+            advisorLog.info("audit log entries written with [{}] threads", pipelineThreads);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        if (executor != null) {
+            executor.shutdown();
+            if (!executor.awaitTermination(SHUTDOWN_TIMEOUT_SECONDS, TimeUnit.SECONDS)) {
+                advisorLog.warn("[{}] audit log entries not written", executor.getQueue().size());
+            }
+        }
+    }
+
     @Pointcut("@annotation(auditLog)")
     public void auditLogPointCut(AuditLog auditLog) {
         //This is an AspectJ pointcut implemented as method
@@ -65,61 +129,99 @@ public class AuditLogAdvisor {
 
     @AfterReturning(value = "auditLogPointCut(auditLog)", argNames = "joinPoint,auditLog,returnValue", returning = "returnValue")
     public void auditLog(JoinPoint joinPoint, AuditLog auditLog, Object returnValue) {
-
-        ArgumentSerializer argumentSerializer = applicationContext
-                .getBean(auditLog.argumentSerializerBeanName(), ArgumentSerializer.class);
-        Object[] argumentValues = joinPoint.getArgs();
-        String serializedReturnValue = serializeValue(returnValue, argumentSerializer, null);
         Method method = ((MethodSignature) joinPoint.getSignature()).getMethod();
-        List<String> paths = resolveOptionalPaths(argumentValues, method);
-        Map<String, String> parameterValueMap = reflectionHelper.getParameterDataByAnnotation(method, AuditParam.class, argumentValues)
-                .collect(Collectors
-                        .toMap(p -> p.getAnnotation().value(),
-                                p -> serializeValue(p.getValue(), argumentSerializer, p.getAnnotation())
-                        )
-                );
+        AuditedMethod auditedMethod = auditedMethods.computeIfAbsent(method, m -> createAuditedMethod(m, auditLog));
+        Object[] argumentValues = joinPoint.getArgs();
+        if (executor == null) {
+            writeAuditLog(auditedMethod, method, argumentValues, returnValue);
+        } else {
+            executor.submit(LogContexts.withCurrentLogContext(() -> {
+                try {
+                    writeAuditLog(auditedMethod, method, argumentValues, returnValue);
+                } catch (RuntimeException e) {
+                    advisorLog.error("audit log of [{}] not written", method.getName(), e);
+                }
+                return null;
+            }));
+        }
+    }
+
+    private void writeAuditLog(AuditedMethod auditedMethod, Method method, Object[] argumentValues, Object returnValue) {
+        ArgumentSerializer argumentSerializer = auditedMethod.argumentSerializer;
+        Map<String, String> parameterValueMap = auditedMethod.arguments.stream()
+                .collect(Collectors.toMap(argument -> argument.name,
+                        argument -> serializeValue(argumentValues[argument.position], argumentSerializer, argument.objectArgumentFilter)));
         AuditLogData auditLogData = AuditLogData.builder()
                 .argumentData(parameterValueMap)
-                .methodName(method.getName())
-                .returnValue(serializedReturnValue)
-                .paths(paths)
+                .methodName(auditedMethod.methodName)
+                .returnValue(serializeValue(returnValue, argumentSerializer, null))
+                .paths(resolveOptionalPaths(auditedMethod, method, argumentValues))
                 .build();
         log.info("AuditLog: {}", argumentSerializer.serialize(auditLogData));
     }
 
-    private List<String> resolveOptionalPaths(Object[] argumentValues, Method method) {
+    private AuditedMethod createAuditedMethod(Method method, AuditLog auditLog) {
+        ArgumentSerializer argumentSerializer = applicationContext
+                .getBean(auditLog.argumentSerializerBeanName(), ArgumentSerializer.class);
+        Integer[] positions = IntStream.range(0, method.getParameterCount()).boxed().toArray(Integer[]::new);
+        List<AuditedArgument> arguments = reflectionHelper.getParameterDataByAnnotation(method, AuditParam.class, positions)
+                .map(parameterData -> new AuditedArgument(parameterData.getAnnotation().value(), parameterData.getValue(),
+                        getObjectArgumentFilter(parameterData.getAnnotation())))
+                .collect(Collectors.toList());
+        PermissionCheck permissionCheck = method.getAnnotation(PermissionCheck.class);
+        LocalPermissionCheckDataExtractor localPermissionCheckDataExtractor = permissionCheck == null ? null : applicationContext
+                .getBean(permissionCheck.localPermissionDataExtractorBean(), LocalPermissionCheckDataExtractor.class);
+        return new AuditedMethod(method.getName(), argumentSerializer, arguments, localPermissionCheckDataExtractor);
+    }
+
+    @Nullable
+    @SuppressWarnings("unchecked")
+    private ObjectArgumentFilter<Object> getObjectArgumentFilter(AuditParam auditParam) {
+        if ("".equals(auditParam.objectArgumentFilterBeanName())) {
+            return null;
+        }
+        return applicationContext.getBean(auditParam.objectArgumentFilterBeanName(), ObjectArgumentFilter.class);
+    }
+
+    private List<String> resolveOptionalPaths(AuditedMethod auditedMethod, Method method, Object[] argumentValues) {
         List<String> paths = new ArrayList<>();
-        Optional<PermissionCheck> optionalPermissionCheck = Optional.ofNullable(method.getAnnotation(PermissionCheck.class));
-        optionalPermissionCheck.ifPresent(permissionCheck -> {
-            LocalPermissionCheckDataExtractor localPermissionCheckDataExtractor = applicationContext
-                    .getBean(permissionCheck.localPermissionDataExtractorBean(), LocalPermissionCheckDataExtractor.class);
-            LocalPermissionCheckData labelCheckData = localPermissionCheckDataExtractor.extractLocalPermissionCheckData(method, argumentValues);
+        if (auditedMethod.localPermissionCheckDataExtractor != null) {
+            LocalPermissionCheckData labelCheckData = auditedMethod.localPermissionCheckDataExtractor
+                    .extractLocalPermissionCheckData(method, argumentValues);
             labelCheckData.getLabelIds().forEach(labelId -> hierarchyRepository.getSubTree(labelId, HierarchyMode.NONE, 0)
                     .ifPresent(treeNode -> paths.add(SupplyChainHelper
                             .reversePath(treeNode.getPathToRoot())
                             .stream()
                             .collect(Collectors.joining("/")) + "/" + treeNode.getName())
                     ));
-        });
+        }
         return paths;
     }
 
-    private String serializeValue(Object argumentValue, ArgumentSerializer argumentSerializer, @Nullable AuditParam auditParam) {
+    private String serializeValue(Object argumentValue, ArgumentSerializer argumentSerializer, @Nullable ObjectArgumentFilter<Object> objectArgumentFilter) {
         if (argumentValue instanceof String) {
             return (String) argumentValue;
+        } else if (objectArgumentFilter != null) {
+            return argumentSerializer.serialize(objectArgumentFilter.filterObjectArguments(argumentValue));
         } else {
-            if (hasObjectArgumentFilter(auditParam)) {
-                ObjectArgumentFilter<Object> objectArgumentFilter = applicationContext
-                        .getBean(auditParam.objectArgumentFilterBeanName(), ObjectArgumentFilter.class);
-                return argumentSerializer.serialize(objectArgumentFilter.filterObjectArguments(argumentValue));
-            } else {
-                return argumentSerializer.serialize(argumentValue);
-            }
-
+            return argumentSerializer.serialize(argumentValue);
         }
     }
 
-    private boolean hasObjectArgumentFilter(@Nullable AuditParam auditParam) {
-        return auditParam != null && !"".equals(auditParam.objectArgumentFilterBeanName());
+    @RequiredArgsConstructor
+    private static class AuditedMethod {
+        private final String methodName;
+        private final ArgumentSerializer argumentSerializer;
+        private final List<AuditedArgument> arguments;
+        @Nullable
+        private final LocalPermissionCheckDataExtractor localPermissionCheckDataExtractor;
+    }
+
+    @RequiredArgsConstructor
+    private static class AuditedArgument {
+        private final String name;
+        private final int position;
+        @Nullable
+        private final ObjectArgumentFilter<Object> objectArgumentFilter;
     }
 }
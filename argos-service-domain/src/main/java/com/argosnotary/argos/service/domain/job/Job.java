@@ -0,0 +1,42 @@
+/*
+ * Argos Notary - A new way to secure the Software Supply Chain
+ *
+ * Copyright (C) 2019 - 2020 Rabobank Nederland
+ * Copyright (C) 2019 - 2021 Gerard Borst <gerard.borst@argosnotary.com>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package com.argosnotary.argos.service.domain.job;
+
+import com.argosnotary.argos.domain.release.ReleaseResult;
+import com.argosnotary.argos.service.domain.verification.VerificationRunResult;
+
+import lombok.Builder;
+import lombok.Getter;
+
+/**
+ * A verification or release run executed in the background. Depending on the type of the job a finished
+ * job has a verification run result or a release result, a failed job has an error.
+ */
+@Builder(toBuilder = true)
+@Getter
+public class Job {
+    private final String jobId;
+    private final JobType type;
+    private final String supplyChainId;
+    private final JobStatus status;
+    private final VerificationRunResult verificationRunResult;
+    private final ReleaseResult releaseResult;
+    private final String error;
+}
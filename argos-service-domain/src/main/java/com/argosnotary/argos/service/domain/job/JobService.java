@@ -0,0 +1,170 @@
+/*
+ * Argos Notary - A new way to secure the Software Supply Chain
+ *
+ * Copyright (C) 2019 - 2020 Rabobank Nederland
+ * Copyright (C) 2019 - 2021 Gerard Borst <gerard.borst@argosnotary.com>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package com.argosnotary.argos.service.domain.job;
+
+import com.argosnotary.argos.domain.layout.LayoutMetaBlock;
+import com.argosnotary.argos.domain.link.Artifact;
+import com.argosnotary.argos.service.domain.release.ReleaseService;
+import com.argosnotary.argos.service.domain.verification.LogContexts;
+import com.argosnotary.argos.service.domain.verification.VerificationProvider;
+import com.argosnotary.argos.service.domain.verification.VerificationRejectedException;
+
+import lombok.AccessLevel;
+import lombok.RequiredArgsConstructor;
+import lombok.Setter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.UnaryOperator;
+
+/**
+ * Runs verifications and releases on a bounded pool of workers instead of the request thread. The state of
+ * each job is kept in the repository so any instance can report on a job. Every instance sends a heartbeat
+ * for its unfinished jobs, an unfinished job without a heartbeat is left by an instance that stopped and fails.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class JobService {
+
+    private final JobRepository jobRepository;
+
+    private final VerificationProvider verificationProvider;
+
+    private final ReleaseService releaseService;
+
+    @Setter(AccessLevel.PACKAGE)
+    @Value("${jobs.workers:4}")
+    private int workers = 4;
+
+    @Setter(AccessLevel.PACKAGE)
+    @Value("${jobs.queueCapacity:100}")
+    private int queueCapacity = 100;
+
+    /**
+     * Milliseconds after the last heartbeat an unfinished job is considered left by an instance that stopped.
+     */
+    @Setter(AccessLevel.PACKAGE)
+    @Value("${jobs.expireAfter:180000}")
+    private long expireAfter = 180000;
+
+    private ThreadPoolExecutor executor;
+
+    /* ids of the queued and running jobs of this instance */
+    private final Set<String> activeJobIds = ConcurrentHashMap.newKeySet();
+
+    @PostConstruct
+    public void init() {
+        AtomicInteger threadNumber = new AtomicInteger();
+        executor = new ThreadPoolExecutor(workers, workers, 60L, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(queueCapacity),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "job-" + threadNumber.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+        executor.allowCoreThreadTimeOut(true);
+        log.info("jobs run on [{}] workers", workers);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (executor != null) {
+            executor.shutdownNow();
+        }
+    }
+
+    public Job submitVerification(LayoutMetaBlock layoutMetaBlock, Set<Artifact> productsToVerify) {
+        return submit(JobType.VERIFICATION, layoutMetaBlock.getSupplyChainId(),
+                job -> job.verificationRunResult(verificationProvider.verifyRun(layoutMetaBlock, productsToVerify)));
+    }
+
+    public Job submitRelease(String supplyChainId, List<Set<Artifact>> releaseArtifacts) {
+        return submit(JobType.RELEASE, supplyChainId,
+                job -> job.releaseResult(releaseService.createRelease(supplyChainId, releaseArtifacts)));
+    }
+
+    public Optional<Job> getJob(String supplyChainId, String jobId) {
+        return jobRepository.findById(jobId)
+                .filter(job -> supplyChainId.equals(job.getSupplyChainId()));
+    }
+
+    @Scheduled(fixedDelayString = "${jobs.heartbeatInterval:60000}")
+    public void heartbeat() {
+        if (!activeJobIds.isEmpty()) {
+            jobRepository.heartbeat(Set.copyOf(activeJobIds));
+        }
+        long expiredJobs = jobRepository.failExpired(Duration.ofMillis(expireAfter), "job was abandoned by a stopped instance");
+        if (expiredJobs > 0) {
+            log.warn("[{}] jobs without a heartbeat failed", expiredJobs);
+        }
+    }
+
+    private Job submit(JobType type, String supplyChainId, UnaryOperator<Job.JobBuilder> run) {
+        Job job = Job.builder()
+                .jobId(UUID.randomUUID().toString())
+                .type(type)
+                .supplyChainId(supplyChainId)
+                .status(JobStatus.QUEUED)
+                .build();
+        jobRepository.save(job);
+        activeJobIds.add(job.getJobId());
+        try {
+            executor.submit(LogContexts.withCurrentLogContext(() -> run(job, run)));
+        } catch (RejectedExecutionException e) {
+            activeJobIds.remove(job.getJobId());
+            String error = "too many jobs in progress, try again later";
+            jobRepository.save(job.toBuilder().status(JobStatus.FAILED).error(error).build());
+            throw new VerificationRejectedException(VerificationRejectedException.Reason.BUSY, error);
+        }
+        log.info("submitted [{}] job [{}] for supply chain [{}]", type, job.getJobId(), supplyChainId);
+        return job;
+    }
+
+    private Job run(Job job, UnaryOperator<Job.JobBuilder> run) {
+        jobRepository.save(job.toBuilder().status(JobStatus.RUNNING).build());
+        Job finishedJob;
+        try {
+            finishedJob = run.apply(job.toBuilder()).status(JobStatus.DONE).build();
+        } catch (RuntimeException e) {
+            log.error("job [{}] failed: {}", job.getJobId(), e.getMessage(), e);
+            finishedJob = job.toBuilder().status(JobStatus.FAILED).error(e.getMessage()).build();
+        }
+        jobRepository.save(finishedJob);
+        activeJobIds.remove(job.getJobId());
+        log.info("[{}] job [{}] finished with status [{}]", job.getType(), job.getJobId(), finishedJob.getStatus());
+        return finishedJob;
+    }
+}
@@ -0,0 +1,88 @@
+/*
+ * Argos Notary - A new way to secure the Software Supply Chain
+ *
+ * Copyright (C) 2019 - 2020 Rabobank Nederland
+ * Copyright (C) 2019 - 2021 Gerard Borst <gerard.borst@argosnotary.com>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package com.argosnotary.argos.service.domain.link;
+
+import com.argosnotary.argos.domain.crypto.signing.JsonSigningSerializer;
+import com.argosnotary.argos.domain.layout.LayoutMetaBlock;
+import com.argosnotary.argos.domain.link.Link;
+import com.argosnotary.argos.domain.link.LinkFacts;
+import com.argosnotary.argos.domain.link.LinkMetaBlock;
+import com.argosnotary.argos.service.domain.layout.LayoutMetaBlockRepository;
+import com.argosnotary.argos.service.domain.verification.StepAuthorizedKeyIdVerification;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+import org.springframework.stereotype.Service;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Establishes the facts of a link with a verified signature before it is stored, so the verification of a
+ * release does not have to repeat this work for every stored link.
+ */
+@Service
+@Slf4j
+@RequiredArgsConstructor
+public class LinkIngestService {
+
+    private final LayoutMetaBlockRepository layoutMetaBlockRepository;
+
+    private final StepAuthorizedKeyIdVerification stepAuthorizedKeyIdVerification;
+
+    public void ingest(LinkMetaBlock linkMetaBlock) {
+        Optional<LayoutMetaBlock> layoutMetaBlock = layoutMetaBlockRepository.findBySupplyChainId(linkMetaBlock.getSupplyChainId());
+        ingest(linkMetaBlock, layoutMetaBlock, layoutMetaBlock.map(layout -> new JsonSigningSerializer().digest(layout.getLayout())));
+    }
+
+    /**
+     * Establishes the facts of links of the same supply chain, the layout is looked up and digested once.
+     */
+    public void ingest(String supplyChainId, List<LinkMetaBlock> linkMetaBlocks) {
+        Optional<LayoutMetaBlock> layoutMetaBlock = layoutMetaBlockRepository.findBySupplyChainId(supplyChainId);
+        Optional<String> layoutDigest = layoutMetaBlock.map(layout -> new JsonSigningSerializer().digest(layout.getLayout()));
+        linkMetaBlocks.forEach(linkMetaBlock -> ingest(linkMetaBlock, layoutMetaBlock, layoutDigest));
+    }
+
+    private void ingest(LinkMetaBlock linkMetaBlock, Optional<LayoutMetaBlock> layoutMetaBlock, Optional<String> layoutDigest) {
+        Link link = linkMetaBlock.getLink();
+        LinkFacts facts = LinkFacts.builder()
+                .linkDigest(link.getContentDigest())
+                .verifiedKeyId(linkMetaBlock.getSignature().getKeyId())
+                .layoutDigest(layoutDigest.orElse(null))
+                .authorizedForStep(layoutMetaBlock.map(layout -> isAuthorizedForStep(layout, linkMetaBlock)).orElse(false))
+                .artifactCount(size(link.getMaterials()) + size(link.getProducts()))
+                .build();
+        log.debug("link facts for step [{}]: {}", link.getStepName(), facts);
+        linkMetaBlock.setFacts(facts);
+    }
+
+    private boolean isAuthorizedForStep(LayoutMetaBlock layoutMetaBlock, LinkMetaBlock linkMetaBlock) {
+        return layoutMetaBlock.getLayout().getSteps().stream()
+                .filter(step -> step.getName().equals(linkMetaBlock.getLink().getStepName()))
+                .anyMatch(step -> stepAuthorizedKeyIdVerification.isSignedByAuthorizedFunctionary(step, linkMetaBlock));
+    }
+
+    private static int size(Collection<?> collection) {
+        return collection == null ? 0 : collection.size();
+    }
+}
@@ -34,5 +34,12 @@ public interface LinkMetaBlockRepository {
     List<LinkMetaBlock> findBySupplyChainAndSha(String supplyChainId, String hash);
     void save(LinkMetaBlock link);
 
+    /**
+     * Inserts all links in one unordered bulk write, a failing link does not prevent the others from being stored.
+     *
+     * @return the positions in the list of the links that are not stored
+     */
+    Set<Integer> saveAll(List<LinkMetaBlock> links);
+
     void deleteBySupplyChainId(String supplyChainId);
 }
@@ -0,0 +1,67 @@
+/*
+ * Argos Notary - A new way to secure the Software Supply Chain
+ *
+ * Copyright (C) 2019 - 2020 Rabobank Nederland
+ * Copyright (C) 2019 - 2021 Gerard Borst <gerard.borst@argosnotary.com>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package com.argosnotary.argos.service.domain.release;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Bloom filter of sha256 hex digests, the bit positions are derived from the digest itself. Adding and
+ * checking are lock free.
+ */
+class BloomFilter {
+
+    private final AtomicLongArray bits;
+    private final long numberOfBits;
+    private final int numberOfHashes;
+
+    BloomFilter(long expectedInsertions, double falsePositiveRate) {
+        long n = Math.max(1, expectedInsertions);
+        long m = (long) Math.ceil(-n * Math.log(falsePositiveRate) / (Math.log(2) * Math.log(2)));
+        bits = new AtomicLongArray((int) Math.min(Integer.MAX_VALUE - 8L, (m + 63) / 64));
+        numberOfBits = bits.length() * 64L;
+        numberOfHashes = Math.max(1, (int) Math.round((double) m / n * Math.log(2)));
+    }
+
+    void put(String sha256Hex) {
+        long hash1 = Long.parseUnsignedLong(sha256Hex.substring(0, 16), 16);
+        long hash2 = Long.parseUnsignedLong(sha256Hex.substring(16, 32), 16);
+        for (int i = 0; i < numberOfHashes; i++) {
+            long bit = Long.remainderUnsigned(hash1 + i * hash2, numberOfBits);
+            int index = (int) (bit >>> 6);
+            long mask = 1L << bit;
+            long current;
+            do {
+                current = bits.get(index);
+            } while ((current & mask) == 0 && !bits.compareAndSet(index, current, current | mask));
+        }
+    }
+
+    boolean mightContain(String sha256Hex) {
+        long hash1 = Long.parseUnsignedLong(sha256Hex.substring(0, 16), 16);
+        long hash2 = Long.parseUnsignedLong(sha256Hex.substring(16, 32), 16);
+        for (int i = 0; i < numberOfHashes; i++) {
+            long bit = Long.remainderUnsigned(hash1 + i * hash2, numberOfBits);
+            if ((bits.get((int) (bit >>> 6)) & (1L << bit)) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -0,0 +1,270 @@
+/*
+ * Argos Notary - A new way to secure the Software Supply Chain
+ *
+ * Copyright (C) 2019 - 2020 Rabobank Nederland
+ * Copyright (C) 2019 - 2021 Gerard Borst <gerard.borst@argosnotary.com>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package com.argosnotary.argos.service.domain.release;
+
+import com.argosnotary.argos.domain.release.ReleaseDossierMetaData;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.AccessLevel;
+import lombok.Setter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * In memory index of the released artifacts. A bloom filter of all released artifacts hashes answers most
+ * checks of artifacts that are not released, the supply chain paths of recently checked artifacts are cached.
+ * Releases stored by this instance are added directly, releases of other instances are read from the release
+ * change log every poll interval.
+ */
+@Component
+@Slf4j
+public class ReleaseIndex {
+
+    private static final String METRIC_NAME = "argos.release.index";
+
+    /**
+     * Releases of other instances may have been stored with a clock that is behind, changes are read again for
+     * this duration.
+     */
+    private static final Duration CHANGE_LOG_OVERLAP = Duration.ofMinutes(1);
+
+    private final ReleaseRepository releaseRepository;
+
+    @Setter(AccessLevel.PACKAGE)
+    @Value("${release.index.enabled:true}")
+    private boolean enabled = true;
+
+    @Setter(AccessLevel.PACKAGE)
+    @Value("${release.index.expectedArtifacts:1000000}")
+    private long expectedArtifacts = 1000000;
+
+    @Setter(AccessLevel.PACKAGE)
+    @Value("${release.index.falsePositiveRate:0.01}")
+    private double falsePositiveRate = 0.01;
+
+    @Setter(AccessLevel.PACKAGE)
+    @Value("${release.index.cacheSize:10000}")
+    private int cacheSize = 10000;
+
+    private volatile BloomFilter bloomFilter;
+
+    private OffsetDateTime lastRefresh;
+
+    /**
+     * Supply chain path by document id of every release of an artifacts hash.
+     */
+    private final Map<String, Map<String, String>> releases = new LinkedHashMap<>(16, 0.75f, true) {
+        private static final long serialVersionUID = 1L;
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Map<String, String>> eldest) {
+            return size() > cacheSize;
+        }
+    };
+
+    /**
+     * Number of releases added, guarded by releases. Paths found in the repository are only cached when no
+     * release was added during the lookup, the lookup may have missed it while the cache update of add did not
+     * see the paths yet.
+     */
+    private long generation;
+
+    private final Counter notReleased;
+    private final Counter hits;
+    private final Counter misses;
+
+    public ReleaseIndex(ReleaseRepository releaseRepository, MeterRegistry meterRegistry) {
+        this.releaseRepository = releaseRepository;
+        notReleased = Counter.builder(METRIC_NAME).tag("result", "not-released").register(meterRegistry);
+        hits = Counter.builder(METRIC_NAME).tag("result", "hit").register(meterRegistry);
+        misses = Counter.builder(METRIC_NAME).tag("result", "miss").register(meterRegistry);
+    }
+
+    /**
+     * Builds the index on the first run and adds the releases of other instances on the next runs.
+     */
+    @Scheduled(fixedDelayString = "${release.index.pollInterval:5000}")
+    public void refresh() {
+        if (!enabled) {
+            return;
+        }
+        OffsetDateTime refreshTime = OffsetDateTime.now(ZoneOffset.UTC);
+        if (bloomFilter == null) {
+            BloomFilter newBloomFilter = new BloomFilter(expectedArtifacts, falsePositiveRate);
+            releaseRepository.forEachRelease(release -> addTo(newBloomFilter, release));
+            bloomFilter = newBloomFilter;
+            log.info("release index built");
+        } else {
+            releaseRepository.findReleasesStoredSince(lastRefresh.minus(CHANGE_LOG_OVERLAP)).forEach(this::add);
+        }
+        lastRefresh = refreshTime;
+    }
+
+    public void add(ReleaseDossierMetaData release) {
+        BloomFilter currentBloomFilter = bloomFilter;
+        if (currentBloomFilter == null) {
+            return;
+        }
+        addTo(currentBloomFilter, release);
+        synchronized (releases) {
+            generation++;
+            for (List<String> artifacts : release.getReleaseArtifacts()) {
+                Map<String, String> paths = releases.get(ReleaseDossierMetaData.createHashFromArtifactList(artifacts));
+                if (paths != null) {
+                    paths.put(release.getDocumentId(), release.getSupplyChainPath());
+                }
+            }
+        }
+    }
+
+    /**
+     * Same answer as {@link ReleaseRepository#artifactsAreReleased(List, List)}, releases of other instances
+     * are seen after the next refresh.
+     */
+    public boolean artifactsAreReleased(List<String> releasedArtifacts, List<String> paths) {
+        BloomFilter currentBloomFilter = bloomFilter;
+        if (currentBloomFilter == null) {
+            return releaseRepository.artifactsAreReleased(releasedArtifacts, paths);
+        }
+        String artifactsHash = ReleaseDossierMetaData.createHashFromArtifactList(releasedArtifacts);
+        if (!currentBloomFilter.mightContain(artifactsHash)) {
+            notReleased.increment();
+            return false;
+        }
+        Map<String, String> supplyChainPaths = getCachedSupplyChainPaths(artifactsHash);
+        if (supplyChainPaths == null) {
+            misses.increment();
+            long lookupGeneration = currentGeneration();
+            supplyChainPaths = cacheSupplyChainPaths(artifactsHash, releaseRepository.findSupplyChainPathsByArtifactsHash(artifactsHash), lookupGeneration);
+        }
+        return isReleased(supplyChainPaths, paths);
+    }
+
+    /**
+     * Answers all queries with at most one repository lookup for the artifact sets that are neither ruled out by
+     * the bloom filter nor cached, the results are in the order of the queries.
+     */
+    public List<Boolean> artifactsAreReleased(List<ReleaseQuery> queries) {
+        BloomFilter currentBloomFilter = bloomFilter;
+        List<String> artifactsHashes = queries.stream()
+                .map(query -> ReleaseDossierMetaData.createHashFromArtifactList(query.getArtifactHashes()))
+                .collect(Collectors.toList());
+        Map<String, Map<String, String>> supplyChainPathsByHash = new HashMap<>();
+        Set<String> artifactsHashesToFind = new HashSet<>();
+        for (String artifactsHash : artifactsHashes) {
+            if (supplyChainPathsByHash.containsKey(artifactsHash) || artifactsHashesToFind.contains(artifactsHash)) {
+                continue;
+            }
+            if (currentBloomFilter == null) {
+                artifactsHashesToFind.add(artifactsHash);
+            } else if (!currentBloomFilter.mightContain(artifactsHash)) {
+                notReleased.increment();
+                supplyChainPathsByHash.put(artifactsHash, Map.of());
+            } else {
+                Map<String, String> supplyChainPaths = getCachedSupplyChainPaths(artifactsHash);
+                if (supplyChainPaths == null) {
+                    misses.increment();
+                    artifactsHashesToFind.add(artifactsHash);
+                } else {
+                    supplyChainPathsByHash.put(artifactsHash, supplyChainPaths);
+                }
+            }
+        }
+        if (!artifactsHashesToFind.isEmpty()) {
+            long lookupGeneration = currentGeneration();
+            Map<String, Map<String, String>> found = releaseRepository.findSupplyChainPathsByArtifactsHashes(artifactsHashesToFind);
+            artifactsHashesToFind.forEach(artifactsHash -> {
+                Map<String, String> supplyChainPaths = found.getOrDefault(artifactsHash, Map.of());
+                supplyChainPathsByHash.put(artifactsHash, currentBloomFilter == null
+                        ? supplyChainPaths : cacheSupplyChainPaths(artifactsHash, supplyChainPaths, lookupGeneration));
+            });
+        }
+        List<Boolean> results = new ArrayList<>(queries.size());
+        for (int i = 0; i < queries.size(); i++) {
+            results.add(isReleased(supplyChainPathsByHash.get(artifactsHashes.get(i)), queries.get(i).getPaths()));
+        }
+        return results;
+    }
+
+    private static boolean isReleased(Map<String, String> supplyChainPaths, List<String> paths) {
+        boolean hasPaths = paths != null && !paths.isEmpty();
+        long noOfReleases = supplyChainPaths.values().stream()
+                .filter(supplyChainPath -> !hasPaths || paths.stream().anyMatch(path -> isOnPath(supplyChainPath, path)))
+                .count();
+        return (noOfReleases == 1) || (noOfReleases > 1 && hasPaths);
+    }
+
+    private Map<String, String> getCachedSupplyChainPaths(String artifactsHash) {
+        synchronized (releases) {
+            Map<String, String> paths = releases.get(artifactsHash);
+            if (paths == null) {
+                return null;
+            }
+            hits.increment();
+            return new HashMap<>(paths);
+        }
+    }
+
+    private long currentGeneration() {
+        synchronized (releases) {
+            return generation;
+        }
+    }
+
+    private Map<String, String> cacheSupplyChainPaths(String artifactsHash, Map<String, String> supplyChainPaths, long lookupGeneration) {
+        Map<String, String> paths = new HashMap<>(supplyChainPaths);
+        synchronized (releases) {
+            if (generation != lookupGeneration) {
+                // a release added during the lookup may be missing from the paths
+                return paths;
+            }
+            // another check may have cached the paths of the same artifacts in the meantime
+            Map<String, String> cachedPaths = releases.putIfAbsent(artifactsHash, paths);
+            if (cachedPaths != null) {
+                cachedPaths.putAll(paths);
+                return new HashMap<>(cachedPaths);
+            }
+            return new HashMap<>(paths);
+        }
+    }
+
+    private static boolean isOnPath(String supplyChainPath, String path) {
+        return supplyChainPath.equals(path) || supplyChainPath.startsWith(path + ".");
+    }
+
+    private static void addTo(BloomFilter bloomFilter, ReleaseDossierMetaData release) {
+        release.getReleaseArtifacts().forEach(artifacts ->
+                bloomFilter.put(ReleaseDossierMetaData.createHashFromArtifactList(artifacts)));
+    }
+}
@@ -0,0 +1,40 @@
+/*
+ * Argos Notary - A new way to secure the Software Supply Chain
+ *
+ * Copyright (C) 2019 - 2020 Rabobank Nederland
+ * Copyright (C) 2019 - 2021 Gerard Borst <gerard.borst@argosnotary.com>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package com.argosnotary.argos.service.domain.release;
+
+import java.time.Duration;
+
+/**
+ * Leases shared by all instances of the service, a lease is held by one owner until it is released or expires.
+ */
+public interface ReleaseLeaseRepository {
+
+    /**
+     * @return true when the lease is free or expired and is now held by the owner for the given duration
+     */
+    boolean acquire(String key, String owner, Duration duration);
+
+    /**
+     * @return true when the lease is still held by the owner and now expires after the given duration
+     */
+    boolean renew(String key, String owner, Duration duration);
+
+    void release(String key, String owner);
+}
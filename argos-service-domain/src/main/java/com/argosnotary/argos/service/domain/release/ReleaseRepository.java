@@ -22,8 +22,13 @@ package com.argosnotary.argos.service.domain.release;
 import com.argosnotary.argos.domain.release.ReleaseDossier;
 import com.argosnotary.argos.domain.release.ReleaseDossierMetaData;
 
+import java.io.InputStream;
+import java.time.OffsetDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.function.Consumer;
 
 public interface ReleaseRepository {
     ReleaseDossierMetaData storeRelease(ReleaseDossierMetaData releaseDossierMetaData, ReleaseDossier releaseDossier);
@@ -32,5 +37,31 @@ public interface ReleaseRepository {
 
     Optional<String> getRawReleaseFileById(String id);
 
+    /**
+     * Streams the release file without reading it in memory, the caller closes the stream.
+     */
+    Optional<InputStream> getReleaseFileById(String id);
+
     boolean artifactsAreReleased(List<String> releasedArtifacts, List<String> paths);
+
+    /**
+     * Calls the consumer with the metadata of every stored release without reading all releases in memory.
+     */
+    void forEachRelease(Consumer<ReleaseDossierMetaData> consumer);
+
+    /**
+     * The metadata of the releases stored since the given time, only releases of the last day are kept.
+     */
+    List<ReleaseDossierMetaData> findReleasesStoredSince(OffsetDateTime since);
+
+    /**
+     * The supply chain path of every release of the artifacts hash by document id.
+     */
+    Map<String, String> findSupplyChainPathsByArtifactsHash(String artifactsHash);
+
+    /**
+     * The supply chain paths by document id of every release of each of the artifacts hashes in one query,
+     * artifacts hashes without releases are left out.
+     */
+    Map<String, Map<String, String>> findSupplyChainPathsByArtifactsHashes(Collection<String> artifactsHashes);
 }
@@ -33,6 +33,7 @@ import com.argosnotary.argos.service.domain.hierarchy.HierarchyRepository;
 import com.argosnotary.argos.service.domain.layout.LayoutMetaBlockRepository;
 import com.argosnotary.argos.service.domain.link.LinkMetaBlockRepository;
 import com.argosnotary.argos.service.domain.verification.VerificationProvider;
+import com.argosnotary.argos.service.domain.verification.VerificationResultCache;
 import com.argosnotary.argos.service.domain.verification.VerificationRunResult;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -59,6 +60,9 @@ public class ReleaseServiceImpl implements ReleaseService {
     private final AccountInfoRepository accountInfoRepository;
     private final HierarchyRepository hierarchyRepository;
     private final LinkMetaBlockRepository linkMetaBlockRepository;
+    private final VerificationResultCache verificationResultCache;
+    private final ReleaseSingleFlight releaseSingleFlight;
+    private final ReleaseIndex releaseIndex;
 
     @Override
     public ReleaseResult createRelease(String supplyChainId, List<Set<Artifact>> releaseArtifacts) {
@@ -66,6 +70,15 @@ public class ReleaseServiceImpl implements ReleaseService {
 
         String supplyChainPath = getSupplyChainPath(supplyChainId);
         List<List<String>> releaseArtifactHashes = convertToReleaseArtifactHashes(releaseArtifacts);
+        String releaseKey = createReleaseKey(supplyChainId, releaseArtifactHashes);
+        return findRelease(supplyChainId, releaseArtifacts, supplyChainPath, releaseArtifactHashes)
+                .orElseGet(() -> releaseSingleFlight.execute(releaseKey,
+                        // a concurrent release of the same artifacts may have finished while waiting
+                        () -> findRelease(supplyChainId, releaseArtifacts, supplyChainPath, releaseArtifactHashes)
+                                .orElseGet(() -> verifyAndStoreRelease(releaseKey, supplyChainId, releaseArtifacts, supplyChainPath, releaseArtifactHashes))));
+    }
+
+    private Optional<ReleaseResult> findRelease(String supplyChainId, List<Set<Artifact>> releaseArtifacts, String supplyChainPath, List<List<String>> releaseArtifactHashes) {
         return releaseRepository
                 .findReleaseByReleasedArtifactsAndPath(releaseArtifactHashes, supplyChainPath)
                 .map(releaseDossierMetaData -> {
@@ -76,11 +89,17 @@ public class ReleaseServiceImpl implements ReleaseService {
                         .releaseDossierMetaData(releaseDossierMetaData)
                         .build();
                 }
-                )
-                .orElseGet(() -> verifyAndStoreRelease(supplyChainId, releaseArtifacts, supplyChainPath, releaseArtifactHashes));
+                );
+    }
+
+    private static String createReleaseKey(String supplyChainId, List<List<String>> releaseArtifactHashes) {
+        List<String> artifactsHashes = releaseArtifactHashes.stream()
+                .map(ReleaseDossierMetaData::createHashFromArtifactList)
+                .collect(Collectors.toList());
+        return supplyChainId + ":" + ReleaseDossierMetaData.createHashFromArtifactList(artifactsHashes);
     }
 
-    private ReleaseResult verifyAndStoreRelease(String supplyChainId, List<Set<Artifact>> releaseArtifacts, String supplyChainPath, List<List<String>> releaseArtifactHashes) {
+    private ReleaseResult verifyAndStoreRelease(String releaseKey, String supplyChainId, List<Set<Artifact>> releaseArtifacts, String supplyChainPath, List<List<String>> releaseArtifactHashes) {
         ReleaseResult.ReleaseResultBuilder releaseBuilder = ReleaseResult.builder();
         Optional<LayoutMetaBlock> optionalLayoutMetaBlock = layoutMetaBlockRepository.findBySupplyChainId(supplyChainId);
         if (optionalLayoutMetaBlock.isPresent()) {
@@ -94,6 +113,8 @@ public class ReleaseServiceImpl implements ReleaseService {
             releaseBuilder.releaseIsValid(verificationRunResult.isRunIsValid());
 
             if (verificationRunResult.isRunIsValid()) {
+                // the renewed lease covers storing the release and deleting the released links
+                releaseSingleFlight.checkLease(releaseKey);
                 ReleaseDossierMetaData releaseDossierMetaData = createAndStoreRelease(
                         supplyChainPath,
                         optionalLayoutMetaBlock.get(),
@@ -101,6 +122,7 @@ public class ReleaseServiceImpl implements ReleaseService {
                         releaseArtifactHashes);
                 releaseBuilder.releaseDossierMetaData(releaseDossierMetaData);
                 linkMetaBlockRepository.deleteBySupplyChainId(supplyChainId);
+                verificationResultCache.evict(supplyChainId);
             }
             log.info("Artifacts released [{}] for supply chain [{}].", releaseArtifacts, supplyChainId);
             return releaseBuilder.build();
@@ -126,6 +148,7 @@ public class ReleaseServiceImpl implements ReleaseService {
                 .accounts(accounts)
                 .build();
         releaseRepository.storeRelease(releaseDossierMetaData, releaseDossier);
+        releaseIndex.add(releaseDossierMetaData);
         return releaseDossierMetaData;
     }
 
@@ -0,0 +1,157 @@
+/*
+ * Argos Notary - A new way to secure the Software Supply Chain
+ *
+ * Copyright (C) 2019 - 2020 Rabobank Nederland
+ * Copyright (C) 2019 - 2021 Gerard Borst <gerard.borst@argosnotary.com>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package com.argosnotary.argos.service.domain.release;
+
+import com.argosnotary.argos.domain.ArgosError;
+import com.argosnotary.argos.domain.release.ReleaseResult;
+import lombok.AccessLevel;
+import lombok.RequiredArgsConstructor;
+import lombok.Setter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Supplier;
+
+/**
+ * Runs at most one release per key at a time. Callers in this instance wait for the release in progress and
+ * get its result, callers in other instances wait until the lease of the release in progress is released.
+ * The leases held by this instance are renewed while their release runs, a release checks its lease with
+ * checkLease before it stores its result.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class ReleaseSingleFlight {
+
+    private final ReleaseLeaseRepository releaseLeaseRepository;
+
+    /**
+     * Milliseconds a lease is held, a lease of an instance that died is taken over after this time.
+     */
+    @Setter(AccessLevel.PACKAGE)
+    @Value("${release.lease.duration:300000}")
+    private long leaseDuration = 300000;
+
+    /**
+     * Milliseconds between two attempts to take a lease held by another instance.
+     */
+    @Setter(AccessLevel.PACKAGE)
+    @Value("${release.lease.pollInterval:500}")
+    private long pollInterval = 500;
+
+    /**
+     * Milliseconds to wait for a lease held by another instance before the release fails.
+     */
+    @Setter(AccessLevel.PACKAGE)
+    @Value("${release.lease.maxWait:30000}")
+    private long maxWait = 30000;
+
+    private final ConcurrentMap<String, CompletableFuture<ReleaseResult>> inFlight = new ConcurrentHashMap<>();
+
+    /* owner of every lease held by this instance by key */
+    private final ConcurrentMap<String, String> heldLeases = new ConcurrentHashMap<>();
+
+    public ReleaseResult execute(String key, Supplier<ReleaseResult> release) {
+        CompletableFuture<ReleaseResult> flight = new CompletableFuture<>();
+        CompletableFuture<ReleaseResult> existingFlight = inFlight.putIfAbsent(key, flight);
+        if (existingFlight != null) {
+            log.info("waiting for release [{}] in progress", key);
+            return join(existingFlight);
+        }
+        try {
+            ReleaseResult releaseResult = executeWithLease(key, release);
+            flight.complete(releaseResult);
+            return releaseResult;
+        } catch (RuntimeException e) {
+            flight.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(key, flight);
+        }
+    }
+
+    private ReleaseResult executeWithLease(String key, Supplier<ReleaseResult> release) {
+        String owner = UUID.randomUUID().toString();
+        long deadline = System.currentTimeMillis() + maxWait;
+        while (!releaseLeaseRepository.acquire(key, owner, Duration.ofMillis(leaseDuration))) {
+            if (System.currentTimeMillis() >= deadline) {
+                throw new ArgosError("timed out after " + maxWait + " ms waiting for release " + key + " in progress on another instance");
+            }
+            log.info("release [{}] in progress on another instance", key);
+            try {
+                Thread.sleep(pollInterval);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new ArgosError("interrupted while waiting for release " + key, e);
+            }
+        }
+        heldLeases.put(key, owner);
+        try {
+            return release.get();
+        } finally {
+            heldLeases.remove(key, owner);
+            releaseLeaseRepository.release(key, owner);
+        }
+    }
+
+    /**
+     * Renews the lease of the release in progress for the key, a release that lost its lease to another
+     * instance fails so its result is never stored next to the result of the other instance.
+     */
+    public void checkLease(String key) {
+        String owner = heldLeases.get(key);
+        if (owner == null || !releaseLeaseRepository.renew(key, owner, Duration.ofMillis(leaseDuration))) {
+            throw new ArgosError("lease of release " + key + " was lost, the release is not stored");
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${release.lease.renewInterval:60000}")
+    public void renewLeases() {
+        heldLeases.forEach((key, owner) -> {
+            try {
+                if (!releaseLeaseRepository.renew(key, owner, Duration.ofMillis(leaseDuration))) {
+                    log.warn("lease of release [{}] expired before it was renewed", key);
+                    heldLeases.remove(key, owner);
+                }
+            } catch (RuntimeException e) {
+                log.error("lease of release [{}] could not be renewed: {}", key, e.getMessage());
+            }
+        });
+    }
+
+    private static ReleaseResult join(CompletableFuture<ReleaseResult> flight) {
+        try {
+            return flight.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw e;
+        }
+    }
+}
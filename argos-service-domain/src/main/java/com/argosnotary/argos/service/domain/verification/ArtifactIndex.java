@@ -0,0 +1,72 @@
+/*
+ * Argos Notary - A new way to secure the Software Supply Chain
+ *
+ * Copyright (C) 2019 - 2020 Rabobank Nederland
+ * Copyright (C) 2019 - 2021 Gerard Borst <gerard.borst@argosnotary.com>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package com.argosnotary.argos.service.domain.verification;
+
+import com.argosnotary.argos.domain.link.Artifact;
+
+import org.springframework.lang.Nullable;
+
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Set;
+
+/**
+ * The not consumed artifacts of one verification of a link, a view over the shared artifact table of the
+ * link with the consumed artifacts tracked in a bitset.
+ */
+class ArtifactIndex {
+
+    private final ArtifactTable artifactTable;
+
+    private final BitSet consumed;
+
+    ArtifactIndex(Collection<Artifact> artifactCollection) {
+        this(new ArtifactTable(artifactCollection));
+    }
+
+    ArtifactIndex(ArtifactTable artifactTable) {
+        this.artifactTable = artifactTable;
+        this.consumed = new BitSet(artifactTable.size());
+    }
+
+    Set<Artifact> getFilteredArtifacts(String pattern, @Nullable String prefix) {
+        return artifactTable.toArtifacts(artifactTable.filter(pattern, prefix, consumed));
+    }
+
+    void consume(Set<Artifact> artifactsToConsume) {
+        artifactsToConsume.forEach(artifact -> {
+            int id = artifactTable.getId(artifact);
+            if (id != -1) {
+                consumed.set(id);
+            }
+        });
+    }
+
+    Set<Artifact> getNotConsumedArtifacts() {
+        BitSet notConsumed = new BitSet(artifactTable.size());
+        notConsumed.set(0, artifactTable.size());
+        notConsumed.andNot(consumed);
+        return artifactTable.toArtifacts(notConsumed);
+    }
+
+    Set<Artifact> getConsumedArtifacts() {
+        return artifactTable.toArtifacts(consumed);
+    }
+}
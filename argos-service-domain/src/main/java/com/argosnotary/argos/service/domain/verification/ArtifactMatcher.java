@@ -21,15 +21,35 @@ package com.argosnotary.argos.service.domain.verification;
 
 import lombok.AllArgsConstructor;
 
-import java.nio.file.FileSystems;
-import java.nio.file.Paths;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Pattern;
 
 import static lombok.AccessLevel.PRIVATE;
 
 @AllArgsConstructor(access = PRIVATE)
 public class ArtifactMatcher {
 
+    static final int MAX_CACHED_PATTERNS = 1024;
+
+    private static final Map<String, Pattern> COMPILED_PATTERNS = new ConcurrentHashMap<>();
+
     public static boolean matches(String uri, String pattern) {
-        return FileSystems.getDefault().getPathMatcher("glob:" + pattern).matches(Paths.get(uri));
+        return getCompiledPattern(pattern).matcher(Globs.normalize(uri)).matches();
+    }
+
+    static Pattern getCompiledPattern(String pattern) {
+        Pattern compiledPattern = COMPILED_PATTERNS.get(pattern);
+        if (compiledPattern == null) {
+            if (COMPILED_PATTERNS.size() >= MAX_CACHED_PATTERNS) {
+                COMPILED_PATTERNS.clear();
+            }
+            compiledPattern = COMPILED_PATTERNS.computeIfAbsent(pattern, glob -> Pattern.compile(Globs.toRegexPattern(glob)));
+        }
+        return compiledPattern;
+    }
+
+    static int cachedPatterns() {
+        return COMPILED_PATTERNS.size();
     }
 }
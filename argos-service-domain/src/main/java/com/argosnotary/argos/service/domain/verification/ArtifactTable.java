@@ -0,0 +1,404 @@
+/*
+ * Argos Notary - A new way to secure the Software Supply Chain
+ *
+ * Copyright (C) 2019 - 2020 Rabobank Nederland
+ * Copyright (C) 2019 - 2021 Gerard Borst <gerard.borst@argosnotary.com>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package com.argosnotary.argos.service.domain.verification;
+
+import com.argosnotary.argos.domain.layout.ArtifactType;
+import com.argosnotary.argos.domain.link.Artifact;
+import com.argosnotary.argos.domain.link.Link;
+
+import org.springframework.lang.Nullable;
+import org.springframework.util.StringUtils;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.IntPredicate;
+import java.util.regex.Pattern;
+
+/**
+ * Immutable table of the unique artifacts of a link, every artifact has an int id. The ids are assigned in
+ * the order of a path trie over the normalized uris so every subtree is a contiguous id range, prefix scoped
+ * lookups and globs with literal leading segments only visit the matching subtree. Sha256 hashes are packed
+ * in a long array sorted by hash so a hash lookup is a binary search without allocation.
+ * <p>
+ * The tables of links are shared between all verification contexts and runs, they are cached by the content
+ * digest of the link.
+ */
+public final class ArtifactTable {
+
+    static final int MAX_CACHED_ARTIFACTS = 500_000;
+
+    private static final Map<String, ArtifactTable> LINK_TABLES = new ConcurrentHashMap<>();
+
+    private static final AtomicInteger CACHED_ARTIFACTS = new AtomicInteger();
+
+    private static final String GLOB_META_CHARS = "\\*?[{";
+
+    private static final int HASH_WORDS = 4;
+
+    private final Node root = new Node();
+
+    private final Artifact[] artifacts;
+
+    private final String[] normalizedUris;
+
+    private final Map<Artifact, Integer> ids;
+
+    private final Set<Artifact> artifactSet;
+
+    /* packed sha256 hashes sorted by hash, HASH_WORDS longs per hash */
+    private final long[] sortedHashWords;
+
+    private final int[] sortedHashIds;
+
+    /* hashes which are not a hex encoded sha256 */
+    private final Map<String, int[]> otherHashIds;
+
+    ArtifactTable(Collection<Artifact> artifactCollection) {
+        Set<Artifact> uniqueArtifacts = new LinkedHashSet<>(artifactCollection);
+        for (Artifact artifact : uniqueArtifacts) {
+            String normalizedUri = Globs.normalize(artifact.getUri());
+            Node node = root;
+            for (String segment : normalizedUri.split("/", -1)) {
+                node = node.children.computeIfAbsent(segment, key -> new Node());
+            }
+            node.artifacts.add(artifact);
+            node.normalizedUris.add(normalizedUri);
+        }
+        artifacts = new Artifact[uniqueArtifacts.size()];
+        normalizedUris = new String[uniqueArtifacts.size()];
+        ids = new HashMap<>();
+        assignIds(root, 0);
+        artifactSet = Collections.unmodifiableSet(uniqueArtifacts);
+
+        List<Integer> packedIds = new ArrayList<>();
+        Map<String, List<Integer>> otherIds = new HashMap<>();
+        for (int id = 0; id < artifacts.length; id++) {
+            if (isSha256Hex(artifacts[id].getHash())) {
+                packedIds.add(id);
+            } else {
+                otherIds.computeIfAbsent(artifacts[id].getHash(), key -> new ArrayList<>()).add(id);
+            }
+        }
+        long[] hashWords = new long[artifacts.length * HASH_WORDS];
+        for (Integer id : packedIds) {
+            pack(artifacts[id].getHash(), hashWords, id * HASH_WORDS);
+        }
+        packedIds.sort((id1, id2) -> compare(hashWords, id1 * HASH_WORDS, hashWords, id2 * HASH_WORDS));
+        sortedHashIds = new int[packedIds.size()];
+        sortedHashWords = new long[packedIds.size() * HASH_WORDS];
+        for (int i = 0; i < sortedHashIds.length; i++) {
+            sortedHashIds[i] = packedIds.get(i);
+            System.arraycopy(hashWords, sortedHashIds[i] * HASH_WORDS, sortedHashWords, i * HASH_WORDS, HASH_WORDS);
+        }
+        otherHashIds = new HashMap<>();
+        otherIds.forEach((hash, idList) -> otherHashIds.put(hash, idList.stream().mapToInt(Integer::intValue).toArray()));
+    }
+
+    /**
+     * The table of the materials or products of a link, shared by all verifications of links with the same content.
+     */
+    public static ArtifactTable of(Link link, ArtifactType type) {
+        List<Artifact> linkArtifacts = type == ArtifactType.MATERIALS ? link.getMaterials() : link.getProducts();
+        String contentDigest = link.getContentDigest();
+        if (contentDigest == null) {
+            return new ArtifactTable(linkArtifacts);
+        }
+        String key = type + ":" + contentDigest;
+        ArtifactTable table = LINK_TABLES.get(key);
+        if (table == null) {
+            table = new ArtifactTable(linkArtifacts);
+            if (CACHED_ARTIFACTS.addAndGet(table.size()) > MAX_CACHED_ARTIFACTS) {
+                LINK_TABLES.clear();
+                CACHED_ARTIFACTS.set(table.size());
+            }
+            ArtifactTable cachedTable = LINK_TABLES.putIfAbsent(key, table);
+            if (cachedTable != null) {
+                CACHED_ARTIFACTS.addAndGet(-table.size());
+                table = cachedTable;
+            }
+        }
+        return table;
+    }
+
+    static int cachedTables() {
+        return LINK_TABLES.size();
+    }
+
+    public int size() {
+        return artifacts.length;
+    }
+
+    public Artifact getArtifact(int id) {
+        return artifacts[id];
+    }
+
+    /**
+     * @return the unique artifacts of the table, the set can not be modified
+     */
+    public Set<Artifact> getArtifacts() {
+        return artifactSet;
+    }
+
+    int getId(Artifact artifact) {
+        Integer id = ids.get(artifact);
+        return id == null ? -1 : id;
+    }
+
+    /**
+     * @return the ids of the artifacts not in excluded which match the pattern, when a prefix is given only the
+     * artifacts with an uri starting with the prefix are matched on the uri relative to the prefix
+     */
+    public BitSet filter(String pattern, @Nullable String prefix, BitSet excluded) {
+        BitSet filteredIds = new BitSet(artifacts.length);
+        if (StringUtils.hasLength(prefix)) {
+            String normalizedPrefix = Globs.normalize(prefix);
+            forEachWithPrefix(prefix, excluded, id -> {
+                Artifact artifact = artifacts[id];
+                return artifact.getUri().startsWith(prefix)
+                        && ArtifactMatcher.matches(getRelativeUri(id, normalizedPrefix, prefix), pattern);
+            }, filteredIds);
+        } else {
+            Pattern compiledPattern = ArtifactMatcher.getCompiledPattern(pattern);
+            forEachWithLiteralSegments(pattern, excluded,
+                    id -> compiledPattern.matcher(normalizedUris[id]).matches(), filteredIds);
+        }
+        return filteredIds;
+    }
+
+    /*
+     * The uri of the artifact relative to the prefix, the same as relativizing the paths: the normalized uri
+     * without the normalized prefix and its separator. Only a prefix ending within a segment needs the paths.
+     */
+    private String getRelativeUri(int id, String normalizedPrefix, String prefix) {
+        String normalizedUri = normalizedUris[id];
+        int prefixLength = normalizedPrefix.length();
+        if (normalizedUri.startsWith(normalizedPrefix)) {
+            if (normalizedUri.length() == prefixLength) {
+                return "";
+            }
+            if (normalizedPrefix.charAt(prefixLength - 1) == '/') {
+                return normalizedUri.substring(prefixLength);
+            }
+            if (normalizedUri.charAt(prefixLength) == '/') {
+                return normalizedUri.substring(prefixLength + 1);
+            }
+        }
+        return ArtifactsVerificationContext.getUri(artifacts[id], prefix);
+    }
+
+    public Set<Artifact> toArtifacts(BitSet artifactIds) {
+        Set<Artifact> result = new HashSet<>();
+        artifactIds.stream().forEach(id -> result.add(artifacts[id]));
+        return result;
+    }
+
+    /**
+     * @return true if one of the artifacts in artifactIds has the hash
+     */
+    public boolean containsHash(BitSet artifactIds, String hash) {
+        if (!isSha256Hex(hash)) {
+            int[] candidates = otherHashIds.get(hash);
+            if (candidates != null) {
+                for (int id : candidates) {
+                    if (artifactIds.get(id)) {
+                        return true;
+                    }
+                }
+            }
+            return false;
+        }
+        long word0 = parseWord(hash, 0);
+        long word1 = parseWord(hash, 1);
+        long word2 = parseWord(hash, 2);
+        long word3 = parseWord(hash, 3);
+        int low = 0;
+        int high = sortedHashIds.length - 1;
+        while (low <= high) {
+            int middle = (low + high) >>> 1;
+            int comparison = compare(sortedHashWords, middle * HASH_WORDS, word0, word1, word2, word3);
+            if (comparison < 0) {
+                low = middle + 1;
+            } else if (comparison > 0) {
+                high = middle - 1;
+            } else {
+                return anyInRange(artifactIds, middle, word0, word1, word2, word3);
+            }
+        }
+        return false;
+    }
+
+    private boolean anyInRange(BitSet artifactIds, int found, long word0, long word1, long word2, long word3) {
+        for (int i = found; i >= 0 && compare(sortedHashWords, i * HASH_WORDS, word0, word1, word2, word3) == 0; i--) {
+            if (artifactIds.get(sortedHashIds[i])) {
+                return true;
+            }
+        }
+        for (int i = found + 1; i < sortedHashIds.length && compare(sortedHashWords, i * HASH_WORDS, word0, word1, word2, word3) == 0; i++) {
+            if (artifactIds.get(sortedHashIds[i])) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private int assignIds(Node node, int start) {
+        int id = start;
+        node.from = start;
+        for (int i = 0; i < node.artifacts.size(); i++) {
+            artifacts[id] = node.artifacts.get(i);
+            normalizedUris[id] = node.normalizedUris.get(i);
+            ids.put(artifacts[id], id);
+            id++;
+        }
+        node.ownTo = id;
+        node.artifacts = null;
+        node.normalizedUris = null;
+        for (Node child : node.children.values()) {
+            id = assignIds(child, id);
+        }
+        node.to = id;
+        return id;
+    }
+
+    /*
+     * The uri of an artifact starts with the prefix if the normalized uri starts with the normalized prefix,
+     * that is all segments of the prefix are equal except for the last one which only needs to be the start
+     * of the segment of the uri.
+     */
+    private void forEachWithPrefix(String prefix, BitSet excluded, IntPredicate filter, BitSet result) {
+        String[] segments = Globs.normalize(prefix).split("/", -1);
+        Node node = descend(segments, segments.length - 1);
+        if (node != null) {
+            String lastSegment = segments[segments.length - 1];
+            node.children.forEach((segment, child) -> {
+                if (segment.startsWith(lastSegment)) {
+                    collect(child.from, child.to, excluded, filter, result);
+                }
+            });
+        }
+    }
+
+    /*
+     * A normalized uri can only match a glob when it starts with the leading segments of the glob
+     * without any glob meta characters.
+     */
+    private void forEachWithLiteralSegments(String pattern, BitSet excluded, IntPredicate filter, BitSet result) {
+        String[] segments = pattern.split("/", -1);
+        int literalSegments = 0;
+        while (literalSegments < segments.length && isLiteral(segments[literalSegments])) {
+            literalSegments++;
+        }
+        Node node = descend(segments, literalSegments);
+        if (node == null) {
+            return;
+        }
+        if (literalSegments == segments.length) {
+            collect(node.from, node.ownTo, excluded, filter, result);
+        } else {
+            collect(node.from, node.to, excluded, filter, result);
+        }
+    }
+
+    private Node descend(String[] segments, int depth) {
+        Node node = root;
+        for (int i = 0; i < depth && node != null; i++) {
+            node = node.children.get(segments[i]);
+        }
+        return node;
+    }
+
+    private static void collect(int from, int to, BitSet excluded, IntPredicate filter, BitSet result) {
+        for (int id = excluded.nextClearBit(from); id < to; id = excluded.nextClearBit(id + 1)) {
+            if (filter.test(id)) {
+                result.set(id);
+            }
+        }
+    }
+
+    private static boolean isLiteral(String segment) {
+        for (int i = 0; i < segment.length(); i++) {
+            if (GLOB_META_CHARS.indexOf(segment.charAt(i)) != -1) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean isSha256Hex(String hash) {
+        if (hash == null || hash.length() != HASH_WORDS * 16) {
+            return false;
+        }
+        for (int i = 0; i < hash.length(); i++) {
+            char c = hash.charAt(i);
+            // hashes are equal as strings, so upper case hex digits are not packed
+            if ((c < '0' || c > '9') && (c < 'a' || c > 'f')) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static void pack(String hash, long[] words, int offset) {
+        for (int word = 0; word < HASH_WORDS; word++) {
+            words[offset + word] = parseWord(hash, word);
+        }
+    }
+
+    private static long parseWord(String hash, int word) {
+        return Long.parseUnsignedLong(hash, word * 16, word * 16 + 16, 16);
+    }
+
+    private static int compare(long[] words1, int offset1, long[] words2, int offset2) {
+        return compare(words1, offset1, words2[offset2], words2[offset2 + 1], words2[offset2 + 2], words2[offset2 + 3]);
+    }
+
+    private static int compare(long[] words, int offset, long word0, long word1, long word2, long word3) {
+        int comparison = Long.compareUnsigned(words[offset], word0);
+        if (comparison == 0) {
+            comparison = Long.compareUnsigned(words[offset + 1], word1);
+        }
+        if (comparison == 0) {
+            comparison = Long.compareUnsigned(words[offset + 2], word2);
+        }
+        if (comparison == 0) {
+            comparison = Long.compareUnsigned(words[offset + 3], word3);
+        }
+        return comparison;
+    }
+
+    private static class Node {
+        private final Map<String, Node> children = new HashMap<>();
+        private List<Artifact> artifacts = new ArrayList<>();
+        private List<String> normalizedUris = new ArrayList<>();
+        private int from;
+        private int ownTo;
+        private int to;
+    }
+}
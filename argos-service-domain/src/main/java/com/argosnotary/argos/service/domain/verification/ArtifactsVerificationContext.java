@@ -19,9 +19,11 @@
  */
 package com.argosnotary.argos.service.domain.verification;
 
+import com.argosnotary.argos.domain.layout.ArtifactType;
 import com.argosnotary.argos.domain.link.Artifact;
 import com.argosnotary.argos.domain.link.Link;
 
+import lombok.AccessLevel;
 import lombok.Builder;
 import lombok.Getter;
 import lombok.NonNull;
@@ -30,32 +32,54 @@ import org.springframework.lang.Nullable;
 import org.springframework.util.StringUtils;
 
 import java.nio.file.Paths;
-import java.util.HashSet;
+import java.util.Collection;
 import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
 import java.util.stream.Collectors;
 
-@Builder
 @Getter
 public class ArtifactsVerificationContext {
 
     private final Map<String, Link> linksMap;
     
     private final Link link;
-    
-    @NonNull
-    private Set<Artifact> notConsumedArtifacts;
-    
-    @Builder.Default
-    private Set<Artifact> consumedArtifacts = new HashSet<>();
+
+    @Getter(AccessLevel.NONE)
+    private final ArtifactIndex artifactIndex;
+
+    @Builder
+    public ArtifactsVerificationContext(Map<String, Link> linksMap, Link link, @NonNull Collection<Artifact> notConsumedArtifacts) {
+        this(linksMap, link, new ArtifactIndex(notConsumedArtifacts));
+    }
+
+    private ArtifactsVerificationContext(Map<String, Link> linksMap, Link link, ArtifactIndex artifactIndex) {
+        this.linksMap = linksMap;
+        this.link = link;
+        this.artifactIndex = artifactIndex;
+    }
+
+    /**
+     * A context for the materials or products of the link which uses the shared artifact table of the link.
+     */
+    public static ArtifactsVerificationContext forLink(Map<String, Link> linksMap, @NonNull Link link, ArtifactType type) {
+        return new ArtifactsVerificationContext(linksMap, link, new ArtifactIndex(ArtifactTable.of(link, type)));
+    }
+
+    public Set<Artifact> getNotConsumedArtifacts() {
+        return artifactIndex.getNotConsumedArtifacts();
+    }
+
+    public Set<Artifact> getConsumedArtifacts() {
+        return artifactIndex.getConsumedArtifacts();
+    }
 
     public Set<Artifact> getFilteredArtifacts(String pattern) {
         return getFilteredArtifacts(pattern, null);
     }
 
     public Set<Artifact> getFilteredArtifacts(String pattern, String prefix) {
-        return filterArtifacts(notConsumedArtifacts, pattern, prefix);
+        return artifactIndex.getFilteredArtifacts(pattern, prefix);
     }
 
     public static Set<Artifact> filterArtifacts(Set<Artifact> artifacts, String pattern, @Nullable String prefix) {
@@ -84,15 +108,14 @@ public class ArtifactsVerificationContext {
     }
 
     public Set<Artifact> getMaterials() {
-        return new HashSet<>(link.getMaterials());
+        return ArtifactTable.of(link, ArtifactType.MATERIALS).getArtifacts();
     }
     
     public Set<Artifact> getProducts() {
-        return new HashSet<>(link.getProducts());
+        return ArtifactTable.of(link, ArtifactType.PRODUCTS).getArtifacts();
     }
     
     public void consume(Set<Artifact> artifacts) {
-        notConsumedArtifacts.removeAll(artifacts);
-        consumedArtifacts.addAll(artifacts);
+        artifactIndex.consume(artifacts);
     }
 }
@@ -0,0 +1,174 @@
+/*
+ * Argos Notary - A new way to secure the Software Supply Chain
+ *
+ * Copyright (C) 2019 - 2020 Rabobank Nederland
+ * Copyright (C) 2019 - 2021 Gerard Borst <gerard.borst@argosnotary.com>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package com.argosnotary.argos.service.domain.verification;
+
+import com.argosnotary.argos.domain.crypto.PublicKey;
+import com.argosnotary.argos.domain.crypto.Signature;
+import com.argosnotary.argos.domain.crypto.signing.JsonSigningSerializer;
+import com.argosnotary.argos.domain.layout.Layout;
+import com.argosnotary.argos.domain.layout.LayoutMetaBlock;
+import com.argosnotary.argos.domain.layout.Step;
+import com.argosnotary.argos.domain.layout.rule.Rule;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.security.GeneralSecurityException;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.Predicate;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+import static java.util.Collections.unmodifiableMap;
+import static java.util.Collections.unmodifiableSet;
+
+/**
+ * The parts of a layout every verification run needs, derived once per signed layout: the digest of the
+ * layout, the decoded keys by key id, the steps by name with their authorized key ids, the compiled
+ * patterns of the rules and the outcome of the layout signature check.
+ */
+@Slf4j
+public class CompiledLayout {
+
+    @Getter
+    private final LayoutMetaBlock layoutMetaBlock;
+
+    @Getter
+    private final String layoutDigest;
+
+    private final Map<String, PublicKey> keysById = new HashMap<>();
+
+    private final Map<String, java.security.PublicKey> javaKeysById = new HashMap<>();
+
+    private final Map<String, Step> stepsByName = new HashMap<>();
+
+    private final Map<String, Set<String>> authorizedKeyIdsByStepName = new HashMap<>();
+
+    @Getter
+    private final Set<String> authorizedKeyIds;
+
+    @Getter
+    private final Map<String, Pattern> compiledPatterns;
+
+    private volatile Boolean signaturesValid;
+
+    private CompiledLayout(LayoutMetaBlock layoutMetaBlock) {
+        this.layoutMetaBlock = layoutMetaBlock;
+        Layout layout = layoutMetaBlock.getLayout();
+        this.layoutDigest = new JsonSigningSerializer().digest(layout);
+        nullSafe(layout.getKeys()).forEach(this::addKey);
+        nullSafe(layout.getSteps()).forEach(step -> {
+            stepsByName.putIfAbsent(step.getName(), step);
+            authorizedKeyIdsByStepName.putIfAbsent(step.getName(), new HashSet<>(nullSafe(step.getAuthorizedKeyIds())));
+        });
+        this.authorizedKeyIds = unmodifiableSet(new HashSet<>(nullSafe(layout.getAuthorizedKeyIds())));
+        Map<String, Pattern> patterns = new HashMap<>();
+        Stream.concat(
+                nullSafe(layout.getExpectedEndProducts()).stream().map(Rule::getPattern),
+                nullSafe(layout.getSteps()).stream()
+                        .flatMap(step -> Stream.concat(nullSafe(step.getExpectedMaterials()).stream(), nullSafe(step.getExpectedProducts()).stream()))
+                        .map(Rule::getPattern))
+                .filter(Objects::nonNull)
+                .forEach(pattern -> patterns.computeIfAbsent(pattern, ArtifactMatcher::getCompiledPattern));
+        this.compiledPatterns = unmodifiableMap(patterns);
+    }
+
+    public static CompiledLayout compile(LayoutMetaBlock layoutMetaBlock) {
+        return new CompiledLayout(layoutMetaBlock);
+    }
+
+    public String getSupplyChainId() {
+        return layoutMetaBlock.getSupplyChainId();
+    }
+
+    public Optional<PublicKey> getKeyById(String keyId) {
+        return Optional.ofNullable(keysById.get(keyId));
+    }
+
+    public Optional<java.security.PublicKey> getJavaPublicKeyById(String keyId) {
+        return Optional.ofNullable(javaKeysById.get(keyId));
+    }
+
+    public Optional<Step> getStep(String stepName) {
+        return Optional.ofNullable(stepsByName.get(stepName));
+    }
+
+    public boolean isAuthorizedForStep(String stepName, String keyId) {
+        Set<String> keyIds = authorizedKeyIdsByStepName.get(stepName);
+        return keyIds != null && keyIds.contains(keyId);
+    }
+
+    /**
+     * The layout signatures are checked once per compiled layout, the outcome holds for every run
+     * against the same signed layout.
+     */
+    public boolean isSignaturesValid(Predicate<CompiledLayout> signatureVerification) {
+        Boolean valid = signaturesValid;
+        if (valid == null) {
+            valid = signatureVerification.test(this);
+            signaturesValid = valid;
+        }
+        return valid;
+    }
+
+    /**
+     * A signed layout is identified by its signatures, an unsigned layout is never considered the same.
+     */
+    public boolean hasSameSignatures(LayoutMetaBlock other) {
+        List<Signature> signatures = layoutMetaBlock.getSignatures();
+        List<Signature> otherSignatures = other.getSignatures();
+        if (signatures == null || otherSignatures == null || signatures.isEmpty() || signatures.size() != otherSignatures.size()) {
+            return false;
+        }
+        for (int i = 0; i < signatures.size(); i++) {
+            if (!isSameSignature(signatures.get(i), otherSignatures.get(i))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean isSameSignature(Signature signature, Signature other) {
+        return Objects.equals(signature.getKeyId(), other.getKeyId())
+                && Objects.equals(signature.getSignature(), other.getSignature())
+                && signature.getKeyAlgorithm() == other.getKeyAlgorithm()
+                && signature.getHashAlgorithm() == other.getHashAlgorithm();
+    }
+
+    private void addKey(PublicKey publicKey) {
+        if (keysById.putIfAbsent(publicKey.getKeyId(), publicKey) == null) {
+            try {
+                javaKeysById.put(publicKey.getKeyId(), publicKey.getJavaPublicKey());
+            } catch (GeneralSecurityException | IOException e) {
+                log.error("key with id [{}] could not be decoded: {}", publicKey.getKeyId(), e.getMessage());
+            }
+        }
+    }
+
+    private static <T> List<T> nullSafe(List<T> list) {
+        return list == null ? List.of() : list;
+    }
+}
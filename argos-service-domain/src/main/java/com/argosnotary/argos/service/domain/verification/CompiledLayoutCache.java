@@ -0,0 +1,103 @@
+/*
+ * Argos Notary - A new way to secure the Software Supply Chain
+ *
+ * Copyright (C) 2019 - 2020 Rabobank Nederland
+ * Copyright (C) 2019 - 2021 Gerard Borst <gerard.borst@argosnotary.com>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package com.argosnotary.argos.service.domain.verification;
+
+import com.argosnotary.argos.domain.layout.LayoutMetaBlock;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.AccessLevel;
+import lombok.Setter;
+import lombok.extern.slf4j.Slf4j;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * The compiled layout of each supply chain. The layout is still loaded for every run so all instances see
+ * the same layout, the compiled layout is reused as long as the loaded layout has the same signatures. A stored
+ * layout is only replaced through a store or delete of the layout, which evict the compiled layout of the
+ * supply chain, so the layout is not digested on a lookup.
+ */
+@Component
+@Slf4j
+public class CompiledLayoutCache {
+
+    private static final String METRIC_NAME = "argos.verification.compiled.layout.cache";
+
+    @Setter(AccessLevel.PACKAGE)
+    @Value("${verification.compiledLayoutCache.size:1000}")
+    private int maxSize = 1000;
+
+    private final Map<String, CompiledLayout> compiledLayouts = new LinkedHashMap<>(16, 0.75f, true) {
+        private static final long serialVersionUID = 1L;
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, CompiledLayout> eldest) {
+            return size() > maxSize;
+        }
+    };
+
+    private final Counter hits;
+    private final Counter misses;
+
+    public CompiledLayoutCache(MeterRegistry meterRegistry) {
+        hits = Counter.builder(METRIC_NAME).tag("result", "hit").register(meterRegistry);
+        misses = Counter.builder(METRIC_NAME).tag("result", "miss").register(meterRegistry);
+        Gauge.builder(METRIC_NAME + ".size", this, CompiledLayoutCache::size).register(meterRegistry);
+    }
+
+    public CompiledLayout get(LayoutMetaBlock layoutMetaBlock) {
+        String supplyChainId = layoutMetaBlock.getSupplyChainId();
+        CompiledLayout compiledLayout;
+        synchronized (compiledLayouts) {
+            compiledLayout = supplyChainId == null ? null : compiledLayouts.get(supplyChainId);
+        }
+        if (compiledLayout != null && compiledLayout.hasSameSignatures(layoutMetaBlock)) {
+            hits.increment();
+            return compiledLayout;
+        }
+        misses.increment();
+        compiledLayout = CompiledLayout.compile(layoutMetaBlock);
+        if (supplyChainId != null) {
+            synchronized (compiledLayouts) {
+                compiledLayouts.put(supplyChainId, compiledLayout);
+            }
+        }
+        return compiledLayout;
+    }
+
+    public void evict(String supplyChainId) {
+        log.debug("evict compiled layout of supply chain [{}]", supplyChainId);
+        synchronized (compiledLayouts) {
+            compiledLayouts.remove(supplyChainId);
+        }
+    }
+
+    int size() {
+        synchronized (compiledLayouts) {
+            return compiledLayouts.size();
+        }
+    }
+}
@@ -19,7 +19,6 @@
  */
 package com.argosnotary.argos.service.domain.verification;
 
-import com.argosnotary.argos.domain.layout.ArtifactType;
 import com.argosnotary.argos.domain.layout.rule.MatchRule;
 import com.argosnotary.argos.domain.layout.rule.RuleType;
 import com.argosnotary.argos.domain.link.Artifact;
@@ -35,12 +34,12 @@ import org.springframework.util.StringUtils;
 import javax.annotation.PostConstruct;
 
 import java.nio.file.Paths;
+import java.util.BitSet;
 import java.util.EnumMap;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
-import java.util.stream.Collectors;
 
 import static com.argosnotary.argos.service.domain.verification.Verification.Priority.EXPECTED_END_PRODUCTS;;
 
@@ -77,18 +76,11 @@ public class ExpectedEndProductsVerification implements Verification {
     private Set<Artifact> getMatchedArtifacts(Map<String, Link> linksMap, List<MatchRule> expectedEndProducts) {
         Set<Artifact> matchedArtifacts = new HashSet<>();
         for (MatchRule rule : expectedEndProducts) {
-            Link link = linksMap.get(rule.getDestinationStepName());
-            Set<Artifact> tempArtifacts = new HashSet<>();
-            if (rule.getDestinationType().equals(ArtifactType.MATERIALS)) {
-                tempArtifacts.addAll(link.getMaterials());
-            } else {
-                tempArtifacts.addAll(link.getProducts());
-            }
-            matchedArtifacts.addAll(ArtifactsVerificationContext
-                    .filterArtifacts(tempArtifacts, rule.getPattern(), rule.getDestinationPathPrefix())
+            ArtifactTable destinationArtifacts = ArtifactTable.of(linksMap.get(rule.getDestinationStepName()), rule.getDestinationType());
+            destinationArtifacts.filter(rule.getPattern(), rule.getDestinationPathPrefix(), new BitSet())
                     .stream()
-                    .map(artifact -> normalize(artifact, rule.getSourcePathPrefix(), rule.getDestinationPathPrefix())).collect(Collectors.toSet()));            
-            
+                    .forEach(id -> matchedArtifacts.add(normalize(destinationArtifacts.getArtifact(id),
+                            rule.getSourcePathPrefix(), rule.getDestinationPathPrefix())));
         }
         return matchedArtifacts;
     }
@@ -0,0 +1,201 @@
+/*
+ * Argos Notary - A new way to secure the Software Supply Chain
+ *
+ * Copyright (C) 2019 - 2020 Rabobank Nederland
+ * Copyright (C) 2019 - 2021 Gerard Borst <gerard.borst@argosnotary.com>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package com.argosnotary.argos.service.domain.verification;
+
+import lombok.NoArgsConstructor;
+
+import java.nio.file.InvalidPathException;
+import java.util.regex.PatternSyntaxException;
+
+import static lombok.AccessLevel.PRIVATE;
+
+/**
+ * String based equivalent of the "glob:" syntax of the default (unix) file system. The translation
+ * follows the JDK glob translation and the uri normalization follows the unix path normalization
+ * so matching a normalized uri against the regular expression gives the same result as
+ * {@code FileSystems.getDefault().getPathMatcher("glob:" + pattern).matches(Paths.get(uri))}.
+ */
+@NoArgsConstructor(access = PRIVATE)
+class Globs {
+
+    private static final String REGEX_META_CHARS = ".^$+{[]|()";
+    private static final String GLOB_META_CHARS = "\\*?[{";
+    private static final char EOL = 0;
+
+    static String normalize(String uri) {
+        StringBuilder normalized = null;
+        char previous = 0;
+        for (int i = 0; i < uri.length(); i++) {
+            char c = uri.charAt(i);
+            if (c == EOL) {
+                throw new InvalidPathException(uri, "Nul character not allowed");
+            }
+            if (c == '/' && previous == '/') {
+                if (normalized == null) {
+                    normalized = new StringBuilder(uri.length()).append(uri, 0, i);
+                }
+            } else if (normalized != null) {
+                normalized.append(c);
+            }
+            previous = c;
+        }
+        String result = normalized == null ? uri : normalized.toString();
+        if (result.length() > 1 && result.charAt(result.length() - 1) == '/') {
+            return result.substring(0, result.length() - 1);
+        }
+        return result;
+    }
+
+    static String toRegexPattern(String globPattern) {
+        boolean inGroup = false;
+        StringBuilder regex = new StringBuilder("^");
+        int i = 0;
+        while (i < globPattern.length()) {
+            char c = globPattern.charAt(i++);
+            switch (c) {
+                case '\\':
+                    if (i == globPattern.length()) {
+                        throw new PatternSyntaxException("No character to escape", globPattern, i - 1);
+                    }
+                    char next = globPattern.charAt(i);
+                    if (isGlobMeta(next) || isRegexMeta(next)) {
+                        regex.append('\\');
+                    }
+                    regex.append(next);
+                    i++;
+                    break;
+                case '[':
+                    i = appendCharacterClass(globPattern, i, regex);
+                    break;
+                case '{':
+                    if (inGroup) {
+                        throw new PatternSyntaxException("Cannot nest groups", globPattern, i - 1);
+                    }
+                    regex.append("(?:(?:");
+                    inGroup = true;
+                    break;
+                case '}':
+                    if (inGroup) {
+                        regex.append("))");
+                        inGroup = false;
+                    } else {
+                        regex.append('}');
+                    }
+                    break;
+                case ',':
+                    regex.append(inGroup ? ")|(?:" : ",");
+                    break;
+                case '*':
+                    if (next(globPattern, i) == '*') {
+                        // crosses directory boundaries
+                        regex.append(".*");
+                        i++;
+                    } else {
+                        regex.append("[^/]*");
+                    }
+                    break;
+                case '?':
+                    regex.append("[^/]");
+                    break;
+                default:
+                    if (isRegexMeta(c)) {
+                        regex.append('\\');
+                    }
+                    regex.append(c);
+            }
+        }
+        if (inGroup) {
+            throw new PatternSyntaxException("Missing '}", globPattern, i - 1);
+        }
+        return regex.append('$').toString();
+    }
+
+    private static int appendCharacterClass(String globPattern, int start, StringBuilder regex) {
+        int i = start;
+        // don't match name separator in class
+        regex.append("[[^/]&&[");
+        if (next(globPattern, i) == '^') {
+            // escape the regex negation char if it appears
+            regex.append("\\^");
+            i++;
+        } else {
+            if (next(globPattern, i) == '!') {
+                regex.append('^');
+                i++;
+            }
+            // hyphen allowed at start
+            if (next(globPattern, i) == '-') {
+                regex.append('-');
+                i++;
+            }
+        }
+        boolean hasRangeStart = false;
+        char last = 0;
+        char c = 0;
+        while (i < globPattern.length()) {
+            c = globPattern.charAt(i++);
+            if (c == ']') {
+                break;
+            }
+            if (c == '/') {
+                throw new PatternSyntaxException("Explicit 'name separator' in class", globPattern, i - 1);
+            }
+            if (c == '\\' || c == '[' || c == '&' && next(globPattern, i) == '&') {
+                // escape '\', '[' or "&&" for regex class
+                regex.append('\\');
+            }
+            regex.append(c);
+            if (c == '-') {
+                if (!hasRangeStart) {
+                    throw new PatternSyntaxException("Invalid range", globPattern, i - 1);
+                }
+                c = next(globPattern, i++);
+                if (c == EOL || c == ']') {
+                    break;
+                }
+                if (c < last) {
+                    throw new PatternSyntaxException("Invalid range", globPattern, i - 3);
+                }
+                regex.append(c);
+                hasRangeStart = false;
+            } else {
+                hasRangeStart = true;
+                last = c;
+            }
+        }
+        if (c != ']') {
+            throw new PatternSyntaxException("Missing ']", globPattern, i - 1);
+        }
+        regex.append("]]");
+        return i;
+    }
+
+    private static boolean isRegexMeta(char c) {
+        return REGEX_META_CHARS.indexOf(c) != -1;
+    }
+
+    private static boolean isGlobMeta(char c) {
+        return GLOB_META_CHARS.indexOf(c) != -1;
+    }
+
+    private static char next(String glob, int i) {
+        return i < glob.length() ? glob.charAt(i) : EOL;
+    }
+}
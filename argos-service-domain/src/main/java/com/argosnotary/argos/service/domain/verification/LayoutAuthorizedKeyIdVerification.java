@@ -25,6 +25,7 @@ import org.springframework.stereotype.Component;
 import com.argosnotary.argos.domain.crypto.Signature;
 
 import java.util.Optional;
+import java.util.Set;
 
 import static com.argosnotary.argos.service.domain.verification.Verification.Priority.LAYOUT_AUTHORIZED_KEYID;
 
@@ -39,9 +40,10 @@ public class LayoutAuthorizedKeyIdVerification implements Verification {
 
     @Override
     public VerificationRunResult verify(VerificationContext context) {
+        Set<String> authorizedKeyIds = context.getCompiledLayout().getAuthorizedKeyIds();
         Optional<Signature> failedLayoutAuthorizedKeyIdVerification = context.getLayoutMetaBlock().getSignatures()
                 .stream()
-                .filter(signature -> layoutWasNotSignedByAuthorizedFunctionary(context, signature))
+                .filter(signature -> !authorizedKeyIds.contains(signature.getKeyId()))
                 .findFirst();
         failedLayoutAuthorizedKeyIdVerification
                 .ifPresent(signature ->
@@ -52,8 +54,4 @@ public class LayoutAuthorizedKeyIdVerification implements Verification {
                 );
         return VerificationRunResult.builder().runIsValid(failedLayoutAuthorizedKeyIdVerification.isEmpty()).build();
     }
-
-    private static boolean layoutWasNotSignedByAuthorizedFunctionary(VerificationContext context, Signature signature) {
-        return !context.getLayoutMetaBlock().getLayout().getAuthorizedKeyIds().contains(signature.getKeyId());
-    }
 }
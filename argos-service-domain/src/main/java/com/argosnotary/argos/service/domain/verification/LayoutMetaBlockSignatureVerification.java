@@ -22,13 +22,10 @@ package com.argosnotary.argos.service.domain.verification;
 import com.argosnotary.argos.domain.crypto.Signature;
 import com.argosnotary.argos.domain.crypto.signing.SignatureValidator;
 import com.argosnotary.argos.domain.layout.Layout;
-import com.argosnotary.argos.domain.layout.LayoutMetaBlock;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Component;
 
-import java.io.IOException;
-import java.security.GeneralSecurityException;
 import java.security.PublicKey;
 import java.util.Optional;
 
@@ -46,15 +43,7 @@ public class LayoutMetaBlockSignatureVerification implements Verification {
 
     @Override
     public VerificationRunResult verify(VerificationContext context) {
-        return verify(context.getLayoutMetaBlock());
-    }
-
-    private VerificationRunResult verify(LayoutMetaBlock layoutMetaBlock) {
-        boolean isValid = layoutMetaBlock
-                .getSignatures()
-                .stream()
-                .allMatch(signature -> isValidSignature(signature, layoutMetaBlock.getLayout()));
-                        
+        boolean isValid = context.getCompiledLayout().isSignaturesValid(this::isValid);
         if (!isValid) {
             log.info("failed LayoutMetaBlockSignatureVerification");
         }
@@ -63,9 +52,17 @@ public class LayoutMetaBlockSignatureVerification implements Verification {
                 .build();
 
     }
+
+    private boolean isValid(CompiledLayout compiledLayout) {
+        return compiledLayout.getLayoutMetaBlock()
+                .getSignatures()
+                .stream()
+                .allMatch(signature -> isValidSignature(signature, compiledLayout));
+    }
     
-    private boolean isValidSignature(Signature signature, Layout layout) {
-        Optional<PublicKey> publicKey = getPublicKey(layout, signature.getKeyId());
+    private boolean isValidSignature(Signature signature, CompiledLayout compiledLayout) {
+        Layout layout = compiledLayout.getLayoutMetaBlock().getLayout();
+        Optional<PublicKey> publicKey = compiledLayout.getJavaPublicKeyById(signature.getKeyId());
         if (publicKey.isEmpty()) {
             log.info("Public Key with id [{}] is not avaiable in the layout.", signature.getKeyId());
             return false;
@@ -76,17 +73,4 @@ public class LayoutMetaBlockSignatureVerification implements Verification {
         }
         return true;
     }
-
-    private Optional<PublicKey> getPublicKey(Layout layout, String keyId) {
-        return layout.getKeys().stream()
-                .filter(publicKey -> publicKey.getKeyId().equals(keyId))
-                .map(t -> {
-					try {
-						return t.getJavaPublicKey();
-					} catch (GeneralSecurityException | IOException e) {
-						log.error(e.getMessage());
-						return null;
-					}
-				}).findFirst();
-    }
 }
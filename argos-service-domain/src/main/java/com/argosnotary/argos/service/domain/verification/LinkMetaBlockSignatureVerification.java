@@ -19,28 +19,22 @@
  */
 package com.argosnotary.argos.service.domain.verification;
 
-import com.argosnotary.argos.domain.crypto.signing.SignatureValidator;
-import com.argosnotary.argos.domain.layout.LayoutMetaBlock;
 import com.argosnotary.argos.domain.link.LinkMetaBlock;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Component;
 
-import java.security.GeneralSecurityException;
-import java.security.PublicKey;
-import java.util.Optional;
-
 import static com.argosnotary.argos.service.domain.verification.Verification.Priority.LINK_METABLOCK_SIGNATURE;
 import static java.util.stream.Collectors.toList;
 
-import java.io.IOException;
-
 
 @Component
 @RequiredArgsConstructor
 @Slf4j
 public class LinkMetaBlockSignatureVerification implements Verification {
 
+    private final LinkSignatureCache linkSignatureCache;
+
     @Override
     public Priority getPriority() {
         return LINK_METABLOCK_SIGNATURE;
@@ -49,34 +43,17 @@ public class LinkMetaBlockSignatureVerification implements Verification {
     @Override
     public VerificationRunResult verify(VerificationContext context) {
         context.removeLinkMetaBlocks(context.getLinkMetaBlocks().stream()
-                .filter(linkMetaBlock -> !okay(context.getLayoutMetaBlock(), linkMetaBlock)).collect(toList()));
+                .filter(linkMetaBlock -> !isValid(context.getCompiledLayout(), linkMetaBlock)).collect(toList()));
         return VerificationRunResult.okay();
     }
 
-    private boolean okay(LayoutMetaBlock layoutMetaBlock, LinkMetaBlock linkMetaBlock) {
-        return getPublicKey(layoutMetaBlock, linkMetaBlock.getSignature().getKeyId())
-                .map(keyPair -> SignatureValidator.isValid(linkMetaBlock.getLink(),
-                        linkMetaBlock.getSignature(), keyPair))
-                .orElse(false);
-    }
-
-    private Optional<PublicKey> getPublicKey(LayoutMetaBlock layoutMetaBlock, String keyId) {
-        Optional<com.argosnotary.argos.domain.crypto.PublicKey> keyOptional = getKeyById(layoutMetaBlock, keyId);
-        if (keyOptional.isEmpty()) {
-            log.error("key with id: {} not found in layout", keyId);
-        }
-        return keyOptional.map(t -> {
-			try {
-				return t.getJavaPublicKey();
-			} catch (GeneralSecurityException | IOException e) {
-				log.error(e.getMessage());
-				return null;
-			}
-		});
-    }
-
-    private Optional<com.argosnotary.argos.domain.crypto.PublicKey> getKeyById(LayoutMetaBlock layoutMetaBlock, String keyId) {
-        return layoutMetaBlock.getLayout().getKeys().stream().filter(publicKey -> publicKey.getKeyId().equals(keyId)).findFirst();
+    public boolean isValid(CompiledLayout compiledLayout, LinkMetaBlock linkMetaBlock) {
+        return compiledLayout.getKeyById(linkMetaBlock.getSignature().getKeyId())
+                .map(publicKey -> linkSignatureCache.isValid(linkMetaBlock.getLink(), linkMetaBlock.getSignature(), publicKey))
+                .orElseGet(() -> {
+                    log.error("key with id: {} not found in layout", linkMetaBlock.getSignature().getKeyId());
+                    return false;
+                });
     }
 
 }
@@ -0,0 +1,176 @@
+/*
+ * Argos Notary - A new way to secure the Software Supply Chain
+ *
+ * Copyright (C) 2019 - 2020 Rabobank Nederland
+ * Copyright (C) 2019 - 2021 Gerard Borst <gerard.borst@argosnotary.com>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package com.argosnotary.argos.service.domain.verification;
+
+import com.argosnotary.argos.domain.layout.Step;
+import com.argosnotary.argos.domain.layout.rule.MatchRule;
+import com.argosnotary.argos.domain.layout.rule.Rule;
+import com.argosnotary.argos.domain.link.Link;
+import com.argosnotary.argos.domain.link.LinkMetaBlock;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.Set;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.BiPredicate;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Depth first search over the link groups of the layout steps. Every step is assigned one group
+ * of equal links at a time, the rules of a step are verified as soon as the step and all steps its
+ * match rules refer to are assigned. A failing branch is dropped immediately and link sets are only
+ * produced on demand. The search check runs before every step of the search and stops the search
+ * by throwing.
+ */
+class LinkSetSearch implements Iterator<List<LinkMetaBlock>> {
+
+    private final List<Step> steps;
+
+    private final List<List<Set<LinkMetaBlock>>> candidatesPerStep;
+
+    private final BiPredicate<Map<String, Link>, Step> stepVerifier;
+
+    private final Runnable searchCheck;
+
+    private final List<List<Step>> stepsToVerifyPerDepth;
+
+    private final int[] choices;
+
+    private final Map<String, Link> assignedLinks = new HashMap<>();
+
+    private int depth;
+
+    private List<LinkMetaBlock> nextLinkSet;
+
+    LinkSetSearch(List<Step> steps, List<List<Set<LinkMetaBlock>>> candidatesPerStep,
+            BiPredicate<Map<String, Link>, Step> stepVerifier) {
+        this(steps, candidatesPerStep, stepVerifier, () -> {
+        });
+    }
+
+    LinkSetSearch(List<Step> steps, List<List<Set<LinkMetaBlock>>> candidatesPerStep,
+            BiPredicate<Map<String, Link>, Step> stepVerifier, Runnable searchCheck) {
+        this.steps = steps;
+        this.candidatesPerStep = candidatesPerStep;
+        this.stepVerifier = stepVerifier;
+        this.searchCheck = searchCheck;
+        this.stepsToVerifyPerDepth = createStepsToVerifyPerDepth(steps);
+        this.choices = new int[steps.size()];
+        this.depth = steps.isEmpty() || candidatesPerStep.stream().anyMatch(List::isEmpty) ? -1 : 0;
+    }
+
+    Stream<List<LinkMetaBlock>> stream() {
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(this, Spliterator.ORDERED | Spliterator.NONNULL), false);
+    }
+
+    @Override
+    public boolean hasNext() {
+        if (nextLinkSet == null) {
+            nextLinkSet = findNext();
+        }
+        return nextLinkSet != null;
+    }
+
+    @Override
+    public List<LinkMetaBlock> next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        List<LinkMetaBlock> linkSet = nextLinkSet;
+        nextLinkSet = null;
+        return linkSet;
+    }
+
+    private List<LinkMetaBlock> findNext() {
+        while (depth >= 0) {
+            searchCheck.run();
+            List<Set<LinkMetaBlock>> candidates = candidatesPerStep.get(depth);
+            String stepName = steps.get(depth).getName();
+            if (choices[depth] >= candidates.size()) {
+                // all groups of this step are tried, backtrack to the previous step
+                choices[depth] = 0;
+                assignedLinks.remove(stepName);
+                depth--;
+                if (depth >= 0) {
+                    choices[depth]++;
+                }
+            } else {
+                assignedLinks.put(stepName, candidates.get(choices[depth]).iterator().next().getLink());
+                if (!verifyStepsAt(depth)) {
+                    choices[depth]++;
+                } else if (depth == steps.size() - 1) {
+                    List<LinkMetaBlock> linkSet = currentLinkSet();
+                    choices[depth]++;
+                    return linkSet;
+                } else {
+                    depth++;
+                }
+            }
+        }
+        return null;
+    }
+
+    private boolean verifyStepsAt(int depth) {
+        return stepsToVerifyPerDepth.get(depth).stream().allMatch(step -> stepVerifier.test(assignedLinks, step));
+    }
+
+    private List<LinkMetaBlock> currentLinkSet() {
+        List<LinkMetaBlock> linkSet = new ArrayList<>();
+        for (int i = 0; i < steps.size(); i++) {
+            linkSet.addAll(candidatesPerStep.get(i).get(choices[i]));
+        }
+        return linkSet;
+    }
+
+    /*
+     * A step can only be verified when the links of all steps referred to by its match rules are assigned.
+     */
+    private static List<List<Step>> createStepsToVerifyPerDepth(List<Step> steps) {
+        Map<String, Integer> stepIndexes = new HashMap<>();
+        List<List<Step>> stepsToVerifyPerDepth = new ArrayList<>();
+        for (int i = 0; i < steps.size(); i++) {
+            stepIndexes.put(steps.get(i).getName(), i);
+            stepsToVerifyPerDepth.add(new ArrayList<>());
+        }
+        for (int i = 0; i < steps.size(); i++) {
+            Step step = steps.get(i);
+            int stepIndex = i;
+            int verifyAt = Stream.concat(rulesOf(step.getExpectedMaterials()), rulesOf(step.getExpectedProducts()))
+                    .filter(MatchRule.class::isInstance)
+                    .map(rule -> ((MatchRule) rule).getDestinationStepName())
+                    .filter(Objects::nonNull)
+                    .map(destinationStepName -> stepIndexes.getOrDefault(destinationStepName, stepIndex))
+                    .reduce(stepIndex, Integer::max);
+            stepsToVerifyPerDepth.get(verifyAt).add(step);
+        }
+        return stepsToVerifyPerDepth;
+    }
+
+    private static Stream<Rule> rulesOf(List<Rule> rules) {
+        return rules == null ? Stream.empty() : rules.stream();
+    }
+}
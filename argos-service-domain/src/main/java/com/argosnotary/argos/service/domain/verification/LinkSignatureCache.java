@@ -0,0 +1,138 @@
+/*
+ * Argos Notary - A new way to secure the Software Supply Chain
+ *
+ * Copyright (C) 2019 - 2020 Rabobank Nederland
+ * Copyright (C) 2019 - 2021 Gerard Borst <gerard.borst@argosnotary.com>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package com.argosnotary.argos.service.domain.verification;
+
+import com.argosnotary.argos.domain.crypto.HashAlgorithm;
+import com.argosnotary.argos.domain.crypto.KeyAlgorithm;
+import com.argosnotary.argos.domain.crypto.PublicKey;
+import com.argosnotary.argos.domain.crypto.Signature;
+import com.argosnotary.argos.domain.crypto.signing.SignatureValidator;
+import com.argosnotary.argos.domain.link.Link;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.AccessLevel;
+import lombok.EqualsAndHashCode;
+import lombok.RequiredArgsConstructor;
+import lombok.Setter;
+import lombok.extern.slf4j.Slf4j;
+
+import org.apache.commons.codec.digest.DigestUtils;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.security.GeneralSecurityException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Bounded cache of link signature verification results. An entry is keyed by the content digest of the link,
+ * the signature and the digest of the encoded public key so a result is never reused for another link, signature
+ * or public key. On a miss the signable json is streamed into the signature without being buffered.
+ */
+@Component
+@Slf4j
+public class LinkSignatureCache {
+
+    private static final String METRIC_NAME = "argos.verification.link.signature.cache";
+
+    @Setter(AccessLevel.PACKAGE)
+    @Value("${verification.linkSignatureCacheSize:10000}")
+    private int maxSize = 10000;
+
+    private final Map<CacheKey, Boolean> results = new LinkedHashMap<>(16, 0.75f, true) {
+        private static final long serialVersionUID = 1L;
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<CacheKey, Boolean> eldest) {
+            if (size() > maxSize) {
+                evictions.increment();
+                return true;
+            }
+            return false;
+        }
+    };
+
+    private final Counter hits;
+    private final Counter misses;
+    private final Counter evictions;
+
+    public LinkSignatureCache(MeterRegistry meterRegistry) {
+        hits = Counter.builder(METRIC_NAME).tag("result", "hit").register(meterRegistry);
+        misses = Counter.builder(METRIC_NAME).tag("result", "miss").register(meterRegistry);
+        evictions = Counter.builder(METRIC_NAME + ".evictions").register(meterRegistry);
+        Gauge.builder(METRIC_NAME + ".size", this, LinkSignatureCache::size).register(meterRegistry);
+    }
+
+    public boolean isValid(Link link, Signature signature, PublicKey publicKey) {
+        CacheKey key = new CacheKey(link.getContentDigest(), signature.getKeyId(),
+                signature.getSignature(), signature.getKeyAlgorithm(), signature.getHashAlgorithm(),
+                DigestUtils.sha256Hex(publicKey.getPublicKey()));
+        Boolean cachedResult = get(key);
+        if (cachedResult != null) {
+            hits.increment();
+            return cachedResult;
+        }
+        misses.increment();
+        boolean valid = verify(link, signature, publicKey);
+        put(key, valid);
+        return valid;
+    }
+
+    private boolean verify(Link link, Signature signature, PublicKey publicKey) {
+        try {
+            return SignatureValidator.isValid(link, signature, publicKey.getJavaPublicKey());
+        } catch (GeneralSecurityException | IOException e) {
+            log.error(e.getMessage());
+            return false;
+        }
+    }
+
+    int size() {
+        synchronized (results) {
+            return results.size();
+        }
+    }
+
+    private Boolean get(CacheKey key) {
+        synchronized (results) {
+            return results.get(key);
+        }
+    }
+
+    private void put(CacheKey key, boolean valid) {
+        synchronized (results) {
+            results.put(key, valid);
+        }
+    }
+
+    @RequiredArgsConstructor
+    @EqualsAndHashCode
+    private static class CacheKey {
+        private final String linkDigest;
+        private final String keyId;
+        private final String signature;
+        private final KeyAlgorithm keyAlgorithm;
+        private final HashAlgorithm hashAlgorithm;
+        private final String publicKeyDigest;
+    }
+}
@@ -0,0 +1,56 @@
+/*
+ * Argos Notary - A new way to secure the Software Supply Chain
+ *
+ * Copyright (C) 2019 - 2020 Rabobank Nederland
+ * Copyright (C) 2019 - 2021 Gerard Borst <gerard.borst@argosnotary.com>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package com.argosnotary.argos.service.domain.verification;
+
+import lombok.NoArgsConstructor;
+import org.slf4j.MDC;
+
+import java.util.Map;
+import java.util.concurrent.Callable;
+
+import static lombok.AccessLevel.PRIVATE;
+
+/**
+ * Carries the log context of the submitting thread over to verification work run on a pool.
+ */
+@NoArgsConstructor(access = PRIVATE)
+public final class LogContexts {
+
+    public static <T> Callable<T> withCurrentLogContext(Callable<T> task) {
+        Map<String, String> logContext = MDC.getCopyOfContextMap();
+        return () -> {
+            Map<String, String> previousLogContext = MDC.getCopyOfContextMap();
+            setLogContext(logContext);
+            try {
+                return task.call();
+            } finally {
+                setLogContext(previousLogContext);
+            }
+        };
+    }
+
+    private static void setLogContext(Map<String, String> logContext) {
+        if (logContext != null) {
+            MDC.setContextMap(logContext);
+        } else {
+            MDC.clear();
+        }
+    }
+}
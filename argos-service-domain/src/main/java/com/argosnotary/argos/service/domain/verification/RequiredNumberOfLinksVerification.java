@@ -54,18 +54,18 @@ public class RequiredNumberOfLinksVerification implements Verification {
     private Boolean isValid(Step step, VerificationContext context) {
         Map<String, Set<LinkMetaBlock>> stepLinkMetaBlockMap = context.getStepNameLinkMetaBlockMap();
         
-        Map<Integer, Set<LinkMetaBlock>> linkMetaBlockMap = stepLinkMetaBlockMap
+        Map<String, Set<LinkMetaBlock>> linkMetaBlockMap = stepLinkMetaBlockMap
                 .get(step.getName()).stream()
-                .collect(groupingBy(f -> f.getLink().hashCode(), Collectors.toSet()));
+                .collect(groupingBy(linkMetaBlock -> linkMetaBlock.getLink().getContentDigest(), Collectors.toSet()));
         if (linkMetaBlockMap.size() == 1) {
-            return isValid(linkMetaBlockMap.values().iterator().next(), step);
+            return hasRequiredNumberOfLinks(linkMetaBlockMap.values().iterator().next(), step);
         } else {
             log.info("[{}] different link objects in metablocks for step [{}]", linkMetaBlockMap.size(), step);
             return false;
         }
     }
 
-    private boolean isValid(Set<LinkMetaBlock> linkMetaBlocks, Step step) {
+    public boolean hasRequiredNumberOfLinks(Set<LinkMetaBlock> linkMetaBlocks, Step step) {
         log.info("[{}] links for step [{}] and should be at least [{}]", linkMetaBlocks.size(), step.getName(), step.getRequiredNumberOfLinks());
         return linkMetaBlocks.size() >= step.getRequiredNumberOfLinks();
     }
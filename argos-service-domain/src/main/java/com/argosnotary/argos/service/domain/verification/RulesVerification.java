@@ -23,23 +23,33 @@ import com.argosnotary.argos.domain.layout.ArtifactType;
 import com.argosnotary.argos.domain.layout.Step;
 import com.argosnotary.argos.domain.layout.rule.Rule;
 import com.argosnotary.argos.domain.layout.rule.RuleType;
-import com.argosnotary.argos.domain.link.Artifact;
 import com.argosnotary.argos.domain.link.Link;
 import com.argosnotary.argos.service.domain.verification.rules.RuleVerification;
 import com.argosnotary.argos.service.domain.verification.rules.RuleVerificationContext;
 
+import lombok.AccessLevel;
 import lombok.RequiredArgsConstructor;
+import lombok.Setter;
 import lombok.ToString;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
 import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.util.ArrayList;
 import java.util.EnumMap;
-import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
-import java.util.Set;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.Future;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.Predicate;
 
 import static com.argosnotary.argos.service.domain.verification.Verification.Priority.RULES;
@@ -54,6 +64,17 @@ public class RulesVerification implements Verification {
 
     private Map<RuleType, RuleVerification> rulesVerificationMap = new EnumMap<>(RuleType.class);
 
+    /**
+     * Number of steps of a verification context evaluated concurrently, a value of 1 or lower
+     * evaluates the steps sequentially on the calling thread.
+     */
+    @Setter(AccessLevel.PACKAGE)
+    @Value("${verification.stepParallelism:1}")
+    private int stepParallelism;
+
+    @ToString.Exclude
+    private ThreadPoolExecutor executor;
+
     @Override
     public Priority getPriority() {
         return RULES;
@@ -62,15 +83,42 @@ public class RulesVerification implements Verification {
     @PostConstruct
     public void init() {
         ruleVerificationList.forEach(ruleVerification -> rulesVerificationMap.put(ruleVerification.getRuleType(), ruleVerification));
+        if (stepParallelism > 1) {
+            // a step without a free thread is verified on the calling thread instead of waiting in a queue
+            AtomicInteger threadNumber = new AtomicInteger();
+            executor = new ThreadPoolExecutor(stepParallelism, stepParallelism, 60L, TimeUnit.SECONDS,
+                    new SynchronousQueue<>(),
+                    runnable -> {
+                        Thread thread = new Thread(runnable, "rules-verification-" + threadNumber.incrementAndGet());
+                        thread.setDaemon(true);
+                        return thread;
+                    },
+                    new ThreadPoolExecutor.CallerRunsPolicy());
+            executor.allowCoreThreadTimeOut(true);
+            log.info("parallel step verification with [{}] threads", stepParallelism);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (executor != null) {
+            executor.shutdownNow();
+        }
     }
 
     @Override
     public VerificationRunResult verify(VerificationContext verificationContext) {
         Map<String, Link> linksMap = verificationContext.getStepLinkMap();
-        
-        return verificationContext
-                .getLayoutMetaBlock()
-                .getLayout().getSteps().stream()
+        List<Step> steps = verificationContext.getLayoutMetaBlock().getLayout().getSteps();
+        if (executor == null || steps.size() < 2) {
+            return verifySequential(linksMap, steps);
+        } else {
+            return verifyParallel(linksMap, steps);
+        }
+    }
+
+    private VerificationRunResult verifySequential(Map<String, Link> linksMap, List<Step> steps) {
+        return steps.stream()
                 .map(step -> verifyStep(
                         linksMap,
                         step))
@@ -80,7 +128,34 @@ public class RulesVerification implements Verification {
                 .orElse(VerificationRunResult.builder().runIsValid(true).build());
     }
 
-    private boolean verifyStep(Map<String, Link> linksMap, Step step) {
+    /*
+     * Steps only read the shared links map and each step has its own artifacts context, so they can
+     * be verified in any order. The first invalid step cancels the steps still in flight.
+     */
+    private VerificationRunResult verifyParallel(Map<String, Link> linksMap, List<Step> steps) {
+        CompletionService<Boolean> completionService = new ExecutorCompletionService<>(executor);
+        List<Future<Boolean>> inFlight = new ArrayList<>(steps.size());
+        try {
+            steps.forEach(step -> inFlight.add(completionService.submit(
+                    LogContexts.withCurrentLogContext(() -> verifyStep(linksMap, step)))));
+            for (int i = 0; i < steps.size(); i++) {
+                if (!completionService.take().get()) {
+                    return VerificationRunResult.valid(false);
+                }
+            }
+            return VerificationRunResult.valid(true);
+        } catch (InterruptedException e) {
+            // the verification of this context is cancelled
+            Thread.currentThread().interrupt();
+            return VerificationRunResult.valid(false);
+        } catch (ExecutionException e) {
+            throw new VerificationError(e.getCause().getMessage(), e.getCause());
+        } finally {
+            inFlight.forEach(future -> future.cancel(true));
+        }
+    }
+
+    public boolean verifyStep(Map<String, Link> linksMap, Step step) {
         Link link = linksMap.get(step.getName());
         if (link == null) {
             log.warn("no links for step [{}]", step.getName());
@@ -90,17 +165,12 @@ public class RulesVerification implements Verification {
     }
 
     private boolean verifyLink(Map<String, Link> linksMap, Step step, Link link) {
-        return  verifyArtifactsByType(linksMap, step, new HashSet<>(link.getMaterials()), link, ArtifactType.MATERIALS)
-                && verifyArtifactsByType(linksMap, step, new HashSet<>(link.getProducts()), link, ArtifactType.PRODUCTS);
+        return  verifyArtifactsByType(linksMap, step, link, ArtifactType.MATERIALS)
+                && verifyArtifactsByType(linksMap, step, link, ArtifactType.PRODUCTS);
     }
 
-    private boolean verifyArtifactsByType(Map<String, Link> linksMap, Step step,
-            Set<Artifact> artifacts, Link link, ArtifactType type) {
-        ArtifactsVerificationContext artifactsContext = ArtifactsVerificationContext.builder()
-                .link(link)
-                .notConsumedArtifacts(artifacts)
-                .linksMap(linksMap)
-                .build();
+    private boolean verifyArtifactsByType(Map<String, Link> linksMap, Step step, Link link, ArtifactType type) {
+        ArtifactsVerificationContext artifactsContext = ArtifactsVerificationContext.forLink(linksMap, link, type);
 
         return getExpectedArtifactRulesByType(step, type).stream()
                 .map(rule -> verifyRule(rule, ruleVerifier -> {
@@ -117,6 +187,10 @@ public class RulesVerification implements Verification {
     }
 
     private boolean verifyRule(Rule rule, Predicate<RuleVerification> ruleVerifyFunction) {
+        if (Thread.currentThread().isInterrupted()) {
+            log.info("verification of rule [{}] cancelled", rule.getRuleType());
+            return false;
+        }
         return Optional.ofNullable(rulesVerificationMap.get(rule.getRuleType()))
                 .map(ruleVerifyFunction::test)
                 .orElseGet(() -> {
@@ -19,13 +19,12 @@
  */
 package com.argosnotary.argos.service.domain.verification;
 
+import com.argosnotary.argos.domain.layout.Step;
 import com.argosnotary.argos.domain.link.LinkMetaBlock;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Component;
 
-import java.util.HashMap;
 import java.util.List;
-import java.util.Map;
 import java.util.stream.Collectors;
 
 import static com.argosnotary.argos.service.domain.verification.Verification.Priority.STEP_AUTHORIZED_KEYID;
@@ -41,16 +40,11 @@ public class StepAuthorizedKeyIdVerification implements Verification {
 
     @Override
     public VerificationRunResult verify(VerificationContext context) {
-        Map<String,List<String>> stepAndKeyIds = new HashMap<>();
-        context
-            .getLayoutMetaBlock()
-            .getLayout()
-            .getSteps().forEach(step -> stepAndKeyIds.put(step.getName(), step.getAuthorizedKeyIds()));
-
+        CompiledLayout compiledLayout = context.getCompiledLayout();
         List<LinkMetaBlock> failedLinkAuthorizedKeyIdVerifications = context
                 .getLinkMetaBlocks()
                 .stream()
-                .filter(linkMetaBlock -> linkIsNotSignedByAuthorizedFunctionary(stepAndKeyIds, linkMetaBlock))
+                .filter(linkMetaBlock -> linkIsNotSignedByAuthorizedFunctionary(compiledLayout, linkMetaBlock))
                 .collect(Collectors.toList());
 
         if (!failedLinkAuthorizedKeyIdVerifications.isEmpty()) {
@@ -63,9 +57,13 @@ public class StepAuthorizedKeyIdVerification implements Verification {
         return VerificationRunResult.okay();
     }
 
-    private static boolean linkIsNotSignedByAuthorizedFunctionary(Map<String,List<String>> stepAndKeyIds, LinkMetaBlock linkMetaBlock) {
-        return !stepAndKeyIds.get(linkMetaBlock.getLink().getStepName())
-                .contains(linkMetaBlock.getSignature().getKeyId());
+    public boolean isSignedByAuthorizedFunctionary(Step step, LinkMetaBlock linkMetaBlock) {
+        return step.getAuthorizedKeyIds().contains(linkMetaBlock.getSignature().getKeyId());
+    }
+
+    private static boolean linkIsNotSignedByAuthorizedFunctionary(CompiledLayout compiledLayout, LinkMetaBlock linkMetaBlock) {
+        return !compiledLayout.isAuthorizedForStep(linkMetaBlock.getLink().getStepName(),
+                linkMetaBlock.getSignature().getKeyId());
     }
 
 }
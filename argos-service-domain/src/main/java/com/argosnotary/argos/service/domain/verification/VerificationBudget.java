@@ -0,0 +1,158 @@
+/*
+ * Argos Notary - A new way to secure the Software Supply Chain
+ *
+ * Copyright (C) 2019 - 2020 Rabobank Nederland
+ * Copyright (C) 2019 - 2021 Gerard Borst <gerard.borst@argosnotary.com>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package com.argosnotary.argos.service.domain.verification;
+
+import com.argosnotary.argos.service.domain.verification.VerificationRejectedException.Reason;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.AccessLevel;
+import lombok.Setter;
+import lombok.extern.slf4j.Slf4j;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import java.util.EnumMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Limits the work a single verification run can take from the service. A run is rejected before any work
+ * starts when its estimated cost exceeds the budget and is stopped when it passes its deadline. At most
+ * maxConcurrent runs verify at the same time, other runs wait up to queueTimeout for their turn.
+ */
+@Component
+@Slf4j
+public class VerificationBudget {
+
+    private static final String METRIC_NAME = "argos.verification.rejected";
+
+    /**
+     * Maximum number of possible link combinations of a run, 0 does not limit the combinations. The estimate
+     * does not see the branches the search drops, so a limit can reject a run the search would finish quickly.
+     */
+    @Setter(AccessLevel.PACKAGE)
+    @Value("${verification.budget.maxContexts:0}")
+    private long maxContexts;
+
+    @Setter(AccessLevel.PACKAGE)
+    @Value("${verification.budget.maxArtifacts:1000000}")
+    private long maxArtifacts = 1000000;
+
+    /**
+     * Wall-clock deadline of a run in milliseconds, 0 disables the deadline.
+     */
+    @Setter(AccessLevel.PACKAGE)
+    @Value("${verification.budget.deadline:60000}")
+    private long deadline = 60000;
+
+    /**
+     * Number of runs verified at the same time, 0 does not limit the number of runs.
+     */
+    @Setter(AccessLevel.PACKAGE)
+    @Value("${verification.budget.maxConcurrent:0}")
+    private int maxConcurrent;
+
+    @Setter(AccessLevel.PACKAGE)
+    @Value("${verification.budget.queueTimeout:10000}")
+    private long queueTimeout = 10000;
+
+    private Semaphore runSlots;
+
+    private final Map<Reason, Counter> rejections = new EnumMap<>(Reason.class);
+
+    public VerificationBudget(MeterRegistry meterRegistry) {
+        for (Reason reason : Reason.values()) {
+            rejections.put(reason, Counter.builder(METRIC_NAME)
+                    .tag("reason", reason.name().toLowerCase(Locale.ROOT))
+                    .register(meterRegistry));
+        }
+    }
+
+    @PostConstruct
+    public void init() {
+        if (maxConcurrent > 0) {
+            runSlots = new Semaphore(maxConcurrent, true);
+            log.info("at most [{}] concurrent verification runs", maxConcurrent);
+        }
+    }
+
+    public <T> T admit(String supplyChainId, Supplier<T> run) {
+        if (runSlots == null) {
+            return run.get();
+        }
+        try {
+            if (!runSlots.tryAcquire(queueTimeout, TimeUnit.MILLISECONDS)) {
+                throw reject(supplyChainId, Reason.BUSY, "too many verifications in progress, try again later");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new VerificationError("verification interrupted", e);
+        }
+        try {
+            return run.get();
+        } finally {
+            runSlots.release();
+        }
+    }
+
+    public void checkCost(String supplyChainId, VerificationCost cost) {
+        log.info("estimated verification cost for supply chain [{}]: [{}]", supplyChainId, cost);
+        if (maxContexts > 0 && cost.getContexts() > maxContexts) {
+            throw reject(supplyChainId, Reason.CONTEXTS, "verification exceeds the maximum of "
+                    + maxContexts + " possible link combinations");
+        }
+        if (cost.getArtifacts() > maxArtifacts) {
+            throw reject(supplyChainId, Reason.ARTIFACTS, "verification exceeds the maximum of "
+                    + maxArtifacts + " artifacts");
+        }
+    }
+
+    /**
+     * Nanoseconds left of a run started at startNanos.
+     */
+    public long remainingNanos(long startNanos) {
+        if (deadline <= 0) {
+            return Long.MAX_VALUE;
+        }
+        return TimeUnit.MILLISECONDS.toNanos(deadline) - (System.nanoTime() - startNanos);
+    }
+
+    public void checkDeadline(String supplyChainId, long startNanos) {
+        if (remainingNanos(startNanos) <= 0) {
+            throw deadlineExceeded(supplyChainId);
+        }
+    }
+
+    VerificationRejectedException deadlineExceeded(String supplyChainId) {
+        return reject(supplyChainId, Reason.DEADLINE, "verification exceeds the deadline of " + deadline + " ms");
+    }
+
+    private VerificationRejectedException reject(String supplyChainId, Reason reason, String message) {
+        log.warn("verification of supply chain [{}] rejected: {}", supplyChainId, message);
+        rejections.get(reason).increment();
+        return new VerificationRejectedException(reason, message);
+    }
+}
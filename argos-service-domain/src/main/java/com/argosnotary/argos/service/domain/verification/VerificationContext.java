@@ -47,13 +47,32 @@ public class VerificationContext {
     @Getter
     private final Set<Artifact> artifactsToRelease;
 
+    /**
+     * The rules of every step are already verified while the link set of the context was searched.
+     */
+    @Getter
+    private final boolean rulesVerified;
+
+    @ToString.Exclude
+    private CompiledLayout compiledLayout;
+
     @Builder
     public VerificationContext(@NonNull List<LinkMetaBlock> linkMetaBlocks, 
-            @NonNull LayoutMetaBlock layoutMetaBlock, Set<Artifact> productsToVerify) {
+            @NonNull LayoutMetaBlock layoutMetaBlock, Set<Artifact> productsToVerify, CompiledLayout compiledLayout,
+            boolean rulesVerified) {
         this.linkMetaBlocks = new ArrayList<>(linkMetaBlocks);
         this.originalLinkMetaBlocks = new ArrayList<>(linkMetaBlocks);
         this.layoutMetaBlock = layoutMetaBlock;
         this.artifactsToRelease = new HashSet<>(productsToVerify);
+        this.compiledLayout = compiledLayout;
+        this.rulesVerified = rulesVerified;
+    }
+
+    public CompiledLayout getCompiledLayout() {
+        if (compiledLayout == null) {
+            compiledLayout = CompiledLayout.compile(layoutMetaBlock);
+        }
+        return compiledLayout;
     }
     
     public void removeLinkMetaBlocks(List<LinkMetaBlock> linkMetaBlocksToRemove) {
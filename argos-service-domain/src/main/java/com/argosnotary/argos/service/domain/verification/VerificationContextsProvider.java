@@ -19,37 +19,27 @@
  */
 package com.argosnotary.argos.service.domain.verification;
 
-import com.argosnotary.argos.domain.ArgosError;
-import com.argosnotary.argos.domain.layout.ArtifactType;
-import com.argosnotary.argos.domain.layout.Layout;
 import com.argosnotary.argos.domain.layout.LayoutMetaBlock;
-import com.argosnotary.argos.domain.layout.rule.MatchRule;
-import com.argosnotary.argos.domain.layout.rule.RuleType;
+import com.argosnotary.argos.domain.layout.Step;
 import com.argosnotary.argos.domain.link.Artifact;
-import com.argosnotary.argos.domain.link.Link;
+import com.argosnotary.argos.domain.link.LinkFacts;
 import com.argosnotary.argos.domain.link.LinkMetaBlock;
 import com.argosnotary.argos.service.domain.link.LinkMetaBlockRepository;
-import com.argosnotary.argos.service.domain.verification.rules.RuleVerification;
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Component;
 
 import static java.util.stream.Collectors.groupingBy;
-import static java.util.stream.Collectors.toSet;
+import static java.util.stream.Collectors.toCollection;
+import static java.util.stream.Collectors.toList;
 
-import java.nio.file.Paths;
-import java.util.ArrayList;
-import java.util.EnumMap;
-import java.util.HashMap;
-import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
-import java.util.Map.Entry;
-import java.util.stream.Collectors;
-
-import javax.annotation.PostConstruct;
+import java.util.stream.Stream;
 
 @Component
 @RequiredArgsConstructor
@@ -58,63 +48,83 @@ public class VerificationContextsProvider {
 
     private final LinkMetaBlockRepository linkMetaBlockRepository;
 
-    private final List<RuleVerification> ruleVerificationList;
+    private final StepAuthorizedKeyIdVerification stepAuthorizedKeyIdVerification;
 
-    private Map<RuleType, RuleVerification> rulesVerificationMap = new EnumMap<>(RuleType.class);
+    private final LinkMetaBlockSignatureVerification linkMetaBlockSignatureVerification;
 
-    @PostConstruct
-    public void init() {
-        ruleVerificationList.forEach(ruleVerification -> rulesVerificationMap.put(ruleVerification.getRuleType(), ruleVerification));
-    }
+    private final RequiredNumberOfLinksVerification requiredNumberOfLinksVerification;
+
+    private final RulesVerification rulesVerification;
+
+    private final VerificationBudget verificationBudget;
 
     /**
-     * Create a list of Verification contexts starting with the end products.
+     * Lazily create the possible Verification contexts. Links which are not signed by an authorized
+     * key or have an invalid signature are dropped up front, every branch of the search is dropped as
+     * soon as a step does not have the required number of links or fails its rules, so the produced contexts
+     * are marked as rules verified. The facts of a link
+     * established when it was stored against the same layout are used instead of checking the link again,
+     * the verifications of a context still check every link. A run with more possible contexts or artifacts
+     * than the verification budget allows is rejected before the search starts and the search is stopped
+     * when it passes the deadline of the budget.
      * 
      * @param layoutMetaBlock
      * @param artifactsToRelease List of expected product artifacts
-     * @return List of VerificationContexts
+     * @return Stream of VerificationContexts
      */
-    public List<VerificationContext> createPossibleVerificationContexts(LayoutMetaBlock layoutMetaBlock, Set<Artifact> artifactsToRelease) {
-        Set<Set<LinkMetaBlock>> linkMetaBlockSets = new HashSet<>();
-        // create context
-        Set<LinkMetaBlock> links = new HashSet<>(linkMetaBlockRepository.findBySupplyChainId(layoutMetaBlock.getSupplyChainId()));
-        if (!links.isEmpty()) {
-            // get links for other steps
-            links.addAll(linkMetaBlockRepository.findBySupplyChainId(
-                    layoutMetaBlock.getSupplyChainId()));
-            // permutate
-            linkMetaBlockSets = permutateOnSteps(links);
+    public Stream<VerificationContext> createPossibleVerificationContexts(LayoutMetaBlock layoutMetaBlock, Set<Artifact> artifactsToRelease) {
+        return createPossibleVerificationContexts(CompiledLayout.compile(layoutMetaBlock),
+                linkMetaBlockRepository.findBySupplyChainId(layoutMetaBlock.getSupplyChainId()), artifactsToRelease);
+    }
+
+    public Stream<VerificationContext> createPossibleVerificationContexts(CompiledLayout compiledLayout, List<LinkMetaBlock> linkMetaBlocks, Set<Artifact> artifactsToRelease) {
+        Set<LinkMetaBlock> links = new LinkedHashSet<>(linkMetaBlocks);
+        if (links.isEmpty()) {
+            log.info("no links available for supply chain [{}]", compiledLayout.getSupplyChainId());
+            return Stream.empty();
         }
 
-        log.info("processExpProductsMatchRules resulted in: {} possible verificationContexts", linkMetaBlockSets.size());
-        
-        return linkMetaBlockSets
+        LayoutMetaBlock layoutMetaBlock = compiledLayout.getLayoutMetaBlock();
+        List<Step> steps = layoutMetaBlock.getLayout().getSteps();
+        List<List<Set<LinkMetaBlock>>> candidatesPerStep = steps.stream()
+                .map(step -> createCandidates(compiledLayout, step, links))
+                .collect(toList());
+        String supplyChainId = compiledLayout.getSupplyChainId();
+        verificationBudget.checkCost(supplyChainId, VerificationCost.estimate(candidatesPerStep));
+
+        long startNanos = System.nanoTime();
+        return new LinkSetSearch(steps, candidatesPerStep, rulesVerification::verifyStep,
+                () -> verificationBudget.checkDeadline(supplyChainId, startNanos))
                 .stream()
                 .map(linkSet -> VerificationContext
                         .builder()
                         .layoutMetaBlock(layoutMetaBlock)
-                        .linkMetaBlocks(new ArrayList<>(linkSet))
-                        .productsToVerify(artifactsToRelease).build())
-                .collect(Collectors.toList());
+                        .compiledLayout(compiledLayout)
+                        .linkMetaBlocks(linkSet)
+                        .productsToVerify(artifactsToRelease)
+                        .rulesVerified(true).build());
     }
-    
-    static Set<Set<LinkMetaBlock>> permutateOnSteps(Set<LinkMetaBlock> linkMetaBlocks) {
-        Set<Set<LinkMetaBlock>> tempSets = new HashSet<>();
-        tempSets.add(new HashSet<>());
-        Map<String, Map<Link, Set<LinkMetaBlock>>> stepSets = linkMetaBlocks.stream()
-                .collect(groupingBy(linkMetaBlock -> linkMetaBlock.getLink().getStepName(),
-                        groupingBy(LinkMetaBlock::getLink, toSet())));
-        for (Entry<String, Map<Link, Set<LinkMetaBlock>>> stepEntry : stepSets.entrySet()) {
-            Set<Set<LinkMetaBlock>> newTempSets = new HashSet<>();
-            for (Entry<Link, Set<LinkMetaBlock>> linkEntry : stepEntry.getValue().entrySet()) {
-                for (Set<LinkMetaBlock> set : tempSets) {
-                    Set<LinkMetaBlock> newSet = new HashSet<>(set);
-                    newSet.addAll(linkEntry.getValue());
-                    newTempSets.add(newSet);
-                }
-            }
-            tempSets = newTempSets;
+
+    private List<Set<LinkMetaBlock>> createCandidates(CompiledLayout compiledLayout, Step step, Set<LinkMetaBlock> links) {
+        Map<String, Set<LinkMetaBlock>> linkGroups = links.stream()
+                .filter(linkMetaBlock -> step.getName().equals(linkMetaBlock.getLink().getStepName()))
+                .filter(linkMetaBlock -> isCandidate(compiledLayout, step, linkMetaBlock))
+                .collect(groupingBy(linkMetaBlock -> linkMetaBlock.getLink().getContentDigest(), LinkedHashMap::new, toCollection(LinkedHashSet::new)));
+        List<Set<LinkMetaBlock>> candidates = linkGroups.values().stream()
+                .filter(linkMetaBlocks -> requiredNumberOfLinksVerification.hasRequiredNumberOfLinks(linkMetaBlocks, step))
+                .collect(toList());
+        log.info("[{}] candidate link groups for step [{}]", candidates.size(), step.getName());
+        return candidates;
+    }
+
+    private boolean isCandidate(CompiledLayout compiledLayout, Step step, LinkMetaBlock linkMetaBlock) {
+        LinkFacts facts = linkMetaBlock.getFacts();
+        if (facts != null && compiledLayout.getLayoutDigest().equals(facts.getLayoutDigest())
+                && linkMetaBlock.getLink().getContentDigest().equals(facts.getLinkDigest())
+                && linkMetaBlock.getSignature().getKeyId().equals(facts.getVerifiedKeyId())) {
+            return facts.isAuthorizedForStep();
         }
-        return tempSets;
+        return stepAuthorizedKeyIdVerification.isSignedByAuthorizedFunctionary(step, linkMetaBlock)
+                && linkMetaBlockSignatureVerification.isValid(compiledLayout, linkMetaBlock);
     }
 }
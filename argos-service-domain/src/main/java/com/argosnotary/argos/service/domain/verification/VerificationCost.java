@@ -0,0 +1,78 @@
+/*
+ * Argos Notary - A new way to secure the Software Supply Chain
+ *
+ * Copyright (C) 2019 - 2020 Rabobank Nederland
+ * Copyright (C) 2019 - 2021 Gerard Borst <gerard.borst@argosnotary.com>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package com.argosnotary.argos.service.domain.verification;
+
+import com.argosnotary.argos.domain.link.Link;
+import com.argosnotary.argos.domain.link.LinkMetaBlock;
+
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.ToString;
+
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Upper bound of the work of a verification run, estimated from the candidate link groups of each step
+ * before the search starts.
+ */
+@Getter
+@RequiredArgsConstructor
+@EqualsAndHashCode
+@ToString
+public class VerificationCost {
+
+    /**
+     * Number of possible verification contexts, the product of the number of link groups of each step.
+     */
+    private final long contexts;
+
+    /**
+     * Number of materials and products of all candidate link groups.
+     */
+    private final long artifacts;
+
+    public static VerificationCost estimate(List<List<Set<LinkMetaBlock>>> candidatesPerStep) {
+        long contexts = 1;
+        long artifacts = 0;
+        for (List<Set<LinkMetaBlock>> candidates : candidatesPerStep) {
+            contexts = multiply(contexts, candidates.size());
+            for (Set<LinkMetaBlock> linkGroup : candidates) {
+                // all links of a group have the same content
+                Link link = linkGroup.iterator().next().getLink();
+                artifacts += size(link.getMaterials()) + size(link.getProducts());
+            }
+        }
+        return new VerificationCost(contexts, artifacts);
+    }
+
+    private static long multiply(long contexts, int candidates) {
+        try {
+            return Math.multiplyExact(contexts, candidates);
+        } catch (ArithmeticException e) {
+            return Long.MAX_VALUE;
+        }
+    }
+
+    private static int size(List<?> artifacts) {
+        return artifacts == null ? 0 : artifacts.size();
+    }
+}
@@ -23,4 +23,8 @@ public class VerificationError extends RuntimeException {
     public VerificationError(String message) {
         super(message);
     }
+
+    public VerificationError(String message, Throwable e) {
+        super(message, e);
+    }
 }
@@ -22,16 +22,31 @@ package com.argosnotary.argos.service.domain.verification;
 import com.argosnotary.argos.domain.layout.LayoutMetaBlock;
 import com.argosnotary.argos.domain.layout.rule.MatchRule;
 import com.argosnotary.argos.domain.link.Artifact;
+import com.argosnotary.argos.domain.link.LinkMetaBlock;
+import com.argosnotary.argos.service.domain.link.LinkMetaBlockRepository;
+import lombok.AccessLevel;
 import lombok.RequiredArgsConstructor;
+import lombok.Setter;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
 import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.util.ArrayDeque;
 import java.util.Comparator;
+import java.util.Deque;
 import java.util.HashSet;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Set;
-import java.util.stream.Collectors;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
 
 @Component
 @RequiredArgsConstructor
@@ -42,39 +57,150 @@ public class VerificationProvider {
 
     private final VerificationContextsProvider verificationContextsProvider;
 
+    private final LinkMetaBlockRepository linkMetaBlockRepository;
+
+    private final VerificationResultCache verificationResultCache;
+
+    private final CompiledLayoutCache compiledLayoutCache;
+
+    private final VerificationBudget verificationBudget;
+
+    /**
+     * Number of verification contexts evaluated concurrently, a value of 1 or lower
+     * evaluates the contexts sequentially on the request thread.
+     */
+    @Setter(AccessLevel.PACKAGE)
+    @Value("${verification.parallelism:1}")
+    private int parallelism;
+
+    @Setter(AccessLevel.PACKAGE)
+    @Value("${verification.queueCapacity:100}")
+    private int queueCapacity;
+
+    private ThreadPoolExecutor executor;
+
     @PostConstruct
     public void init() {
         verifications.sort(Comparator.comparing(Verification::getPriority));
         log.info("active verifications:");
         verifications.forEach(verification -> log.info("{} : {}", verification.getPriority(), verification.getClass().getSimpleName()));
+        if (parallelism > 1) {
+            AtomicInteger threadNumber = new AtomicInteger();
+            executor = new ThreadPoolExecutor(parallelism, parallelism, 60L, TimeUnit.SECONDS,
+                    new LinkedBlockingQueue<>(queueCapacity),
+                    runnable -> {
+                        Thread thread = new Thread(runnable, "verification-" + threadNumber.incrementAndGet());
+                        thread.setDaemon(true);
+                        return thread;
+                    },
+                    new ThreadPoolExecutor.CallerRunsPolicy());
+            executor.allowCoreThreadTimeOut(true);
+            log.info("parallel verification with [{}] threads", parallelism);
+        }
     }
 
+    @PreDestroy
+    public void shutdown() {
+        if (executor != null) {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * A run with exactly the same layout, links and products as an earlier run returns the result of that run.
+     */
     public VerificationRunResult verifyRun(LayoutMetaBlock layoutMetaBlock, Set<Artifact> productsToVerify) {
-        
-        List<VerificationContext> possibleVerificationContexts = verificationContextsProvider
-                .createPossibleVerificationContexts(layoutMetaBlock, productsToVerify);
-
-        List<VerificationRunResult> verificationRunResults = possibleVerificationContexts
-                .stream()
-                .map(context -> verifications
-                        .stream()
-                        .map(verification -> verification.verify(context))
-                        .filter(result -> !result.isRunIsValid())
-                        .findFirst().orElse(VerificationRunResult
-                                .builder()
-                                .runIsValid(true)
-                                .validLinkMetaBlocks(context.getOriginalLinkMetaBlocks())
-                                .build())
-                ).collect(Collectors.toList());
-
-        return verificationRunResults
-                .stream()
-                .map(verificationRunResult -> {
-                    log.info("context validity: {}", verificationRunResult.isRunIsValid());
+        CompiledLayout compiledLayout = compiledLayoutCache.get(layoutMetaBlock);
+        List<LinkMetaBlock> linkMetaBlocks = linkMetaBlockRepository.findBySupplyChainId(layoutMetaBlock.getSupplyChainId());
+        String resultKey = verificationResultCache.createKey(compiledLayout, linkMetaBlocks, productsToVerify);
+        return verificationResultCache.get(resultKey).orElseGet(() -> verificationBudget.admit(layoutMetaBlock.getSupplyChainId(), () -> {
+            VerificationRunResult verificationRunResult = verifyRun(compiledLayout, linkMetaBlocks, productsToVerify);
+            // a cancelled run is not a result of its input
+            if (!Thread.currentThread().isInterrupted()) {
+                verificationResultCache.put(layoutMetaBlock.getSupplyChainId(), resultKey, verificationRunResult);
+            }
+            return verificationRunResult;
+        }));
+    }
+
+    private VerificationRunResult verifyRun(CompiledLayout compiledLayout, List<LinkMetaBlock> linkMetaBlocks, Set<Artifact> productsToVerify) {
+        long startNanos = System.nanoTime();
+        String supplyChainId = compiledLayout.getSupplyChainId();
+        Iterator<VerificationContext> possibleVerificationContexts = verificationContextsProvider
+                .createPossibleVerificationContexts(compiledLayout, linkMetaBlocks, productsToVerify).iterator();
+        if (executor == null) {
+            return verifySequential(supplyChainId, startNanos, possibleVerificationContexts);
+        } else {
+            return verifyParallel(supplyChainId, startNanos, possibleVerificationContexts);
+        }
+    }
+
+    private VerificationRunResult verifySequential(String supplyChainId, long startNanos, Iterator<VerificationContext> possibleVerificationContexts) {
+        while (possibleVerificationContexts.hasNext()) {
+            verificationBudget.checkDeadline(supplyChainId, startNanos);
+            VerificationRunResult verificationRunResult = verify(possibleVerificationContexts.next());
+            if (verificationRunResult.isRunIsValid()) {
+                return verificationRunResult;
+            }
+        }
+        return VerificationRunResult.valid(false);
+    }
+
+    /*
+     * At most parallelism contexts are in flight for a run. The results are consumed in the
+     * order of the contexts so the first valid context is the same as in a sequential run,
+     * all contexts still in flight are cancelled as soon as it is found or the deadline of the run passes.
+     */
+    private VerificationRunResult verifyParallel(String supplyChainId, long startNanos, Iterator<VerificationContext> possibleVerificationContexts) {
+        Deque<Future<VerificationRunResult>> inFlight = new ArrayDeque<>();
+        try {
+            while (true) {
+                while (inFlight.size() < parallelism && possibleVerificationContexts.hasNext()) {
+                    VerificationContext context = possibleVerificationContexts.next();
+                    inFlight.add(executor.submit(LogContexts.withCurrentLogContext(() -> verify(context))));
+                }
+                if (inFlight.isEmpty()) {
+                    return VerificationRunResult.valid(false);
+                }
+                VerificationRunResult verificationRunResult = inFlight.poll()
+                        .get(verificationBudget.remainingNanos(startNanos), TimeUnit.NANOSECONDS);
+                if (verificationRunResult.isRunIsValid()) {
                     return verificationRunResult;
-                })
-                .filter(VerificationRunResult::isRunIsValid)
-                .findFirst().orElse(VerificationRunResult.valid(false));
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new VerificationError("verification interrupted", e);
+        } catch (ExecutionException e) {
+            throw new VerificationError(e.getCause().getMessage(), e.getCause());
+        } catch (TimeoutException e) {
+            throw verificationBudget.deadlineExceeded(supplyChainId);
+        } finally {
+            inFlight.forEach(future -> future.cancel(true));
+        }
+    }
+
+    private VerificationRunResult verify(VerificationContext context) {
+        for (Verification verification : verifications) {
+            if (Thread.currentThread().isInterrupted()) {
+                log.info("verification of context cancelled");
+                return VerificationRunResult.valid(false);
+            }
+            if (verification.getPriority() == Verification.Priority.RULES && context.isRulesVerified()) {
+                continue;
+            }
+            VerificationRunResult result = verification.verify(context);
+            if (!result.isRunIsValid()) {
+                log.info("context validity: false");
+                return result;
+            }
+        }
+        log.info("context validity: true");
+        return VerificationRunResult
+                .builder()
+                .runIsValid(true)
+                .validLinkMetaBlocks(context.getOriginalLinkMetaBlocks())
+                .build();
     }
     
     /* Check if all expected end products Match Rules are used */
@@ -0,0 +1,177 @@
+/*
+ * Argos Notary - A new way to secure the Software Supply Chain
+ *
+ * Copyright (C) 2019 - 2020 Rabobank Nederland
+ * Copyright (C) 2019 - 2021 Gerard Borst <gerard.borst@argosnotary.com>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package com.argosnotary.argos.service.domain.verification;
+
+import com.argosnotary.argos.domain.crypto.Signature;
+import com.argosnotary.argos.domain.link.Artifact;
+import com.argosnotary.argos.domain.link.LinkMetaBlock;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.AccessLevel;
+import lombok.RequiredArgsConstructor;
+import lombok.Setter;
+import lombok.extern.slf4j.Slf4j;
+
+import org.apache.commons.codec.binary.Hex;
+import org.apache.commons.codec.digest.DigestUtils;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.nio.ByteBuffer;
+import java.security.MessageDigest;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Stream;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.util.stream.Collectors.toList;
+
+/**
+ * Memoized verification run results. A result is keyed by the digest of the signed layout, the sorted digests
+ * of the signed links of the supply chain and the artifacts to verify, so a result is only reused for exactly
+ * the same input. The results of a supply chain are evicted when its links or layout change, the optional
+ * persistent tier shares the results between instances.
+ */
+@Component
+@Slf4j
+public class VerificationResultCache {
+
+    private static final String METRIC_NAME = "argos.verification.result.cache";
+
+    private final VerificationResultRepository verificationResultRepository;
+
+    @Setter(AccessLevel.PACKAGE)
+    @Value("${verification.resultCache.size:1000}")
+    private int maxSize = 1000;
+
+    @Setter(AccessLevel.PACKAGE)
+    @Value("${verification.resultCache.persistent:false}")
+    private boolean persistent;
+
+    private final Map<String, CacheEntry> results = new LinkedHashMap<>(16, 0.75f, true) {
+        private static final long serialVersionUID = 1L;
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, CacheEntry> eldest) {
+            return size() > maxSize;
+        }
+    };
+
+    private final Counter hits;
+    private final Counter persistentHits;
+    private final Counter misses;
+
+    public VerificationResultCache(MeterRegistry meterRegistry, VerificationResultRepository verificationResultRepository) {
+        this.verificationResultRepository = verificationResultRepository;
+        hits = Counter.builder(METRIC_NAME).tag("result", "hit").register(meterRegistry);
+        persistentHits = Counter.builder(METRIC_NAME).tag("result", "persistentHit").register(meterRegistry);
+        misses = Counter.builder(METRIC_NAME).tag("result", "miss").register(meterRegistry);
+        Gauge.builder(METRIC_NAME + ".size", this, VerificationResultCache::size).register(meterRegistry);
+    }
+
+    public String createKey(CompiledLayout compiledLayout, Collection<LinkMetaBlock> linkMetaBlocks, Set<Artifact> artifacts) {
+        MessageDigest digest = DigestUtils.getSha256Digest();
+        update(digest, List.of(compiledLayout.getLayoutDigest()));
+        updateSorted(digest, compiledLayout.getLayoutMetaBlock().getSignatures().stream().map(VerificationResultCache::toKeyPart));
+        updateSorted(digest, linkMetaBlocks.stream()
+                .map(linkMetaBlock -> linkMetaBlock.getLink().getContentDigest() + toKeyPart(linkMetaBlock.getSignature())));
+        updateSorted(digest, artifacts.stream().map(artifact -> artifact.getUri() + "\u0000" + artifact.getHash()));
+        return Hex.encodeHexString(digest.digest());
+    }
+
+    public Optional<VerificationRunResult> get(String key) {
+        CacheEntry entry;
+        synchronized (results) {
+            entry = results.get(key);
+        }
+        if (entry != null) {
+            hits.increment();
+            return Optional.of(entry.verificationRunResult);
+        }
+        if (persistent) {
+            Optional<VerificationRunResult> storedResult = verificationResultRepository.findByKey(key);
+            if (storedResult.isPresent()) {
+                persistentHits.increment();
+                return storedResult;
+            }
+        }
+        misses.increment();
+        return Optional.empty();
+    }
+
+    public void put(String supplyChainId, String key, VerificationRunResult verificationRunResult) {
+        synchronized (results) {
+            results.put(key, new CacheEntry(supplyChainId, verificationRunResult));
+        }
+        if (persistent) {
+            verificationResultRepository.save(supplyChainId, key, verificationRunResult);
+        }
+    }
+
+    public void evict(String supplyChainId) {
+        log.debug("evict verification results of supply chain [{}]", supplyChainId);
+        synchronized (results) {
+            results.values().removeIf(entry -> entry.supplyChainId.equals(supplyChainId));
+        }
+        if (persistent) {
+            verificationResultRepository.deleteBySupplyChainId(supplyChainId);
+        }
+    }
+
+    int size() {
+        synchronized (results) {
+            return results.size();
+        }
+    }
+
+    private static String toKeyPart(Signature signature) {
+        return "\u0000" + signature.getKeyId() + "\u0000" + signature.getSignature()
+                + "\u0000" + signature.getKeyAlgorithm() + "\u0000" + signature.getHashAlgorithm();
+    }
+
+    /*
+     * The parts are sorted so the key does not depend on the order in which they are stored, each part
+     * is prefixed with its length so the boundaries between parts are part of the key.
+     */
+    private static void updateSorted(MessageDigest digest, Stream<String> parts) {
+        update(digest, parts.sorted().collect(toList()));
+    }
+
+    private static void update(MessageDigest digest, List<String> parts) {
+        digest.update(ByteBuffer.allocate(Integer.BYTES).putInt(parts.size()).array());
+        for (String part : parts) {
+            byte[] bytes = part.getBytes(UTF_8);
+            digest.update(ByteBuffer.allocate(Integer.BYTES).putInt(bytes.length).array());
+            digest.update(bytes);
+        }
+    }
+
+    @RequiredArgsConstructor
+    private static class CacheEntry {
+        private final String supplyChainId;
+        private final VerificationRunResult verificationRunResult;
+    }
+}
@@ -24,17 +24,14 @@ import com.argosnotary.argos.domain.layout.rule.Rule;
 import com.argosnotary.argos.domain.layout.rule.RuleType;
 import com.argosnotary.argos.domain.link.Artifact;
 import com.argosnotary.argos.domain.link.Link;
-import com.argosnotary.argos.service.domain.verification.ArtifactsVerificationContext;
+import com.argosnotary.argos.service.domain.verification.ArtifactTable;
 
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Component;
 
+import java.util.BitSet;
 import java.util.Set;
-import java.util.stream.Collectors;
 
-import static com.argosnotary.argos.domain.layout.ArtifactType.PRODUCTS;
-
-import java.util.HashSet;
 import java.util.Optional;
 
 @Slf4j
@@ -53,15 +50,9 @@ public class MatchRuleVerification implements RuleVerification {
         Optional<Link> optionalLink = context.getLinkByStepName(rule.getDestinationStepName());
         
         if (optionalLink.isPresent()) {
-            Link link = optionalLink.get();
-            Set<Artifact> filteredDestinationArtifacts = null;
-            if (rule.getDestinationType() == PRODUCTS) {
-                filteredDestinationArtifacts = new HashSet<>(link.getProducts());                
-            } else {
-                filteredDestinationArtifacts = new HashSet<>(link.getMaterials());
-            }
-            filteredDestinationArtifacts = ArtifactsVerificationContext.filterArtifacts(filteredDestinationArtifacts, rule.getPattern(), rule.getDestinationPathPrefix());
-            if (verifyArtifacts(filteredArtifacts, filteredDestinationArtifacts)) {
+            ArtifactTable destinationArtifacts = ArtifactTable.of(optionalLink.get(), rule.getDestinationType());
+            BitSet filteredDestinationArtifactIds = destinationArtifacts.filter(rule.getPattern(), rule.getDestinationPathPrefix(), new BitSet());
+            if (verifyArtifacts(filteredArtifacts, destinationArtifacts, filteredDestinationArtifactIds)) {
                 context.consume(filteredArtifacts);
                 logInfo(log, filteredArtifacts);
                 return true;
@@ -75,14 +66,11 @@ public class MatchRuleVerification implements RuleVerification {
         }
     }
 
-    private boolean verifyArtifacts(Set<Artifact> filteredSourceArtifacts, Set<Artifact> filteredDestinationArtifacts) {
+    private boolean verifyArtifacts(Set<Artifact> filteredSourceArtifacts, ArtifactTable destinationArtifacts, BitSet filteredDestinationArtifactIds) {
         return filteredSourceArtifacts
                 .stream()
                 .map(Artifact::getHash)
-                .allMatch(filteredDestinationArtifacts
-                        .stream()
-                        .map(Artifact::getHash)
-                        .collect(Collectors.toSet())::contains);
+                .allMatch(hash -> destinationArtifacts.containsHash(filteredDestinationArtifactIds, hash));
     }    
 
 }
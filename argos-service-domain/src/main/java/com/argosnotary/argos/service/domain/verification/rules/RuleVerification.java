@@ -27,6 +27,10 @@ import com.argosnotary.argos.domain.link.Artifact;
 
 import org.slf4j.Logger;
 
+/**
+ * Implementations are shared by all verifications and can verify the steps of a context
+ * concurrently, all state of a verification is kept in the given context.
+ */
 public interface RuleVerification {
     
     RuleType getRuleType();
@@ -33,6 +33,8 @@ import com.argosnotary.argos.service.domain.layout.LayoutMetaBlockRepository;
 import com.argosnotary.argos.service.domain.layout.ReleaseConfigurationRepository;
 import com.argosnotary.argos.service.domain.link.LinkMetaBlockRepository;
 import com.argosnotary.argos.service.domain.supplychain.SupplyChainRepository;
+import com.argosnotary.argos.service.domain.verification.CompiledLayoutCache;
+import com.argosnotary.argos.service.domain.verification.VerificationResultCache;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -69,6 +71,12 @@ class DeleteServiceTest {
     @Mock
     private ApprovalConfigurationRepository approvalConfigurationRepository;
 
+    @Mock
+    private VerificationResultCache verificationResultCache;
+
+    @Mock
+    private CompiledLayoutCache compiledLayoutCache;
+
     @Mock
     private SupplyChainRepository supplyChainRepository;
 
@@ -99,7 +107,7 @@ class DeleteServiceTest {
 
     @BeforeEach
     void setUp() {
-        service = new DeleteService(labelRepository, layoutRepository, linkMetaBlockRepository, approvalConfigurationRepository, supplyChainRepository, hierarchyService, accountService, releaseConfigurationRepository);
+        service = new DeleteService(labelRepository, layoutRepository, linkMetaBlockRepository, approvalConfigurationRepository, supplyChainRepository, hierarchyService, accountService, releaseConfigurationRepository, verificationResultCache, compiledLayoutCache);
     }
     
     @Test
@@ -163,6 +171,8 @@ class DeleteServiceTest {
         verify(linkMetaBlockRepository).deleteBySupplyChainId(ID);
         verify(approvalConfigurationRepository).deleteBySupplyChainId(ID);
         verify(releaseConfigurationRepository).deleteBySupplyChainId(ID);
+        verify(verificationResultCache).evict(ID);
+        verify(compiledLayoutCache).evict(ID);
     }
 
     @Test
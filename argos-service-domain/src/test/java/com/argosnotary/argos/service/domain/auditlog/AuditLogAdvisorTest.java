@@ -21,16 +21,17 @@ package com.argosnotary.argos.service.domain.auditlog;
 
 import com.argosnotary.argos.domain.hierarchy.HierarchyMode;
 import com.argosnotary.argos.domain.hierarchy.TreeNode;
+import com.argosnotary.argos.domain.permission.Permission;
 import com.argosnotary.argos.service.domain.hierarchy.HierarchyRepository;
 import com.argosnotary.argos.service.domain.security.LocalPermissionCheckData;
 import com.argosnotary.argos.service.domain.security.LocalPermissionCheckDataExtractor;
 import com.argosnotary.argos.service.domain.security.PermissionCheck;
-import com.argosnotary.argos.service.domain.util.reflection.ParameterData;
 import com.argosnotary.argos.service.domain.util.reflection.ReflectionHelper;
 import lombok.Builder;
 import lombok.Data;
 import org.aspectj.lang.JoinPoint;
 import org.aspectj.lang.reflect.MethodSignature;
+import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -38,6 +39,7 @@ import org.mockito.ArgumentCaptor;
 import org.mockito.Captor;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.slf4j.MDC;
 import org.springframework.context.ApplicationContext;
 
 import java.lang.reflect.Method;
@@ -45,12 +47,13 @@ import java.util.Collections;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.Optional;
-import java.util.stream.Stream;
+import java.util.concurrent.atomic.AtomicReference;
 
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.startsWith;
 import static org.mockito.ArgumentMatchers.any;
-import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
@@ -60,7 +63,6 @@ class AuditLogAdvisorTest {
     private static final String STRING_ARGUMENT_VALUE = "argumentValue";
     private static final String ARGUMENT_NAME = "argumentName";
     private static final String BEAN_NAME = "beanName";
-    private static final String METHOD_NAME = "methodName";
     private static final String STRING_RETURN_VALUE = "stringReturnValue";
     private static final String VALUE_STRINGVALUE = "{\"value\":\"stringvalue\"}";
     private static final String FILTERED_VALUE = "{\"value\":\"value\"}";
@@ -70,39 +72,22 @@ class AuditLogAdvisorTest {
     protected static final String MRBEAN = "mrbean";
     @Mock
     private ApplicationContext applicationContext;
-    @Mock
-    private ReflectionHelper reflectionHelper;
 
-    @Mock(lenient = true)
+    @Mock
     private JoinPoint joinPoint;
 
     @Mock
     private MethodSignature signature;
 
     @Mock
-    private Method method;
-
-    @Mock(lenient = true)
     private ArgumentSerializer argumentSerializer;
 
-    @Mock
-    private AuditLog auditLog;
-
-    @Mock
-    private AuditParam auditParam;
-
     @Captor
     private ArgumentCaptor<AuditLogData> serializerArgumentCaptor;
 
     private AuditLogAdvisor auditLogAdvisor;
 
-    private static final Object[] STRING_ARGUMENT_VALUES = {STRING_ARGUMENT_VALUE};
-
-    @Mock
-    private ParameterData<AuditParam, Object> parameterData;
-
-    @Mock
-    private PermissionCheck permissionCheck;
+    private static final Object[] STRING_ARGUMENT_VALUES = {STRING_ARGUMENT_VALUE, "notAudited"};
 
     @Mock
     private LocalPermissionCheckDataExtractor localPermissionCheckDataExtractor;
@@ -121,119 +106,177 @@ class AuditLogAdvisorTest {
 
     @BeforeEach
     void setup() {
-        auditLogAdvisor = new AuditLogAdvisor(applicationContext, reflectionHelper, hierarchyRepository);
+        auditLogAdvisor = new AuditLogAdvisor(applicationContext, new ReflectionHelper(), hierarchyRepository);
         when(joinPoint.getSignature()).thenReturn(signature);
+        when(applicationContext.getBean(BEAN_NAME, ArgumentSerializer.class)).thenReturn(argumentSerializer);
+    }
 
-
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        auditLogAdvisor.shutdown();
+        MDC.clear();
     }
 
     @Test
-    void auditLogWithStringArgument() {
+    void auditLogWithStringArgument() throws NoSuchMethodException {
+        Method method = mockMethod("withString", String.class, String.class);
         when(joinPoint.getArgs()).thenReturn(STRING_ARGUMENT_VALUES);
-        when(auditParam.value()).thenReturn(ARGUMENT_NAME);
-        when(auditLog.argumentSerializerBeanName()).thenReturn(BEAN_NAME);
-        when(applicationContext.getBean(BEAN_NAME, ArgumentSerializer.class)).thenReturn(argumentSerializer);
-        when(parameterData.getAnnotation()).thenReturn(auditParam);
-        when(parameterData.getValue()).thenReturn(STRING_ARGUMENT_VALUE);
-        when(signature.getMethod()).thenReturn(method);
-        when(method.getName()).thenReturn(METHOD_NAME);
-        when(reflectionHelper.getParameterDataByAnnotation(method, AuditParam.class, STRING_ARGUMENT_VALUES)).thenReturn(Stream.of(parameterData));
-        auditLogAdvisor.auditLog(joinPoint, auditLog, STRING_RETURN_VALUE);
+        auditLogAdvisor.auditLog(joinPoint, method.getAnnotation(AuditLog.class), STRING_RETURN_VALUE);
         verify(argumentSerializer, times(1)).serialize(serializerArgumentCaptor.capture());
         AuditLogData auditLogData = serializerArgumentCaptor.getValue();
-        assertThat(auditLogData.getMethodName(), is(METHOD_NAME));
+        assertThat(auditLogData.getMethodName(), is("withString"));
         assertThat(auditLogData.getReturnValue(), is(STRING_RETURN_VALUE));
-        assertThat(auditLogData.getArgumentData().isEmpty(), is(false));
+        assertThat(auditLogData.getArgumentData().size(), is(1));
         assertThat(auditLogData.getArgumentData().get(ARGUMENT_NAME), is(STRING_ARGUMENT_VALUE));
+        assertThat(auditLogData.getPaths().isEmpty(), is(true));
     }
 
     @Test
-    void auditLogWithObjectArgument() {
+    void auditLogWithObjectArgument() throws NoSuchMethodException {
+        Method method = mockMethod("withObject", ArgumentValue.class);
         ArgumentValue argumentValue = ArgumentValue.builder().value("stringValue").build();
-        Object[] argumentvalues = new Object[]{argumentValue};
-        when(joinPoint.getArgs()).thenReturn(argumentvalues);
-        when(auditParam.value()).thenReturn(ARGUMENT_NAME);
-        when(auditParam.objectArgumentFilterBeanName()).thenReturn("");
-        when(auditLog.argumentSerializerBeanName()).thenReturn(BEAN_NAME);
-        when(applicationContext.getBean(BEAN_NAME, ArgumentSerializer.class)).thenReturn(argumentSerializer);
-        when(parameterData.getAnnotation()).thenReturn(auditParam);
-        when(parameterData.getValue()).thenReturn(argumentValue);
-        when(signature.getMethod()).thenReturn(method);
-        when(method.getName()).thenReturn(METHOD_NAME);
+        when(joinPoint.getArgs()).thenReturn(new Object[]{argumentValue});
         when(argumentSerializer.serialize(argumentValue)).thenReturn(VALUE_STRINGVALUE);
-        when(reflectionHelper.getParameterDataByAnnotation(any(), eq(AuditParam.class), any()))
-                .thenReturn(Stream.of(parameterData));
-        auditLogAdvisor.auditLog(joinPoint, auditLog, STRING_RETURN_VALUE);
+        auditLogAdvisor.auditLog(joinPoint, method.getAnnotation(AuditLog.class), STRING_RETURN_VALUE);
         verify(argumentSerializer, times(2)).serialize(serializerArgumentCaptor.capture());
         AuditLogData auditLogData = serializerArgumentCaptor.getValue();
-        assertThat(auditLogData.getMethodName(), is(METHOD_NAME));
+        assertThat(auditLogData.getMethodName(), is("withObject"));
         assertThat(auditLogData.getReturnValue(), is(STRING_RETURN_VALUE));
-        assertThat(auditLogData.getArgumentData().isEmpty(), is(false));
         assertThat(auditLogData.getArgumentData().get(ARGUMENT_NAME), is(VALUE_STRINGVALUE));
     }
 
     @Test
-    void auditLogWithObjectArgumentFilter() {
+    void auditLogWithObjectArgumentFilter() throws NoSuchMethodException {
+        Method method = mockMethod("withFilter", ArgumentValue.class);
         ArgumentValue argumentValue = ArgumentValue.builder().value("stringValue").build();
-        Object[] argumentvalues = new Object[]{argumentValue};
         Map<String, Object> filteredValues = new HashMap<>();
         filteredValues.put("value", "value");
-        when(argumentSerializer.serialize(filteredValues)).thenReturn(FILTERED_VALUE);
-        when(objectArgumentFilter.filterObjectArguments(argumentValue)).thenReturn(filteredValues);
-        when(joinPoint.getArgs()).thenReturn(argumentvalues);
-        when(auditParam.value()).thenReturn(ARGUMENT_NAME);
-        when(auditParam.objectArgumentFilterBeanName()).thenReturn(FILTER_BEAN_NAME);
-        when(auditLog.argumentSerializerBeanName()).thenReturn(BEAN_NAME);
-        when(applicationContext.getBean(BEAN_NAME, ArgumentSerializer.class)).thenReturn(argumentSerializer);
         when(applicationContext.getBean(FILTER_BEAN_NAME, ObjectArgumentFilter.class)).thenReturn(objectArgumentFilter);
-        when(parameterData.getAnnotation()).thenReturn(auditParam);
-        when(parameterData.getValue()).thenReturn(argumentValue);
-        when(signature.getMethod()).thenReturn(method);
-        when(method.getName()).thenReturn(METHOD_NAME);
-        when(argumentSerializer.serialize(argumentValue)).thenReturn(VALUE_STRINGVALUE);
-        when(reflectionHelper.getParameterDataByAnnotation(any(), eq(AuditParam.class), any()))
-                .thenReturn(Stream.of(parameterData));
-        auditLogAdvisor.auditLog(joinPoint, auditLog, STRING_RETURN_VALUE);
+        when(objectArgumentFilter.filterObjectArguments(argumentValue)).thenReturn(filteredValues);
+        when(argumentSerializer.serialize(filteredValues)).thenReturn(FILTERED_VALUE);
+        when(joinPoint.getArgs()).thenReturn(new Object[]{argumentValue});
+        auditLogAdvisor.auditLog(joinPoint, method.getAnnotation(AuditLog.class), STRING_RETURN_VALUE);
         verify(argumentSerializer, times(2)).serialize(serializerArgumentCaptor.capture());
         AuditLogData auditLogData = serializerArgumentCaptor.getValue();
-        assertThat(auditLogData.getMethodName(), is(METHOD_NAME));
         assertThat(auditLogData.getReturnValue(), is(STRING_RETURN_VALUE));
-        assertThat(auditLogData.getArgumentData().isEmpty(), is(false));
         assertThat(auditLogData.getArgumentData().get(ARGUMENT_NAME), is(FILTERED_VALUE));
     }
 
     @Test
-    void auditLogWithOptionalPath() {
+    void auditLogWithOptionalPath() throws NoSuchMethodException {
+        Method method = mockMethod("withPermissionCheck", String.class, String.class);
         when(joinPoint.getArgs()).thenReturn(STRING_ARGUMENT_VALUES);
-        when(method.getAnnotation(PermissionCheck.class)).thenReturn(permissionCheck);
-        when(permissionCheck.localPermissionDataExtractorBean()).thenReturn(MRBEAN);
         when(applicationContext.getBean(MRBEAN, LocalPermissionCheckDataExtractor.class)).thenReturn(localPermissionCheckDataExtractor);
-        when(localPermissionCheckDataExtractor.extractLocalPermissionCheckData(any(), any())).thenReturn(localPermissionCheckData);
+        when(localPermissionCheckDataExtractor.extractLocalPermissionCheckData(method, STRING_ARGUMENT_VALUES)).thenReturn(localPermissionCheckData);
         when(localPermissionCheckData.getLabelIds()).thenReturn(Collections.singleton(LABEL_ID));
         when(hierarchyRepository.getSubTree(LABEL_ID, HierarchyMode.NONE, 0)).thenReturn(Optional.of(treeNode));
         when(treeNode.getName()).thenReturn("name");
         when(treeNode.getPathToRoot()).thenReturn(Collections.singletonList(PATH));
-        when(auditParam.value()).thenReturn(ARGUMENT_NAME);
-        when(auditLog.argumentSerializerBeanName()).thenReturn(BEAN_NAME);
-        when(applicationContext.getBean(BEAN_NAME, ArgumentSerializer.class)).thenReturn(argumentSerializer);
-        when(parameterData.getAnnotation()).thenReturn(auditParam);
-        when(parameterData.getValue()).thenReturn(STRING_ARGUMENT_VALUE);
-        when(signature.getMethod()).thenReturn(method);
-        when(method.getName()).thenReturn(METHOD_NAME);
-        when(reflectionHelper.getParameterDataByAnnotation(method, AuditParam.class, STRING_ARGUMENT_VALUES)).thenReturn(Stream.of(parameterData));
-        auditLogAdvisor.auditLog(joinPoint, auditLog, STRING_RETURN_VALUE);
+        auditLogAdvisor.auditLog(joinPoint, method.getAnnotation(AuditLog.class), STRING_RETURN_VALUE);
         verify(argumentSerializer, times(1)).serialize(serializerArgumentCaptor.capture());
         AuditLogData auditLogData = serializerArgumentCaptor.getValue();
-        assertThat(auditLogData.getMethodName(), is(METHOD_NAME));
-        assertThat(auditLogData.getReturnValue(), is(STRING_RETURN_VALUE));
-        assertThat(auditLogData.getArgumentData().isEmpty(), is(false));
+        assertThat(auditLogData.getMethodName(), is("withPermissionCheck"));
         assertThat(auditLogData.getPaths().get(0), is("path/name"));
         assertThat(auditLogData.getArgumentData().get(ARGUMENT_NAME), is(STRING_ARGUMENT_VALUE));
     }
 
+    @Test
+    void beansAreLookedUpOncePerMethod() throws NoSuchMethodException {
+        Method method = mockMethod("withString", String.class, String.class);
+        when(joinPoint.getArgs()).thenReturn(STRING_ARGUMENT_VALUES);
+        auditLogAdvisor.auditLog(joinPoint, method.getAnnotation(AuditLog.class), STRING_RETURN_VALUE);
+        auditLogAdvisor.auditLog(joinPoint, method.getAnnotation(AuditLog.class), STRING_RETURN_VALUE);
+        verify(argumentSerializer, times(2)).serialize(any(AuditLogData.class));
+        verify(applicationContext, times(1)).getBean(BEAN_NAME, ArgumentSerializer.class);
+    }
+
+    @Test
+    void auditLogWrittenOnAuditLogThread() throws NoSuchMethodException, InterruptedException {
+        auditLogAdvisor.setPipelineThreads(1);
+        auditLogAdvisor.init();
+        Method method = mockMethod("withString", String.class, String.class);
+        when(joinPoint.getArgs()).thenReturn(STRING_ARGUMENT_VALUES);
+        AtomicReference<String> threadName = new AtomicReference<>();
+        AtomicReference<String> traceId = new AtomicReference<>();
+        doAnswer(invocation -> {
+            threadName.set(Thread.currentThread().getName());
+            traceId.set(MDC.get("traceId"));
+            return "auditLog";
+        }).when(argumentSerializer).serialize(any(AuditLogData.class));
+        MDC.put("traceId", "traceId");
+
+        auditLogAdvisor.auditLog(joinPoint, method.getAnnotation(AuditLog.class), STRING_RETURN_VALUE);
+        auditLogAdvisor.shutdown();
+
+        verify(argumentSerializer).serialize(serializerArgumentCaptor.capture());
+        assertThat(serializerArgumentCaptor.getValue().getArgumentData().get(ARGUMENT_NAME), is(STRING_ARGUMENT_VALUE));
+        assertThat(threadName.get(), startsWith("audit-log-"));
+        assertThat(traceId.get(), is("traceId"));
+    }
+
+    @Test
+    void auditLogFailureOnAuditLogThreadIsNotPropagated() throws NoSuchMethodException, InterruptedException {
+        auditLogAdvisor.setPipelineThreads(1);
+        auditLogAdvisor.init();
+        Method method = mockMethod("withString", String.class, String.class);
+        when(joinPoint.getArgs()).thenReturn(STRING_ARGUMENT_VALUES);
+        when(argumentSerializer.serialize(any(AuditLogData.class))).thenThrow(new IllegalStateException("failed"));
+        auditLogAdvisor.auditLog(joinPoint, method.getAnnotation(AuditLog.class), STRING_RETURN_VALUE);
+        auditLogAdvisor.shutdown();
+        verify(argumentSerializer).serialize(any(AuditLogData.class));
+    }
+
+    @Test
+    void auditLogAfterShutdownWrittenOnCallingThread() throws NoSuchMethodException, InterruptedException {
+        auditLogAdvisor.setPipelineThreads(1);
+        auditLogAdvisor.init();
+        auditLogAdvisor.shutdown();
+        Method method = mockMethod("withString", String.class, String.class);
+        when(joinPoint.getArgs()).thenReturn(STRING_ARGUMENT_VALUES);
+        AtomicReference<String> threadName = new AtomicReference<>();
+        doAnswer(invocation -> {
+            threadName.set(Thread.currentThread().getName());
+            return "auditLog";
+        }).when(argumentSerializer).serialize(any(AuditLogData.class));
+
+        auditLogAdvisor.auditLog(joinPoint, method.getAnnotation(AuditLog.class), STRING_RETURN_VALUE);
+
+        verify(argumentSerializer).serialize(any(AuditLogData.class));
+        assertThat(threadName.get(), is(Thread.currentThread().getName()));
+    }
+
+    private Method mockMethod(String name, Class<?>... parameterTypes) throws NoSuchMethodException {
+        Method method = AuditedService.class.getMethod(name, parameterTypes);
+        when(signature.getMethod()).thenReturn(method);
+        return method;
+    }
+
     @Data
     @Builder
     public static class ArgumentValue {
         private String value;
     }
-}
\ No newline at end of file
+
+    public static class AuditedService {
+        @AuditLog(argumentSerializerBeanName = BEAN_NAME)
+        public String withString(@AuditParam(ARGUMENT_NAME) String argument, String notAudited) {
+            return STRING_RETURN_VALUE;
+        }
+
+        @AuditLog(argumentSerializerBeanName = BEAN_NAME)
+        public String withObject(@AuditParam(ARGUMENT_NAME) ArgumentValue argument) {
+            return STRING_RETURN_VALUE;
+        }
+
+        @AuditLog(argumentSerializerBeanName = BEAN_NAME)
+        public String withFilter(@AuditParam(value = ARGUMENT_NAME, objectArgumentFilterBeanName = FILTER_BEAN_NAME) ArgumentValue argument) {
+            return STRING_RETURN_VALUE;
+        }
+
+        @AuditLog(argumentSerializerBeanName = BEAN_NAME)
+        @PermissionCheck(permissions = Permission.READ, localPermissionDataExtractorBean = MRBEAN)
+        public String withPermissionCheck(@AuditParam(ARGUMENT_NAME) String argument, String notAudited) {
+            return STRING_RETURN_VALUE;
+        }
+    }
+}
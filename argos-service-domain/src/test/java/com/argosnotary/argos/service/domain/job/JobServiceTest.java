@@ -0,0 +1,193 @@
+/*
+ * Argos Notary - A new way to secure the Software Supply Chain
+ *
+ * Copyright (C) 2019 - 2020 Rabobank Nederland
+ * Copyright (C) 2019 - 2021 Gerard Borst <gerard.borst@argosnotary.com>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package com.argosnotary.argos.service.domain.job;
+
+import com.argosnotary.argos.domain.layout.LayoutMetaBlock;
+import com.argosnotary.argos.domain.link.Artifact;
+import com.argosnotary.argos.domain.release.ReleaseResult;
+import com.argosnotary.argos.service.domain.release.ReleaseService;
+import com.argosnotary.argos.service.domain.verification.VerificationProvider;
+import com.argosnotary.argos.service.domain.verification.VerificationRejectedException;
+import com.argosnotary.argos.service.domain.verification.VerificationRunResult;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.sameInstance;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class JobServiceTest {
+
+    private static final String SUPPLY_CHAIN_ID = "supplyChainId";
+    private static final String JOB_ID = "jobId";
+
+    @Mock
+    private JobRepository jobRepository;
+
+    @Mock
+    private VerificationProvider verificationProvider;
+
+    @Mock
+    private ReleaseService releaseService;
+
+    @Mock
+    private LayoutMetaBlock layoutMetaBlock;
+
+    private final Set<Artifact> artifacts = Set.of(new Artifact("uri", "hash"));
+
+    private JobService jobService;
+
+    @BeforeEach
+    void setUp() {
+        jobService = new JobService(jobRepository, verificationProvider, releaseService);
+        jobService.setWorkers(1);
+        jobService.setQueueCapacity(1);
+        jobService.init();
+    }
+
+    @AfterEach
+    void tearDown() {
+        jobService.shutdown();
+    }
+
+    @Test
+    void submitVerification() {
+        VerificationRunResult verificationRunResult = VerificationRunResult.okay();
+        when(layoutMetaBlock.getSupplyChainId()).thenReturn(SUPPLY_CHAIN_ID);
+        when(verificationProvider.verifyRun(layoutMetaBlock, artifacts)).thenReturn(verificationRunResult);
+
+        Job job = jobService.submitVerification(layoutMetaBlock, artifacts);
+        assertThat(job.getType(), is(JobType.VERIFICATION));
+        assertThat(job.getSupplyChainId(), is(SUPPLY_CHAIN_ID));
+        verify(jobRepository, timeout(1000)).save(argThat(savedJob -> savedJob.getStatus() == JobStatus.DONE
+                && savedJob.getJobId().equals(job.getJobId())
+                && savedJob.getVerificationRunResult() == verificationRunResult));
+        verify(jobRepository, times(3)).save(any());
+    }
+
+    @Test
+    void submitRelease() {
+        ReleaseResult releaseResult = ReleaseResult.builder().releaseIsValid(true).build();
+        List<Set<Artifact>> releaseArtifacts = List.of(artifacts);
+        when(releaseService.createRelease(SUPPLY_CHAIN_ID, releaseArtifacts)).thenReturn(releaseResult);
+
+        Job job = jobService.submitRelease(SUPPLY_CHAIN_ID, releaseArtifacts);
+        assertThat(job.getType(), is(JobType.RELEASE));
+        assertThat(job.getStatus(), is(JobStatus.QUEUED));
+        verify(jobRepository, timeout(1000)).save(argThat(savedJob -> savedJob.getStatus() == JobStatus.DONE
+                && savedJob.getReleaseResult() == releaseResult));
+    }
+
+    @Test
+    void submitFailingRelease() {
+        List<Set<Artifact>> releaseArtifacts = List.of(artifacts);
+        when(releaseService.createRelease(SUPPLY_CHAIN_ID, releaseArtifacts)).thenThrow(new IllegalStateException("failure"));
+
+        jobService.submitRelease(SUPPLY_CHAIN_ID, releaseArtifacts);
+        verify(jobRepository, timeout(1000)).save(argThat(savedJob -> savedJob.getStatus() == JobStatus.FAILED
+                && "failure".equals(savedJob.getError())));
+    }
+
+    @Test
+    void submitWithFullQueue() throws InterruptedException {
+        CountDownLatch running = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        List<Set<Artifact>> releaseArtifacts = List.of(artifacts);
+        when(releaseService.createRelease(SUPPLY_CHAIN_ID, releaseArtifacts)).thenAnswer(invocation -> {
+            running.countDown();
+            release.await();
+            return ReleaseResult.builder().build();
+        });
+        jobService.submitRelease(SUPPLY_CHAIN_ID, releaseArtifacts);
+        running.await();
+        jobService.submitRelease(SUPPLY_CHAIN_ID, releaseArtifacts);
+
+        VerificationRejectedException exception = assertThrows(VerificationRejectedException.class,
+                () -> jobService.submitRelease(SUPPLY_CHAIN_ID, releaseArtifacts));
+        assertThat(exception.getReason(), is(VerificationRejectedException.Reason.BUSY));
+        verify(jobRepository).save(argThat(savedJob -> savedJob.getStatus() == JobStatus.FAILED));
+        release.countDown();
+    }
+
+    @Test
+    void getJob() {
+        Job queued = job(JobStatus.QUEUED, SUPPLY_CHAIN_ID);
+        when(jobRepository.findById(JOB_ID)).thenReturn(Optional.of(queued));
+        assertThat(jobService.getJob(SUPPLY_CHAIN_ID, JOB_ID).get(), sameInstance(queued));
+        verify(jobRepository, times(1)).findById(JOB_ID);
+    }
+
+    @Test
+    void getJobOfOtherSupplyChain() {
+        when(jobRepository.findById(JOB_ID)).thenReturn(Optional.of(job(JobStatus.DONE, "otherSupplyChainId")));
+        assertThat(jobService.getJob(SUPPLY_CHAIN_ID, JOB_ID), is(Optional.empty()));
+    }
+
+    @Test
+    void heartbeatOfRunningJob() throws InterruptedException {
+        CountDownLatch running = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        List<Set<Artifact>> releaseArtifacts = List.of(artifacts);
+        when(releaseService.createRelease(SUPPLY_CHAIN_ID, releaseArtifacts)).thenAnswer(invocation -> {
+            running.countDown();
+            release.await();
+            return ReleaseResult.builder().build();
+        });
+        Job job = jobService.submitRelease(SUPPLY_CHAIN_ID, releaseArtifacts);
+        running.await();
+        jobService.heartbeat();
+        verify(jobRepository).heartbeat(Set.of(job.getJobId()));
+        verify(jobRepository).failExpired(Duration.ofMillis(180000), "job was abandoned by a stopped instance");
+        release.countDown();
+        verify(jobRepository, timeout(1000)).save(argThat(savedJob -> savedJob.getStatus() == JobStatus.DONE));
+    }
+
+    @Test
+    void heartbeatWithoutJobsFailsExpiredJobs() {
+        when(jobRepository.failExpired(any(), any())).thenReturn(1L);
+        jobService.heartbeat();
+        verify(jobRepository, never()).heartbeat(any());
+        verify(jobRepository).failExpired(Duration.ofMillis(180000), "job was abandoned by a stopped instance");
+    }
+
+    private static Job job(JobStatus status, String supplyChainId) {
+        return Job.builder().jobId(JOB_ID).type(JobType.RELEASE).supplyChainId(supplyChainId).status(status).build();
+    }
+}
@@ -0,0 +1,140 @@
+/*
+ * Argos Notary - A new way to secure the Software Supply Chain
+ *
+ * Copyright (C) 2019 - 2020 Rabobank Nederland
+ * Copyright (C) 2019 - 2021 Gerard Borst <gerard.borst@argosnotary.com>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package com.argosnotary.argos.service.domain.link;
+
+import com.argosnotary.argos.domain.crypto.Signature;
+import com.argosnotary.argos.domain.crypto.signing.JsonSigningSerializer;
+import com.argosnotary.argos.domain.layout.Layout;
+import com.argosnotary.argos.domain.layout.LayoutMetaBlock;
+import com.argosnotary.argos.domain.layout.Step;
+import com.argosnotary.argos.domain.link.Artifact;
+import com.argosnotary.argos.domain.link.Link;
+import com.argosnotary.argos.domain.link.LinkFacts;
+import com.argosnotary.argos.domain.link.LinkMetaBlock;
+import com.argosnotary.argos.service.domain.layout.LayoutMetaBlockRepository;
+import com.argosnotary.argos.service.domain.verification.StepAuthorizedKeyIdVerification;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.List;
+import java.util.Optional;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class LinkIngestServiceTest {
+
+    private static final String SUPPLY_CHAIN_ID = "supplyChainId";
+    private static final String KEY_ID = "keyId";
+
+    @Mock
+    private LayoutMetaBlockRepository layoutMetaBlockRepository;
+
+    private LinkIngestService linkIngestService;
+
+    private LinkMetaBlock linkMetaBlock;
+
+    private Layout layout;
+
+    @BeforeEach
+    void setUp() {
+        linkIngestService = new LinkIngestService(layoutMetaBlockRepository, new StepAuthorizedKeyIdVerification());
+        linkMetaBlock = LinkMetaBlock.builder()
+                .supplyChainId(SUPPLY_CHAIN_ID)
+                .signature(Signature.builder().keyId(KEY_ID).build())
+                .link(Link.builder().stepName("build")
+                        .materials(List.of(Artifact.builder().uri("src/Main.java").hash("hash1").build()))
+                        .products(List.of(Artifact.builder().uri("target/app.jar").hash("hash2").build(),
+                                Artifact.builder().uri("target/app.war").hash("hash3").build()))
+                        .build())
+                .build();
+        layout = Layout.builder().steps(List.of(
+                Step.builder().name("build").authorizedKeyIds(List.of(KEY_ID)).build(),
+                Step.builder().name("test").authorizedKeyIds(List.of("otherKeyId")).build()))
+                .build();
+    }
+
+    @Test
+    void ingest() {
+        when(layoutMetaBlockRepository.findBySupplyChainId(SUPPLY_CHAIN_ID))
+                .thenReturn(Optional.of(LayoutMetaBlock.builder().layout(layout).build()));
+        linkIngestService.ingest(linkMetaBlock);
+        LinkFacts facts = linkMetaBlock.getFacts();
+        assertThat(facts.getLinkDigest(), is(new JsonSigningSerializer().digest(linkMetaBlock.getLink())));
+        assertThat(facts.getVerifiedKeyId(), is(KEY_ID));
+        assertThat(facts.getLayoutDigest(), is(new JsonSigningSerializer().digest(layout)));
+        assertThat(facts.isAuthorizedForStep(), is(true));
+        assertThat(facts.getArtifactCount(), is(3));
+    }
+
+    @Test
+    void ingestNotAuthorizedForStep() {
+        linkMetaBlock.getLink().setStepName("test");
+        when(layoutMetaBlockRepository.findBySupplyChainId(SUPPLY_CHAIN_ID))
+                .thenReturn(Optional.of(LayoutMetaBlock.builder().layout(layout).build()));
+        linkIngestService.ingest(linkMetaBlock);
+        assertThat(linkMetaBlock.getFacts().isAuthorizedForStep(), is(false));
+    }
+
+    @Test
+    void ingestStepNotInLayout() {
+        linkMetaBlock.getLink().setStepName("deploy");
+        when(layoutMetaBlockRepository.findBySupplyChainId(SUPPLY_CHAIN_ID))
+                .thenReturn(Optional.of(LayoutMetaBlock.builder().layout(layout).build()));
+        linkIngestService.ingest(linkMetaBlock);
+        assertThat(linkMetaBlock.getFacts().isAuthorizedForStep(), is(false));
+    }
+
+    @Test
+    void ingestWithoutLayout() {
+        when(layoutMetaBlockRepository.findBySupplyChainId(SUPPLY_CHAIN_ID)).thenReturn(Optional.empty());
+        linkIngestService.ingest(linkMetaBlock);
+        assertThat(linkMetaBlock.getFacts().getLayoutDigest(), nullValue());
+        assertThat(linkMetaBlock.getFacts().isAuthorizedForStep(), is(false));
+        assertThat(linkMetaBlock.getFacts().getVerifiedKeyId(), is(KEY_ID));
+    }
+
+    @Test
+    void ingestList() {
+        LinkMetaBlock otherLinkMetaBlock = LinkMetaBlock.builder()
+                .supplyChainId(SUPPLY_CHAIN_ID)
+                .signature(Signature.builder().keyId(KEY_ID).build())
+                .link(Link.builder().stepName("test").build())
+                .build();
+        when(layoutMetaBlockRepository.findBySupplyChainId(SUPPLY_CHAIN_ID))
+                .thenReturn(Optional.of(LayoutMetaBlock.builder().layout(layout).build()));
+        linkIngestService.ingest(SUPPLY_CHAIN_ID, List.of(linkMetaBlock, otherLinkMetaBlock));
+        verify(layoutMetaBlockRepository, times(1)).findBySupplyChainId(SUPPLY_CHAIN_ID);
+        assertThat(linkMetaBlock.getFacts().isAuthorizedForStep(), is(true));
+        assertThat(linkMetaBlock.getFacts().getLayoutDigest(), is(new JsonSigningSerializer().digest(layout)));
+        assertThat(otherLinkMetaBlock.getFacts().isAuthorizedForStep(), is(false));
+        assertThat(otherLinkMetaBlock.getFacts().getLayoutDigest(), is(new JsonSigningSerializer().digest(layout)));
+        assertThat(otherLinkMetaBlock.getFacts().getArtifactCount(), is(0));
+    }
+}
@@ -0,0 +1,67 @@
+/*
+ * Argos Notary - A new way to secure the Software Supply Chain
+ *
+ * Copyright (C) 2019 - 2020 Rabobank Nederland
+ * Copyright (C) 2019 - 2021 Gerard Borst <gerard.borst@argosnotary.com>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package com.argosnotary.argos.service.domain.release;
+
+import com.argosnotary.argos.domain.release.ReleaseDossierMetaData;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.lessThan;
+
+class BloomFilterTest {
+
+    @Test
+    void mightContainShouldFindAllAddedHashes() {
+        BloomFilter bloomFilter = new BloomFilter(1000, 0.01);
+        for (int i = 0; i < 1000; i++) {
+            bloomFilter.put(hash("artifact" + i));
+        }
+        for (int i = 0; i < 1000; i++) {
+            assertThat(bloomFilter.mightContain(hash("artifact" + i)), is(true));
+        }
+    }
+
+    @Test
+    void mightContainShouldHaveLowFalsePositiveRate() {
+        BloomFilter bloomFilter = new BloomFilter(1000, 0.01);
+        for (int i = 0; i < 1000; i++) {
+            bloomFilter.put(hash("artifact" + i));
+        }
+        long falsePositives = 0;
+        for (int i = 0; i < 10000; i++) {
+            if (bloomFilter.mightContain(hash("other" + i))) {
+                falsePositives++;
+            }
+        }
+        assertThat(falsePositives, lessThan(300L));
+    }
+
+    @Test
+    void emptyFilterShouldContainNothing() {
+        assertThat(new BloomFilter(0, 0.01).mightContain(hash("artifact")), is(false));
+    }
+
+    private static String hash(String artifact) {
+        return ReleaseDossierMetaData.createHashFromArtifactList(List.of(artifact));
+    }
+}
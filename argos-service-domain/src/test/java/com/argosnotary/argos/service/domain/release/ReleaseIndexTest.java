@@ -0,0 +1,262 @@
+/*
+ * Argos Notary - A new way to secure the Software Supply Chain
+ *
+ * Copyright (C) 2019 - 2020 Rabobank Nederland
+ * Copyright (C) 2019 - 2021 Gerard Borst <gerard.borst@argosnotary.com>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package com.argosnotary.argos.service.domain.release;
+
+import com.argosnotary.argos.domain.release.ReleaseDossierMetaData;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Captor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class ReleaseIndexTest {
+
+    private static final List<String> ARTIFACTS = List.of("hash1", "hash2");
+    private static final String ARTIFACTS_HASH = ReleaseDossierMetaData.createHashFromArtifactList(ARTIFACTS);
+    private static final String DOCUMENT_ID = "documentId";
+    private static final String PATH = "root.child.supplychain";
+    private static final List<String> OTHER = List.of("hash3");
+    private static final String OTHER_HASH = ReleaseDossierMetaData.createHashFromArtifactList(OTHER);
+
+    @Mock
+    private ReleaseRepository releaseRepository;
+
+    @Captor
+    private ArgumentCaptor<OffsetDateTime> sinceCaptor;
+
+    private SimpleMeterRegistry meterRegistry;
+
+    private ReleaseIndex releaseIndex;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        releaseIndex = new ReleaseIndex(releaseRepository, meterRegistry);
+        releaseIndex.setExpectedArtifacts(1000);
+    }
+
+    @Test
+    void artifactsAreReleasedShouldUseRepositoryBeforeRefresh() {
+        when(releaseRepository.artifactsAreReleased(ARTIFACTS, List.of())).thenReturn(true);
+        assertThat(releaseIndex.artifactsAreReleased(ARTIFACTS, List.of()), is(true));
+    }
+
+    @Test
+    void refreshShouldDoNothingWhenDisabled() {
+        releaseIndex.setEnabled(false);
+        releaseIndex.refresh();
+        verifyNoInteractions(releaseRepository);
+    }
+
+    @Test
+    void artifactsAreReleasedShouldNotQueryRepositoryForUnknownArtifacts() {
+        buildIndex(release(DOCUMENT_ID, PATH));
+        assertThat(releaseIndex.artifactsAreReleased(List.of("other"), List.of()), is(false));
+        verify(releaseRepository, never()).findSupplyChainPathsByArtifactsHash(any());
+        verify(releaseRepository, never()).artifactsAreReleased(any(), any());
+        assertThat(count("not-released"), is(1.0));
+    }
+
+    @Test
+    void artifactsAreReleasedShouldCacheSupplyChainPaths() {
+        buildIndex(release(DOCUMENT_ID, PATH));
+        when(releaseRepository.findSupplyChainPathsByArtifactsHash(ARTIFACTS_HASH)).thenReturn(Map.of(DOCUMENT_ID, PATH));
+        assertThat(releaseIndex.artifactsAreReleased(ARTIFACTS, List.of()), is(true));
+        assertThat(releaseIndex.artifactsAreReleased(ARTIFACTS, List.of("root.child")), is(true));
+        assertThat(releaseIndex.artifactsAreReleased(ARTIFACTS, List.of("other")), is(false));
+        assertThat(releaseIndex.artifactsAreReleased(ARTIFACTS, List.of("root.chi")), is(false));
+        verify(releaseRepository, times(1)).findSupplyChainPathsByArtifactsHash(ARTIFACTS_HASH);
+        assertThat(count("miss"), is(1.0));
+        assertThat(count("hit"), is(3.0));
+    }
+
+    @Test
+    void artifactsAreReleasedShouldRequirePathsForMultipleReleases() {
+        buildIndex(release(DOCUMENT_ID, PATH), release("documentId2", "other.supplychain"));
+        when(releaseRepository.findSupplyChainPathsByArtifactsHash(ARTIFACTS_HASH))
+                .thenReturn(Map.of(DOCUMENT_ID, PATH, "documentId2", "other.supplychain"));
+        assertThat(releaseIndex.artifactsAreReleased(ARTIFACTS, List.of()), is(false));
+        assertThat(releaseIndex.artifactsAreReleased(ARTIFACTS, List.of("root", "other")), is(true));
+        assertThat(releaseIndex.artifactsAreReleased(ARTIFACTS, List.of("root")), is(true));
+    }
+
+    @Test
+    void addShouldUpdateCachedSupplyChainPaths() {
+        buildIndex(release(DOCUMENT_ID, PATH));
+        when(releaseRepository.findSupplyChainPathsByArtifactsHash(ARTIFACTS_HASH)).thenReturn(Map.of(DOCUMENT_ID, PATH));
+        assertThat(releaseIndex.artifactsAreReleased(ARTIFACTS, List.of()), is(true));
+        releaseIndex.add(release("documentId2", "other.supplychain"));
+        assertThat(releaseIndex.artifactsAreReleased(ARTIFACTS, List.of()), is(false));
+        assertThat(releaseIndex.artifactsAreReleased(ARTIFACTS, List.of("other")), is(true));
+        verify(releaseRepository, times(1)).findSupplyChainPathsByArtifactsHash(ARTIFACTS_HASH);
+    }
+
+    @Test
+    void addShouldAddNewArtifacts() {
+        buildIndex();
+        assertThat(releaseIndex.artifactsAreReleased(ARTIFACTS, List.of()), is(false));
+        releaseIndex.add(release(DOCUMENT_ID, PATH));
+        when(releaseRepository.findSupplyChainPathsByArtifactsHash(ARTIFACTS_HASH)).thenReturn(Map.of(DOCUMENT_ID, PATH));
+        assertThat(releaseIndex.artifactsAreReleased(ARTIFACTS, List.of()), is(true));
+    }
+
+    @Test
+    void addDuringLookupShouldNotBeLostFromCache() {
+        buildIndex(release("documentId2", "other.supplychain"));
+        when(releaseRepository.findSupplyChainPathsByArtifactsHash(ARTIFACTS_HASH))
+                .thenAnswer(invocation -> {
+                    // the release is stored and added after the lookup read the repository
+                    releaseIndex.add(release(DOCUMENT_ID, PATH));
+                    return Map.of("documentId2", "other.supplychain");
+                })
+                .thenReturn(Map.of("documentId2", "other.supplychain", DOCUMENT_ID, PATH));
+        assertThat(releaseIndex.artifactsAreReleased(ARTIFACTS, List.of("root")), is(false));
+        assertThat(releaseIndex.artifactsAreReleased(ARTIFACTS, List.of("root")), is(true));
+        assertThat(releaseIndex.artifactsAreReleased(ARTIFACTS, List.of("root")), is(true));
+        verify(releaseRepository, times(2)).findSupplyChainPathsByArtifactsHash(ARTIFACTS_HASH);
+    }
+
+    @Test
+    void addDuringBatchLookupShouldNotBeLostFromCache() {
+        buildIndex(release("documentId2", "other.supplychain", OTHER));
+        when(releaseRepository.findSupplyChainPathsByArtifactsHashes(Set.of(OTHER_HASH)))
+                .thenAnswer(invocation -> {
+                    releaseIndex.add(release("documentId3", "third.supplychain", OTHER));
+                    return Map.of(OTHER_HASH, Map.of("documentId2", "other.supplychain"));
+                });
+        when(releaseRepository.findSupplyChainPathsByArtifactsHash(OTHER_HASH))
+                .thenReturn(Map.of("documentId2", "other.supplychain", "documentId3", "third.supplychain"));
+        assertThat(releaseIndex.artifactsAreReleased(List.of(query(OTHER, null))), is(List.of(true)));
+        assertThat(releaseIndex.artifactsAreReleased(OTHER, List.of()), is(false));
+        assertThat(releaseIndex.artifactsAreReleased(OTHER, List.of("third")), is(true));
+        verify(releaseRepository, times(1)).findSupplyChainPathsByArtifactsHash(OTHER_HASH);
+    }
+
+    @Test
+    void addShouldBeIgnoredBeforeRefresh() {
+        releaseIndex.add(release(DOCUMENT_ID, PATH));
+        buildIndex();
+        assertThat(releaseIndex.artifactsAreReleased(ARTIFACTS, List.of()), is(false));
+    }
+
+    @Test
+    void refreshShouldAddReleasesOfOtherInstances() {
+        OffsetDateTime beforeBuild = OffsetDateTime.now(ZoneOffset.UTC);
+        buildIndex();
+        when(releaseRepository.findReleasesStoredSince(sinceCaptor.capture())).thenReturn(List.of(release(DOCUMENT_ID, PATH)));
+        releaseIndex.refresh();
+        assertThat(sinceCaptor.getValue().isBefore(beforeBuild.minusSeconds(59)), is(true));
+        when(releaseRepository.findSupplyChainPathsByArtifactsHash(ARTIFACTS_HASH)).thenReturn(Map.of(DOCUMENT_ID, PATH));
+        assertThat(releaseIndex.artifactsAreReleased(ARTIFACTS, List.of()), is(true));
+    }
+
+    @Test
+    void refreshShouldBuildIndexOnce() {
+        buildIndex(release(DOCUMENT_ID, PATH));
+        when(releaseRepository.findReleasesStoredSince(any())).thenReturn(List.of());
+        releaseIndex.refresh();
+        releaseIndex.refresh();
+        verify(releaseRepository, times(1)).forEachRelease(any());
+        verify(releaseRepository, times(2)).findReleasesStoredSince(any());
+    }
+
+    @Test
+    void artifactsAreReleasedBatchShouldUseRepositoryBeforeRefresh() {
+        when(releaseRepository.findSupplyChainPathsByArtifactsHashes(Set.of(ARTIFACTS_HASH, OTHER_HASH)))
+                .thenReturn(Map.of(ARTIFACTS_HASH, Map.of(DOCUMENT_ID, PATH)));
+        assertThat(releaseIndex.artifactsAreReleased(List.of(query(ARTIFACTS, null), query(OTHER, null), query(ARTIFACTS, List.of("other")))),
+                is(List.of(true, false, false)));
+    }
+
+    @Test
+    void artifactsAreReleasedBatchShouldFindUncachedArtifactsInOneLookup() {
+        buildIndex(release(DOCUMENT_ID, PATH), release("documentId2", "other.supplychain", OTHER));
+        when(releaseRepository.findSupplyChainPathsByArtifactsHashes(Set.of(ARTIFACTS_HASH, OTHER_HASH)))
+                .thenReturn(Map.of(ARTIFACTS_HASH, Map.of(DOCUMENT_ID, PATH), OTHER_HASH, Map.of("documentId2", "other.supplychain")));
+        List<ReleaseQuery> queries = List.of(
+                query(ARTIFACTS, List.of("root")),
+                query(OTHER, null),
+                query(List.of("unknown"), null),
+                query(ARTIFACTS, List.of("other")));
+        assertThat(releaseIndex.artifactsAreReleased(queries), is(List.of(true, true, false, false)));
+        assertThat(releaseIndex.artifactsAreReleased(queries), is(List.of(true, true, false, false)));
+        verify(releaseRepository, times(1)).findSupplyChainPathsByArtifactsHashes(any());
+        assertThat(count("miss"), is(2.0));
+        assertThat(count("hit"), is(2.0));
+        assertThat(count("not-released"), is(2.0));
+    }
+
+    @Test
+    void artifactsAreReleasedBatchShouldNotQueryRepositoryForUnknownArtifacts() {
+        buildIndex();
+        assertThat(releaseIndex.artifactsAreReleased(List.of(query(ARTIFACTS, null))), is(List.of(false)));
+        verify(releaseRepository, never()).findSupplyChainPathsByArtifactsHashes(any());
+    }
+
+    private static ReleaseQuery query(List<String> artifacts, List<String> paths) {
+        return ReleaseQuery.builder().artifactHashes(artifacts).paths(paths).build();
+    }
+
+    private void buildIndex(ReleaseDossierMetaData... releases) {
+        doAnswer(invocation -> {
+            Consumer<ReleaseDossierMetaData> consumer = invocation.getArgument(0);
+            List.of(releases).forEach(consumer);
+            return null;
+        }).when(releaseRepository).forEachRelease(any());
+        releaseIndex.refresh();
+    }
+
+    private static ReleaseDossierMetaData release(String documentId, String path) {
+        return release(documentId, path, ARTIFACTS);
+    }
+
+    private static ReleaseDossierMetaData release(String documentId, String path, List<String> artifacts) {
+        return ReleaseDossierMetaData.builder()
+                .documentId(documentId)
+                .supplyChainPath(path)
+                .releaseArtifacts(List.of(artifacts))
+                .build();
+    }
+
+    private double count(String result) {
+        return meterRegistry.get("argos.release.index").tag("result", result).counter().count();
+    }
+}
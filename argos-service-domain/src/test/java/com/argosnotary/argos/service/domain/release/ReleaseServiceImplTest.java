@@ -19,6 +19,7 @@
  */
 package com.argosnotary.argos.service.domain.release;
 
+import com.argosnotary.argos.domain.ArgosError;
 import com.argosnotary.argos.domain.account.AccountKeyInfo;
 import com.argosnotary.argos.domain.account.AccountType;
 import com.argosnotary.argos.domain.account.KeyInfo;
@@ -36,10 +37,14 @@ import com.argosnotary.argos.service.domain.hierarchy.HierarchyRepository;
 import com.argosnotary.argos.service.domain.layout.LayoutMetaBlockRepository;
 import com.argosnotary.argos.service.domain.link.LinkMetaBlockRepository;
 import com.argosnotary.argos.service.domain.verification.VerificationProvider;
+import com.argosnotary.argos.service.domain.verification.VerificationResultCache;
 import com.argosnotary.argos.service.domain.verification.VerificationRunResult;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Captor;
+import org.mockito.InOrder;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 
@@ -47,13 +52,19 @@ import java.util.Collections;
 import java.util.List;
 import java.util.Optional;
 import java.util.Set;
+import java.util.function.Supplier;
 
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.is;
 import static org.hamcrest.Matchers.notNullValue;
 import static org.hamcrest.Matchers.nullValue;
 import static org.hamcrest.Matchers.sameInstance;
+import static org.hamcrest.Matchers.startsWith;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.verifyNoInteractions;
 import static org.mockito.Mockito.when;
@@ -75,6 +86,18 @@ class ReleaseServiceImplTest {
     @Mock
     private LinkMetaBlockRepository linkMetaBlockRepository;
 
+    @Mock
+    private VerificationResultCache verificationResultCache;
+
+    @Mock
+    private ReleaseSingleFlight releaseSingleFlight;
+
+    @Mock
+    private ReleaseIndex releaseIndex;
+
+    @Captor
+    private ArgumentCaptor<String> keyCaptor;
+
     @Mock
     private TreeNode treeNode;
 
@@ -106,7 +129,10 @@ class ReleaseServiceImplTest {
                 releaseRepository,
                 accountInfoRepository,
                 hierarchyRepository,
-                linkMetaBlockRepository);
+                linkMetaBlockRepository,
+                verificationResultCache,
+                releaseSingleFlight,
+                releaseIndex);
 
     }
 
@@ -132,6 +158,7 @@ class ReleaseServiceImplTest {
         when(treeNode.getPathToRoot()).thenReturn(Collections.singletonList("path"));
         when(hierarchyRepository.getSubTree(SUPPLY_CHAIN_ID, HierarchyMode.NONE, 0)).thenReturn(Optional.of(treeNode));
         when(releaseRepository.findReleaseByReleasedArtifactsAndPath(any(), any())).thenReturn(Optional.empty());
+        mockSingleFlight();
         when(layoutMetaBlockRepository.findBySupplyChainId(SUPPLY_CHAIN_ID)).thenReturn(Optional.empty());
         ReleaseResult releaseResult = releaseService.createRelease(SUPPLY_CHAIN_ID, releaseArtifacts);
         assertThat(releaseResult.isReleaseIsValid(), is(false));
@@ -145,6 +172,7 @@ class ReleaseServiceImplTest {
         when(treeNode.getPathToRoot()).thenReturn(Collections.singletonList("path"));
         when(hierarchyRepository.getSubTree(SUPPLY_CHAIN_ID, HierarchyMode.NONE, 0)).thenReturn(Optional.of(treeNode));
         when(releaseRepository.findReleaseByReleasedArtifactsAndPath(any(), any())).thenReturn(Optional.empty());
+        mockSingleFlight();
         when(layoutMetaBlockRepository.findBySupplyChainId(SUPPLY_CHAIN_ID)).thenReturn(Optional.of(layoutMetaBlock));
         when(verificationProvider.verifyRun(any(), any())).thenReturn(verificationRunResult);
         when(verificationRunResult.isRunIsValid()).thenReturn(true);
@@ -165,11 +193,33 @@ class ReleaseServiceImplTest {
         ReleaseResult releaseResult = releaseService.createRelease(SUPPLY_CHAIN_ID, releaseArtifacts);
         assertThat(releaseResult.isReleaseIsValid(), is(true));
         assertThat(releaseResult.getReleaseDossierMetaData(), is(notNullValue()));
-        verify(releaseRepository).storeRelease(any(), any());
+        InOrder inOrder = inOrder(releaseSingleFlight, releaseRepository);
+        inOrder.verify(releaseSingleFlight).checkLease(any());
+        inOrder.verify(releaseRepository).storeRelease(any(), any());
+        verify(releaseIndex).add(releaseResult.getReleaseDossierMetaData());
         verify(linkMetaBlockRepository).deleteBySupplyChainId(SUPPLY_CHAIN_ID);
+        verify(verificationResultCache).evict(SUPPLY_CHAIN_ID);
     }
 
 
+    @Test
+    void createReleaseWithLostLeaseShouldNotStoreRelease() {
+        Artifact releaseArtifact = Artifact.builder().hash("hash").uri("/target/").build();
+        List<Set<Artifact>> releaseArtifacts = Collections.singletonList(Set.of(releaseArtifact));
+        when(treeNode.getName()).thenReturn("name");
+        when(treeNode.getPathToRoot()).thenReturn(Collections.singletonList("path"));
+        when(hierarchyRepository.getSubTree(SUPPLY_CHAIN_ID, HierarchyMode.NONE, 0)).thenReturn(Optional.of(treeNode));
+        when(releaseRepository.findReleaseByReleasedArtifactsAndPath(any(), any())).thenReturn(Optional.empty());
+        mockSingleFlight();
+        when(layoutMetaBlockRepository.findBySupplyChainId(SUPPLY_CHAIN_ID)).thenReturn(Optional.of(layoutMetaBlock));
+        when(verificationProvider.verifyRun(any(), any())).thenReturn(verificationRunResult);
+        when(verificationRunResult.isRunIsValid()).thenReturn(true);
+        doThrow(new ArgosError("lost")).when(releaseSingleFlight).checkLease(any());
+        assertThrows(ArgosError.class, () -> releaseService.createRelease(SUPPLY_CHAIN_ID, releaseArtifacts));
+        verify(releaseRepository, never()).storeRelease(any(), any());
+        verifyNoInteractions(linkMetaBlockRepository, releaseIndex);
+    }
+
     @Test
     void createReleaseForNonExistingInvalidValidReleaseShouldReturnInvalidResult() {
         Artifact releaseArtifact = Artifact.builder().hash("hash").uri("/target/").build();
@@ -178,12 +228,51 @@ class ReleaseServiceImplTest {
         when(treeNode.getPathToRoot()).thenReturn(Collections.singletonList("path"));
         when(hierarchyRepository.getSubTree(SUPPLY_CHAIN_ID, HierarchyMode.NONE, 0)).thenReturn(Optional.of(treeNode));
         when(releaseRepository.findReleaseByReleasedArtifactsAndPath(any(), any())).thenReturn(Optional.empty());
+        mockSingleFlight();
         when(layoutMetaBlockRepository.findBySupplyChainId(SUPPLY_CHAIN_ID)).thenReturn(Optional.of(layoutMetaBlock));
         when(verificationProvider.verifyRun(any(), any())).thenReturn(verificationRunResult);
         when(verificationRunResult.isRunIsValid()).thenReturn(false);
         ReleaseResult releaseResult = releaseService.createRelease(SUPPLY_CHAIN_ID, releaseArtifacts);
         assertThat(releaseResult.isReleaseIsValid(), is(false));
         assertThat(releaseResult.getReleaseDossierMetaData(), is(nullValue()));
-        verifyNoInteractions(accountInfoRepository, linkMetaBlockRepository);
+        verifyNoInteractions(accountInfoRepository, linkMetaBlockRepository, verificationResultCache);
+    }
+
+    @Test
+    void createReleaseFinishedWhileWaitingShouldReturnStoredDossier() {
+        Artifact releaseArtifact = Artifact.builder().hash("hash").uri("/target/").build();
+        List<Set<Artifact>> releaseArtifacts = Collections.singletonList(Set.of(releaseArtifact));
+        when(treeNode.getName()).thenReturn("name");
+        when(treeNode.getPathToRoot()).thenReturn(Collections.singletonList("path"));
+        when(hierarchyRepository.getSubTree(SUPPLY_CHAIN_ID, HierarchyMode.NONE, 0)).thenReturn(Optional.of(treeNode));
+        when(releaseRepository.findReleaseByReleasedArtifactsAndPath(any(), any()))
+                .thenReturn(Optional.empty())
+                .thenReturn(Optional.of(releaseDossierMetaData));
+        mockSingleFlight();
+        ReleaseResult releaseResult = releaseService.createRelease(SUPPLY_CHAIN_ID, releaseArtifacts);
+        assertThat(releaseResult.isReleaseIsValid(), is(true));
+        assertThat(releaseResult.getReleaseDossierMetaData(), sameInstance(releaseDossierMetaData));
+        verifyNoInteractions(layoutMetaBlockRepository, verificationProvider, linkMetaBlockRepository);
+    }
+
+    @Test
+    void createReleaseKeyShouldNotDependOnArtifactOrder() {
+        Artifact artifact1 = Artifact.builder().hash("hash1").uri("/target/1").build();
+        Artifact artifact2 = Artifact.builder().hash("hash2").uri("/target/2").build();
+        when(treeNode.getName()).thenReturn("name");
+        when(treeNode.getPathToRoot()).thenReturn(Collections.singletonList("path"));
+        when(hierarchyRepository.getSubTree(SUPPLY_CHAIN_ID, HierarchyMode.NONE, 0)).thenReturn(Optional.of(treeNode));
+        when(releaseRepository.findReleaseByReleasedArtifactsAndPath(any(), any())).thenReturn(Optional.empty());
+        when(releaseSingleFlight.execute(keyCaptor.capture(), any())).thenReturn(ReleaseResult.builder().releaseIsValid(false).build());
+        releaseService.createRelease(SUPPLY_CHAIN_ID, List.of(Set.of(artifact1), Set.of(artifact2)));
+        releaseService.createRelease(SUPPLY_CHAIN_ID, List.of(Set.of(artifact2), Set.of(artifact1)));
+        assertThat(keyCaptor.getAllValues().get(0), is(keyCaptor.getAllValues().get(1)));
+        assertThat(keyCaptor.getValue(), startsWith(SUPPLY_CHAIN_ID + ":"));
+    }
+
+    @SuppressWarnings("unchecked")
+    private void mockSingleFlight() {
+        when(releaseSingleFlight.execute(any(), any()))
+                .thenAnswer(invocation -> ((Supplier<ReleaseResult>) invocation.getArgument(1)).get());
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,202 @@
+/*
+ * Argos Notary - A new way to secure the Software Supply Chain
+ *
+ * Copyright (C) 2019 - 2020 Rabobank Nederland
+ * Copyright (C) 2019 - 2021 Gerard Borst <gerard.borst@argosnotary.com>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package com.argosnotary.argos.service.domain.release;
+
+import com.argosnotary.argos.domain.ArgosError;
+import com.argosnotary.argos.domain.release.ReleaseResult;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Captor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.sameInstance;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class ReleaseSingleFlightTest {
+
+    private static final String KEY = "supplyChainId:hash";
+
+    @Mock
+    private ReleaseLeaseRepository releaseLeaseRepository;
+
+    @Captor
+    private ArgumentCaptor<String> ownerCaptor;
+
+    private ReleaseSingleFlight releaseSingleFlight;
+
+    @BeforeEach
+    void setUp() {
+        releaseSingleFlight = new ReleaseSingleFlight(releaseLeaseRepository);
+        releaseSingleFlight.setPollInterval(1);
+    }
+
+    @Test
+    void executeShouldHoldLease() {
+        ReleaseResult releaseResult = ReleaseResult.builder().releaseIsValid(true).build();
+        when(releaseLeaseRepository.acquire(eq(KEY), ownerCaptor.capture(), eq(Duration.ofMillis(300000)))).thenReturn(true);
+        assertThat(releaseSingleFlight.execute(KEY, () -> releaseResult), sameInstance(releaseResult));
+        verify(releaseLeaseRepository).release(KEY, ownerCaptor.getValue());
+    }
+
+    @Test
+    void executeShouldWaitForLeaseOfOtherInstance() {
+        ReleaseResult releaseResult = ReleaseResult.builder().releaseIsValid(true).build();
+        when(releaseLeaseRepository.acquire(eq(KEY), any(), any())).thenReturn(false, false, true);
+        assertThat(releaseSingleFlight.execute(KEY, () -> releaseResult), sameInstance(releaseResult));
+        verify(releaseLeaseRepository, times(3)).acquire(eq(KEY), any(), any());
+        verify(releaseLeaseRepository).release(eq(KEY), any());
+    }
+
+    @Test
+    void executeShouldFailWhenLeaseIsNotAcquiredInTime() {
+        releaseSingleFlight.setMaxWait(20);
+        when(releaseLeaseRepository.acquire(eq(KEY), any(), any())).thenReturn(false);
+        ArgosError error = assertThrows(ArgosError.class,
+                () -> releaseSingleFlight.execute(KEY, () -> ReleaseResult.builder().build()));
+        assertThat(error.getMessage(), is("timed out after 20 ms waiting for release supplyChainId:hash in progress on another instance"));
+        verify(releaseLeaseRepository, never()).release(any(), any());
+    }
+
+    @Test
+    void renewLeasesShouldRenewLeaseOfReleaseInProgress() {
+        ReleaseResult releaseResult = ReleaseResult.builder().releaseIsValid(true).build();
+        when(releaseLeaseRepository.acquire(eq(KEY), ownerCaptor.capture(), any())).thenReturn(true);
+        when(releaseLeaseRepository.renew(eq(KEY), any(), eq(Duration.ofMillis(300000)))).thenReturn(true);
+        assertThat(releaseSingleFlight.execute(KEY, () -> {
+            releaseSingleFlight.renewLeases();
+            return releaseResult;
+        }), sameInstance(releaseResult));
+        releaseSingleFlight.renewLeases();
+        verify(releaseLeaseRepository, times(1)).renew(any(), any(), any());
+        verify(releaseLeaseRepository).renew(KEY, ownerCaptor.getValue(), Duration.ofMillis(300000));
+        verify(releaseLeaseRepository).release(KEY, ownerCaptor.getValue());
+    }
+
+    @Test
+    void checkLeaseShouldRenewLeaseOfReleaseInProgress() {
+        ReleaseResult releaseResult = ReleaseResult.builder().releaseIsValid(true).build();
+        when(releaseLeaseRepository.acquire(eq(KEY), ownerCaptor.capture(), any())).thenReturn(true);
+        when(releaseLeaseRepository.renew(eq(KEY), any(), eq(Duration.ofMillis(300000)))).thenReturn(true);
+        assertThat(releaseSingleFlight.execute(KEY, () -> {
+            releaseSingleFlight.checkLease(KEY);
+            return releaseResult;
+        }), sameInstance(releaseResult));
+        verify(releaseLeaseRepository).renew(KEY, ownerCaptor.getValue(), Duration.ofMillis(300000));
+    }
+
+    @Test
+    void checkLeaseShouldFailWhenLeaseIsTakenOver() {
+        when(releaseLeaseRepository.acquire(eq(KEY), any(), any())).thenReturn(true);
+        when(releaseLeaseRepository.renew(eq(KEY), any(), any())).thenReturn(false);
+        ArgosError error = assertThrows(ArgosError.class, () -> releaseSingleFlight.execute(KEY, () -> {
+            releaseSingleFlight.checkLease(KEY);
+            return ReleaseResult.builder().build();
+        }));
+        assertThat(error.getMessage(), is("lease of release supplyChainId:hash was lost, the release is not stored"));
+        verify(releaseLeaseRepository).release(eq(KEY), any());
+    }
+
+    @Test
+    void checkLeaseShouldFailWhenRenewalLostLease() {
+        when(releaseLeaseRepository.acquire(eq(KEY), any(), any())).thenReturn(true);
+        when(releaseLeaseRepository.renew(eq(KEY), any(), any())).thenReturn(false);
+        assertThrows(ArgosError.class, () -> releaseSingleFlight.execute(KEY, () -> {
+            releaseSingleFlight.renewLeases();
+            releaseSingleFlight.checkLease(KEY);
+            return ReleaseResult.builder().build();
+        }));
+        verify(releaseLeaseRepository, times(1)).renew(any(), any(), any());
+    }
+
+    @Test
+    void checkLeaseShouldFailWithoutLease() {
+        assertThrows(ArgosError.class, () -> releaseSingleFlight.checkLease(KEY));
+    }
+
+    @Test
+    void executeShouldReleaseLeaseOnError() {
+        when(releaseLeaseRepository.acquire(eq(KEY), any(), any())).thenReturn(true);
+        IllegalStateException error = assertThrows(IllegalStateException.class,
+                () -> releaseSingleFlight.execute(KEY, () -> {
+                    throw new IllegalStateException("failed");
+                }));
+        assertThat(error.getMessage(), is("failed"));
+        verify(releaseLeaseRepository).release(eq(KEY), any());
+    }
+
+    @Test
+    void concurrentExecuteShouldReleaseOnce() throws Exception {
+        when(releaseLeaseRepository.acquire(eq(KEY), any(), any())).thenReturn(true);
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch finish = new CountDownLatch(1);
+        AtomicInteger releases = new AtomicInteger();
+        ReleaseResult releaseResult = ReleaseResult.builder().releaseIsValid(true).build();
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            Future<ReleaseResult> first = executor.submit(() -> releaseSingleFlight.execute(KEY, () -> {
+                releases.incrementAndGet();
+                started.countDown();
+                await(finish);
+                return releaseResult;
+            }));
+            assertThat(started.await(10, TimeUnit.SECONDS), is(true));
+            Future<ReleaseResult> second = executor.submit(() -> releaseSingleFlight.execute(KEY, () -> {
+                releases.incrementAndGet();
+                return ReleaseResult.builder().releaseIsValid(false).build();
+            }));
+            // give the second caller time to join the release in progress
+            Thread.sleep(100);
+            finish.countDown();
+            assertThat(first.get(10, TimeUnit.SECONDS), sameInstance(releaseResult));
+            assertThat(second.get(10, TimeUnit.SECONDS), sameInstance(releaseResult));
+            assertThat(releases.get(), is(1));
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,115 @@
+/*
+ * Argos Notary - A new way to secure the Software Supply Chain
+ *
+ * Copyright (C) 2019 - 2020 Rabobank Nederland
+ * Copyright (C) 2019 - 2021 Gerard Borst <gerard.borst@argosnotary.com>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package com.argosnotary.argos.service.domain.verification;
+
+import com.argosnotary.argos.domain.link.Artifact;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.is;
+
+class ArtifactIndexTest {
+
+    private static final List<String> PATTERNS = List.of(
+            "*", "**", "**/*", "*/*", "**/*.jar", "*.jar", "target/*.jar", "target/**.jar", "target/**/*.jar",
+            "target/app.jar", "target", "foo/bar", "foo//bar", "foo/bar/", "/foo/*", "/**", "foo/", "foo/b?r",
+            "foo/[bc]ar", "foo/{bar,baz}", "{foo,bar}/*", "foo\\/bar", "a/b/c", "a/*/c", "a/b/**", "a.b", "");
+
+    private static final List<String> PREFIXES = List.of(
+            "", "target", "target/", "tar", "foo", "foo/", "fo", "foo//", "/foo", "/", "a/b", "a/b/", "x");
+
+    private static final List<String> URIS = List.of(
+            "", "/", "a", "a.b", "foo", "foo/bar", "foo//bar", "foo/bar/", "foo/baz", "foo/car", "/foo/bar",
+            "//foo/bar", "bar/baz", "target/app.jar", "target/lib/app.jar", "target//app.jar", "target/app.war",
+            "target", "targets/app.jar", "app.jar", "a/b/c", "a/b/c/d", "a/x/c", "a/b", "x/a/b");
+
+    private final Artifact jar = new Artifact("target/app.jar", "hash1");
+    private final Artifact war = new Artifact("target/app.war", "hash2");
+    private final Artifact lib = new Artifact("target/lib/lib.jar", "hash3");
+    private final Artifact pom = new Artifact("pom.xml", "hash4");
+
+    @Test
+    void getFilteredArtifacts() {
+        ArtifactIndex index = new ArtifactIndex(List.of(jar, war, lib, pom));
+        assertThat(index.getFilteredArtifacts("**", null), is(Set.of(jar, war, lib, pom)));
+        assertThat(index.getFilteredArtifacts("target/*.jar", null), is(Set.of(jar)));
+        assertThat(index.getFilteredArtifacts("target/**.jar", null), is(Set.of(jar, lib)));
+        assertThat(index.getFilteredArtifacts("pom.xml", null), is(Set.of(pom)));
+        assertThat(index.getFilteredArtifacts("target", null), empty());
+        assertThat(index.getFilteredArtifacts("*.jar", "target/"), is(Set.of(jar)));
+        assertThat(index.getFilteredArtifacts("**", "target/lib"), is(Set.of(lib)));
+        assertThat(index.getFilteredArtifacts("**", "other"), empty());
+    }
+
+    @Test
+    void consume() {
+        ArtifactIndex index = new ArtifactIndex(List.of(jar, war, lib, pom));
+        index.consume(Set.of(jar, lib, new Artifact("unknown", "hash")));
+        assertThat(index.getConsumedArtifacts(), is(Set.of(jar, lib)));
+        assertThat(index.getNotConsumedArtifacts(), is(Set.of(war, pom)));
+        assertThat(index.getFilteredArtifacts("target/**", null), is(Set.of(war)));
+        assertThat(index.getFilteredArtifacts("*.jar", "target/"), empty());
+        index.consume(Set.of(war, pom));
+        assertThat(index.getNotConsumedArtifacts(), empty());
+        assertThat(index.getFilteredArtifacts("**", null), empty());
+    }
+
+    @Test
+    void duplicateArtifacts() {
+        ArtifactIndex index = new ArtifactIndex(List.of(jar, jar, new Artifact("target/app.jar", "otherHash")));
+        assertThat(index.getNotConsumedArtifacts(), is(Set.of(jar, new Artifact("target/app.jar", "otherHash"))));
+        index.consume(Set.of(jar));
+        assertThat(index.getFilteredArtifacts("target/app.jar", null), is(Set.of(new Artifact("target/app.jar", "otherHash"))));
+    }
+
+    @Test
+    void sameResultAsLinearFilter() {
+        Random random = new Random(42);
+        for (int run = 0; run < 200; run++) {
+            List<Artifact> artifacts = new ArrayList<>();
+            for (String uri : URIS) {
+                if (random.nextBoolean()) {
+                    artifacts.add(new Artifact(uri, "hash" + random.nextInt(2)));
+                }
+            }
+            ArtifactIndex index = new ArtifactIndex(artifacts);
+            Set<Artifact> notConsumed = new HashSet<>(artifacts);
+            Set<Artifact> toConsume = artifacts.stream().filter(artifact -> random.nextInt(4) == 0).collect(Collectors.toSet());
+            index.consume(toConsume);
+            notConsumed.removeAll(toConsume);
+            assertThat(index.getNotConsumedArtifacts(), is(notConsumed));
+            for (String pattern : PATTERNS) {
+                for (String prefix : PREFIXES) {
+                    assertThat(pattern + " " + prefix, index.getFilteredArtifacts(pattern, prefix),
+                            is(ArtifactsVerificationContext.filterArtifacts(notConsumed, pattern, prefix)));
+                }
+            }
+        }
+    }
+}
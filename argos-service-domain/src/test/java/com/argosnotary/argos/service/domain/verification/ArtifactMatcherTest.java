@@ -44,4 +44,17 @@ class ArtifactMatcherTest {
         assertTrue(ArtifactMatcher.matches("foo/bar", "foo/*"));
     }
 
+    @Test
+    void compiledPatternShouldBeCached() {
+        assertSame(ArtifactMatcher.getCompiledPattern("**/*.jar"), ArtifactMatcher.getCompiledPattern("**/*.jar"));
+    }
+
+    @Test
+    void compiledPatternCacheShouldBeBounded() {
+        for (int i = 0; i < ArtifactMatcher.MAX_CACHED_PATTERNS + 10; i++) {
+            assertTrue(ArtifactMatcher.matches("file" + i, "file" + i));
+        }
+        assertTrue(ArtifactMatcher.cachedPatterns() <= ArtifactMatcher.MAX_CACHED_PATTERNS);
+    }
+
 }
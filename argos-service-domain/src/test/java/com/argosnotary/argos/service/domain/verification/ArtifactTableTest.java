@@ -0,0 +1,115 @@
+/*
+ * Argos Notary - A new way to secure the Software Supply Chain
+ *
+ * Copyright (C) 2019 - 2020 Rabobank Nederland
+ * Copyright (C) 2019 - 2021 Gerard Borst <gerard.borst@argosnotary.com>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package com.argosnotary.argos.service.domain.verification;
+
+import com.argosnotary.argos.domain.layout.ArtifactType;
+import com.argosnotary.argos.domain.link.Artifact;
+import com.argosnotary.argos.domain.link.Link;
+
+import org.apache.commons.codec.digest.DigestUtils;
+import org.junit.jupiter.api.Test;
+
+import java.util.BitSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.hamcrest.CoreMatchers.not;
+import static org.hamcrest.CoreMatchers.sameInstance;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class ArtifactTableTest {
+
+    private static final String HASH1 = DigestUtils.sha256Hex("jar");
+    private static final String HASH2 = DigestUtils.sha256Hex("war");
+
+    private final Artifact jar = new Artifact("target/app.jar", HASH1);
+    private final Artifact war = new Artifact("target/app.war", HASH2);
+    private final Artifact copy = new Artifact("copy/app.jar", HASH1);
+    private final Artifact pom = new Artifact("pom.xml", "hash4");
+
+    @Test
+    void filter() {
+        ArtifactTable table = new ArtifactTable(List.of(jar, war, copy, pom, jar));
+        assertThat(table.size(), is(4));
+        assertThat(table.toArtifacts(table.filter("**/*.jar", null, new BitSet())), is(Set.of(jar, copy)));
+        assertThat(table.toArtifacts(table.filter("*.jar", "target", new BitSet())), is(Set.of(jar)));
+        BitSet excluded = new BitSet();
+        excluded.set(table.getId(jar));
+        assertThat(table.toArtifacts(table.filter("**/*.jar", null, excluded)), is(Set.of(copy)));
+        assertThat(table.getId(new Artifact("other", HASH1)), is(-1));
+    }
+
+    @Test
+    void filterWithPrefixMatchesUriRelativeToPrefix() {
+        Artifact nested = new Artifact("target//classes/App.class", HASH2);
+        ArtifactTable table = new ArtifactTable(List.of(jar, war, copy, pom, nested));
+        assertThat(table.toArtifacts(table.filter("*.jar", "target/", new BitSet())), is(Set.of(jar)));
+        assertThat(table.toArtifacts(table.filter("classes/*.class", "target", new BitSet())), is(Set.of(nested)));
+        assertThat(table.toArtifacts(table.filter("../target/*.jar", "tar", new BitSet())), is(Set.of(jar)));
+        assertThat(table.toArtifacts(table.filter("*.jar", "copy", new BitSet())), is(Set.of(copy)));
+    }
+
+    @Test
+    void containsHash() {
+        ArtifactTable table = new ArtifactTable(List.of(jar, war, copy, pom));
+        BitSet all = table.filter("**", null, new BitSet());
+        assertThat(table.containsHash(all, HASH1), is(true));
+        assertThat(table.containsHash(all, HASH2), is(true));
+        assertThat(table.containsHash(all, "hash4"), is(true));
+        assertThat(table.containsHash(all, DigestUtils.sha256Hex("other")), is(false));
+        assertThat(table.containsHash(all, "other"), is(false));
+        assertThat(table.containsHash(all, HASH1.toUpperCase()), is(false));
+
+        BitSet onlyCopy = new BitSet();
+        onlyCopy.set(table.getId(copy));
+        assertThat(table.containsHash(onlyCopy, HASH1), is(true));
+        assertThat(table.containsHash(onlyCopy, HASH2), is(false));
+        assertThat(table.containsHash(onlyCopy, "hash4"), is(false));
+    }
+
+    @Test
+    void upperCaseHashIsNotEqualToLowerCaseHash() {
+        Artifact upperCase = new Artifact("target/app.jar", HASH1.toUpperCase());
+        ArtifactTable table = new ArtifactTable(List.of(upperCase));
+        BitSet all = table.filter("**", null, new BitSet());
+        assertThat(table.containsHash(all, HASH1.toUpperCase()), is(true));
+        assertThat(table.containsHash(all, HASH1), is(false));
+    }
+
+    @Test
+    void tableOfLinkIsSharedByLinksWithSameContent() {
+        Link link = Link.builder().stepName("step").materials(List.of(pom)).products(List.of(jar, war)).build();
+        Link sameLink = Link.builder().stepName("step").materials(List.of(pom)).products(List.of(war, jar)).build();
+        ArtifactTable products = ArtifactTable.of(link, ArtifactType.PRODUCTS);
+        assertThat(products.getArtifacts(), is(Set.of(jar, war)));
+        assertThat(ArtifactTable.of(sameLink, ArtifactType.PRODUCTS), sameInstance(products));
+        assertThat(ArtifactTable.of(link, ArtifactType.MATERIALS), not(sameInstance(products)));
+        assertThat(ArtifactTable.of(link, ArtifactType.MATERIALS).getArtifacts(), is(Set.of(pom)));
+    }
+
+    @Test
+    void artifactsCanNotBeModified() {
+        ArtifactTable table = new ArtifactTable(List.of(jar));
+        Set<Artifact> artifacts = table.getArtifacts();
+        assertThrows(UnsupportedOperationException.class, () -> artifacts.add(war));
+    }
+}
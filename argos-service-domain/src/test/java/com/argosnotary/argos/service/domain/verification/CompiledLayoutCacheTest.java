@@ -0,0 +1,101 @@
+/*
+ * Argos Notary - A new way to secure the Software Supply Chain
+ *
+ * Copyright (C) 2019 - 2020 Rabobank Nederland
+ * Copyright (C) 2019 - 2021 Gerard Borst <gerard.borst@argosnotary.com>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package com.argosnotary.argos.service.domain.verification;
+
+import com.argosnotary.argos.domain.crypto.Signature;
+import com.argosnotary.argos.domain.layout.Layout;
+import com.argosnotary.argos.domain.layout.LayoutMetaBlock;
+import com.argosnotary.argos.domain.layout.Step;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.not;
+import static org.hamcrest.CoreMatchers.sameInstance;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+class CompiledLayoutCacheTest {
+
+    private static final String SUPPLY_CHAIN_ID = "supplyChainId";
+    private static final String OTHER_SUPPLY_CHAIN_ID = "otherSupplyChainId";
+
+    private SimpleMeterRegistry meterRegistry;
+
+    private CompiledLayoutCache cache;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        cache = new CompiledLayoutCache(meterRegistry);
+    }
+
+    @Test
+    void getReusesCompiledLayoutWithSameSignatures() {
+        CompiledLayout compiledLayout = cache.get(layoutMetaBlock(SUPPLY_CHAIN_ID, "signature"));
+        assertThat(cache.get(layoutMetaBlock(SUPPLY_CHAIN_ID, "signature")), sameInstance(compiledLayout));
+        assertThat(count("hit"), is(1.0));
+        assertThat(count("miss"), is(1.0));
+    }
+
+    @Test
+    void getCompilesChangedLayout() {
+        CompiledLayout compiledLayout = cache.get(layoutMetaBlock(SUPPLY_CHAIN_ID, "signature"));
+        LayoutMetaBlock changed = layoutMetaBlock(SUPPLY_CHAIN_ID, "otherSignature");
+        CompiledLayout recompiled = cache.get(changed);
+        assertThat(recompiled, not(sameInstance(compiledLayout)));
+        assertThat(recompiled.getLayoutMetaBlock(), sameInstance(changed));
+        assertThat(cache.get(layoutMetaBlock(SUPPLY_CHAIN_ID, "otherSignature")), sameInstance(recompiled));
+        assertThat(cache.size(), is(1));
+    }
+
+    @Test
+    void evictOnlyRemovesCompiledLayoutOfSupplyChain() {
+        CompiledLayout compiledLayout = cache.get(layoutMetaBlock(SUPPLY_CHAIN_ID, "signature"));
+        CompiledLayout otherCompiledLayout = cache.get(layoutMetaBlock(OTHER_SUPPLY_CHAIN_ID, "signature"));
+        cache.evict(SUPPLY_CHAIN_ID);
+        assertThat(cache.size(), is(1));
+        assertThat(cache.get(layoutMetaBlock(SUPPLY_CHAIN_ID, "signature")), not(sameInstance(compiledLayout)));
+        assertThat(cache.get(layoutMetaBlock(OTHER_SUPPLY_CHAIN_ID, "signature")), sameInstance(otherCompiledLayout));
+    }
+
+    @Test
+    void evictsLeastRecentlyUsed() {
+        cache.setMaxSize(1);
+        cache.get(layoutMetaBlock(SUPPLY_CHAIN_ID, "signature"));
+        cache.get(layoutMetaBlock(OTHER_SUPPLY_CHAIN_ID, "signature"));
+        assertThat(cache.size(), is(1));
+    }
+
+    private static LayoutMetaBlock layoutMetaBlock(String supplyChainId, String signature) {
+        return LayoutMetaBlock.builder()
+                .supplyChainId(supplyChainId)
+                .layout(Layout.builder().steps(List.of(Step.builder().name("step").build())).build())
+                .signatures(List.of(Signature.builder().keyId("keyId").signature(signature).build()))
+                .build();
+    }
+
+    private double count(String result) {
+        return meterRegistry.get("argos.verification.compiled.layout.cache").tag("result", result).counter().count();
+    }
+}
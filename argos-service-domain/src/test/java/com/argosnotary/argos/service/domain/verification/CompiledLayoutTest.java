@@ -0,0 +1,139 @@
+/*
+ * Argos Notary - A new way to secure the Software Supply Chain
+ *
+ * Copyright (C) 2019 - 2020 Rabobank Nederland
+ * Copyright (C) 2019 - 2021 Gerard Borst <gerard.borst@argosnotary.com>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package com.argosnotary.argos.service.domain.verification;
+
+import com.argosnotary.argos.domain.crypto.KeyIdProvider;
+import com.argosnotary.argos.domain.crypto.KeyPair;
+import com.argosnotary.argos.domain.crypto.PublicKey;
+import com.argosnotary.argos.domain.crypto.Signature;
+import com.argosnotary.argos.domain.crypto.signing.JsonSigningSerializer;
+import com.argosnotary.argos.domain.layout.ArtifactType;
+import com.argosnotary.argos.domain.layout.Layout;
+import com.argosnotary.argos.domain.layout.LayoutMetaBlock;
+import com.argosnotary.argos.domain.layout.Step;
+import com.argosnotary.argos.domain.layout.rule.MatchRule;
+import com.argosnotary.argos.domain.layout.rule.Rule;
+import com.argosnotary.argos.domain.layout.rule.RuleType;
+
+import org.bouncycastle.operator.OperatorCreationException;
+import org.bouncycastle.util.io.pem.PemGenerationException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.security.GeneralSecurityException;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.sameInstance;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.containsInAnyOrder;
+
+class CompiledLayoutTest {
+
+    private static final char[] PASSPHRASE = "test".toCharArray();
+
+    private String keyId;
+
+    private PublicKey publicKey;
+
+    private LayoutMetaBlock layoutMetaBlock;
+
+    private CompiledLayout compiledLayout;
+
+    @BeforeEach
+    void setUp() throws OperatorCreationException, PemGenerationException, GeneralSecurityException {
+        KeyPair keyPair = KeyPair.createKeyPair(PASSPHRASE);
+        keyId = KeyIdProvider.computeKeyId(keyPair.getPublicKey());
+        publicKey = new PublicKey(keyId, keyPair.getPublicKey());
+        Layout layout = Layout.builder()
+                .keys(List.of(publicKey))
+                .authorizedKeyIds(List.of(keyId))
+                .expectedEndProducts(List.of(MatchRule.builder().pattern("**/*.jar").destinationType(ArtifactType.PRODUCTS).destinationStepName("step1").build()))
+                .steps(List.of(
+                        Step.builder().name("step1").authorizedKeyIds(List.of(keyId))
+                                .expectedProducts(List.of(new Rule(RuleType.ALLOW, "target/*.jar"))).build(),
+                        Step.builder().name("step1").authorizedKeyIds(List.of("otherKeyId")).build()))
+                .build();
+        layoutMetaBlock = LayoutMetaBlock.builder()
+                .supplyChainId("supplyChainId")
+                .layout(layout)
+                .signatures(List.of(signature("signature")))
+                .build();
+        compiledLayout = CompiledLayout.compile(layoutMetaBlock);
+    }
+
+    @Test
+    void compile() {
+        assertThat(compiledLayout.getLayoutMetaBlock(), sameInstance(layoutMetaBlock));
+        assertThat(compiledLayout.getSupplyChainId(), is("supplyChainId"));
+        assertThat(compiledLayout.getLayoutDigest(), is(new JsonSigningSerializer().digest(layoutMetaBlock.getLayout())));
+        assertThat(compiledLayout.getKeyById(keyId), is(Optional.of(publicKey)));
+        assertThat(compiledLayout.getKeyById("unknown"), is(Optional.empty()));
+        assertThat(compiledLayout.getJavaPublicKeyById(keyId).isPresent(), is(true));
+        assertThat(compiledLayout.getAuthorizedKeyIds(), is(Set.of(keyId)));
+        assertThat(compiledLayout.getCompiledPatterns().keySet(), containsInAnyOrder("**/*.jar", "target/*.jar"));
+        assertThat(compiledLayout.getCompiledPatterns().get("target/*.jar"), sameInstance(ArtifactMatcher.getCompiledPattern("target/*.jar")));
+    }
+
+    @Test
+    void firstStepWithNameIsUsed() {
+        assertThat(compiledLayout.getStep("step1").get(), sameInstance(layoutMetaBlock.getLayout().getSteps().get(0)));
+        assertThat(compiledLayout.isAuthorizedForStep("step1", keyId), is(true));
+        assertThat(compiledLayout.isAuthorizedForStep("step1", "otherKeyId"), is(false));
+        assertThat(compiledLayout.isAuthorizedForStep("unknownStep", keyId), is(false));
+    }
+
+    @Test
+    void signaturesAreVerifiedOnce() {
+        AtomicInteger verifications = new AtomicInteger();
+        assertThat(compiledLayout.isSignaturesValid(layout -> verifications.incrementAndGet() > 0), is(true));
+        assertThat(compiledLayout.isSignaturesValid(layout -> verifications.incrementAndGet() > 0), is(true));
+        assertThat(verifications.get(), is(1));
+    }
+
+    @Test
+    void hasSameSignatures() {
+        assertThat(compiledLayout.hasSameSignatures(copyWithSignatures(List.of(signature("signature")))), is(true));
+        assertThat(compiledLayout.hasSameSignatures(copyWithSignatures(List.of(signature("otherSignature")))), is(false));
+        assertThat(compiledLayout.hasSameSignatures(copyWithSignatures(List.of(signature("signature"), signature("signature")))), is(false));
+        assertThat(compiledLayout.hasSameSignatures(copyWithSignatures(List.of())), is(false));
+    }
+
+    @Test
+    void unsignedLayoutIsNeverTheSame() {
+        CompiledLayout unsigned = CompiledLayout.compile(copyWithSignatures(List.of()));
+        assertThat(unsigned.hasSameSignatures(copyWithSignatures(List.of())), is(false));
+    }
+
+    private LayoutMetaBlock copyWithSignatures(List<Signature> signatures) {
+        return LayoutMetaBlock.builder()
+                .supplyChainId(layoutMetaBlock.getSupplyChainId())
+                .layout(layoutMetaBlock.getLayout())
+                .signatures(signatures)
+                .build();
+    }
+
+    private Signature signature(String signature) {
+        return Signature.builder().keyId(keyId).signature(signature).build();
+    }
+}
@@ -0,0 +1,138 @@
+/*
+ * Argos Notary - A new way to secure the Software Supply Chain
+ *
+ * Copyright (C) 2019 - 2020 Rabobank Nederland
+ * Copyright (C) 2019 - 2021 Gerard Borst <gerard.borst@argosnotary.com>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package com.argosnotary.argos.service.domain.verification;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledOnOs;
+import org.junit.jupiter.api.condition.OS;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.MethodSource;
+
+import java.nio.file.FileSystems;
+import java.nio.file.InvalidPathException;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.function.BooleanSupplier;
+import java.util.regex.PatternSyntaxException;
+import java.util.stream.Stream;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Differential tests of the string based glob matcher against the path matcher of the default file system.
+ */
+@EnabledOnOs(OS.LINUX)
+class GlobsTest {
+
+    private static final List<String> PATTERNS = List.of(
+            "*", "**", "**/*", "*/*", "**/*.jar", "*.jar", "target/*.jar", "target/**.jar", "target/**/*.jar",
+            "foo/*", "foo/**", "f*3", "file2*", "*5", "file?", "file??", "?", "dir1/file1",
+            "[abc]*", "[!abc]*", "[a-c]*", "[!a-c]", "[-a]*", "[a-]*", "[^a]*", "[\\[]*", "[a&&b]*",
+            "{foo,bar}/*", "{*.jar,*.war}", "**/{a,b}/**", "{}", "{,a}", "a,b", "}", "a}b",
+            "a.b", "a+b", "a^b", "a$b", "a|b", "(a)", "a]b", "\\*", "\\?", "\\{a\\}", "\\a", "\\.",
+            "/**", "/foo/*", "foo/", "**/", ".*", "./*", "../**", "*.", "");
+
+    private static final List<String> URIS = List.of(
+            "", "/", "//", "a", "b", "c", "d", "-", "^", "[", "&", "file1", "file2", "file3", "file22", "file5",
+            "foo", "foo/bar", "foo//bar", "foo/bar/", "foo/bar//", "/foo/bar", "//foo/bar", "bar/baz",
+            "target/app.jar", "target/lib/app.jar", "target//app.jar", "target/app.war", "app.jar", "app.war",
+            "dir1/file1", "dir2/file1", "a/b/c", "x/a/y", "x/b/y", "a,b", "}", "a}b", "a.b", "a+b", "a^b",
+            "a$b", "a|b", "(a)", "a]b", "*", "?", "{a}", ".", "./a", "../a/b", "a.", ".hidden", "foo/.hidden");
+
+    static Stream<String> patterns() {
+        return PATTERNS.stream();
+    }
+
+    @ParameterizedTest
+    @MethodSource("patterns")
+    void matchesShouldBeEqualToDefaultFileSystemPathMatcher(String pattern) {
+        for (String uri : URIS) {
+            assertThat(pattern + " -> " + uri, outcome(() -> stringMatch(uri, pattern)), is(outcome(() -> pathMatch(uri, pattern))));
+        }
+    }
+
+    @Test
+    void randomPatternsAndUrisShouldBeEqualToDefaultFileSystemPathMatcher() {
+        Random random = new Random(20201018L);
+        List<String> uris = new ArrayList<>(URIS);
+        for (int i = 0; i < 200; i++) {
+            uris.add(randomString(random, "ab./-*", 8));
+        }
+        for (int i = 0; i < 2000; i++) {
+            String pattern = randomString(random, "ab/*?[]!-{},\\.^&", 8);
+            for (String uri : uris) {
+                assertThat(pattern + " -> " + uri, outcome(() -> stringMatch(uri, pattern)), is(outcome(() -> pathMatch(uri, pattern))));
+            }
+        }
+    }
+
+    @Test
+    void normalizeShouldRemoveRedundantSlashes() {
+        assertThat(Globs.normalize("foo//bar///baz/"), is("foo/bar/baz"));
+        assertThat(Globs.normalize("///"), is("/"));
+        assertThat(Globs.normalize("foo/bar"), is("foo/bar"));
+        assertThat(Globs.normalize(""), is(""));
+    }
+
+    @Test
+    void normalizeShouldRejectNulCharacter() {
+        assertThrows(InvalidPathException.class, () -> Globs.normalize("foo\u0000bar"));
+    }
+
+    @Test
+    void invalidPatterns() {
+        assertThrows(PatternSyntaxException.class, () -> Globs.toRegexPattern("foo\\"));
+        assertThrows(PatternSyntaxException.class, () -> Globs.toRegexPattern("[abc"));
+        assertThrows(PatternSyntaxException.class, () -> Globs.toRegexPattern("[a/b]"));
+        assertThrows(PatternSyntaxException.class, () -> Globs.toRegexPattern("[-a-]"));
+        assertThrows(PatternSyntaxException.class, () -> Globs.toRegexPattern("[c-a]"));
+        assertThrows(PatternSyntaxException.class, () -> Globs.toRegexPattern("{a,{b}}"));
+        assertThrows(PatternSyntaxException.class, () -> Globs.toRegexPattern("{a,b"));
+    }
+
+    private static String randomString(Random random, String alphabet, int maxLength) {
+        int length = random.nextInt(maxLength + 1);
+        StringBuilder builder = new StringBuilder(length);
+        for (int i = 0; i < length; i++) {
+            builder.append(alphabet.charAt(random.nextInt(alphabet.length())));
+        }
+        return builder.toString();
+    }
+
+    private static boolean stringMatch(String uri, String pattern) {
+        return ArtifactMatcher.matches(uri, pattern);
+    }
+
+    private static boolean pathMatch(String uri, String pattern) {
+        return FileSystems.getDefault().getPathMatcher("glob:" + pattern).matches(Paths.get(uri));
+    }
+
+    private static String outcome(BooleanSupplier matcher) {
+        try {
+            return Boolean.toString(matcher.getAsBoolean());
+        } catch (RuntimeException e) {
+            return e.getClass().getSimpleName();
+        }
+    }
+}
@@ -28,6 +28,8 @@ import org.mockito.junit.jupiter.MockitoExtension;
 
 import com.argosnotary.argos.domain.crypto.Signature;
 
+import java.util.Set;
+
 import static java.util.Collections.singletonList;
 import static org.hamcrest.CoreMatchers.is;
 import static org.hamcrest.MatcherAssert.assertThat;
@@ -60,7 +62,7 @@ class LayoutAuthorizedKeyIdVerificationTest {
     void verifyWithCorrectKeyIdShouldReturnValidResponse() {
         when(signature.getKeyId()).thenReturn(KEY_1);
         when(context.getLayoutMetaBlock().getSignatures()).thenReturn(singletonList(signature));
-        when(context.getLayoutMetaBlock().getLayout().getAuthorizedKeyIds()).thenReturn(singletonList(KEY_1));
+        when(context.getCompiledLayout().getAuthorizedKeyIds()).thenReturn(Set.of(KEY_1));
         VerificationRunResult result = layoutAuthorizedKeyIdVerification.verify(context);
         assertThat(result.isRunIsValid(), is(true));
     }
@@ -69,6 +71,7 @@ class LayoutAuthorizedKeyIdVerificationTest {
     void verifyWithInCorrectKeyIdShouldReturnInValidResponse() {
         when(signature.getKeyId()).thenReturn(KEY_1);
         when(context.getLayoutMetaBlock().getSignatures()).thenReturn(singletonList(signature));
+        when(context.getCompiledLayout().getAuthorizedKeyIds()).thenReturn(Set.of(KEY_2));
         when(context.getLayoutMetaBlock().getLayout().getAuthorizedKeyIds()).thenReturn(singletonList(KEY_2));
         VerificationRunResult result = layoutAuthorizedKeyIdVerification.verify(context);
         assertThat(result.isRunIsValid(), is(false));
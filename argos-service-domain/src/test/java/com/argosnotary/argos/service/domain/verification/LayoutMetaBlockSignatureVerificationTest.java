@@ -113,20 +113,20 @@ class LayoutMetaBlockSignatureVerificationTest {
 
     @Test
     void verifyOkay() throws GeneralSecurityException {
-        when(context.getLayoutMetaBlock()).thenReturn(layoutMetaBlock);
+        when(context.getCompiledLayout()).thenReturn(CompiledLayout.compile(layoutMetaBlock));
     	
         assertThat(verification.verify(context).isRunIsValid(), is(true));
     }
 
     @Test
     void verifyNotOkay() throws GeneralSecurityException {
-        when(context.getLayoutMetaBlock()).thenReturn(layoutMetaBlock3);
+        when(context.getCompiledLayout()).thenReturn(CompiledLayout.compile(layoutMetaBlock3));
         assertThat(verification.verify(context).isRunIsValid(), is(false));
     }
 
     @Test
     void verifyKeyNotFound() {
-        when(context.getLayoutMetaBlock()).thenReturn(layoutMetaBlock2);
+        when(context.getCompiledLayout()).thenReturn(CompiledLayout.compile(layoutMetaBlock2));
         assertThat(verification.verify(context).isRunIsValid(), is(false));
     }
 }
@@ -33,6 +33,7 @@ import com.argosnotary.argos.domain.link.LinkMetaBlock;
 
 import org.bouncycastle.operator.OperatorCreationException;
 import org.bouncycastle.util.io.pem.PemGenerationException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -69,9 +70,6 @@ class LinkMetaBlockSignatureVerificationTest {
     private Signature signature;
     private Signature signature2;
 
-    @Mock
-    private LayoutMetaBlock layoutMetaBlock;
-
     private Layout layout;
 
     private com.argosnotary.argos.domain.crypto.PublicKey domainPublicKey;
@@ -79,7 +77,7 @@ class LinkMetaBlockSignatureVerificationTest {
 
     @BeforeEach
     void setUp() throws OperatorCreationException, PemGenerationException, GeneralSecurityException {
-        verification = new LinkMetaBlockSignatureVerification();
+        verification = new LinkMetaBlockSignatureVerification(new LinkSignatureCache(new SimpleMeterRegistry()));
 
         link = Link.builder()
                 .products(singletonList(Artifact.builder().hash("hash2").uri("/path/tofile2").build()))
@@ -115,8 +113,7 @@ class LinkMetaBlockSignatureVerificationTest {
     void verifyOkay() throws GeneralSecurityException {
         when(context.getLinkMetaBlocks()).thenReturn(List.of(linkMetaBlock));
         layout = Layout.builder().keys(List.of(domainPublicKey)).build();
-        when(context.getLayoutMetaBlock()).thenReturn(layoutMetaBlock);
-        when(layoutMetaBlock.getLayout()).thenReturn(layout);
+        when(context.getCompiledLayout()).thenReturn(CompiledLayout.compile(LayoutMetaBlock.builder().layout(layout).build()));
         assertThat(verification.verify(context).isRunIsValid(), is(true));
         verify(context).removeLinkMetaBlocks(Collections.emptyList());
     }
@@ -125,8 +122,7 @@ class LinkMetaBlockSignatureVerificationTest {
     void verifyNotValid() throws GeneralSecurityException {
         when(context.getLinkMetaBlocks()).thenReturn(List.of(linkMetaBlock2));
         layout = Layout.builder().keys(List.of(domainPublicKey, domainPublicKey2)).build();
-        when(context.getLayoutMetaBlock()).thenReturn(layoutMetaBlock);
-        when(layoutMetaBlock.getLayout()).thenReturn(layout);
+        when(context.getCompiledLayout()).thenReturn(CompiledLayout.compile(LayoutMetaBlock.builder().layout(layout).build()));
         assertThat(verification.verify(context).isRunIsValid(), is(true));
         verify(context).removeLinkMetaBlocks(List.of(linkMetaBlock2));
     }
@@ -135,8 +131,7 @@ class LinkMetaBlockSignatureVerificationTest {
     void verifyKeyNotFound() throws GeneralSecurityException {
         when(context.getLinkMetaBlocks()).thenReturn(List.of(linkMetaBlock));
         layout = Layout.builder().keys(Collections.emptyList()).build();
-        when(context.getLayoutMetaBlock()).thenReturn(layoutMetaBlock);
-        when(layoutMetaBlock.getLayout()).thenReturn(layout);
+        when(context.getCompiledLayout()).thenReturn(CompiledLayout.compile(LayoutMetaBlock.builder().layout(layout).build()));
         assertThat(verification.verify(context).isRunIsValid(), is(true));
         verify(context).removeLinkMetaBlocks(List.of(linkMetaBlock));
     }
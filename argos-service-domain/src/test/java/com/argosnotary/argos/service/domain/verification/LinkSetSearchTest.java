@@ -0,0 +1,187 @@
+/*
+ * Argos Notary - A new way to secure the Software Supply Chain
+ *
+ * Copyright (C) 2019 - 2020 Rabobank Nederland
+ * Copyright (C) 2019 - 2021 Gerard Borst <gerard.borst@argosnotary.com>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package com.argosnotary.argos.service.domain.verification;
+
+import com.argosnotary.argos.domain.crypto.Signature;
+import com.argosnotary.argos.domain.layout.ArtifactType;
+import com.argosnotary.argos.domain.layout.Step;
+import com.argosnotary.argos.domain.layout.rule.MatchRule;
+import com.argosnotary.argos.domain.link.Artifact;
+import com.argosnotary.argos.domain.link.Link;
+import com.argosnotary.argos.domain.link.LinkMetaBlock;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BiPredicate;
+import java.util.stream.Collectors;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class LinkSetSearchTest {
+
+    private final Artifact artifact11 = new Artifact("file11", "hash111");
+    private final Artifact artifact12 = new Artifact("file12", "hash112");
+    private final Artifact artifact21 = new Artifact("file21", "hash121");
+    private final Artifact artifact22 = new Artifact("file22", "hash122");
+    private final Artifact artifact31 = new Artifact("file31", "hash211");
+
+    private final LinkMetaBlock block11 = block("step1", artifact11);
+    private final LinkMetaBlock block12 = block("step1", artifact12);
+    private final LinkMetaBlock block21 = block("step2", artifact21);
+    private final LinkMetaBlock block22 = block("step2", artifact22);
+
+    private static LinkMetaBlock block(String stepName, Artifact artifact) {
+        return LinkMetaBlock.builder().link(Link.builder().stepName(stepName).materials(List.of(artifact)).build()).build();
+    }
+
+    private static Set<Set<LinkMetaBlock>> search(List<Step> steps, List<List<Set<LinkMetaBlock>>> candidates,
+            BiPredicate<Map<String, Link>, Step> stepVerifier) {
+        return new LinkSetSearch(steps, candidates, stepVerifier).stream()
+                .map(HashSet::new)
+                .collect(Collectors.toSet());
+    }
+
+    @Test
+    void searchShouldProduceAllCombinationsWhenAllStepsAreValid() {
+        List<Step> steps = List.of(Step.builder().name("step1").build(), Step.builder().name("step2").build());
+        Set<Set<LinkMetaBlock>> expectedSets = new HashSet<>();
+        expectedSets.add(Set.of(block11, block21));
+        expectedSets.add(Set.of(block11, block22));
+        expectedSets.add(Set.of(block12, block21));
+        expectedSets.add(Set.of(block12, block22));
+
+        Set<Set<LinkMetaBlock>> actualSets = search(steps,
+                List.of(List.of(Set.of(block11), Set.of(block12)), List.of(Set.of(block21), Set.of(block22))),
+                (linksMap, step) -> true);
+
+        assertThat(actualSets, is(expectedSets));
+    }
+
+    @Test
+    void searchShouldAddAllLinkMetaBlocksOfAGroup() {
+        Link link3 = Link.builder().stepName("step3").materials(List.of(artifact31)).build();
+        LinkMetaBlock block31 = LinkMetaBlock.builder().link(link3).signature(Signature.builder().keyId("keyId1").build()).build();
+        LinkMetaBlock block32 = LinkMetaBlock.builder().link(link3).signature(Signature.builder().keyId("keyId2").build()).build();
+        List<Step> steps = List.of(Step.builder().name("step1").build(), Step.builder().name("step3").build());
+
+        Set<Set<LinkMetaBlock>> expectedSets = new HashSet<>();
+        expectedSets.add(Set.of(block11, block31, block32));
+        expectedSets.add(Set.of(block12, block31, block32));
+
+        Set<Set<LinkMetaBlock>> actualSets = search(steps,
+                List.of(List.of(Set.of(block11), Set.of(block12)), List.of(Set.of(block31, block32))),
+                (linksMap, step) -> true);
+
+        assertThat(actualSets, is(expectedSets));
+    }
+
+    @Test
+    void searchShouldDropBranchOnFailingStep() {
+        List<Step> steps = List.of(Step.builder().name("step1").build(), Step.builder().name("step2").build());
+        List<Map<String, Link>> verifiedStep2Maps = new ArrayList<>();
+
+        Set<Set<LinkMetaBlock>> actualSets = search(steps,
+                List.of(List.of(Set.of(block11), Set.of(block12)), List.of(Set.of(block21), Set.of(block22))),
+                (linksMap, step) -> {
+                    if ("step2".equals(step.getName())) {
+                        verifiedStep2Maps.add(Map.copyOf(linksMap));
+                    }
+                    return !block11.getLink().equals(linksMap.get("step1"));
+                });
+
+        assertThat(actualSets, is(Set.of(Set.of(block12, block21), Set.of(block12, block22))));
+        assertThat(verifiedStep2Maps.size(), is(2));
+    }
+
+    @Test
+    void searchShouldVerifyStepWhenMatchRuleDestinationIsAssigned() {
+        Step step1 = Step.builder().name("step1")
+                .expectedMaterials(List.of(MatchRule.builder()
+                        .pattern("**")
+                        .destinationStepName("step2")
+                        .destinationType(ArtifactType.PRODUCTS).build()))
+                .build();
+        Step step2 = Step.builder().name("step2").build();
+        List<String> verifiedSteps = new ArrayList<>();
+
+        search(List.of(step1, step2),
+                List.of(List.of(Set.of(block11)), List.of(Set.of(block21))),
+                (linksMap, step) -> {
+                    assertThat(linksMap.containsKey("step2"), is(true));
+                    verifiedSteps.add(step.getName());
+                    return true;
+                });
+
+        assertThat(verifiedSteps, is(List.of("step1", "step2")));
+    }
+
+    @Test
+    void searchShouldBeLazy() {
+        List<Step> steps = List.of(Step.builder().name("step1").build(), Step.builder().name("step2").build());
+        AtomicInteger verifications = new AtomicInteger();
+        LinkSetSearch search = new LinkSetSearch(steps,
+                List.of(List.of(Set.of(block11), Set.of(block12)), List.of(Set.of(block21), Set.of(block22))),
+                (linksMap, step) -> {
+                    verifications.incrementAndGet();
+                    return true;
+                });
+
+        assertThat(search.stream().findFirst().isPresent(), is(true));
+        assertThat(verifications.get(), is(2));
+    }
+
+    @Test
+    void searchShouldRunSearchCheckBeforeEveryStep() {
+        List<Step> steps = List.of(Step.builder().name("step1").build(), Step.builder().name("step2").build());
+        AtomicInteger checks = new AtomicInteger();
+        LinkSetSearch search = new LinkSetSearch(steps,
+                List.of(List.of(Set.of(block11), Set.of(block12)), List.of(Set.of(block21), Set.of(block22))),
+                (linksMap, step) -> false,
+                () -> {
+                    if (checks.incrementAndGet() > 2) {
+                        throw new IllegalStateException("stop");
+                    }
+                });
+
+        assertThrows(IllegalStateException.class, search::hasNext);
+        assertThat(checks.get(), is(3));
+    }
+
+    @Test
+    void searchWithoutCandidatesForAStepShouldProduceNothing() {
+        List<Step> steps = List.of(Step.builder().name("step1").build(), Step.builder().name("step2").build());
+        LinkSetSearch search = new LinkSetSearch(steps,
+                List.of(List.of(Set.of(block11)), List.of()),
+                (linksMap, step) -> true);
+
+        assertThat(search.hasNext(), is(false));
+        assertThrows(NoSuchElementException.class, search::next);
+    }
+
+}
@@ -0,0 +1,155 @@
+/*
+ * Argos Notary - A new way to secure the Software Supply Chain
+ *
+ * Copyright (C) 2019 - 2020 Rabobank Nederland
+ * Copyright (C) 2019 - 2021 Gerard Borst <gerard.borst@argosnotary.com>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package com.argosnotary.argos.service.domain.verification;
+
+import com.argosnotary.argos.domain.crypto.KeyIdProvider;
+import com.argosnotary.argos.domain.crypto.KeyPair;
+import com.argosnotary.argos.domain.crypto.PublicKey;
+import com.argosnotary.argos.domain.crypto.Signature;
+import com.argosnotary.argos.domain.crypto.signing.JsonSigningSerializer;
+import com.argosnotary.argos.domain.crypto.signing.Signer;
+import com.argosnotary.argos.domain.link.Artifact;
+import com.argosnotary.argos.domain.link.Link;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.bouncycastle.operator.OperatorCreationException;
+import org.bouncycastle.util.io.pem.PemGenerationException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.security.GeneralSecurityException;
+import java.util.List;
+
+import static java.util.Collections.singletonList;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+class LinkSignatureCacheTest {
+    private static final char[] PASSPHRASE = "test".toCharArray();
+
+    private SimpleMeterRegistry meterRegistry;
+
+    private LinkSignatureCache cache;
+
+    private Link link;
+
+    private Signature signature;
+
+    private PublicKey publicKey;
+
+    private PublicKey otherPublicKey;
+
+    @BeforeEach
+    void setUp() throws OperatorCreationException, PemGenerationException, GeneralSecurityException {
+        meterRegistry = new SimpleMeterRegistry();
+        cache = new LinkSignatureCache(meterRegistry);
+        link = Link.builder()
+                .products(singletonList(Artifact.builder().hash("hash2").uri("/path/tofile2").build()))
+                .materials(singletonList(Artifact.builder().hash("hash").uri("/path/tofile").build())).build();
+
+        KeyPair pair = KeyPair.createKeyPair(PASSPHRASE);
+        publicKey = new PublicKey(KeyIdProvider.computeKeyId(pair.getPublicKey()), pair.getPublicKey());
+        signature = Signer.sign(pair, PASSPHRASE, new JsonSigningSerializer().serialize(link));
+
+        KeyPair otherPair = KeyPair.createKeyPair(PASSPHRASE);
+        otherPublicKey = new PublicKey(publicKey.getKeyId(), otherPair.getPublicKey());
+    }
+
+    @Test
+    void isValidIsCached() {
+        assertThat(cache.isValid(link, signature, publicKey), is(true));
+        assertThat(cache.isValid(link, signature, publicKey), is(true));
+        assertThat(count("hit"), is(1.0));
+        assertThat(count("miss"), is(1.0));
+        assertThat(cache.size(), is(1));
+    }
+
+    @Test
+    void cachedResultNotReusedForOtherPublicKey() {
+        assertThat(cache.isValid(link, signature, publicKey), is(true));
+        assertThat(cache.isValid(link, signature, otherPublicKey), is(false));
+        assertThat(count("hit"), is(0.0));
+        assertThat(count("miss"), is(2.0));
+    }
+
+    @Test
+    void cachedResultNotReusedForOtherSignature() {
+        String hex = signature.getSignature();
+        Signature otherSignature = Signature.builder()
+                .keyId(signature.getKeyId())
+                .keyAlgorithm(signature.getKeyAlgorithm())
+                .hashAlgorithm(signature.getHashAlgorithm())
+                .signature(hex.substring(0, hex.length() - 1) + (hex.endsWith("0") ? "1" : "0")).build();
+        assertThat(cache.isValid(link, signature, publicKey), is(true));
+        assertThat(cache.isValid(link, otherSignature, publicKey), is(false));
+        assertThat(count("hit"), is(0.0));
+        assertThat(count("miss"), is(2.0));
+    }
+
+    @Test
+    void cachedResultNotReusedForChangedLink() {
+        assertThat(cache.isValid(link, signature, publicKey), is(true));
+        Link changedLink = Link.builder()
+                .products(singletonList(Artifact.builder().hash("otherHash").uri("/path/tofile2").build()))
+                .materials(link.getMaterials()).build();
+        assertThat(cache.isValid(changedLink, signature, publicKey), is(false));
+        assertThat(count("hit"), is(0.0));
+    }
+
+    @Test
+    void cachedResultNotReusedForLinkChangedBySetter() {
+        Link mutableLink = Link.builder()
+                .products(link.getProducts())
+                .materials(link.getMaterials()).build();
+        assertThat(cache.isValid(mutableLink, signature, publicKey), is(true));
+        mutableLink.setProducts(singletonList(Artifact.builder().hash("otherHash").uri("/path/other").build()));
+        assertThat(cache.isValid(mutableLink, signature, publicKey), is(false));
+        assertThat(count("hit"), is(0.0));
+    }
+
+    @Test
+    void artifactOrderDoesNotMatter() {
+        Link unorderedLink = Link.builder()
+                .products(List.of(Artifact.builder().hash("b").uri("b").build(), Artifact.builder().hash("a").uri("a").build()))
+                .build();
+        Link orderedLink = Link.builder()
+                .products(List.of(Artifact.builder().hash("a").uri("a").build(), Artifact.builder().hash("b").uri("b").build()))
+                .build();
+        cache.isValid(unorderedLink, signature, publicKey);
+        cache.isValid(orderedLink, signature, publicKey);
+        assertThat(count("hit"), is(1.0));
+    }
+
+    @Test
+    void evictsLeastRecentlyUsed() {
+        cache.setMaxSize(1);
+        Link otherLink = Link.builder().products(singletonList(Artifact.builder().hash("hash").uri("other").build())).build();
+        cache.isValid(link, signature, publicKey);
+        cache.isValid(otherLink, signature, publicKey);
+        assertThat(cache.size(), is(1));
+        assertThat(meterRegistry.get("argos.verification.link.signature.cache.evictions").counter().count(), is(1.0));
+        cache.isValid(link, signature, publicKey);
+        assertThat(count("hit"), is(0.0));
+    }
+
+    private double count(String result) {
+        return meterRegistry.get("argos.verification.link.signature.cache").tag("result", result).counter().count();
+    }
+}
@@ -23,6 +23,7 @@ import com.argosnotary.argos.domain.crypto.Signature;
 import com.argosnotary.argos.domain.layout.Layout;
 import com.argosnotary.argos.domain.layout.LayoutMetaBlock;
 import com.argosnotary.argos.domain.layout.Step;
+import com.argosnotary.argos.domain.link.Artifact;
 import com.argosnotary.argos.domain.link.Link;
 import com.argosnotary.argos.domain.link.LinkMetaBlock;
 import org.junit.jupiter.api.BeforeEach;
@@ -146,4 +147,40 @@ class RequiredNumberOfLinksVerificationTest {
         VerificationRunResult result = requiredNumberOfLinksVerification.verify(context);
         assertThat(result.isRunIsValid(), is(false));
     }
+
+    @Test
+    void verifyWithDifferentLinksForStepShouldReturnInValid() {
+        LinkMetaBlock otherLinkMetaBlock = createLinkMetaBlock(SIGNATURE_2, STEP_NAME1,
+                new Artifact("file1", "hash1"), new Artifact("file2", "hash2"));
+        context = VerificationContext.builder()
+                .layoutMetaBlock(layoutMetaBlock)
+                .linkMetaBlocks(List.of(linkMetaBlock1, otherLinkMetaBlock, linkMetaBlock3, linkMetaBlock4))
+                .productsToVerify(Set.of())
+                .build();
+        assertThat(requiredNumberOfLinksVerification.verify(context).isRunIsValid(), is(false));
+    }
+
+    @Test
+    void verifyWithSameLinkInOtherArtifactOrderShouldReturnValid() {
+        step1.setRequiredNumberOfLinks(2);
+        context = VerificationContext.builder()
+                .layoutMetaBlock(layoutMetaBlock)
+                .linkMetaBlocks(List.of(
+                        createLinkMetaBlock(SIGNATURE_1, STEP_NAME1, new Artifact("file1", "hash1"), new Artifact("file2", "hash2")),
+                        createLinkMetaBlock(SIGNATURE_2, STEP_NAME1, new Artifact("file2", "hash2"), new Artifact("file1", "hash1")),
+                        linkMetaBlock3, linkMetaBlock4))
+                .productsToVerify(Set.of())
+                .build();
+        assertThat(requiredNumberOfLinksVerification.verify(context).isRunIsValid(), is(true));
+    }
+
+    private LinkMetaBlock createLinkMetaBlock(Signature sig, String stepName, Artifact... products) {
+        return LinkMetaBlock.builder()
+                .signature(sig)
+                .link(Link.builder()
+                        .stepName(stepName)
+                        .products(List.of(products))
+                        .build())
+                .build();
+    }
 }
@@ -34,6 +34,7 @@ import com.argosnotary.argos.service.domain.verification.rules.DisallowRuleVerif
 import com.argosnotary.argos.service.domain.verification.rules.RuleVerification;
 import com.argosnotary.argos.service.domain.verification.rules.RuleVerificationContext;
 
+import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeAll;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -51,6 +52,7 @@ import java.util.Set;
 import static com.argosnotary.argos.service.domain.verification.Verification.Priority.RULES;
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.is;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.mockito.Mockito.when;
 
 @ExtendWith(MockitoExtension.class)
@@ -208,9 +210,68 @@ class RulesVerificationTest {
 
     }
 
+    @Test
+    void verifyParallelAllStepsValid() {
+        setupParallelSteps(allowAllRule, allowAllRule, allowAllRule);
+        assertThat(verification.verify(verificationContext).isRunIsValid(), is(true));
+    }
+
+    @Test
+    void verifyParallelOneStepInvalid() {
+        setupParallelSteps(allowAllRule, disAllowAllRule, allowAllRule);
+        assertThat(verification.verify(verificationContext).isRunIsValid(), is(false));
+    }
+
+    @Test
+    void verifyParallelShouldPropagateFailure() {
+        RuleVerification failingRuleVerification = new RuleVerification() {
+            @Override
+            public RuleType getRuleType() {
+                return RuleType.DELETE;
+            }
+
+            @Override
+            public boolean verify(RuleVerificationContext<? extends Rule> context) {
+                throw new IllegalStateException("failure");
+            }
+        };
+        verification = new RulesVerification(List.of(allowRuleVerification, failingRuleVerification));
+        setupParallelSteps(allowAllRule, deleteRule);
+        VerificationError error = assertThrows(VerificationError.class, () -> verification.verify(verificationContext));
+        assertThat(error.getMessage(), is("failure"));
+    }
+
+    @AfterEach
+    void tearDown() {
+        verification.shutdown();
+    }
+
+    private void setupParallelSteps(Rule... rules) {
+        verification.setStepParallelism(4);
+        verification.init();
+        List<Step> steps = new ArrayList<>();
+        linkMetaBlocks = new ArrayList<>();
+        for (int i = 0; i < rules.length; i++) {
+            steps.add(Step.builder()
+                    .name(STEP_NAME + i)
+                    .expectedMaterials(List.of(rules[i]))
+                    .expectedProducts(List.of(rules[i])).build());
+            linkMetaBlocks.add(LinkMetaBlock
+                    .builder().link(Link.builder()
+                            .materials(List.of(artifact1))
+                            .products(List.of(artifact2))
+                            .stepName(STEP_NAME + i).build()).build());
+        }
+        setupMocks(steps);
+    }
+
     private void setupMocks() {
+        setupMocks(Collections.singletonList(step));
+    }
+
+    private void setupMocks(List<Step> steps) {
         when(layoutMetaBlock.getLayout()).thenReturn(layout);
-        when(layout.getSteps()).thenReturn(Collections.singletonList(step));
+        when(layout.getSteps()).thenReturn(steps);
         verificationContext = VerificationContext
                 .builder()
                 .layoutMetaBlock(layoutMetaBlock)
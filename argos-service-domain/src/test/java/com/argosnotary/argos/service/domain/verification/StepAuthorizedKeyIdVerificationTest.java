@@ -20,6 +20,8 @@
 package com.argosnotary.argos.service.domain.verification;
 
 import com.argosnotary.argos.domain.crypto.PublicKey;
+import com.argosnotary.argos.domain.layout.Layout;
+import com.argosnotary.argos.domain.layout.LayoutMetaBlock;
 import com.argosnotary.argos.domain.layout.Step;
 import com.argosnotary.argos.domain.link.LinkMetaBlock;
 import org.junit.jupiter.api.BeforeEach;
@@ -52,9 +54,6 @@ class StepAuthorizedKeyIdVerificationTest {
     @Mock(answer = Answers.RETURNS_DEEP_STUBS)
     private VerificationContext context;
 
-    @Mock(answer = Answers.RETURNS_DEEP_STUBS)
-    private Step step;
-
     @Mock(answer = Answers.RETURNS_DEEP_STUBS)
     private LinkMetaBlock linkMetaBlock;
 
@@ -78,10 +77,8 @@ class StepAuthorizedKeyIdVerificationTest {
     void verifyWithCorrectKeyIdShouldReturnValidResponse() {
         when(context.getLinkMetaBlocks()).thenReturn(Collections.singletonList(linkMetaBlock));
         when(linkMetaBlock.getLink().getStepName()).thenReturn(STEP_NAME);
-        when(context.getLayoutMetaBlock().getLayout().getSteps()).thenReturn(Collections.singletonList(step));
-        when(step.getAuthorizedKeyIds()).thenReturn(Collections.singletonList("keyId"));
-        when(step.getName()).thenReturn("stepName");
         when(linkMetaBlock.getSignature().getKeyId()).thenReturn("keyId");
+        when(context.getCompiledLayout()).thenReturn(CompiledLayout.compile(createLayoutMetaBlock()));
         VerificationRunResult result = stepAuthorizedKeyIdVerification.verify(context);
         verify(context, times(0)).removeLinkMetaBlocks(listArgumentCaptor.capture());
         assertThat(result.isRunIsValid(), is(true));
@@ -90,12 +87,32 @@ class StepAuthorizedKeyIdVerificationTest {
     @Test
     void verifyWithCorrectIncorrectKeyIdShouldReturnInValidResponse() {
         when(context.getLinkMetaBlocks()).thenReturn(Collections.singletonList(linkMetaBlock));
-        when(context.getLayoutMetaBlock().getLayout().getSteps()).thenReturn(Collections.singletonList(step));
-        when(step.getAuthorizedKeyIds()).thenReturn(Collections.singletonList("keyId"));
+        when(linkMetaBlock.getLink().getStepName()).thenReturn(STEP_NAME);
         when(linkMetaBlock.getSignature().getKeyId()).thenReturn("unTrustedKeyId");
+        when(context.getCompiledLayout()).thenReturn(CompiledLayout.compile(createLayoutMetaBlock()));
+        VerificationRunResult result = stepAuthorizedKeyIdVerification.verify(context);
+        verify(context).removeLinkMetaBlocks(listArgumentCaptor.capture());
+        assertThat(listArgumentCaptor.getValue(), hasSize(1));
+        assertThat(result.isRunIsValid(), is(true));
+    }
+
+    @Test
+    void verifyWithUnknownStepShouldRemoveLink() {
+        when(context.getLinkMetaBlocks()).thenReturn(Collections.singletonList(linkMetaBlock));
+        when(linkMetaBlock.getLink().getStepName()).thenReturn("otherStep");
+        when(linkMetaBlock.getSignature().getKeyId()).thenReturn("keyId");
+        when(context.getCompiledLayout()).thenReturn(CompiledLayout.compile(createLayoutMetaBlock()));
         VerificationRunResult result = stepAuthorizedKeyIdVerification.verify(context);
         verify(context).removeLinkMetaBlocks(listArgumentCaptor.capture());
         assertThat(listArgumentCaptor.getValue(), hasSize(1));
         assertThat(result.isRunIsValid(), is(true));
     }
+
+    private static LayoutMetaBlock createLayoutMetaBlock() {
+        return LayoutMetaBlock.builder()
+                .layout(Layout.builder()
+                        .steps(List.of(Step.builder().name(STEP_NAME).authorizedKeyIds(List.of("keyId")).build()))
+                        .build())
+                .build();
+    }
 }
@@ -0,0 +1,118 @@
+/*
+ * Argos Notary - A new way to secure the Software Supply Chain
+ *
+ * Copyright (C) 2019 - 2020 Rabobank Nederland
+ * Copyright (C) 2019 - 2021 Gerard Borst <gerard.borst@argosnotary.com>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package com.argosnotary.argos.service.domain.verification;
+
+import com.argosnotary.argos.service.domain.verification.VerificationRejectedException.Reason;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class VerificationBudgetTest {
+
+    private static final String SUPPLY_CHAIN_ID = "supplyChainId";
+
+    private SimpleMeterRegistry meterRegistry;
+
+    private VerificationBudget budget;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        budget = new VerificationBudget(meterRegistry);
+        budget.setMaxContexts(10);
+        budget.setMaxArtifacts(100);
+    }
+
+    @Test
+    void checkCostWithinBudget() {
+        budget.checkCost(SUPPLY_CHAIN_ID, new VerificationCost(10, 100));
+        assertThat(count(Reason.CONTEXTS) + count(Reason.ARTIFACTS), is(0.0));
+    }
+
+    @Test
+    void checkCostRejectsTooManyContexts() {
+        VerificationCost cost = new VerificationCost(11, 100);
+        VerificationRejectedException exception = assertThrows(VerificationRejectedException.class, () -> budget.checkCost(SUPPLY_CHAIN_ID, cost));
+        assertThat(exception.getReason(), is(Reason.CONTEXTS));
+        assertThat(exception.getMessage(), is("verification exceeds the maximum of 10 possible link combinations"));
+        assertThat(count(Reason.CONTEXTS), is(1.0));
+    }
+
+    @Test
+    void checkCostWithoutContextLimit() {
+        budget.setMaxContexts(0);
+        budget.checkCost(SUPPLY_CHAIN_ID, new VerificationCost(Long.MAX_VALUE, 100));
+        assertThat(count(Reason.CONTEXTS), is(0.0));
+    }
+
+    @Test
+    void checkCostRejectsTooManyArtifacts() {
+        VerificationCost cost = new VerificationCost(1, 101);
+        VerificationRejectedException exception = assertThrows(VerificationRejectedException.class, () -> budget.checkCost(SUPPLY_CHAIN_ID, cost));
+        assertThat(exception.getReason(), is(Reason.ARTIFACTS));
+        assertThat(count(Reason.ARTIFACTS), is(1.0));
+    }
+
+    @Test
+    void checkDeadlineRejectsRunPastDeadline() {
+        budget.setDeadline(1);
+        long startNanos = System.nanoTime() - TimeUnit.MILLISECONDS.toNanos(2);
+        VerificationRejectedException exception = assertThrows(VerificationRejectedException.class, () -> budget.checkDeadline(SUPPLY_CHAIN_ID, startNanos));
+        assertThat(exception.getReason(), is(Reason.DEADLINE));
+        assertThat(count(Reason.DEADLINE), is(1.0));
+    }
+
+    @Test
+    void checkDeadlineWithoutDeadline() {
+        budget.setDeadline(0);
+        long startNanos = System.nanoTime() - TimeUnit.DAYS.toNanos(1);
+        budget.checkDeadline(SUPPLY_CHAIN_ID, startNanos);
+        assertThat(budget.remainingNanos(startNanos), is(Long.MAX_VALUE));
+    }
+
+    @Test
+    void admitWithoutLimit() {
+        budget.init();
+        assertThat(budget.admit(SUPPLY_CHAIN_ID, () -> budget.admit(SUPPLY_CHAIN_ID, () -> "result")), is("result"));
+    }
+
+    @Test
+    void admitRejectsRunWhenAllSlotsAreTaken() {
+        budget.setMaxConcurrent(1);
+        budget.setQueueTimeout(0);
+        budget.init();
+        VerificationRejectedException exception = assertThrows(VerificationRejectedException.class,
+                () -> budget.admit(SUPPLY_CHAIN_ID, () -> budget.admit(SUPPLY_CHAIN_ID, () -> "result")));
+        assertThat(exception.getReason(), is(Reason.BUSY));
+        assertThat(count(Reason.BUSY), is(1.0));
+        assertThat(budget.admit(SUPPLY_CHAIN_ID, () -> "result"), is("result"));
+    }
+
+    private double count(Reason reason) {
+        return meterRegistry.get("argos.verification.rejected").tag("reason", reason.name().toLowerCase()).counter().count();
+    }
+}
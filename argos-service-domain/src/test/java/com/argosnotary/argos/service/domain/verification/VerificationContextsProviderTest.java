@@ -20,45 +20,40 @@
 package com.argosnotary.argos.service.domain.verification;
 
 import com.argosnotary.argos.domain.crypto.Signature;
+import com.argosnotary.argos.domain.crypto.signing.JsonSigningSerializer;
 import com.argosnotary.argos.domain.layout.ArtifactType;
 import com.argosnotary.argos.domain.layout.Layout;
 import com.argosnotary.argos.domain.layout.LayoutMetaBlock;
 import com.argosnotary.argos.domain.layout.Step;
 import com.argosnotary.argos.domain.layout.rule.MatchRule;
-import com.argosnotary.argos.domain.layout.rule.Rule;
 import com.argosnotary.argos.domain.link.Artifact;
 import com.argosnotary.argos.domain.link.Link;
+import com.argosnotary.argos.domain.link.LinkFacts;
 import com.argosnotary.argos.domain.link.LinkMetaBlock;
 import com.argosnotary.argos.service.domain.link.LinkMetaBlockRepository;
-import com.argosnotary.argos.service.domain.verification.rules.AllowRuleVerification;
-import com.argosnotary.argos.service.domain.verification.rules.CreateRuleVerification;
-import com.argosnotary.argos.service.domain.verification.rules.DeleteRuleVerification;
-import com.argosnotary.argos.service.domain.verification.rules.DisallowRuleVerification;
-import com.argosnotary.argos.service.domain.verification.rules.MatchRuleVerification;
-import com.argosnotary.argos.service.domain.verification.rules.ModifyRuleVerification;
-import com.argosnotary.argos.service.domain.verification.rules.RequireRuleVerification;
 
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 
-import java.util.ArrayList;
-import java.util.EnumMap;
-import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
-import java.util.Map;
 import java.util.Set;
+import java.util.stream.Collectors;
 
-import static java.util.Collections.emptyList;
-import static java.util.Collections.singletonList;
 import static org.hamcrest.CoreMatchers.is;
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.collection.IsCollectionWithSize.hasSize;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.argThat;
 import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 @ExtendWith(MockitoExtension.class)
@@ -73,35 +68,26 @@ class VerificationContextsProviderTest {
     private LinkMetaBlockRepository linkMetaBlockRepository;
 
     @Mock
-    private LayoutMetaBlock layoutMetaBlock;
+    private StepAuthorizedKeyIdVerification stepAuthorizedKeyIdVerification;
 
     @Mock
-    private Layout layout;
+    private LinkMetaBlockSignatureVerification linkMetaBlockSignatureVerification;
 
     @Mock
-    private Step step1;
+    private RequiredNumberOfLinksVerification requiredNumberOfLinksVerification;
 
     @Mock
-    private Step step2;
-
-    @Mock
-    private Step step3;
+    private RulesVerification rulesVerification;
 
     private List<Artifact> artifacts;
     private List<Artifact> artifacts2;
 
-    private List<MatchRule> matchRule;
-
-    private List<Rule> matchRulesForProductsStep1;
+    private Step step1;
+    private Step step2;
+    private Step step3;
 
     private LinkMetaBlock linkMetaBlockFromInput;
 
-    private LinkMetaBlock linkMetaBlockFromRunId1_1;
-
-    private LinkMetaBlock linkMetaBlockFromRunId1_2;
-
-    private VerificationContextsProvider verificationContextsProvider;
-
     private LinkMetaBlock linkMetaBlockFromInput2;
 
     private LinkMetaBlock linkMetaBlockFromMatchRuleSegment2_1;
@@ -110,80 +96,54 @@ class VerificationContextsProviderTest {
 
     private LinkMetaBlock linkMetaBlockFromMatchRuleSegment3;
 
+    private VerificationBudget verificationBudget;
+
+    private VerificationContextsProvider verificationContextsProvider;
+
     @BeforeEach
     void setup() {
-        createMatchRules();
         createArtifacts();
 
-        linkMetaBlockFromInput = LinkMetaBlock
-                .builder()
-                .supplyChainId(SUPPLY_CHAIN_ID)
-                .link(Link.builder()
-                        .stepName(STEP_NAME_1)
-                        .materials(artifacts)
-                        .products(artifacts)
-                        .build()
-                ).build();
-
-        linkMetaBlockFromInput2 = LinkMetaBlock
-                .builder()
-                .supplyChainId(SUPPLY_CHAIN_ID)
-                .link(Link.builder()
-                        .stepName(STEP_NAME_1)
-                        .materials(artifacts)
-                        .products(artifacts2)
-                        .build()
-                ).build();
-
-        linkMetaBlockFromMatchRuleSegment2_1 = LinkMetaBlock
-                .builder()
-                .supplyChainId(SUPPLY_CHAIN_ID)
-                .link(Link.builder()
-                        .stepName(STEP_NAME_2)
-                        .materials(artifacts)
-                        .products(artifacts)
-                        .build()
-                ).build();
-
-        linkMetaBlockFromMatchRuleSegment3 = LinkMetaBlock
-                .builder()
-                .supplyChainId(SUPPLY_CHAIN_ID)
-                .link(Link.builder()
-                        .stepName(STEP_NAME_3)
-                        .materials(artifacts)
-                        .products(artifacts)
-                        .build()
-                ).build();
-
-        linkMetaBlockFromRunId1_1 = LinkMetaBlock
-                .builder()
-                .supplyChainId(SUPPLY_CHAIN_ID)
-                .link(Link.builder()
-                        .stepName(STEP_NAME_2)
-                        .materials(artifacts)
-                        .products(artifacts)
-                        .build()
-                ).build();
+        linkMetaBlockFromInput = createLinkMetaBlock(STEP_NAME_1, artifacts, artifacts);
+        linkMetaBlockFromInput2 = createLinkMetaBlock(STEP_NAME_1, artifacts, artifacts2);
+        linkMetaBlockFromMatchRuleSegment2_1 = createLinkMetaBlock(STEP_NAME_2, artifacts, artifacts);
+        linkMetaBlockFromMatchRuleSegment2_2 = createLinkMetaBlock(STEP_NAME_2, artifacts, artifacts2);
+        linkMetaBlockFromMatchRuleSegment3 = createLinkMetaBlock(STEP_NAME_3, artifacts, artifacts);
+
+        step1 = Step.builder().name(STEP_NAME_1)
+                .expectedProducts(List.of(MatchRule.builder()
+                        .destinationStepName(STEP_NAME_2).pattern("**/*.jar")
+                        .destinationType(ArtifactType.PRODUCTS)
+                        .build()))
+                .build();
+        step2 = Step.builder().name(STEP_NAME_2)
+                .expectedProducts(List.of(MatchRule.builder()
+                        .destinationStepName(STEP_NAME_3).pattern("**/*.jar")
+                        .destinationType(ArtifactType.PRODUCTS)
+                        .build()))
+                .build();
+        step3 = Step.builder().name(STEP_NAME_3).build();
+
+        verificationBudget = new VerificationBudget(new SimpleMeterRegistry());
+        verificationContextsProvider = new VerificationContextsProvider(linkMetaBlockRepository,
+                stepAuthorizedKeyIdVerification,
+                linkMetaBlockSignatureVerification,
+                requiredNumberOfLinksVerification,
+                rulesVerification,
+                verificationBudget);
+    }
 
-        linkMetaBlockFromRunId1_2 = LinkMetaBlock
+    private LinkMetaBlock createLinkMetaBlock(String stepName, List<Artifact> materials, List<Artifact> products) {
+        return LinkMetaBlock
                 .builder()
                 .supplyChainId(SUPPLY_CHAIN_ID)
+                .signature(Signature.builder().keyId("keyId").build())
                 .link(Link.builder()
-                        .stepName(STEP_NAME_2)
-                        .materials(artifacts)
-                        .products(artifacts2)
+                        .stepName(stepName)
+                        .materials(materials)
+                        .products(products)
                         .build()
                 ).build();
-
-        verificationContextsProvider = new VerificationContextsProvider(linkMetaBlockRepository, List.of(
-                new AllowRuleVerification(), 
-                new CreateRuleVerification(),
-                new DeleteRuleVerification(),
-                new DisallowRuleVerification(),
-                new MatchRuleVerification(),
-                new ModifyRuleVerification(),
-                new RequireRuleVerification()));
-        verificationContextsProvider.init();
     }
 
     private void createArtifacts() {
@@ -201,263 +161,196 @@ class VerificationContextsProviderTest {
         artifacts2 = List.of(artifact1, artifact2);
     }
 
-    private void createMatchRules() {
-        MatchRule matchFilterProduct = MatchRule.builder()
-                .destinationType(ArtifactType.PRODUCTS)
-                .destinationStepName(STEP_NAME_1)
-                .pattern("**/*.jar")
-                .build();
-
-        MatchRule matchFilterMaterials = MatchRule.builder()
-                .destinationType(ArtifactType.MATERIALS)
-                .destinationStepName(STEP_NAME_1)
-                .pattern("**/*.jar")
+    private LayoutMetaBlock createLayoutMetaBlock(Step... steps) {
+        return LayoutMetaBlock.builder()
+                .supplyChainId(SUPPLY_CHAIN_ID)
+                .layout(Layout.builder().steps(List.of(steps)).build())
                 .build();
-
-        matchRule = List.of(matchFilterProduct, matchFilterMaterials);
     }
 
-    private void createMatchRuleMaterials() {
-
-        MatchRule matchFilterMaterials = MatchRule.builder()
-                .destinationType(ArtifactType.MATERIALS)
-                .destinationStepName(STEP_NAME_1)
-                .pattern("**/*.jar")
-                .build();
-
-        matchRule = List.of(matchFilterMaterials);
+    private void allLinksValid() {
+        lenient().when(stepAuthorizedKeyIdVerification.isSignedByAuthorizedFunctionary(any(), any())).thenReturn(true);
+        lenient().when(linkMetaBlockSignatureVerification.isValid(any(), any())).thenReturn(true);
+        lenient().when(requiredNumberOfLinksVerification.hasRequiredNumberOfLinks(any(), any())).thenReturn(true);
+        lenient().when(rulesVerification.verifyStep(any(), any())).thenReturn(true);
     }
 
     @Test
-    void createPossibleVerificationContextsWithMultipleStepsAndMultipleEqualLinkSets() {
-        setupMocksForSingleLink();
-        List<VerificationContext> verificationContexts = verificationContextsProvider.createPossibleVerificationContexts(layoutMetaBlock, new HashSet<>(artifacts));
-        assertThat(verificationContexts, hasSize(1));
-    }
+    void createPossibleVerificationContextsSingleStepAndMultipleLinkSets() {
+        allLinksValid();
+        when(linkMetaBlockRepository.findBySupplyChainId(SUPPLY_CHAIN_ID))
+                .thenReturn(List.of(linkMetaBlockFromInput, linkMetaBlockFromInput2));
+        List<VerificationContext> verificationContexts = verificationContextsProvider
+                .createPossibleVerificationContexts(createLayoutMetaBlock(step3), new HashSet<>(artifacts))
+                .collect(Collectors.toList());
+        assertThat(verificationContexts, hasSize(0));
 
-    @Test
-    void createPossibleVerificationContextsSingleStepAndMultipleEqualLinkSets() {
-        setupMocksForSingleStep();
-        List<VerificationContext> verificationContexts = verificationContextsProvider.createPossibleVerificationContexts(layoutMetaBlock, new HashSet<>(artifacts));
-        assertThat(verificationContexts, hasSize(2));
+        List<VerificationContext> step1Contexts = verificationContextsProvider
+                .createPossibleVerificationContexts(createLayoutMetaBlock(Step.builder().name(STEP_NAME_1).build()), new HashSet<>(artifacts))
+                .collect(Collectors.toList());
+        assertThat(step1Contexts, hasSize(2));
     }
 
-
     @Test
-    void createPossibleVerificationContextsWithNonMatchingArtifacts() {
-        when(layoutMetaBlock.getSupplyChainId()).thenReturn(SUPPLY_CHAIN_ID);
-        when(linkMetaBlockRepository.findBySupplyChainId(SUPPLY_CHAIN_ID))
-                .thenReturn(List.of());
-        
+    void createPossibleVerificationContextsWithNoLinks() {
+        when(linkMetaBlockRepository.findBySupplyChainId(SUPPLY_CHAIN_ID)).thenReturn(List.of());
         Artifact wrongArtifact = Artifact.builder().uri("/wrong.exe").hash("hash").build();
-        List<VerificationContext> verificationContexts = verificationContextsProvider.createPossibleVerificationContexts(layoutMetaBlock, Set.of(wrongArtifact));
+        List<VerificationContext> verificationContexts = verificationContextsProvider
+                .createPossibleVerificationContexts(createLayoutMetaBlock(step1), Set.of(wrongArtifact))
+                .collect(Collectors.toList());
         assertThat(verificationContexts, hasSize(0));
     }
 
     @Test
-    void createPossibleVerificationContextsWithMatchinMaterialArtifacts() {
-        setupMocksForSingleLink();
-        createMatchRuleMaterials();
-        List<VerificationContext> verificationContexts = verificationContextsProvider.createPossibleVerificationContexts(layoutMetaBlock, new HashSet<>(artifacts));
-        assertThat(verificationContexts, hasSize(1));
-    }
-
-    @Test
-    void createPossibleVerificationContextsWithMultipleSegmentsShouldReturnOneVerificationContext() {
-        setupMocksForMultipleSteps();
-        List<VerificationContext> verificationContexts = verificationContextsProvider.createPossibleVerificationContexts(layoutMetaBlock, new HashSet<>(artifacts));
+    void createPossibleVerificationContextsWithMultipleStepsShouldReturnOneVerificationContext() {
+        allLinksValid();
+        when(linkMetaBlockRepository.findBySupplyChainId(SUPPLY_CHAIN_ID))
+                .thenReturn(List.of(linkMetaBlockFromInput, linkMetaBlockFromMatchRuleSegment2_1, linkMetaBlockFromMatchRuleSegment3));
+        List<VerificationContext> verificationContexts = verificationContextsProvider
+                .createPossibleVerificationContexts(createLayoutMetaBlock(step1, step2, step3), new HashSet<>(artifacts))
+                .collect(Collectors.toList());
         assertThat(verificationContexts, hasSize(1));
         VerificationContext verificationContext = verificationContexts.iterator().next();
         assertThat(verificationContext.getLinkMetaBlocks(), hasSize(3));
+        assertThat(verificationContext.isRulesVerified(), is(true));
         assertThat(verificationContext.getLinkMetaBlocks().contains(linkMetaBlockFromInput), is(true));
         assertThat(verificationContext.getLinkMetaBlocks().contains(linkMetaBlockFromMatchRuleSegment2_1), is(true));
         assertThat(verificationContext.getLinkMetaBlocks().contains(linkMetaBlockFromMatchRuleSegment3), is(true));
     }
 
     @Test
-        // with hop mean that from segment one upstream segment 2 is resolved and then from segment 2 segment 3 is resolved
-    void createPossibleVerificationContextsWithMultipleSegmentsWithHopShouldReturnOneVerificationContext() {
-
-        MatchRule matchRule4StepOne2StepTwo = MatchRule.builder()
-                .destinationStepName(STEP_NAME_2).pattern("**/*.jar")
-                .destinationType(ArtifactType.PRODUCTS)
-                .build();
-
-        MatchRule matchRule4StepTwo2StepThree = MatchRule.builder()
-                .destinationStepName(STEP_NAME_3).pattern("**/*.jar")
-                .destinationType(ArtifactType.PRODUCTS)
-                .build();
-
-        matchRulesForProductsStep1 = List.of(matchRule4StepOne2StepTwo);
-        List<Rule> matchRulesForProductsStep2 = List.of(matchRule4StepTwo2StepThree);
-        
-        Step step1 = Step.builder().name(STEP_NAME_1).expectedProducts(matchRulesForProductsStep1).build();
-        Step step2 = Step.builder().name(STEP_NAME_2).expectedProducts(matchRulesForProductsStep2).build();
-        Step step3 = Step.builder().name(STEP_NAME_3).build();
-        
-        Layout layout = Layout.builder().expectedEndProducts(matchRule).steps(List.of(step1, step2, step3)).build();        
-        LayoutMetaBlock layoutMetaBlock = LayoutMetaBlock.builder().supplyChainId(SUPPLY_CHAIN_ID).layout(layout).build();
-        
-        Map<String, EnumMap<ArtifactType, Set<Artifact>>> stepMap1 = new HashMap<>();
-        
-        
-        
+    void createPossibleVerificationContextsWithMultipleLinkSetsShouldReturnTwoVerificationContexts() {
+        allLinksValid();
+        when(linkMetaBlockRepository.findBySupplyChainId(SUPPLY_CHAIN_ID))
+                .thenReturn(List.of(linkMetaBlockFromInput, linkMetaBlockFromMatchRuleSegment2_1, linkMetaBlockFromMatchRuleSegment2_2, linkMetaBlockFromMatchRuleSegment3));
+        List<VerificationContext> verificationContexts = verificationContextsProvider
+                .createPossibleVerificationContexts(createLayoutMetaBlock(step1, step2, step3), new HashSet<>(artifacts))
+                .collect(Collectors.toList());
+        assertThat(verificationContexts, hasSize(2));
+    }
 
+    @Test
+    void createPossibleVerificationContextsShouldRejectTooManyLinkSets() {
+        allLinksValid();
+        verificationBudget.setMaxContexts(1);
         when(linkMetaBlockRepository.findBySupplyChainId(SUPPLY_CHAIN_ID))
-                .thenReturn(List.of(linkMetaBlockFromInput, linkMetaBlockFromMatchRuleSegment2_1, linkMetaBlockFromMatchRuleSegment3));
+                .thenReturn(List.of(linkMetaBlockFromInput, linkMetaBlockFromMatchRuleSegment2_1, linkMetaBlockFromMatchRuleSegment2_2, linkMetaBlockFromMatchRuleSegment3));
+        LayoutMetaBlock layoutMetaBlock = createLayoutMetaBlock(step1, step2, step3);
+        Set<Artifact> artifactsToRelease = new HashSet<>(artifacts);
+        VerificationRejectedException exception = assertThrows(VerificationRejectedException.class, () -> verificationContextsProvider
+                .createPossibleVerificationContexts(layoutMetaBlock, artifactsToRelease));
+        assertThat(exception.getReason(), is(VerificationRejectedException.Reason.CONTEXTS));
+        verify(rulesVerification, never()).verifyStep(any(), any());
+    }
 
-        List<VerificationContext> verificationContexts = verificationContextsProvider.createPossibleVerificationContexts(layoutMetaBlock, new HashSet<>(artifacts));
+    @Test
+    void createPossibleVerificationContextsShouldDropNotAuthorizedLinks() {
+        allLinksValid();
+        when(stepAuthorizedKeyIdVerification.isSignedByAuthorizedFunctionary(any(), eq(linkMetaBlockFromMatchRuleSegment2_2))).thenReturn(false);
+        when(linkMetaBlockRepository.findBySupplyChainId(SUPPLY_CHAIN_ID))
+                .thenReturn(List.of(linkMetaBlockFromInput, linkMetaBlockFromMatchRuleSegment2_1, linkMetaBlockFromMatchRuleSegment2_2, linkMetaBlockFromMatchRuleSegment3));
+        List<VerificationContext> verificationContexts = verificationContextsProvider
+                .createPossibleVerificationContexts(createLayoutMetaBlock(step1, step2, step3), new HashSet<>(artifacts))
+                .collect(Collectors.toList());
         assertThat(verificationContexts, hasSize(1));
-        VerificationContext verificationContext = verificationContexts.iterator().next();
-        assertThat(verificationContext.getLinkMetaBlocks(), hasSize(3));
-        assertThat(verificationContext.getLinkMetaBlocks().contains(linkMetaBlockFromInput), is(true));
-        assertThat(verificationContext.getLinkMetaBlocks().contains(linkMetaBlockFromMatchRuleSegment2_1), is(true));
-        assertThat(verificationContext.getLinkMetaBlocks().contains(linkMetaBlockFromMatchRuleSegment3), is(true));
+        verify(linkMetaBlockSignatureVerification, never()).isValid(any(), eq(linkMetaBlockFromMatchRuleSegment2_2));
     }
 
     @Test
-    void createPossibleVerificationContextsWithMultipleSegmentsWithHopShouldReturnFourVerificationContexts() {
-        setupMocksWithHopMultipleSets();
-        List<VerificationContext> verificationContexts = verificationContextsProvider.createPossibleVerificationContexts(layoutMetaBlock, new HashSet<>(artifacts));
-        assertThat(verificationContexts, hasSize(2));
+    void createPossibleVerificationContextsShouldDropLinksWithInvalidSignature() {
+        allLinksValid();
+        when(linkMetaBlockSignatureVerification.isValid(any(), eq(linkMetaBlockFromMatchRuleSegment3))).thenReturn(false);
+        when(linkMetaBlockRepository.findBySupplyChainId(SUPPLY_CHAIN_ID))
+                .thenReturn(List.of(linkMetaBlockFromInput, linkMetaBlockFromMatchRuleSegment2_1, linkMetaBlockFromMatchRuleSegment3));
+        List<VerificationContext> verificationContexts = verificationContextsProvider
+                .createPossibleVerificationContexts(createLayoutMetaBlock(step1, step2, step3), new HashSet<>(artifacts))
+                .collect(Collectors.toList());
+        assertThat(verificationContexts, hasSize(0));
+        verify(rulesVerification, never()).verifyStep(any(), any());
     }
-    
+
     @Test
-    void permutateAndAddLinkMetaBlocksTest() {
-        Artifact artifact11 = new Artifact("file11", "hash111");
-        Artifact artifact12 = new Artifact("file12", "hash112");
-        Artifact artifact21 = new Artifact("file21", "hash121");
-        Artifact artifact22 = new Artifact("file22", "hash122");
-        Artifact artifact31 = new Artifact("file31", "hash211");
-        Artifact artifact32 = new Artifact("file32", "hash212");
-
-        Link link11 = Link.builder().stepName("step1").materials(List.of(artifact11)).build();
-        Link link12 = Link.builder().stepName("step1").materials(List.of(artifact12)).build();
-        Link link21 = Link.builder().stepName("step2").materials(List.of(artifact21)).build();
-        Link link22 = Link.builder().stepName("step2").materials(List.of(artifact22)).build();
-        LinkMetaBlock block11 = LinkMetaBlock.builder().link(link11).build();
-        LinkMetaBlock block12 = LinkMetaBlock.builder().link(link12).build();
-        LinkMetaBlock block21 = LinkMetaBlock.builder().link(link21).build();
-        LinkMetaBlock block22 = LinkMetaBlock.builder().link(link22).build();
-        Set<Set<LinkMetaBlock>> expectedSets = new HashSet<>();
-        expectedSets.add(Set.of(block11, block21));
-        expectedSets.add(Set.of(block11, block22));
-        expectedSets.add(Set.of(block12, block21));
-        expectedSets.add(Set.of(block12, block22));
-
-        Set<Set<LinkMetaBlock>> actualSets = VerificationContextsProvider.permutateOnSteps(Set.of(block11, block12, block21, block22));
-        
-        assertThat(actualSets, is(expectedSets));
-
-        Link link3 = Link.builder().stepName("step3").materials(List.of(artifact31)).build();
-        Signature sig1 = Signature.builder().keyId("keyId1").build();
-        Signature sig2 = Signature.builder().keyId("keyId2").build();
-        LinkMetaBlock block31 = LinkMetaBlock.builder().link(link3).signature(sig1).build();
-        LinkMetaBlock block32 = LinkMetaBlock.builder().link(link3).signature(sig2).build();
-        
-        expectedSets = new HashSet<>();
-        expectedSets.add(Set.of(block11, block21, block31, block32));
-        expectedSets.add(Set.of(block12, block21, block31, block32));
-        expectedSets.add(Set.of(block11, block22, block31, block32));
-        expectedSets.add(Set.of(block12, block22, block31, block32));
-
-        actualSets = VerificationContextsProvider.permutateOnSteps(
-                Set.of(block11, block12, block21, block22, block31, block32));
-        
-        assertThat(actualSets, is(expectedSets));
+    void createPossibleVerificationContextsShouldDropLinkGroupsWithoutRequiredNumberOfLinks() {
+        allLinksValid();
+        when(requiredNumberOfLinksVerification.hasRequiredNumberOfLinks(eq(Set.of(linkMetaBlockFromMatchRuleSegment2_1)), any())).thenReturn(false);
+        when(linkMetaBlockRepository.findBySupplyChainId(SUPPLY_CHAIN_ID))
+                .thenReturn(List.of(linkMetaBlockFromInput, linkMetaBlockFromMatchRuleSegment2_1, linkMetaBlockFromMatchRuleSegment2_2, linkMetaBlockFromMatchRuleSegment3));
+        List<VerificationContext> verificationContexts = verificationContextsProvider
+                .createPossibleVerificationContexts(createLayoutMetaBlock(step1, step2, step3), new HashSet<>(artifacts))
+                .collect(Collectors.toList());
+        assertThat(verificationContexts, hasSize(1));
+        assertThat(verificationContexts.get(0).getLinkMetaBlocks().contains(linkMetaBlockFromMatchRuleSegment2_2), is(true));
     }
-    
+
     @Test
-    void permutateOnStepsAndWithMultipleLinks() {
-        Artifact artifact111 = new Artifact("file111", "hash111");
-        Artifact artifact112 = new Artifact("file112", "hash112");
-        Artifact artifact121 = new Artifact("file121", "hash121");
-        Artifact artifact122 = new Artifact("file122", "hash122");
-
-        Link link111 = Link.builder().stepName("step11").materials(List.of(artifact111)).build();
-        Link link112 = Link.builder().stepName("step11").materials(List.of(artifact112)).build();
-        Link link121 = Link.builder().stepName("step12").materials(List.of(artifact121)).build();
-        Link link122 = Link.builder().stepName("step12").materials(List.of(artifact122)).build();
-        LinkMetaBlock block111 = LinkMetaBlock.builder().link(link111).build();
-        LinkMetaBlock block112 = LinkMetaBlock.builder().link(link112).build();
-        LinkMetaBlock block121 = LinkMetaBlock.builder().link(link121).build();
-        LinkMetaBlock block122 = LinkMetaBlock.builder().link(link122).build();
-        Set<Set<LinkMetaBlock>> expectedSets = new HashSet<>();
-        expectedSets.add(Set.of(block111));
-        expectedSets.add(Set.of(block112));
-        Set<Set<LinkMetaBlock>> actualSets = VerificationContextsProvider.permutateOnSteps(Set.of(block111, block112));
-        
-        assertThat(actualSets, is(expectedSets));
-        
-        expectedSets = new HashSet<>();
-        expectedSets.add(Set.of(block111, block121));
-        expectedSets.add(Set.of(block112, block121));
-        expectedSets.add(Set.of(block111, block122));
-        expectedSets.add(Set.of(block112, block122));
-        actualSets = VerificationContextsProvider.permutateOnSteps(Set.of(block111, block112, block121, block122));
-        
-        assertThat(actualSets, is(expectedSets));
+    void createPossibleVerificationContextsShouldPruneOnFailingStepRules() {
+        allLinksValid();
+        when(rulesVerification.verifyStep(argThat(linksMap -> linkMetaBlockFromMatchRuleSegment2_1.getLink().equals(linksMap.get(STEP_NAME_2))), eq(step2)))
+                .thenReturn(false);
+        when(linkMetaBlockRepository.findBySupplyChainId(SUPPLY_CHAIN_ID))
+                .thenReturn(List.of(linkMetaBlockFromInput, linkMetaBlockFromMatchRuleSegment2_1, linkMetaBlockFromMatchRuleSegment2_2, linkMetaBlockFromMatchRuleSegment3));
+        List<VerificationContext> verificationContexts = verificationContextsProvider
+                .createPossibleVerificationContexts(createLayoutMetaBlock(step1, step2, step3), new HashSet<>(artifacts))
+                .collect(Collectors.toList());
+        assertThat(verificationContexts, hasSize(1));
+        assertThat(verificationContexts.get(0).getLinkMetaBlocks().contains(linkMetaBlockFromMatchRuleSegment2_2), is(true));
     }
 
-
-    private void setupMocksForSingleStep() {
-        when(layoutMetaBlock.getSupplyChainId()).thenReturn(SUPPLY_CHAIN_ID);
-        when(linkMetaBlockRepository
-                .findBySupplyChainId(SUPPLY_CHAIN_ID))
-                .thenReturn(List.of(linkMetaBlockFromInput, linkMetaBlockFromInput2));
+    @Test
+    void createPossibleVerificationContextsShouldUseLinkFactsOfSameLayout() {
+        lenient().when(requiredNumberOfLinksVerification.hasRequiredNumberOfLinks(any(), any())).thenReturn(true);
+        lenient().when(rulesVerification.verifyStep(any(), any())).thenReturn(true);
+        LayoutMetaBlock layoutMetaBlock = createLayoutMetaBlock(step1, step2, step3);
+        String layoutDigest = new JsonSigningSerializer().digest(layoutMetaBlock.getLayout());
+        List.of(linkMetaBlockFromInput, linkMetaBlockFromMatchRuleSegment2_1, linkMetaBlockFromMatchRuleSegment3)
+                .forEach(linkMetaBlock -> linkMetaBlock.setFacts(createLinkFacts(linkMetaBlock, layoutDigest, true)));
+        linkMetaBlockFromMatchRuleSegment2_2.setFacts(createLinkFacts(linkMetaBlockFromMatchRuleSegment2_2, layoutDigest, false));
+        when(linkMetaBlockRepository.findBySupplyChainId(SUPPLY_CHAIN_ID))
+                .thenReturn(List.of(linkMetaBlockFromInput, linkMetaBlockFromMatchRuleSegment2_1, linkMetaBlockFromMatchRuleSegment2_2, linkMetaBlockFromMatchRuleSegment3));
+        List<VerificationContext> verificationContexts = verificationContextsProvider
+                .createPossibleVerificationContexts(layoutMetaBlock, new HashSet<>(artifacts))
+                .collect(Collectors.toList());
+        assertThat(verificationContexts, hasSize(1));
+        assertThat(verificationContexts.get(0).getLinkMetaBlocks().contains(linkMetaBlockFromMatchRuleSegment2_1), is(true));
+        verify(stepAuthorizedKeyIdVerification, never()).isSignedByAuthorizedFunctionary(any(), any());
+        verify(linkMetaBlockSignatureVerification, never()).isValid(any(), any());
     }
 
-    void setupMocksForSingleLink() {
-        when(layoutMetaBlock.getSupplyChainId()).thenReturn(SUPPLY_CHAIN_ID);
+    @Test
+    void createPossibleVerificationContextsShouldIgnoreLinkFactsOfOtherLayout() {
+        allLinksValid();
+        linkMetaBlockFromMatchRuleSegment2_2.setFacts(createLinkFacts(linkMetaBlockFromMatchRuleSegment2_2, "otherLayoutDigest", false));
         when(linkMetaBlockRepository.findBySupplyChainId(SUPPLY_CHAIN_ID))
-                .thenReturn(List.of(linkMetaBlockFromInput));
+                .thenReturn(List.of(linkMetaBlockFromInput, linkMetaBlockFromMatchRuleSegment2_1, linkMetaBlockFromMatchRuleSegment2_2, linkMetaBlockFromMatchRuleSegment3));
+        List<VerificationContext> verificationContexts = verificationContextsProvider
+                .createPossibleVerificationContexts(createLayoutMetaBlock(step1, step2, step3), new HashSet<>(artifacts))
+                .collect(Collectors.toList());
+        assertThat(verificationContexts, hasSize(2));
+        verify(linkMetaBlockSignatureVerification).isValid(any(), eq(linkMetaBlockFromMatchRuleSegment2_2));
     }
 
-    void setupMocksForMultipleSteps() {
-        MatchRule matchRule4StepOne2StepTwo = MatchRule.builder()
-                .destinationStepName(STEP_NAME_2).pattern("**/*.jar")
-                .destinationType(ArtifactType.PRODUCTS)
-                .build();
-
-        MatchRule matchRule4StepOne2StepThree = MatchRule.builder()
-                .destinationStepName(STEP_NAME_3).pattern("**/*.jar")
-                .destinationType(ArtifactType.PRODUCTS)
-                .build();
-        matchRulesForProductsStep1 = List.of(matchRule4StepOne2StepTwo, matchRule4StepOne2StepThree);
-        when(layoutMetaBlock.getSupplyChainId()).thenReturn(SUPPLY_CHAIN_ID);
+    @Test
+    void createPossibleVerificationContextsShouldIgnoreLinkFactsOfOtherLinkContent() {
+        allLinksValid();
+        LayoutMetaBlock layoutMetaBlock = createLayoutMetaBlock(step1, step2, step3);
+        String layoutDigest = new JsonSigningSerializer().digest(layoutMetaBlock.getLayout());
+        linkMetaBlockFromMatchRuleSegment2_2.setFacts(createLinkFacts(linkMetaBlockFromMatchRuleSegment2_1, layoutDigest, false));
         when(linkMetaBlockRepository.findBySupplyChainId(SUPPLY_CHAIN_ID))
-            .thenReturn(List.of(linkMetaBlockFromInput, linkMetaBlockFromMatchRuleSegment2_1, linkMetaBlockFromMatchRuleSegment3));
+                .thenReturn(List.of(linkMetaBlockFromInput, linkMetaBlockFromMatchRuleSegment2_1, linkMetaBlockFromMatchRuleSegment2_2, linkMetaBlockFromMatchRuleSegment3));
+        List<VerificationContext> verificationContexts = verificationContextsProvider
+                .createPossibleVerificationContexts(layoutMetaBlock, new HashSet<>(artifacts))
+                .collect(Collectors.toList());
+        assertThat(verificationContexts, hasSize(2));
+        verify(linkMetaBlockSignatureVerification).isValid(any(), eq(linkMetaBlockFromMatchRuleSegment2_2));
     }
 
-    private void setupMocksWithHopMultipleSets() {
-
-        linkMetaBlockFromMatchRuleSegment2_2 = LinkMetaBlock
-                .builder()
-                .supplyChainId(SUPPLY_CHAIN_ID)
-                .link(Link.builder()
-                        .stepName(STEP_NAME_2)
-                        .materials(new ArrayList<>(artifacts))
-                        .products(new ArrayList<>(artifacts2))
-                        .build()
-                ).build();
-
-        MatchRule matchRule4StepOne2StepTwo = MatchRule.builder()
-                .destinationStepName(STEP_NAME_2).pattern("**/*.jar")
-                .destinationType(ArtifactType.PRODUCTS)
-                .build();
-
-        MatchRule matchRule4StepTwo2StepThree = MatchRule.builder()
-                .destinationStepName(STEP_NAME_3).pattern("**/*.jar")
-                .destinationType(ArtifactType.PRODUCTS)
+    private LinkFacts createLinkFacts(LinkMetaBlock linkMetaBlock, String layoutDigest, boolean authorizedForStep) {
+        return LinkFacts.builder()
+                .linkDigest(linkMetaBlock.getLink().getContentDigest())
+                .layoutDigest(layoutDigest)
+                .verifiedKeyId("keyId")
+                .authorizedForStep(authorizedForStep)
                 .build();
-
-        matchRulesForProductsStep1 = List.of(matchRule4StepOne2StepTwo);
-        List<Rule> matchRulesForProductsStep2 = List.of(matchRule4StepTwo2StepThree);
-
-        when(layoutMetaBlock.getSupplyChainId()).thenReturn(SUPPLY_CHAIN_ID);
-
-        when(linkMetaBlockRepository.findBySupplyChainId(SUPPLY_CHAIN_ID))
-                .thenReturn(List.of(linkMetaBlockFromInput, linkMetaBlockFromMatchRuleSegment2_1, linkMetaBlockFromMatchRuleSegment2_2, linkMetaBlockFromMatchRuleSegment3));
     }
 
-}
\ No newline at end of file
+}
@@ -0,0 +1,72 @@
+/*
+ * Argos Notary - A new way to secure the Software Supply Chain
+ *
+ * Copyright (C) 2019 - 2020 Rabobank Nederland
+ * Copyright (C) 2019 - 2021 Gerard Borst <gerard.borst@argosnotary.com>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package com.argosnotary.argos.service.domain.verification;
+
+import com.argosnotary.argos.domain.link.Artifact;
+import com.argosnotary.argos.domain.link.Link;
+import com.argosnotary.argos.domain.link.LinkMetaBlock;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+class VerificationCostTest {
+
+    private final Artifact artifact1 = new Artifact("artifact1", "hash1");
+
+    private final Artifact artifact2 = new Artifact("artifact2", "hash2");
+
+    @Test
+    void estimateMultipliesLinkGroupsAndCountsArtifactsPerGroup() {
+        Set<LinkMetaBlock> group1 = Set.of(linkMetaBlock("step1", List.of(artifact1), List.of(artifact1, artifact2)));
+        Set<LinkMetaBlock> group2 = Set.of(linkMetaBlock("step1", List.of(artifact2), List.of(artifact2)));
+        Set<LinkMetaBlock> group3 = Set.of(linkMetaBlock("step2", List.of(artifact1), List.of()));
+        VerificationCost cost = VerificationCost.estimate(List.of(List.of(group1, group2, group3), List.of(group1, group3)));
+        assertThat(cost.getContexts(), is(6L));
+        assertThat(cost.getArtifacts(), is(10L));
+    }
+
+    @Test
+    void estimateStepWithoutLinkGroups() {
+        Set<LinkMetaBlock> group = Set.of(linkMetaBlock("step1", List.of(artifact1), null));
+        VerificationCost cost = VerificationCost.estimate(List.of(List.of(group), List.of()));
+        assertThat(cost.getContexts(), is(0L));
+        assertThat(cost.getArtifacts(), is(1L));
+    }
+
+    @Test
+    void estimateDoesNotOverflow() {
+        Set<LinkMetaBlock> group = Set.of(linkMetaBlock("step1", List.of(), List.of()));
+        List<List<Set<LinkMetaBlock>>> candidatesPerStep = new ArrayList<>(Collections.nCopies(64, List.of(group, group)));
+        assertThat(VerificationCost.estimate(candidatesPerStep).getContexts(), is(Long.MAX_VALUE));
+    }
+
+    private static LinkMetaBlock linkMetaBlock(String stepName, List<Artifact> materials, List<Artifact> products) {
+        return LinkMetaBlock.builder()
+                .link(Link.builder().stepName(stepName).materials(materials).products(products).build())
+                .build();
+    }
+}
@@ -21,6 +21,10 @@ package com.argosnotary.argos.service.domain.verification;
 
 import com.argosnotary.argos.domain.layout.LayoutMetaBlock;
 import com.argosnotary.argos.domain.link.Artifact;
+import com.argosnotary.argos.domain.link.LinkMetaBlock;
+import com.argosnotary.argos.service.domain.link.LinkMetaBlockRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -31,18 +35,29 @@ import org.mockito.junit.jupiter.MockitoExtension;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Optional;
 import java.util.Set;
+import java.util.stream.Stream;
 
-import static java.util.Collections.singletonList;
 import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.sameInstance;
 import static org.hamcrest.MatcherAssert.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
 import static org.mockito.Mockito.when;
 
 @ExtendWith(MockitoExtension.class)
 class VerificationProviderTest {
 
+    private static final String SUPPLY_CHAIN_ID = "supplyChainId";
+    private static final String RESULT_KEY = "resultKey";
+
     @Mock
     private LayoutMetaBlock layoutMetaBlock;
 
@@ -72,12 +87,56 @@ class VerificationProviderTest {
     @Mock
     private VerificationContextsProvider verificationContextsProvider;
 
+    @Mock
+    private LinkMetaBlock linkMetaBlock1;
+
+    @Mock
+    private LinkMetaBlock linkMetaBlock2;
+
+    @Mock
+    private LinkMetaBlockRepository linkMetaBlockRepository;
+
+    @Mock
+    private VerificationResultCache verificationResultCache;
+
+    @Mock
+    private CompiledLayoutCache compiledLayoutCache;
+
+    @Mock
+    private CompiledLayout compiledLayout;
+
+    private VerificationBudget verificationBudget;
+
     private VerificationProvider verificationProvider;
 
     @BeforeEach
     void setup() {
         verifications = new ArrayList<>();
-        verificationProvider = new VerificationProvider(verifications, verificationContextsProvider);
+        verificationBudget = new VerificationBudget(new SimpleMeterRegistry());
+        verificationProvider = new VerificationProvider(verifications, verificationContextsProvider, linkMetaBlockRepository, verificationResultCache, compiledLayoutCache, verificationBudget);
+        when(compiledLayoutCache.get(layoutMetaBlock)).thenReturn(compiledLayout);
+    }
+
+    @Test
+    void verifyShouldReturnCachedVerificationRunResult() {
+        VerificationRunResult cachedResult = VerificationRunResult.okay();
+        when(linkMetaBlockRepository.findBySupplyChainId(SUPPLY_CHAIN_ID)).thenReturn(List.of(linkMetaBlock1));
+        when(layoutMetaBlock.getSupplyChainId()).thenReturn(SUPPLY_CHAIN_ID);
+        when(verificationResultCache.createKey(compiledLayout, List.of(linkMetaBlock1), Set.of(artifact))).thenReturn(RESULT_KEY);
+        when(verificationResultCache.get(RESULT_KEY)).thenReturn(Optional.of(cachedResult));
+        assertThat(verificationProvider.verifyRun(layoutMetaBlock, Set.of(artifact)), sameInstance(cachedResult));
+        verifyNoInteractions(verificationContextsProvider);
+    }
+
+    @Test
+    void verifyShouldCacheVerificationRunResult() {
+        setupMocking();
+        when(layoutMetaBlock.getSupplyChainId()).thenReturn(SUPPLY_CHAIN_ID);
+        when(verificationResultCache.createKey(compiledLayout, List.of(), Set.of(artifact))).thenReturn(RESULT_KEY);
+        when(verificationRunResultHigh.isRunIsValid()).thenReturn(false);
+        when(highPrio.verify(any(VerificationContext.class))).thenReturn(verificationRunResultHigh);
+        VerificationRunResult result = verificationProvider.verifyRun(layoutMetaBlock, Set.of(artifact));
+        verify(verificationResultCache).put(SUPPLY_CHAIN_ID, RESULT_KEY, result);
     }
 
     @Test
@@ -89,6 +148,7 @@ class VerificationProviderTest {
         when(verificationRunResultHigh.isRunIsValid()).thenReturn(true);
         assertThat(verificationProvider.verifyRun(layoutMetaBlock, Set.of(artifact)).isRunIsValid(), is(true));
         verify(lowPrio).verify(verificationContextArgumentCaptor.capture());
+        verify(verificationContextsProvider).createPossibleVerificationContexts(compiledLayout, List.of(), Set.of(artifact));
     }
 
     @Test
@@ -99,10 +159,90 @@ class VerificationProviderTest {
         assertThat(verificationProvider.verifyRun(layoutMetaBlock, Set.of(artifact)).isRunIsValid(), is(false));
     }
 
+    @Test
+    void verifyShouldSkipRulesOfRulesVerifiedContext() {
+        setupMocking();
+        when(verificationContext.isRulesVerified()).thenReturn(true);
+        when(highPrio.verify(any(VerificationContext.class))).thenReturn(verificationRunResultHigh);
+        when(verificationRunResultHigh.isRunIsValid()).thenReturn(true);
+        assertThat(verificationProvider.verifyRun(layoutMetaBlock, Set.of(artifact)).isRunIsValid(), is(true));
+        verify(lowPrio, never()).verify(any(VerificationContext.class));
+    }
+
+    @Test
+    void verifyParallelShouldReturnFirstValidContext() {
+        setupParallelMocking();
+        VerificationContext invalidContext = mock(VerificationContext.class);
+        VerificationContext validContext1 = mock(VerificationContext.class);
+        VerificationContext validContext2 = mock(VerificationContext.class);
+        when(lowPrio.verify(any(VerificationContext.class)))
+                .thenAnswer(invocation -> VerificationRunResult.valid(invocation.getArgument(0) != invalidContext));
+        when(validContext1.getOriginalLinkMetaBlocks()).thenReturn(List.of(linkMetaBlock1));
+        lenient().when(validContext2.getOriginalLinkMetaBlocks()).thenReturn(List.of(linkMetaBlock2));
+        when(verificationContextsProvider.createPossibleVerificationContexts(any(), any(), any()))
+                .thenReturn(Stream.of(invalidContext, validContext1, validContext2));
+
+        VerificationRunResult result = verificationProvider.verifyRun(layoutMetaBlock, Set.of(artifact));
+        assertThat(result.isRunIsValid(), is(true));
+        assertThat(result.getValidLinkMetaBlocks(), is(List.of(linkMetaBlock1)));
+    }
+
+    @Test
+    void verifyParallelWithoutValidContextShouldProduceFalseVerificationRunResult() {
+        setupParallelMocking();
+        when(lowPrio.verify(any(VerificationContext.class))).thenReturn(VerificationRunResult.valid(false));
+        when(verificationContextsProvider.createPossibleVerificationContexts(any(), any(), any()))
+                .thenReturn(Stream.of(verificationContext, mock(VerificationContext.class), mock(VerificationContext.class)));
+
+        assertThat(verificationProvider.verifyRun(layoutMetaBlock, Set.of(artifact)).isRunIsValid(), is(false));
+        verify(lowPrio, times(3)).verify(any(VerificationContext.class));
+    }
+
+    @Test
+    void verifyParallelShouldPropagateFailure() {
+        setupParallelMocking();
+        when(lowPrio.verify(any(VerificationContext.class))).thenThrow(new IllegalStateException("failure"));
+        when(verificationContextsProvider.createPossibleVerificationContexts(any(), any(), any()))
+                .thenReturn(Stream.of(verificationContext));
+
+        VerificationError error = assertThrows(VerificationError.class, () -> verificationProvider.verifyRun(layoutMetaBlock, Set.of(artifact)));
+        assertThat(error.getMessage(), is("failure"));
+    }
+
+    @Test
+    void verifyShouldRejectRunPastDeadline() {
+        verifications.add(lowPrio);
+        verificationProvider.init();
+        verificationBudget.setDeadline(50);
+        when(lowPrio.verify(any(VerificationContext.class))).thenAnswer(invocation -> {
+            Thread.sleep(100);
+            return VerificationRunResult.valid(false);
+        });
+        when(verificationContextsProvider.createPossibleVerificationContexts(any(), any(), any()))
+                .thenReturn(Stream.of(verificationContext, mock(VerificationContext.class)));
+
+        VerificationRejectedException exception = assertThrows(VerificationRejectedException.class, () -> verificationProvider.verifyRun(layoutMetaBlock, Set.of(artifact)));
+        assertThat(exception.getReason(), is(VerificationRejectedException.Reason.DEADLINE));
+        verify(lowPrio, times(1)).verify(any(VerificationContext.class));
+        verify(verificationResultCache, never()).put(any(), any(), any());
+    }
+
+    @AfterEach
+    void tearDown() {
+        verificationProvider.shutdown();
+    }
+
+    private void setupParallelMocking() {
+        verifications.add(lowPrio);
+        verificationProvider.setParallelism(4);
+        verificationProvider.setQueueCapacity(10);
+        verificationProvider.init();
+    }
+
     private void setupMocking() {
         when(lowPrio.getPriority()).thenReturn(Verification.Priority.RULES);
         when(highPrio.getPriority()).thenReturn(Verification.Priority.LAYOUT_METABLOCK_SIGNATURE);
-        when(verificationContextsProvider.createPossibleVerificationContexts(any(), any())).thenReturn(singletonList(verificationContext));
+        when(verificationContextsProvider.createPossibleVerificationContexts(any(), any(), any())).thenReturn(Stream.of(verificationContext));
         verifications.add(lowPrio);
         verifications.add(highPrio);
         verificationProvider.init();
@@ -0,0 +1,172 @@
+/*
+ * Argos Notary - A new way to secure the Software Supply Chain
+ *
+ * Copyright (C) 2019 - 2020 Rabobank Nederland
+ * Copyright (C) 2019 - 2021 Gerard Borst <gerard.borst@argosnotary.com>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package com.argosnotary.argos.service.domain.verification;
+
+import com.argosnotary.argos.domain.crypto.Signature;
+import com.argosnotary.argos.domain.layout.Layout;
+import com.argosnotary.argos.domain.layout.LayoutMetaBlock;
+import com.argosnotary.argos.domain.layout.Step;
+import com.argosnotary.argos.domain.link.Artifact;
+import com.argosnotary.argos.domain.link.Link;
+import com.argosnotary.argos.domain.link.LinkMetaBlock;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.not;
+import static org.hamcrest.CoreMatchers.sameInstance;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class VerificationResultCacheTest {
+
+    private static final String SUPPLY_CHAIN_ID = "supplyChainId";
+    private static final String OTHER_SUPPLY_CHAIN_ID = "otherSupplyChainId";
+
+    @Mock
+    private VerificationResultRepository verificationResultRepository;
+
+    private SimpleMeterRegistry meterRegistry;
+
+    private VerificationResultCache cache;
+
+    private LayoutMetaBlock layoutMetaBlock;
+
+    private CompiledLayout compiledLayout;
+
+    private LinkMetaBlock linkMetaBlock1;
+
+    private LinkMetaBlock linkMetaBlock2;
+
+    private Set<Artifact> artifacts;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        cache = new VerificationResultCache(meterRegistry, verificationResultRepository);
+        layoutMetaBlock = LayoutMetaBlock.builder()
+                .supplyChainId(SUPPLY_CHAIN_ID)
+                .layout(Layout.builder().steps(List.of(Step.builder().name("step").build())).build())
+                .signatures(List.of(signature("layoutKey", "layoutSignature")))
+                .build();
+        compiledLayout = CompiledLayout.compile(layoutMetaBlock);
+        linkMetaBlock1 = linkMetaBlock("file1", "sig1");
+        linkMetaBlock2 = linkMetaBlock("file2", "sig2");
+        artifacts = Set.of(new Artifact("file1", "hash1"), new Artifact("file2", "hash2"));
+    }
+
+    @Test
+    void keyDoesNotDependOnLinkOrder() {
+        assertThat(cache.createKey(compiledLayout, List.of(linkMetaBlock1, linkMetaBlock2), artifacts),
+                is(cache.createKey(compiledLayout, List.of(linkMetaBlock2, linkMetaBlock1), artifacts)));
+    }
+
+    @Test
+    void keyChangesWithInput() {
+        String key = cache.createKey(compiledLayout, List.of(linkMetaBlock1, linkMetaBlock2), artifacts);
+        assertThat(cache.createKey(compiledLayout, List.of(linkMetaBlock1), artifacts), not(key));
+        assertThat(cache.createKey(compiledLayout, List.of(linkMetaBlock1, linkMetaBlock("file2", "otherSig")), artifacts), not(key));
+        assertThat(cache.createKey(compiledLayout, List.of(linkMetaBlock1, linkMetaBlock2), Set.of(new Artifact("file1", "hash1"))), not(key));
+        LayoutMetaBlock otherLayoutMetaBlock = LayoutMetaBlock.builder()
+                .supplyChainId(SUPPLY_CHAIN_ID)
+                .layout(Layout.builder().steps(List.of(Step.builder().name("otherStep").build())).build())
+                .signatures(layoutMetaBlock.getSignatures())
+                .build();
+        assertThat(cache.createKey(CompiledLayout.compile(otherLayoutMetaBlock), List.of(linkMetaBlock1, linkMetaBlock2), artifacts), not(key));
+    }
+
+    @Test
+    void keyKeepsPartBoundaries() {
+        assertThat(cache.createKey(compiledLayout, List.of(), Set.of(new Artifact("a", "bc"))),
+                not(cache.createKey(compiledLayout, List.of(), Set.of(new Artifact("ab", "c")))));
+    }
+
+    @Test
+    void getAfterPut() {
+        VerificationRunResult result = VerificationRunResult.okay();
+        assertThat(cache.get("key"), is(Optional.empty()));
+        cache.put(SUPPLY_CHAIN_ID, "key", result);
+        assertThat(cache.get("key").get(), sameInstance(result));
+        assertThat(count("hit"), is(1.0));
+        assertThat(count("miss"), is(1.0));
+        verifyNoInteractions(verificationResultRepository);
+    }
+
+    @Test
+    void evictOnlyRemovesResultsOfSupplyChain() {
+        cache.put(SUPPLY_CHAIN_ID, "key1", VerificationRunResult.okay());
+        cache.put(OTHER_SUPPLY_CHAIN_ID, "key2", VerificationRunResult.okay());
+        cache.evict(SUPPLY_CHAIN_ID);
+        assertThat(cache.get("key1"), is(Optional.empty()));
+        assertThat(cache.get("key2").isPresent(), is(true));
+        assertThat(cache.size(), is(1));
+    }
+
+    @Test
+    void evictsLeastRecentlyUsed() {
+        cache.setMaxSize(1);
+        cache.put(SUPPLY_CHAIN_ID, "key1", VerificationRunResult.okay());
+        cache.put(SUPPLY_CHAIN_ID, "key2", VerificationRunResult.okay());
+        assertThat(cache.size(), is(1));
+        assertThat(cache.get("key1"), is(Optional.empty()));
+    }
+
+    @Test
+    void persistentTier() {
+        cache.setPersistent(true);
+        VerificationRunResult result = VerificationRunResult.okay();
+        when(verificationResultRepository.findByKey("key")).thenReturn(Optional.of(result));
+        assertThat(cache.get("key").get(), sameInstance(result));
+        assertThat(count("persistentHit"), is(1.0));
+
+        cache.put(SUPPLY_CHAIN_ID, "key", result);
+        verify(verificationResultRepository).save(SUPPLY_CHAIN_ID, "key", result);
+        cache.evict(SUPPLY_CHAIN_ID);
+        verify(verificationResultRepository).deleteBySupplyChainId(SUPPLY_CHAIN_ID);
+    }
+
+    private static LinkMetaBlock linkMetaBlock(String uri, String signature) {
+        return LinkMetaBlock.builder()
+                .supplyChainId(SUPPLY_CHAIN_ID)
+                .link(Link.builder().stepName("step").products(List.of(new Artifact(uri, "hash"))).build())
+                .signature(signature("linkKey", signature))
+                .build();
+    }
+
+    private static Signature signature(String keyId, String signature) {
+        return Signature.builder().keyId(keyId).signature(signature).build();
+    }
+
+    private double count(String result) {
+        return meterRegistry.get("argos.verification.result.cache").tag("result", result).counter().count();
+    }
+}
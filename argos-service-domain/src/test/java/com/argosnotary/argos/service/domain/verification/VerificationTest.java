@@ -32,6 +32,7 @@ import java.util.List;
 import java.util.Map;
 import java.util.Set;
 
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -83,6 +84,9 @@ class VerificationTest {
     @Mock
     private LinkMetaBlockRepository linkMetaBlockRepository;
 
+    @Mock
+    private VerificationResultRepository verificationResultRepository;
+
     private List<Verification> verifications;
     
     private RulesVerification rulesVerification;
@@ -127,25 +131,27 @@ class VerificationTest {
                 new ModifyRuleVerification(),
                 new RequireRuleVerification()));
         rulesVerification.init();
+        StepAuthorizedKeyIdVerification stepAuthorizedKeyIdVerification = new StepAuthorizedKeyIdVerification();
+        LinkMetaBlockSignatureVerification linkMetaBlockSignatureVerification = new LinkMetaBlockSignatureVerification(new LinkSignatureCache(new SimpleMeterRegistry()));
+        RequiredNumberOfLinksVerification requiredNumberOfLinksVerification = new RequiredNumberOfLinksVerification();
+        VerificationBudget verificationBudget = new VerificationBudget(new SimpleMeterRegistry());
         verifications = Arrays.asList(
                 new LayoutAuthorizedKeyIdVerification(),
                 new LayoutMetaBlockSignatureVerification(),
-                new LinkMetaBlockSignatureVerification(),
-                new RequiredNumberOfLinksVerification(),
+                linkMetaBlockSignatureVerification,
+                requiredNumberOfLinksVerification,
                 rulesVerification,
-                new StepAuthorizedKeyIdVerification()
+                stepAuthorizedKeyIdVerification
                 );
-        verificationContextsProvider = new VerificationContextsProvider(linkMetaBlockRepository, List.of(
-                new AllowRuleVerification(), 
-                new CreateRuleVerification(),
-                new DeleteRuleVerification(),
-                new DisallowRuleVerification(),
-                new MatchRuleVerification(),
-                new ModifyRuleVerification(),
-                new RequireRuleVerification()));
-        verificationContextsProvider.init();
+        verificationContextsProvider = new VerificationContextsProvider(linkMetaBlockRepository,
+                stepAuthorizedKeyIdVerification,
+                linkMetaBlockSignatureVerification,
+                requiredNumberOfLinksVerification,
+                rulesVerification,
+                verificationBudget);
         verifications.sort(Comparator.comparing(Verification::getPriority));
-        verificationProvider = new VerificationProvider(verifications, verificationContextsProvider);
+        verificationProvider = new VerificationProvider(verifications, verificationContextsProvider, linkMetaBlockRepository,
+                new VerificationResultCache(new SimpleMeterRegistry(), verificationResultRepository), new CompiledLayoutCache(new SimpleMeterRegistry()), verificationBudget);
         verificationProvider.init();
     
         step1LinkBuilder = Link.builder()
@@ -39,4 +39,12 @@ public interface LinkBuilder extends Serializable {
     LinkMetaBlock create(char[] signingKeyPassphrase);
 
     void store(char[] signingKeyPassphrase);
+
+    /**
+     * Uploads created links of the supply chain in one request, a link with an invalid signature does not
+     * prevent the others from being stored.
+     *
+     * @return the upload result of every link in the same order
+     */
+    List<LinkUploadResult> storeAll(List<LinkMetaBlock> linkMetaBlocks, char[] signingKeyPassphrase);
 }
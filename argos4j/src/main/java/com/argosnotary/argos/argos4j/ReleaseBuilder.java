@@ -21,9 +21,17 @@ package com.argosnotary.argos.argos4j;
 
 import com.argosnotary.argos.domain.release.ReleaseResult;
 
+import java.util.concurrent.CompletableFuture;
+
 public interface ReleaseBuilder {
 
     ReleaseBuilder addFileCollector(FileCollector collector);
 
     ReleaseResult release(char[] keyPassphrase);
+
+    /**
+     * Submits the release as a job on the argos service and completes when the job is finished,
+     * the calling thread is not blocked while the release is verified.
+     */
+    CompletableFuture<ReleaseResult> releaseAsync(char[] keyPassphrase);
 }
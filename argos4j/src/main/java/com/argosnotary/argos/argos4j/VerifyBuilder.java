@@ -19,9 +19,20 @@
  */
 package com.argosnotary.argos.argos4j;
 
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
 public interface VerifyBuilder {
 
     VerifyBuilder addFileCollector(FileCollector collector);
 
     VerificationResult verify();
+
+    CompletableFuture<VerificationResult> verifyAsync();
+
+    /**
+     * Verifies the artifacts of every file collector as a separate artifact set in one request, the results are
+     * in the order in which the file collectors were added.
+     */
+    List<VerificationResult> verifyBatch();
 }
@@ -23,19 +23,26 @@ package com.argosnotary.argos.argos4j.internal;
 import com.fasterxml.jackson.annotation.JsonInclude;
 import com.argosnotary.argos.argos4j.Argos4jError;
 import com.argosnotary.argos.argos4j.Argos4jSettings;
+import com.argosnotary.argos.argos4j.LinkUploadResult;
 import com.argosnotary.argos.argos4j.VerificationResult;
 import com.argosnotary.argos.argos4j.internal.mapper.RestMapper;
 import com.argosnotary.argos.argos4j.rest.api.ApiClient;
+import com.argosnotary.argos.argos4j.rest.api.client.JobApi;
 import com.argosnotary.argos.argos4j.rest.api.client.LinkApi;
 import com.argosnotary.argos.argos4j.rest.api.client.ReleaseApi;
 import com.argosnotary.argos.argos4j.rest.api.client.ServiceAccountApi;
 import com.argosnotary.argos.argos4j.rest.api.client.SupplychainApi;
 import com.argosnotary.argos.argos4j.rest.api.client.VerificationApi;
 import com.argosnotary.argos.argos4j.rest.api.model.RestArtifact;
+import com.argosnotary.argos.argos4j.rest.api.model.RestJob;
+import com.argosnotary.argos.argos4j.rest.api.model.RestJobStatus;
 import com.argosnotary.argos.argos4j.rest.api.model.RestLinkMetaBlock;
+import com.argosnotary.argos.argos4j.rest.api.model.RestLinkMetaBlockBatch;
 import com.argosnotary.argos.argos4j.rest.api.model.RestReleaseArtifacts;
 import com.argosnotary.argos.argos4j.rest.api.model.RestReleaseResult;
 import com.argosnotary.argos.argos4j.rest.api.model.RestServiceAccountKeyPair;
+import com.argosnotary.argos.argos4j.rest.api.model.RestVerificationBatch;
+import com.argosnotary.argos.argos4j.rest.api.model.RestVerificationQuery;
 import com.argosnotary.argos.domain.crypto.ServiceAccountKeyPair;
 import com.argosnotary.argos.domain.link.Artifact;
 import com.argosnotary.argos.domain.link.LinkMetaBlock;
@@ -45,9 +52,12 @@ import feign.FeignException;
 import org.mapstruct.factory.Mappers;
 
 import java.util.List;
+import java.util.stream.Collectors;
 
 public class ArgosServiceClient {
 
+    private static final long JOB_POLL_INTERVAL = 1000;
+
     private final Argos4jSettings settings;
     private final ApiClient apiClient;
     
@@ -75,6 +85,21 @@ public class ArgosServiceClient {
         }
     }
 
+    public List<LinkUploadResult> uploadLinkMetaBlocksToService(List<LinkMetaBlock> linkMetaBlocks) {
+        try {
+            LinkApi linkApi = apiClient.buildClient(LinkApi.class);
+            RestMapper restMapper = Mappers.getMapper(RestMapper.class);
+            List<RestLinkMetaBlock> restLinkMetaBlocks = linkMetaBlocks.stream()
+                    .map(restMapper::convertToRestLinkMetaBlock)
+                    .collect(Collectors.toList());
+            return linkApi.createLinks(getSupplyChainId(), new RestLinkMetaBlockBatch().linkMetaBlocks(restLinkMetaBlocks)).stream()
+                    .map(result -> LinkUploadResult.builder().created(result.getCreated()).error(result.getError()).build())
+                    .collect(Collectors.toList());
+        } catch (FeignException e) {
+            throw convertToArgos4jError(e);
+        }
+    }
+
     public VerificationResult verify(List<String> hashes, List<String> paths) {
         try {
             VerificationApi verificationApi = apiClient.buildClient(VerificationApi.class);
@@ -86,6 +111,20 @@ public class ArgosServiceClient {
         }
     }
 
+    public List<VerificationResult> verifyBatch(List<List<String>> hashesList, List<String> paths) {
+        try {
+            VerificationApi verificationApi = apiClient.buildClient(VerificationApi.class);
+            List<RestVerificationQuery> queries = hashesList.stream()
+                    .map(hashes -> new RestVerificationQuery().artifactHashes(hashes).paths(paths))
+                    .collect(Collectors.toList());
+            return verificationApi.getVerificationBatch(new RestVerificationBatch().queries(queries)).stream()
+                    .map(result -> VerificationResult.builder().runIsValid(result.getRunIsValid()).build())
+                    .collect(Collectors.toList());
+        } catch (FeignException e) {
+            throw convertToArgos4jError(e);
+        }
+    }
+
     public ReleaseResult release(List<List<Artifact>> artifactsList) {
         try {
             ReleaseApi releaseApi = apiClient.buildClient(ReleaseApi.class);
@@ -97,6 +136,25 @@ public class ArgosServiceClient {
         }
     }
 
+    public ReleaseResult releaseAsJob(List<List<Artifact>> artifactsList) {
+        try {
+            JobApi jobApi = apiClient.buildClient(JobApi.class);
+            String supplyChainId = getSupplyChainId();
+            List<List<RestArtifact>> restArtifactsList = Mappers.getMapper(RestMapper.class).convertToRestArtifactsList(artifactsList);
+            RestJob job = jobApi.submitReleaseJob(supplyChainId, new RestReleaseArtifacts().releaseArtifacts(restArtifactsList));
+            while (!isFinished(job)) {
+                waitForJob();
+                job = jobApi.getJob(supplyChainId, job.getId());
+            }
+            if (job.getStatus() == RestJobStatus.FAILED) {
+                throw new Argos4jError(job.getError());
+            }
+            return Mappers.getMapper(RestMapper.class).convertToReleaseResult(job.getReleaseResult());
+        } catch (FeignException e) {
+            throw convertToArgos4jError(e);
+        }
+    }
+
     public RestServiceAccountKeyPair getKeyPair() {
         try {
             ServiceAccountApi keyApi = apiClient.buildClient(ServiceAccountApi.class);
@@ -110,6 +168,19 @@ public class ArgosServiceClient {
         return new Argos4jError(e.getMessage(), e);
     }
 
+    private static void waitForJob() {
+        try {
+            Thread.sleep(JOB_POLL_INTERVAL);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new Argos4jError("interrupted while waiting for job", e);
+        }
+    }
+
+    private static boolean isFinished(RestJob job) {
+        return job.getStatus() == RestJobStatus.DONE || job.getStatus() == RestJobStatus.FAILED;
+    }
+
     private String getSupplyChainId() {
         SupplychainApi supplychainApi = apiClient.buildClient(SupplychainApi.class);
         return supplychainApi.getSupplyChainByPath(settings.getSupplyChainName(), settings.getPath()).getId();
@@ -24,6 +24,7 @@ import com.argosnotary.argos.argos4j.Argos4jSettings;
 import com.argosnotary.argos.argos4j.FileCollector;
 import com.argosnotary.argos.argos4j.LinkBuilder;
 import com.argosnotary.argos.argos4j.LinkBuilderSettings;
+import com.argosnotary.argos.argos4j.LinkUploadResult;
 import com.argosnotary.argos.argos4j.internal.mapper.RestMapper;
 import com.argosnotary.argos.domain.ArgosError;
 import com.argosnotary.argos.domain.crypto.ServiceAccountKeyPair;
@@ -94,4 +95,10 @@ public class LinkBuilderImpl implements LinkBuilder {
         ArgosServiceClient argosServiceClient = new ArgosServiceClient(settings, signingKeyPassphrase);
         argosServiceClient.uploadLinkMetaBlockToService(create(signingKeyPassphrase));
     }
+
+    @Override
+    public List<LinkUploadResult> storeAll(List<LinkMetaBlock> linkMetaBlocks, char[] signingKeyPassphrase) {
+        ArgosServiceClient argosServiceClient = new ArgosServiceClient(settings, signingKeyPassphrase);
+        return argosServiceClient.uploadLinkMetaBlocksToService(linkMetaBlocks);
+    }
 }
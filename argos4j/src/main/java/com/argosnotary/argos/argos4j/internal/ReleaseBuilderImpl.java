@@ -30,6 +30,7 @@ import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
 
 @RequiredArgsConstructor
 @Slf4j
@@ -52,4 +53,14 @@ public class ReleaseBuilderImpl implements ReleaseBuilder {
         return new ArgosServiceClient(settings, keyPassphrase).release(artifactsList);
     }
 
+    @Override
+    public CompletableFuture<ReleaseResult> releaseAsync(char[] keyPassphrase) {
+        ArgosServiceClient client = new ArgosServiceClient(settings, keyPassphrase);
+        return CompletableFuture.supplyAsync(() -> {
+            List<List<Artifact>> artifactsList = artifactListBuilder.collectAsArtifactLists();
+            log.info("release artifacts {}", artifactsList);
+            return client.releaseAsJob(artifactsList);
+        });
+    }
+
 }
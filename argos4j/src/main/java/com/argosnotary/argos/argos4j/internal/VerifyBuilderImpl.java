@@ -29,6 +29,7 @@ import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
 import java.util.stream.Collectors;
 
 @RequiredArgsConstructor
@@ -55,4 +56,20 @@ public class VerifyBuilderImpl implements VerifyBuilder {
         return new ArgosServiceClient(settings).verify(artifacts.stream().map(Artifact::getHash).collect(Collectors.toList()), paths);
     }
 
+    @Override
+    public CompletableFuture<VerificationResult> verifyAsync() {
+        return CompletableFuture.supplyAsync(this::verify);
+    }
+
+    @Override
+    public List<VerificationResult> verifyBatch() {
+        List<List<Artifact>> artifactsList = artifactListBuilder.collectAsArtifactLists();
+
+        log.info("verify artifact sets {}", artifactsList);
+        List<List<String>> hashesList = artifactsList.stream()
+                .map(artifacts -> artifacts.stream().map(Artifact::getHash).collect(Collectors.toList()))
+                .collect(Collectors.toList());
+        return new ArgosServiceClient(settings).verifyBatch(hashesList, paths);
+    }
+
 }
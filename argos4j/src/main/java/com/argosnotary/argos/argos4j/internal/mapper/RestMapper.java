@@ -30,12 +30,14 @@ import com.argosnotary.argos.domain.link.LinkMetaBlock;
 import com.argosnotary.argos.domain.release.ReleaseResult;
 
 import org.mapstruct.Mapper;
+import org.mapstruct.Mapping;
 
 import java.util.List;
 
 @Mapper
 public interface RestMapper {
 
+    @Mapping(target = "facts", ignore = true)
     LinkMetaBlock convertFromRestLinkMetaBlock(RestLinkMetaBlock metaBlock);
     
     ServiceAccountKeyPair convertFromRestServiceAccountKeyPair(RestServiceAccountKeyPair keyPair);
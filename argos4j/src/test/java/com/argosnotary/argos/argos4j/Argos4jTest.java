@@ -28,6 +28,7 @@ import com.argosnotary.argos.argos4j.internal.ArtifactListBuilderImpl;
 import com.argosnotary.argos.argos4j.rest.api.model.RestKeyPair;
 import com.argosnotary.argos.argos4j.rest.api.model.RestReleaseDossierMetaData;
 import com.argosnotary.argos.argos4j.rest.api.model.RestReleaseResult;
+import com.argosnotary.argos.domain.link.LinkMetaBlock;
 import com.argosnotary.argos.domain.release.ReleaseResult;
 
 import org.apache.commons.io.FileUtils;
@@ -41,7 +42,9 @@ import java.io.File;
 import java.io.IOException;
 import java.net.ServerSocket;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.ExecutionException;
 
 import static com.github.tomakehurst.wiremock.client.WireMock.badRequest;
 import static com.github.tomakehurst.wiremock.client.WireMock.get;
@@ -171,6 +174,41 @@ class Argos4jTest {
         assertThat(error.getMessage(), containsString("400"));
     }
 
+    @Test
+    void storeAllLinks() {
+        wireMockServer.stubFor(get(urlEqualTo("/api/supplychain?name=supplyChainName&path=rootLabel&path=subLabel"))
+                .willReturn(ok().withBody("{\"name\":\"supplyChainName\",\"id\":\"supplyChainId\",\"parentLabelId\":\"parentLabelId\"}")));
+        wireMockServer.stubFor(post(urlEqualTo("/api/supplychain/supplyChainId/link/bulk"))
+                .willReturn(ok().withBody("[{\"created\":true},{\"created\":false,\"error\":\"invalid signature\"}]")));
+        wireMockServer.stubFor(get(urlEqualTo("/api/serviceaccount/me/activekey")).willReturn(ok().withBody(restKeyPairRest)));
+        FileCollector fileCollector = LocalFileCollector.builder().path(sharedTempDir.toPath()).basePath(sharedTempDir.toPath()).build();
+        linkBuilder.collectMaterials(fileCollector);
+        LinkMetaBlock linkMetaBlock = linkBuilder.create(KEY_PASSPHRASE);
+
+        List<LinkUploadResult> results = linkBuilder.storeAll(Arrays.asList(linkMetaBlock, linkMetaBlock), KEY_PASSPHRASE);
+        assertThat(results, hasSize(2));
+        assertThat(results.get(0).isCreated(), is(true));
+        assertThat(results.get(1).isCreated(), is(false));
+        assertThat(results.get(1).getError(), is("invalid signature"));
+
+        List<LoggedRequest> requests = wireMockServer.findRequestsMatching(RequestPattern.everything()).getRequests();
+        assertThat(requests, hasSize(3));
+        assertThat(requests.get(2).getUrl(), is("/api/supplychain/supplyChainId/link/bulk"));
+        assertThat(requests.get(2).getBodyAsString(), startsWith("{\"linkMetaBlocks\":[{\"signature\":"));
+    }
+
+    @Test
+    void storeAllLinksFailed() {
+        wireMockServer.stubFor(get(urlEqualTo("/api/supplychain?name=supplyChainName&path=rootLabel&path=subLabel"))
+                .willReturn(ok().withBody("{\"name\":\"supplyChainName\",\"id\":\"supplyChainId\",\"parentLabelId\":\"parentLabelId\"}")));
+        wireMockServer.stubFor(post(urlEqualTo("/api/supplychain/supplyChainId/link/bulk")).willReturn(serverError()));
+        wireMockServer.stubFor(get(urlEqualTo("/api/serviceaccount/me/activekey")).willReturn(ok().withBody(restKeyPairRest)));
+        LinkMetaBlock linkMetaBlock = linkBuilder.create(KEY_PASSPHRASE);
+        List<LinkMetaBlock> linkMetaBlocks = Collections.singletonList(linkMetaBlock);
+        Argos4jError error = assertThrows(Argos4jError.class, () -> linkBuilder.storeAll(linkMetaBlocks, KEY_PASSPHRASE));
+        assertThat(error.getMessage(), containsString("500"));
+    }
+
     @Test
     void storeMetaBlockLinkForDirectoryUnknownKeyId() {
         wireMockServer.stubFor(get(urlEqualTo("/api/serviceaccount/me/activekey")).willReturn(notFound()));
@@ -231,6 +269,79 @@ class Argos4jTest {
         assertThat(requests.get(1).getBodyAsString(), is("{\"releaseArtifacts\":[[{\"uri\":\"text.txt\",\"hash\":\"cb6bdad36690e8024e7df13e6796ae6603f2cb9cf9f989c9ff939b2ecebdcb91\"}]]}"));
     }
     
+    @Test
+    void releaseAsync() throws Exception {
+        wireMockServer.stubFor(get(urlEqualTo("/api/supplychain?name=supplyChainName&path=rootLabel&path=subLabel"))
+                .willReturn(ok().withBody("{\"name\":\"supplyChainName\",\"id\":\"supplyChainId\",\"parentLabelId\":\"parentLabelId\"}")));
+        wireMockServer.stubFor(post(urlEqualTo("/api/supplychain/supplyChainId/release/job"))
+                .willReturn(status(202).withBody("{\"id\":\"jobId\",\"type\":\"RELEASE\",\"status\":\"QUEUED\"}")));
+        wireMockServer.stubFor(get(urlEqualTo("/api/supplychain/supplyChainId/job/jobId"))
+                .willReturn(ok().withBody("{\"id\":\"jobId\",\"type\":\"RELEASE\",\"status\":\"DONE\",\"releaseResult\":" + releaseResult + "}")));
+
+        ReleaseResult result = releaseBuilder
+                .addFileCollector(LocalFileCollector
+                        .builder().path(sharedTempDir.toPath()).basePath(sharedTempDir.toPath()).build())
+                .releaseAsync("test".toCharArray()).get();
+
+        assertThat(result.isReleaseIsValid(), is(true));
+
+        List<LoggedRequest> requests = wireMockServer.findRequestsMatching(RequestPattern.everything()).getRequests();
+        assertThat(requests, hasSize(3));
+        assertThat(requests.get(1).getBodyAsString(), is("{\"releaseArtifacts\":[[{\"uri\":\"text.txt\",\"hash\":\"cb6bdad36690e8024e7df13e6796ae6603f2cb9cf9f989c9ff939b2ecebdcb91\"}]]}"));
+    }
+
+    @Test
+    void releaseAsyncFailed() {
+        wireMockServer.stubFor(get(urlEqualTo("/api/supplychain?name=supplyChainName&path=rootLabel&path=subLabel"))
+                .willReturn(ok().withBody("{\"name\":\"supplyChainName\",\"id\":\"supplyChainId\",\"parentLabelId\":\"parentLabelId\"}")));
+        wireMockServer.stubFor(post(urlEqualTo("/api/supplychain/supplyChainId/release/job"))
+                .willReturn(status(202).withBody("{\"id\":\"jobId\",\"type\":\"RELEASE\",\"status\":\"FAILED\",\"error\":\"no layout\"}")));
+
+        ExecutionException error = assertThrows(ExecutionException.class, () -> releaseBuilder
+                .addFileCollector(LocalFileCollector
+                        .builder().path(sharedTempDir.toPath()).basePath(sharedTempDir.toPath()).build())
+                .releaseAsync("test".toCharArray()).get());
+        assertThat(error.getCause() instanceof Argos4jError, is(true));
+        assertThat(error.getCause().getMessage(), is("no layout"));
+    }
+
+    @Test
+    void verifyAsync() throws Exception {
+        wireMockServer.stubFor(get(urlEqualTo("/api/supplychain/verification?artifactHashes=cb6bdad36690e8024e7df13e6796ae6603f2cb9cf9f989c9ff939b2ecebdcb91"))
+                .willReturn(ok().withBody("{\"runIsValid\":true}")));
+
+        assertThat(verifyBuilder.addFileCollector(LocalFileCollector.builder().path(sharedTempDir.toPath()).basePath(sharedTempDir.toPath()).build())
+                .verifyAsync().get().isRunIsValid(), is(true));
+    }
+
+    @Test
+    void verifyBatch() {
+        wireMockServer.stubFor(post(urlEqualTo("/api/supplychain/verification/batch"))
+                .willReturn(ok().withBody("[{\"runIsValid\":true},{\"runIsValid\":false}]")));
+
+        List<VerificationResult> results = verifyBuilder
+                .addFileCollector(LocalFileCollector.builder().path(sharedTempDir.toPath()).basePath(sharedTempDir.toPath()).build())
+                .addFileCollector(LocalFileCollector.builder().path(sharedTempDir.toPath()).basePath(sharedTempDir.toPath()).build())
+                .verifyBatch();
+        assertThat(results, hasSize(2));
+        assertThat(results.get(0).isRunIsValid(), is(true));
+        assertThat(results.get(1).isRunIsValid(), is(false));
+
+        List<LoggedRequest> requests = wireMockServer.findRequestsMatching(RequestPattern.everything()).getRequests();
+        assertThat(requests, hasSize(1));
+        assertThat(requests.get(0).getBodyAsString(), is("{\"queries\":[{\"artifactHashes\":[\"cb6bdad36690e8024e7df13e6796ae6603f2cb9cf9f989c9ff939b2ecebdcb91\"]},{\"artifactHashes\":[\"cb6bdad36690e8024e7df13e6796ae6603f2cb9cf9f989c9ff939b2ecebdcb91\"]}]}"));
+    }
+
+    @Test
+    void verifyBatchBadRequest() {
+        wireMockServer.stubFor(post(urlEqualTo("/api/supplychain/verification/batch")).willReturn(status(400)));
+
+        Argos4jError error = assertThrows(Argos4jError.class, () -> verifyBuilder.addFileCollector(LocalFileCollector.builder()
+                .path(sharedTempDir.toPath()).basePath(sharedTempDir.toPath()).build())
+                .verifyBatch());
+        assertThat(error.getMessage(), startsWith("[400 Bad Request] during [POST] to [http://localhost:"));
+    }
+
     @Test
     void getArtifactListBuilder() {
         assertTrue(Argos4j.getArtifactListBuilder() instanceof ArtifactListBuilderImpl);